@@ -50,6 +50,9 @@ public abstract class AbstractCsvTool {
 
   protected static final String TIME_ZONE_ARGS = "tz";
   protected static final String TIME_ZONE_NAME = "timeZone";
+
+  protected static final String THREAD_NUM_ARGS = "tn";
+  protected static final String THREAD_NUM_NAME = "threadNum";
   protected static final int MAX_HELP_CONSOLE_WIDTH = 92;
   protected static final String[] SUPPORT_TIME_FORMAT = new String[]{"default",
       "long",
@@ -72,6 +75,7 @@ public abstract class AbstractCsvTool {
   protected static String timeZoneID;
   protected static String timeFormat;
   protected static Session session;
+  protected static int threadNum = Runtime.getRuntime().availableProcessors();
 
   AbstractCsvTool() {}
   
@@ -106,6 +110,29 @@ public abstract class AbstractCsvTool {
     }
   }
 
+  protected static void parseThreadNum(CommandLine commandLine) throws ArgsErrorException {
+    String str = commandLine.getOptionValue(THREAD_NUM_ARGS);
+    if (str == null) {
+      return;
+    }
+    try {
+      threadNum = Integer.parseInt(str);
+    } catch (NumberFormatException e) {
+      threadNum = 0;
+    }
+    if (threadNum <= 0) {
+      String msg = String.format("Option '%s' should be a positive integer, but is %s",
+          THREAD_NUM_NAME, str);
+      System.out.println(msg);
+      throw new ArgsErrorException(msg);
+    }
+  }
+
+  protected static Option createThreadNumOption(String desc) {
+    return Option.builder(THREAD_NUM_ARGS).argName(THREAD_NUM_NAME).hasArg()
+        .desc(desc + ", the number of processors by default (optional)").build();
+  }
+
   protected static boolean checkTimeFormat() {
     for (String format : SUPPORT_TIME_FORMAT) {
       if (timeFormat.equals(format)) {
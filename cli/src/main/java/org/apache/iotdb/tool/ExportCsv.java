@@ -28,7 +28,17 @@ import java.io.IOException;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import jline.console.ConsoleReader;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -43,6 +53,7 @@ import org.apache.iotdb.rpc.RpcUtils;
 import org.apache.iotdb.rpc.StatementExecutionException;
 import org.apache.iotdb.session.Session;
 import org.apache.iotdb.session.SessionDataSet;
+import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Field;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
@@ -63,12 +74,20 @@ public class ExportCsv extends AbstractCsvTool {
   private static final String SQL_FILE_ARGS = "s";
   private static final String SQL_FILE_NAME = "sqlfile";
 
+  private static final String DEVICE_PATH_ARGS = "dp";
+  private static final String DEVICE_PATH_NAME = "devicePath";
+
+  private static final String TIME_INTERVAL_ARGS = "ti";
+  private static final String TIME_INTERVAL_NAME = "timeInterval";
+
   private static final String TSFILEDB_CLI_PREFIX = "ExportCsv";
 
   private static final String DUMP_FILE_NAME_DEFAULT = "dump";
   private static String targetFile = DUMP_FILE_NAME_DEFAULT;
 
   private static String targetDirectory;
+  private static String devicePath;
+  private static long timeInterval;
 
   private static final int EXPORT_PER_LINE_COUNT = 10000;
 
@@ -116,7 +135,9 @@ public class ExportCsv extends AbstractCsvTool {
       session.open(false);
       setTimeZone();
 
-      if (sqlFile == null) {
+      if (devicePath != null) {
+        dumpDevices();
+      } else if (sqlFile == null) {
         sql = reader.readLine(TSFILEDB_CLI_PREFIX + "> please input query: ");
         String[] values = sql.trim().split(";");
         for (int i = 0; i < values.length; i++) {
@@ -131,6 +152,9 @@ public class ExportCsv extends AbstractCsvTool {
       System.out.println("Invalid args: " + e.getMessage());
     } catch (IoTDBConnectionException | StatementExecutionException e) {
       System.out.println("Connect failed because " + e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      System.out.println("Interrupted when exporting");
     } finally {
       reader.close();
       if (session != null) {
@@ -147,6 +171,20 @@ public class ExportCsv extends AbstractCsvTool {
   private static void parseSpecialParams(CommandLine commandLine)
       throws ArgsErrorException {
     targetDirectory = checkRequiredArg(TARGET_DIR_ARGS, TARGET_DIR_NAME, commandLine);
+    devicePath = commandLine.getOptionValue(DEVICE_PATH_ARGS);
+    String interval = commandLine.getOptionValue(TIME_INTERVAL_ARGS);
+    try {
+      timeInterval = interval == null ? 0 : Long.parseLong(interval);
+    } catch (NumberFormatException e) {
+      timeInterval = -1;
+    }
+    if (timeInterval < 0) {
+      String msg = String.format("Option '%s' should be a positive integer, but is %s",
+          TIME_INTERVAL_NAME, interval);
+      System.out.println(msg);
+      throw new ArgsErrorException(msg);
+    }
+    parseThreadNum(commandLine);
     targetFile = commandLine.getOptionValue(TARGET_FILE_ARGS);
     if (targetFile == null) {
       targetFile = DUMP_FILE_NAME_DEFAULT;
@@ -182,6 +220,20 @@ public class ExportCsv extends AbstractCsvTool {
         .desc("SQL File Path (optional)").build();
     options.addOption(opSqlFile);
 
+    Option opDevicePath = Option.builder(DEVICE_PATH_ARGS).argName(DEVICE_PATH_NAME).hasArg()
+        .desc("Export each device under the path into its own files instead of the result "
+            + "of queries, e.g., root.sg (optional)").build();
+    options.addOption(opDevicePath);
+
+    Option opTimeInterval = Option.builder(TIME_INTERVAL_ARGS).argName(TIME_INTERVAL_NAME)
+        .hasArg()
+        .desc("Split the data of each device into files of this time interval, "
+            + "only used with -dp (optional)").build();
+    options.addOption(opTimeInterval);
+
+    options.addOption(createThreadNumOption("The number of devices or time intervals exported "
+        + "concurrently, only used with -dp"));
+
     Option opTimeFormat = Option.builder(TIME_FORMAT_ARGS).argName(TIME_FORMAT_NAME).hasArg()
         .desc("Output time Format in csv file. "
             + "You can choose 1) timestamp, number, long 2) ISO8601, default 3) "
@@ -238,7 +290,7 @@ public class ExportCsv extends AbstractCsvTool {
       // write data in csv file
       writeMetadata(bw, sessionDataSet.getColumnNames());
 
-      int line = writeResultSet(sessionDataSet, bw);
+      int line = writeResultSet(sessionDataSet, bw, true);
       System.out
           .printf("Statement [%s] has dumped to file %s successfully! It costs "
                   + "%dms to export %d lines.%n", sql, path, System.currentTimeMillis() - startTime,
@@ -259,7 +311,138 @@ public class ExportCsv extends AbstractCsvTool {
     bw.write(columnNames.get(columnNames.size() - 1) + "\n");
   }
 
-  private static int writeResultSet(SessionDataSet rs, BufferedWriter bw)
+  /**
+   * Export the devices under devicePath, each device or each time interval of a device into its
+   * own file. The files are written by threadNum threads, each of them queries through its own
+   * session.
+   */
+  private static void dumpDevices()
+      throws IoTDBConnectionException, StatementExecutionException, InterruptedException {
+    List<String> devices = new ArrayList<>();
+    SessionDataSet deviceDataSet = session.executeQueryStatement("show devices " + devicePath);
+    while (deviceDataSet.hasNext()) {
+      devices.add(deviceDataSet.next().getFields().get(0).getStringValue());
+    }
+    deviceDataSet.closeOperationHandle();
+
+    // sql -> target file
+    Map<String, String> tasks = new LinkedHashMap<>();
+    for (String device : devices) {
+      // "select *" also selects the devices under the device, which are exported by themselves
+      String sql = "select " + String.join(", ", getMeasurements(device)) + " from " + device;
+      String fileName = targetDirectory + targetFile + "_" + device;
+      long[] timeRange = timeInterval > 0 ? getTimeRange(sql) : null;
+      if (timeRange == null) {
+        tasks.put(sql, fileName + ".csv");
+        continue;
+      }
+      int slice = 0;
+      for (long start = timeRange[0]; start <= timeRange[1] && start >= timeRange[0];
+          start += timeInterval) {
+        tasks.put(String.format("%s where time >= %d and time < %d", sql, start,
+            start + timeInterval), fileName + "_" + slice++ + ".csv");
+      }
+    }
+    System.out.printf("Start to export %d devices into %d files%n", devices.size(), tasks.size());
+
+    BlockingQueue<Session> sessions = new ArrayBlockingQueue<>(threadNum);
+    ExecutorService exporters = Executors.newFixedThreadPool(threadNum);
+    AtomicInteger finishedFileNum = new AtomicInteger();
+    AtomicLong exportedLineNum = new AtomicLong();
+    long startTime = System.currentTimeMillis();
+    try {
+      for (int i = 0; i < threadNum; i++) {
+        Session exportSession = new Session(host, Integer.parseInt(port), username, password);
+        exportSession.open(false);
+        sessions.add(exportSession);
+      }
+      for (Map.Entry<String, String> task : tasks.entrySet()) {
+        exporters.execute(() -> {
+          try {
+            Session exportSession = sessions.take();
+            try {
+              exportedLineNum.addAndGet(dumpResult(exportSession, task.getKey(),
+                  task.getValue()));
+            } finally {
+              sessions.add(exportSession);
+            }
+            System.out.printf("%d/%d files exported, %d lines in %dms%n",
+                finishedFileNum.incrementAndGet(), tasks.size(), exportedLineNum.get(),
+                System.currentTimeMillis() - startTime);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } catch (IOException | StatementExecutionException | IoTDBConnectionException e) {
+            System.out.println("Cannot dump result of " + task.getKey() + " because: "
+                + e.getMessage());
+          }
+        });
+      }
+      exporters.shutdown();
+      exporters.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } finally {
+      exporters.shutdownNow();
+      for (Session exportSession : sessions) {
+        exportSession.close();
+      }
+    }
+  }
+
+  /**
+   * @return the measurements of the device itself, without those of the devices under it
+   */
+  private static List<String> getMeasurements(String device)
+      throws IoTDBConnectionException, StatementExecutionException {
+    List<String> measurements = new ArrayList<>();
+    SessionDataSet dataSet = session.executeQueryStatement("show timeseries " + device);
+    try {
+      while (dataSet.hasNext()) {
+        String measurement = dataSet.next().getFields().get(0).getStringValue()
+            .substring(device.length() + 1);
+        if (!measurement.contains(TsFileConstant.PATH_SEPARATOR)) {
+          measurements.add(measurement);
+        }
+      }
+    } finally {
+      dataSet.closeOperationHandle();
+    }
+    return measurements;
+  }
+
+  /**
+   * @return the first and the last time of the query of a device, or null if it has no data
+   */
+  private static long[] getTimeRange(String sql)
+      throws IoTDBConnectionException, StatementExecutionException {
+    long[] timeRange = new long[2];
+    String[] suffixes = {" limit 1", " order by time desc limit 1"};
+    for (int i = 0; i < suffixes.length; i++) {
+      SessionDataSet dataSet = session.executeQueryStatement(sql + suffixes[i]);
+      try {
+        if (!dataSet.hasNext()) {
+          return null;
+        }
+        timeRange[i] = dataSet.next().getTimestamp();
+      } finally {
+        dataSet.closeOperationHandle();
+      }
+    }
+    return timeRange;
+  }
+
+  private static int dumpResult(Session exportSession, String sql, String path)
+      throws IOException, StatementExecutionException, IoTDBConnectionException {
+    try (BufferedWriter bw = new BufferedWriter(new FileWriter(path))) {
+      SessionDataSet sessionDataSet = exportSession.executeQueryStatement(sql);
+      try {
+        writeMetadata(bw, sessionDataSet.getColumnNames());
+        return writeResultSet(sessionDataSet, bw, false);
+      } finally {
+        sessionDataSet.closeOperationHandle();
+      }
+    }
+  }
+
+  private static int writeResultSet(SessionDataSet rs, BufferedWriter bw, boolean printProgress)
       throws IOException, StatementExecutionException, IoTDBConnectionException {
     int line = 0;
     long timestamp = System.currentTimeMillis();
@@ -269,7 +452,7 @@ public class ExportCsv extends AbstractCsvTool {
       writeTime(rowRecord.getTimestamp(), bw);
       writeValue(fields, bw);
       line++;
-      if (line % EXPORT_PER_LINE_COUNT == 0) {
+      if (printProgress && line % EXPORT_PER_LINE_COUNT == 0) {
         long tmp = System.currentTimeMillis();
         System.out.printf("%d lines have been exported, it takes %dms%n", line, (tmp - timestamp));
         timestamp = tmp;
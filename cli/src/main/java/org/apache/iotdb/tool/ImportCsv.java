@@ -30,6 +30,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 import jline.console.ConsoleReader;
 import me.tongfei.progressbar.ProgressBar;
 import org.apache.commons.cli.CommandLine;
@@ -43,6 +47,7 @@ import org.apache.iotdb.exception.ArgsErrorException;
 import org.apache.iotdb.rpc.IoTDBConnectionException;
 import org.apache.iotdb.rpc.StatementExecutionException;
 import org.apache.iotdb.session.Session;
+import org.apache.iotdb.session.pool.SessionPool;
 import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -61,9 +66,7 @@ public class ImportCsv extends AbstractCsvTool {
   private static final String TSFILEDB_CLI_PREFIX = "ImportCsv";
   private static final String ILLEGAL_PATH_ARGUMENT = "Path parameter is null";
 
-  // put these variable in here, because sonar fails.  have to extract some code into a function. nextNode method.
-  private static int i;
-  private static int startIndex;
+  private static final int BATCH_LINE_NUM = 10000;
 
   /**
    * create the commandline options.
@@ -88,13 +91,19 @@ public class ImportCsv extends AbstractCsvTool {
         .desc("Time Zone eg. +08:00 or -01:00 (optional)").build();
     options.addOption(opTimeZone);
 
+    options.addOption(createThreadNumOption("The number of threads parsing and inserting lines"));
+
     return options;
   }
 
   /**
-   * Data from csv To tsfile.
+   * Data from csv To tsfile. The lines are read by the calling thread and inserted in batches of
+   * BATCH_LINE_NUM lines by the importing threads, each of them parses its lines and inserts them
+   * through a session of the pool, so up to threadNum batches are in flight while the following
+   * lines are read.
    */
-  private static void loadDataFromCSV(File file) {
+  private static void loadDataFromCSV(File file, SessionPool sessionPool,
+      ExecutorService importers) {
     int fileLine;
     try {
       fileLine = getFileLineCount(file);
@@ -113,10 +122,6 @@ public class ImportCsv extends AbstractCsvTool {
         return;
       }
 
-      List<String> devices = new ArrayList<>();
-      List<Long> times = new ArrayList<>();
-      List<List<String>> measurementsList = new ArrayList<>();
-      List<List<String>> valuesList = new ArrayList<>();
       Map<String, List<Integer>> devicesToPositions = new HashMap<>();
       Map<String, List<String>> devicesToMeasurements = new HashMap<>();
 
@@ -124,43 +129,33 @@ public class ImportCsv extends AbstractCsvTool {
         splitColToDeviceAndMeasurement(cols[i], devicesToPositions, devicesToMeasurements, i);
       }
 
+      // the batches being inserted or waiting for an importer, each holds a permit
+      int maxBatchNum = threadNum * 2;
+      Semaphore batchPermits = new Semaphore(maxBatchNum);
+      AtomicReference<Exception> failure = new AtomicReference<>();
       SimpleDateFormat timeFormatter = null;
-      boolean useFormatter = false;
-
-      int lineNumber = 0;
+      List<String> lines = new ArrayList<>(BATCH_LINE_NUM);
       String line;
-      while ((line = br.readLine()) != null) {
-        cols = splitCsvLine(line);
-        lineNumber++;
-        if (lineNumber == 1) {
-          timeFormatter = formatterInit(cols[0]);
-          useFormatter = (timeFormatter != null);
-        }
-        for (Entry<String, List<Integer>> deviceToPositions : devicesToPositions
-            .entrySet()) {
-          String device = deviceToPositions.getKey();
-          devices.add(device);
-
-          times.add(parseTime(cols[0], useFormatter, timeFormatter));
-
-          List<String> values = new ArrayList<>();
-          for (int position : deviceToPositions.getValue()) {
-            values.add(cols[position]);
-          }
-          valuesList.add(values);
-
-          measurementsList.add(devicesToMeasurements.get(device));
+      while ((line = br.readLine()) != null && failure.get() == null) {
+        if (lines.isEmpty() && timeFormatter == null) {
+          timeFormatter = formatterInit(splitCsvLine(line)[0]);
         }
-        if (lineNumber % 10000 == 0) {
-          session.insertRecords(devices, times, measurementsList, valuesList);
-          pb.stepTo(lineNumber + 1L);
-          devices = new ArrayList<>();
-          times = new ArrayList<>();
-          measurementsList = new ArrayList<>();
-          valuesList = new ArrayList<>();
+        lines.add(line);
+        if (lines.size() == BATCH_LINE_NUM) {
+          submitBatch(lines, timeFormatter, devicesToPositions, devicesToMeasurements,
+              sessionPool, importers, batchPermits, failure, pb);
+          lines = new ArrayList<>(BATCH_LINE_NUM);
         }
       }
-      session.insertRecords(devices, times, measurementsList, valuesList);
+      if (!lines.isEmpty() && failure.get() == null) {
+        submitBatch(lines, timeFormatter, devicesToPositions, devicesToMeasurements,
+            sessionPool, importers, batchPermits, failure, pb);
+      }
+      batchPermits.acquire(maxBatchNum);
+
+      if (failure.get() != null) {
+        throw failure.get();
+      }
       System.out.println("Insert csv successfully!");
       pb.stepTo(fileLine);
     } catch (FileNotFoundException e) {
@@ -169,15 +164,77 @@ public class ImportCsv extends AbstractCsvTool {
       System.out.println("CSV file read exception because: " + e.getMessage());
     } catch (IoTDBConnectionException | StatementExecutionException e) {
       System.out.println("Meet error when insert csv because " + e.getMessage());
-    } finally {
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      System.out.println("Interrupted when importing " + file.getName());
+    } catch (Exception e) {
+      System.out.println("Meet error when import csv because " + e.getMessage());
+    }
+  }
+
+  @SuppressWarnings("squid:S00107") // Suppress too many parameters warning
+  private static void submitBatch(List<String> lines, SimpleDateFormat timeFormatter,
+      Map<String, List<Integer>> devicesToPositions,
+      Map<String, List<String>> devicesToMeasurements, SessionPool sessionPool,
+      ExecutorService importers, Semaphore batchPermits, AtomicReference<Exception> failure,
+      ProgressBar pb) throws InterruptedException {
+    // SimpleDateFormat is not thread-safe
+    SimpleDateFormat formatter =
+        timeFormatter == null ? null : (SimpleDateFormat) timeFormatter.clone();
+    batchPermits.acquire();
+    importers.execute(() -> {
       try {
-        if (session != null) {
-          session.close();
+        insertLines(lines, formatter, devicesToPositions, devicesToMeasurements, sessionPool);
+        synchronized (pb) {
+          pb.stepBy(lines.size());
+        }
+      } catch (Exception e) {
+        failure.compareAndSet(null, e);
+      } finally {
+        batchPermits.release();
+      }
+    });
+  }
+
+  /**
+   * Insert each line as a record of every device with values in the line, the empty values, i.e.,
+   * the nulls of an exported file, are left out.
+   */
+  private static void insertLines(List<String> lines, SimpleDateFormat timeFormatter,
+      Map<String, List<Integer>> devicesToPositions,
+      Map<String, List<String>> devicesToMeasurements, SessionPool sessionPool)
+      throws IoTDBConnectionException, StatementExecutionException {
+    List<String> devices = new ArrayList<>();
+    List<Long> times = new ArrayList<>();
+    List<List<String>> measurementsList = new ArrayList<>();
+    List<List<String>> valuesList = new ArrayList<>();
+    for (String line : lines) {
+      String[] cols = splitCsvLine(line);
+      long time = parseTime(cols[0], timeFormatter != null, timeFormatter);
+      for (Entry<String, List<Integer>> deviceToPositions : devicesToPositions.entrySet()) {
+        String device = deviceToPositions.getKey();
+        List<String> allMeasurements = devicesToMeasurements.get(device);
+        List<Integer> positions = deviceToPositions.getValue();
+        List<String> measurements = new ArrayList<>(positions.size());
+        List<String> values = new ArrayList<>(positions.size());
+        for (int j = 0; j < positions.size(); j++) {
+          int position = positions.get(j);
+          if (position < cols.length && !cols[position].isEmpty()) {
+            measurements.add(allMeasurements.get(j));
+            values.add(cols[position]);
+          }
+        }
+        if (!values.isEmpty()) {
+          devices.add(device);
+          times.add(time);
+          measurementsList.add(measurements);
+          valuesList.add(values);
         }
-      } catch (IoTDBConnectionException e) {
-        System.out.println("Sql statement can not be closed because: " + e.getMessage());
       }
     }
+    if (!devices.isEmpty()) {
+      sessionPool.insertRecords(devices, times, measurementsList, valuesList);
+    }
   }
 
 
@@ -216,6 +273,7 @@ public class ImportCsv extends AbstractCsvTool {
         return;
       }
       parseSpecialParams(commandLine);
+      parseThreadNum(commandLine);
       importCsvFromFile(host, port, username, password, filename, timeZoneID);
     } catch (ArgsErrorException e) {
       System.out.println("Args error: " + e.getMessage());
@@ -281,17 +339,21 @@ public class ImportCsv extends AbstractCsvTool {
   public static void importCsvFromFile(String ip, String port, String username,
       String password, String filename,
       String timeZone) {
+    SessionPool sessionPool = null;
+    ExecutorService importers = null;
     try {
       session = new Session(ip, Integer.parseInt(port), username, password);
       session.open(false);
       timeZoneID = timeZone;
       setTimeZone();
 
+      sessionPool = new SessionPool(ip, Integer.parseInt(port), username, password, threadNum);
+      importers = Executors.newFixedThreadPool(threadNum);
       File file = new File(filename);
       if (file.isFile()) {
-        importFromSingleFile(file);
+        importFromSingleFile(file, sessionPool, importers);
       } else if (file.isDirectory()) {
-        importFromDirectory(file);
+        importFromDirectory(file, sessionPool, importers);
       }
     } catch (IoTDBConnectionException e) {
       System.out.println("Encounter an error when connecting to server, because " + e.getMessage());
@@ -299,6 +361,12 @@ public class ImportCsv extends AbstractCsvTool {
       System.out
           .println("Encounter an error when executing the statement, because " + e.getMessage());
     } finally {
+      if (importers != null) {
+        importers.shutdown();
+      }
+      if (sessionPool != null) {
+        sessionPool.close();
+      }
       if (session != null) {
         try {
           session.close();
@@ -310,16 +378,18 @@ public class ImportCsv extends AbstractCsvTool {
     }
   }
 
-  private static void importFromSingleFile(File file) {
+  private static void importFromSingleFile(File file, SessionPool sessionPool,
+      ExecutorService importers) {
     if (file.getName().endsWith(FILE_SUFFIX)) {
-      loadDataFromCSV(file);
+      loadDataFromCSV(file, sessionPool, importers);
     } else {
       System.out
           .println("File " + file.getName() + "  should ends with '.csv' if you want to import");
     }
   }
 
-  private static void importFromDirectory(File file) {
+  private static void importFromDirectory(File file, SessionPool sessionPool,
+      ExecutorService importers) {
     File[] files = file.listFiles();
     if (files == null) {
       return;
@@ -328,7 +398,7 @@ public class ImportCsv extends AbstractCsvTool {
     for (File subFile : files) {
       if (subFile.isFile()) {
         if (subFile.getName().endsWith(FILE_SUFFIX)) {
-          loadDataFromCSV(subFile);
+          loadDataFromCSV(subFile, sessionPool, importers);
         } else {
           System.out
               .println("File " + file.getName() + " should ends with '.csv' if you want to import");
@@ -396,15 +466,14 @@ public class ImportCsv extends AbstractCsvTool {
 
   public static String[] splitCsvLine(String path) {
     List<String> nodes = new ArrayList<>();
-    startIndex = 0;
-    for (i = 0; i < path.length(); i++) {
+    int startIndex = 0;
+    for (int i = 0; i < path.length(); i++) {
       if (path.charAt(i) == ',') {
         nodes.add(path.substring(startIndex, i));
         startIndex = i + 1;
-      } else if (path.charAt(i) == '"') {
-        nextNode(path, nodes, '"');
-      } else if (path.charAt(i) == '\'') {
-        nextNode(path, nodes, '\'');
+      } else if (path.charAt(i) == '"' || path.charAt(i) == '\'') {
+        i = nextNode(path, nodes, path.charAt(i), i, startIndex);
+        startIndex = i + 1;
       }
     }
     if (startIndex <= path.length() - 1) {
@@ -413,16 +482,19 @@ public class ImportCsv extends AbstractCsvTool {
     return nodes.toArray(new String[0]);
   }
 
-  public static void nextNode(String path, List<String> nodes, char enclose) {
-    int endIndex = path.indexOf(enclose, i + 1);
+  /**
+   * Add the node enclosed from the given index and return the index of the comma after it.
+   */
+  public static int nextNode(String path, List<String> nodes, char enclose, int index,
+      int startIndex) {
+    int endIndex = path.indexOf(enclose, index + 1);
     // if a double quotes with escape character
     while (endIndex != -1 && path.charAt(endIndex - 1) == '\\') {
       endIndex = path.indexOf(enclose, endIndex + 1);
     }
     if (endIndex != -1 && (endIndex == path.length() - 1 || path.charAt(endIndex + 1) == ',')) {
       nodes.add(path.substring(startIndex + 1, endIndex));
-      i = endIndex + 1;
-      startIndex = endIndex + 2;
+      return endIndex + 1;
     } else {
       throw new IllegalArgumentException("Illegal csv line" + path);
     }
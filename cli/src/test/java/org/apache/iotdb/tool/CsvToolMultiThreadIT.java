@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.rpc.IoTDBConnectionException;
+import org.apache.iotdb.rpc.StatementExecutionException;
+import org.apache.iotdb.session.Session;
+import org.apache.iotdb.session.SessionDataSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CsvToolMultiThreadIT {
+
+  private static final String TARGET_DIR = "target" + File.separator + "csvToolMultiThread";
+
+  private Session session;
+
+  @Before
+  public void setUp() throws IoTDBConnectionException, StatementExecutionException, IOException {
+    EnvironmentUtils.closeStatMonitor();
+    EnvironmentUtils.envSetUp();
+    FileUtils.deleteDirectory(new File(TARGET_DIR));
+    new File(TARGET_DIR).mkdirs();
+
+    session = new Session("127.0.0.1", 6667, "root", "root");
+    session.open();
+    // root.sg.d1.d2 is a device under root.sg.d1
+    insert("root.sg.d1", Arrays.asList("s1", "s2"), 100);
+    insert("root.sg.d1.d2", Arrays.asList("s1"), 50);
+    insert("root.sg.d3", Arrays.asList("s1"), 30);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    session.close();
+    EnvironmentUtils.cleanEnv();
+    FileUtils.deleteDirectory(new File(TARGET_DIR));
+  }
+
+  private void insert(String device, List<String> measurements, int rowNum)
+      throws IoTDBConnectionException, StatementExecutionException {
+    for (long time = 1; time <= rowNum; time++) {
+      List<String> values = new ArrayList<>();
+      for (int i = 0; i < measurements.size(); i++) {
+        values.add(String.valueOf(time));
+      }
+      session.insertRecord(device, time, measurements, values);
+    }
+  }
+
+  private List<String> readLines(String fileName) throws IOException {
+    return Files.readAllLines(new File(TARGET_DIR, fileName).toPath());
+  }
+
+  private long count(String series) throws IoTDBConnectionException, StatementExecutionException {
+    SessionDataSet dataSet = session.executeQueryStatement("select count(" + series
+        .substring(series.lastIndexOf('.') + 1) + ") from " + series
+        .substring(0, series.lastIndexOf('.')));
+    try {
+      return dataSet.next().getFields().get(0).getLongV();
+    } finally {
+      dataSet.closeOperationHandle();
+    }
+  }
+
+  @Test
+  public void testExportAndImportDevices() throws IOException, IoTDBConnectionException,
+      StatementExecutionException {
+    ExportCsv.main(new String[]{"-h", "127.0.0.1", "-p", "6667", "-u", "root", "-pw", "root",
+        "-td", TARGET_DIR, "-dp", "root.sg", "-tn", "2", "-tf", "timestamp"});
+
+    // each file only holds the series of its own device
+    List<String> lines = readLines("dump_root.sg.d1.csv");
+    assertEquals(101, lines.size());
+    assertEquals("Time,root.sg.d1.s1,root.sg.d1.s2", lines.get(0).replace(" ", ""));
+    lines = readLines("dump_root.sg.d1.d2.csv");
+    assertEquals(51, lines.size());
+    assertEquals("Time,root.sg.d1.d2.s1", lines.get(0).replace(" ", ""));
+    assertEquals(31, readLines("dump_root.sg.d3.csv").size());
+
+    session.deleteStorageGroup("root.sg");
+    ImportCsv.main(new String[]{"-h", "127.0.0.1", "-p", "6667", "-u", "root", "-pw", "root",
+        "-f", TARGET_DIR, "-tn", "2"});
+
+    assertEquals(100, count("root.sg.d1.s1"));
+    assertEquals(100, count("root.sg.d1.s2"));
+    assertEquals(50, count("root.sg.d1.d2.s1"));
+    assertEquals(30, count("root.sg.d3.s1"));
+  }
+
+  @Test
+  public void testExportTimeIntervals() throws IOException {
+    ExportCsv.main(new String[]{"-h", "127.0.0.1", "-p", "6667", "-u", "root", "-pw", "root",
+        "-td", TARGET_DIR, "-dp", "root.sg.d1", "-ti", "40", "-tn", "3", "-tf", "timestamp"});
+
+    // [1, 41), [41, 81) and [81, 121) of root.sg.d1, [1, 41) and [41, 81) of root.sg.d1.d2
+    int[] d1LineNums = {41, 41, 21};
+    for (int i = 0; i < d1LineNums.length; i++) {
+      assertEquals(d1LineNums[i], readLines("dump_root.sg.d1_" + i + ".csv").size());
+    }
+    assertEquals(41, readLines("dump_root.sg.d1.d2_0.csv").size());
+    assertEquals(11, readLines("dump_root.sg.d1.d2_1.csv").size());
+    assertFalse(new File(TARGET_DIR, "dump_root.sg.d1.d2_2.csv").exists());
+  }
+}
@@ -88,6 +88,11 @@ public class ClusterMain {
     // the server's configuration.
     IoTDBDescriptor.getInstance().getConfig().setEnableRPCService(false);
     IoTDBDescriptor.getInstance().getConfig().setSyncEnable(false);
+    ClusterConfig clusterConfig = ClusterDescriptor.getInstance().getConfig();
+    if (clusterConfig.isUseRaftLogAsWal() && clusterConfig.isEnableRaftLogPersistence()) {
+      // the unflushed data are recovered from the raft logs instead
+      IoTDBDescriptor.getInstance().getConfig().setEnableWal(false);
+    }
     //auto create schema is took over by cluster module, so we disable it in the server module.
     IoTDBDescriptor.getInstance().getConfig().setAutoCreateSchemaEnabled(false);
 
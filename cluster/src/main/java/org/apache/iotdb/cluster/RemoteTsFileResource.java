@@ -43,6 +43,12 @@ public class RemoteTsFileResource extends TsFileResource {
    */
   private boolean isPlanRangeUnique = false;
 
+  /**
+   * The length of the TsFile when the resource is created, so the receiver can tell whether the
+   * file is completely pulled.
+   */
+  private long tsFileLength = -1;
+
   public RemoteTsFileResource() {
     setClosed(true);
     this.timeIndex = IoTDBDescriptor.getInstance().getConfig().getTimeIndexLevel().getTimeIndex();
@@ -51,6 +57,7 @@ public class RemoteTsFileResource extends TsFileResource {
   private RemoteTsFileResource(TsFileResource other) throws IOException {
     super(other);
     withModification = new File(getModFile().getFilePath()).exists();
+    tsFileLength = getTsFile().length();
     setClosed(true);
   }
 
@@ -94,12 +101,17 @@ public class RemoteTsFileResource extends TsFileResource {
       dataOutputStream.writeLong(minPlanIndex);
 
       dataOutputStream.writeByte(isPlanRangeUnique ? 1 : 0);
+      dataOutputStream.writeLong(tsFileLength);
     } catch (IOException ignored) {
       // unreachable
     }
   }
 
-  public void deserialize(ByteBuffer buffer) {
+  /**
+   * @param withFileLength whether the length of the file is serialized, which is absent in the
+   *                       snapshots of the older versions
+   */
+  public void deserialize(ByteBuffer buffer, boolean withFileLength) {
     source = new Node();
     SerializeUtils.deserialize(source, buffer);
     setFile(new File(SerializeUtils.deserializeString(buffer)));
@@ -113,6 +125,7 @@ public class RemoteTsFileResource extends TsFileResource {
     minPlanIndex = buffer.getLong();
 
     isPlanRangeUnique = buffer.get() == 1;
+    tsFileLength = withFileLength ? buffer.getLong() : -1;
 
     isRemote = true;
   }
@@ -140,4 +153,11 @@ public class RemoteTsFileResource extends TsFileResource {
   public void setPlanRangeUnique(boolean planRangeUnique) {
     isPlanRangeUnique = planRangeUnique;
   }
+
+  /**
+   * @return the length of the TsFile when the resource is created, or -1 if it is unknown
+   */
+  public long getTsFileLength() {
+    return tsFileLength;
+  }
 }
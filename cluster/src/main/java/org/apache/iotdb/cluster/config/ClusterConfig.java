@@ -54,6 +54,24 @@ public class ClusterConfig {
 
   private boolean useAsyncApplier = true;
 
+  /**
+   * if true, the leader commits logs accepted by the quorum in batches in a dedicated thread, and
+   * writes wait for their logs to be applied instead of waiting for the votes and committing by
+   * themselves.
+   */
+  private boolean useAsyncCommit = false;
+
+  /**
+   * how long the leader of a data group waits for concurrent insertions into the same storage
+   * group to put them into one log, 0 disables the batching.
+   */
+  private int planBatchWindowMS = 0;
+
+  /**
+   * the max number of insertions in one batched log.
+   */
+  private int maxPlanNumInBatch = 256;
+
   private int connectionTimeoutInMS = (int) TimeUnit.SECONDS.toMillis(20);
 
   private int readOperationTimeoutMS = (int) TimeUnit.SECONDS.toMillis(30);
@@ -99,6 +117,18 @@ public class ClusterConfig {
 
   private boolean enableRaftLogPersistence = true;
 
+  /**
+   * Whether the WAL of the storage engine is disabled and the persisted raft logs of the data
+   * groups are used to recover the data that are not flushed when the node restarts. Only takes
+   * effect when raft log persistence is enabled.
+   */
+  private boolean useRaftLogAsWal = false;
+
+  /**
+   * Whether the raft logs are persisted in memory-mapped, indexed segments instead of the log
+   * files of SyncLogDequeSerializer, which are read by scanning.
+   */
+  private boolean useSegmentedRaftLogStore = false;
 
   private int flushRaftLogThreshold = 10000;
 
@@ -122,6 +152,17 @@ public class ClusterConfig {
 
   private int pullSnapshotRetryIntervalMs = (int) TimeUnit.SECONDS.toMillis(5);
 
+  /**
+   * The max number of data files pulled concurrently when a snapshot is installed.
+   */
+  private int maxConcurrentSnapshotFilePulls = 4;
+
+  /**
+   * The limit of the total throughput (in MB/s) of pulling snapshot files into this node, 0 means
+   * no limit.
+   */
+  private int snapshotPullThroughputMbPerSec = 0;
+
   /**
    * The maximum value of the raft log index stored in the memory per raft group, These indexes are
    * used to index the location of the log on the disk
@@ -331,6 +372,22 @@ public class ClusterConfig {
     this.enableRaftLogPersistence = enableRaftLogPersistence;
   }
 
+  public boolean isUseRaftLogAsWal() {
+    return useRaftLogAsWal;
+  }
+
+  public void setUseRaftLogAsWal(boolean useRaftLogAsWal) {
+    this.useRaftLogAsWal = useRaftLogAsWal;
+  }
+
+  public boolean isUseSegmentedRaftLogStore() {
+    return useSegmentedRaftLogStore;
+  }
+
+  public void setUseSegmentedRaftLogStore(boolean useSegmentedRaftLogStore) {
+    this.useSegmentedRaftLogStore = useSegmentedRaftLogStore;
+  }
+
   public boolean isUseAsyncApplier() {
     return useAsyncApplier;
   }
@@ -339,6 +396,30 @@ public class ClusterConfig {
     this.useAsyncApplier = useAsyncApplier;
   }
 
+  public boolean isUseAsyncCommit() {
+    return useAsyncCommit;
+  }
+
+  public void setUseAsyncCommit(boolean useAsyncCommit) {
+    this.useAsyncCommit = useAsyncCommit;
+  }
+
+  public int getPlanBatchWindowMS() {
+    return planBatchWindowMS;
+  }
+
+  public void setPlanBatchWindowMS(int planBatchWindowMS) {
+    this.planBatchWindowMS = planBatchWindowMS;
+  }
+
+  public int getMaxPlanNumInBatch() {
+    return maxPlanNumInBatch;
+  }
+
+  public void setMaxPlanNumInBatch(int maxPlanNumInBatch) {
+    this.maxPlanNumInBatch = maxPlanNumInBatch;
+  }
+
   public int getMaxNumOfLogsInMem() {
     return maxNumOfLogsInMem;
   }
@@ -371,6 +452,22 @@ public class ClusterConfig {
     this.joinClusterTimeOutMs = joinClusterTimeOutMs;
   }
 
+  public int getMaxConcurrentSnapshotFilePulls() {
+    return maxConcurrentSnapshotFilePulls;
+  }
+
+  public void setMaxConcurrentSnapshotFilePulls(int maxConcurrentSnapshotFilePulls) {
+    this.maxConcurrentSnapshotFilePulls = maxConcurrentSnapshotFilePulls;
+  }
+
+  public int getSnapshotPullThroughputMbPerSec() {
+    return snapshotPullThroughputMbPerSec;
+  }
+
+  public void setSnapshotPullThroughputMbPerSec(int snapshotPullThroughputMbPerSec) {
+    this.snapshotPullThroughputMbPerSec = snapshotPullThroughputMbPerSec;
+  }
+
   public int getPullSnapshotRetryIntervalMs() {
     return pullSnapshotRetryIntervalMs;
   }
@@ -185,10 +185,28 @@ public class ClusterDescriptor {
         Boolean.parseBoolean(properties.getProperty("is_use_async_applier",
             String.valueOf(config.isUseAsyncApplier()))));
 
+    config.setUseAsyncCommit(
+        Boolean.parseBoolean(properties.getProperty("is_use_async_commit",
+            String.valueOf(config.isUseAsyncCommit()))));
+
+    config.setPlanBatchWindowMS(Integer.parseInt(properties
+        .getProperty("plan_batch_window_ms", String.valueOf(config.getPlanBatchWindowMS()))));
+
+    config.setMaxPlanNumInBatch(Integer.parseInt(properties
+        .getProperty("max_plan_num_in_batch", String.valueOf(config.getMaxPlanNumInBatch()))));
+
     config.setEnableRaftLogPersistence(
         Boolean.parseBoolean(properties.getProperty("is_enable_raft_log_persistence",
             String.valueOf(config.isEnableRaftLogPersistence()))));
 
+    config.setUseRaftLogAsWal(
+        Boolean.parseBoolean(properties.getProperty("is_use_raft_log_as_wal",
+            String.valueOf(config.isUseRaftLogAsWal()))));
+
+    config.setUseSegmentedRaftLogStore(
+        Boolean.parseBoolean(properties.getProperty("is_use_segmented_raft_log_store",
+            String.valueOf(config.isUseSegmentedRaftLogStore()))));
+
     config.setFlushRaftLogThreshold(Integer.parseInt(properties
         .getProperty("flush_raft_log_threshold", String.valueOf(config.getFlushRaftLogThreshold())))
     );
@@ -217,6 +235,14 @@ public class ClusterDescriptor {
         Integer.parseInt(properties.getProperty("max_number_of_logs_per_fetch_on_disk",
             String.valueOf(config.getMaxNumberOfLogsPerFetchOnDisk()))));
 
+    config.setMaxConcurrentSnapshotFilePulls(
+        Integer.parseInt(properties.getProperty("max_concurrent_snapshot_file_pulls",
+            String.valueOf(config.getMaxConcurrentSnapshotFilePulls()))));
+
+    config.setSnapshotPullThroughputMbPerSec(
+        Integer.parseInt(properties.getProperty("snapshot_pull_throughput_mb_per_sec",
+            String.valueOf(config.getSnapshotPullThroughputMbPerSec()))));
+
     config.setEnableUsePersistLogOnDiskToCatchUp(
         Boolean.parseBoolean(properties.getProperty("enable_use_persist_log_on_disk_to_catch_up",
             String.valueOf(config.isEnableUsePersistLogOnDiskToCatchUp()))));
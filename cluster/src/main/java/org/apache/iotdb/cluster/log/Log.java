@@ -21,6 +21,7 @@ package org.apache.iotdb.cluster.log;
 import java.nio.ByteBuffer;
 import java.util.Comparator;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Log records operations that are made on this cluster. Each log records 2 longs: currLogIndex,
@@ -44,13 +45,18 @@ public abstract class Log implements Comparable<Log> {
   private long createTime;
   private long enqueueTime;
 
+  // for async commit of the leader, completed when the log is applied, or completed exceptionally
+  // when the log cannot be accepted by the quorum
+  private volatile CompletableFuture<Void> resultFuture;
+
   public abstract ByteBuffer serialize();
 
   public abstract void deserialize(ByteBuffer buffer);
 
   public enum Types {
     // DO CHECK LogParser when you add a new type of log
-    ADD_NODE, PHYSICAL_PLAN, CLOSE_FILE, REMOVE_NODE, EMPTY_CONTENT, TEST_LARGE_CONTENT
+    ADD_NODE, PHYSICAL_PLAN, CLOSE_FILE, REMOVE_NODE, EMPTY_CONTENT, TEST_LARGE_CONTENT,
+    PLAN_BATCH
   }
 
   public long getCurrLogIndex() {
@@ -79,6 +85,18 @@ public abstract class Log implements Comparable<Log> {
       this.applied = applied;
       this.notifyAll();
     }
+    CompletableFuture<Void> future = resultFuture;
+    if (applied && future != null) {
+      future.complete(null);
+    }
+  }
+
+  public CompletableFuture<Void> getResultFuture() {
+    return resultFuture;
+  }
+
+  public void setResultFuture(CompletableFuture<Void> resultFuture) {
+    this.resultFuture = resultFuture;
   }
 
   public Exception getException() {
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.cluster.log;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.apache.iotdb.cluster.exception.LogExecutionException;
+import org.apache.iotdb.cluster.exception.RequestTimeOutException;
+import org.apache.iotdb.cluster.log.manage.RaftLogManager;
+import org.apache.iotdb.cluster.server.member.RaftMember;
+import org.apache.iotdb.cluster.server.monitor.Timer.Statistic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A LogCommitter serves a raft leader by committing the logs accepted by the quorum in a dedicated
+ * thread. Logs accepted while the previous commit is in progress are committed together by
+ * advancing the commit index once to the largest of them, so the writes neither wait for the votes
+ * by themselves nor compete for the log manager one by one. A write learns its result from the
+ * result future of its log, which is completed when the log is applied or when it cannot be
+ * accepted by the quorum.
+ */
+public class LogCommitter {
+
+  private static final Logger logger = LoggerFactory.getLogger(LogCommitter.class);
+
+  private final RaftMember member;
+  private final BlockingQueue<Log> acceptedLogs = new LinkedBlockingQueue<>();
+  private final ExecutorService commitThread;
+  private final ScheduledExecutorService timeoutService;
+  // the logs waiting for the votes of the quorum
+  private final Set<Log> pendingLogs = ConcurrentHashMap.newKeySet();
+  private volatile boolean closed = false;
+
+  public LogCommitter(RaftMember member) {
+    this.member = member;
+    commitThread = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setDaemon(true)
+        .setNameFormat(member.getName() + "-LogCommitter%d").build());
+    timeoutService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setDaemon(true).setNameFormat(member.getName() + "-LogCommitTimeout%d").build());
+    commitThread.submit(this::commitLoop);
+  }
+
+  /**
+   * Called when the log is accepted by the quorum, the log will be committed with the other
+   * accepted logs.
+   */
+  public void offer(Log log) {
+    acceptedLogs.add(log);
+    // close() may have drained the queue before the log is added
+    if (closed) {
+      failLogs();
+    }
+  }
+
+  /**
+   * Fail the log with a RequestTimeOutException if it is still not accepted by the quorum after
+   * the given time.
+   *
+   * @param accepted tells whether the log has been accepted by the quorum
+   */
+  public void scheduleTimeout(Log log, long timeoutMs, BooleanSupplier accepted) {
+    pendingLogs.add(log);
+    log.getResultFuture().whenComplete((v, e) -> pendingLogs.remove(log));
+    if (closed) {
+      failLogs();
+      return;
+    }
+    timeoutService.schedule(() -> {
+      CompletableFuture<Void> future = log.getResultFuture();
+      if (!future.isDone() && !accepted.getAsBoolean()) {
+        future.completeExceptionally(new RequestTimeOutException(log));
+      }
+    }, timeoutMs, TimeUnit.MILLISECONDS);
+  }
+
+  private void commitLoop() {
+    List<Log> batch = new ArrayList<>();
+    try {
+      while (!Thread.interrupted()) {
+        batch.add(acceptedLogs.take());
+        acceptedLogs.drainTo(batch);
+        commit(batch);
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      logger.error("{}: Unexpected error in log committer", member.getName(), e);
+    }
+    logger.info("{}: Log committer exits", member.getName());
+  }
+
+  private void commit(List<Log> batch) {
+    long maxIndex = Long.MIN_VALUE;
+    for (Log log : batch) {
+      maxIndex = Math.max(maxIndex, log.getCurrLogIndex());
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("{}: Committing {} accepted logs to {}", member.getName(), batch.size(),
+          maxIndex);
+    }
+
+    RaftLogManager logManager = member.getLogManager();
+    long startTime = Statistic.RAFT_SENDER_COMPETE_LOG_MANAGER_BEFORE_COMMIT
+        .getOperationStartTime();
+    try {
+      synchronized (logManager) {
+        Statistic.RAFT_SENDER_COMPETE_LOG_MANAGER_BEFORE_COMMIT
+            .calOperationCostTimeFromStart(startTime);
+        startTime = Statistic.RAFT_SENDER_COMMIT_LOG_IN_MANAGER.getOperationStartTime();
+        logManager.commitTo(maxIndex);
+      }
+      Statistic.RAFT_SENDER_COMMIT_LOG_IN_MANAGER.calOperationCostTimeFromStart(startTime);
+    } catch (LogExecutionException | RuntimeException e) {
+      // the logs are applied by the applier, so this only happens when they cannot be committed
+      logger.error("{}: Cannot commit logs to {}", member.getName(), maxIndex, e);
+      for (Log log : batch) {
+        log.getResultFuture().completeExceptionally(e);
+      }
+    }
+  }
+
+  /**
+   * Stop committing. The logs not committed yet, either accepted or still waiting for the votes,
+   * are failed, as neither the commit thread nor the timeouts will complete them any more.
+   */
+  public void close() throws InterruptedException {
+    closed = true;
+    commitThread.shutdownNow();
+    timeoutService.shutdownNow();
+    commitThread.awaitTermination(10, TimeUnit.SECONDS);
+    timeoutService.awaitTermination(10, TimeUnit.SECONDS);
+    failLogs();
+  }
+
+  private void failLogs() {
+    List<Log> logs = new ArrayList<>(pendingLogs);
+    acceptedLogs.drainTo(logs);
+    for (Log log : logs) {
+      log.getResultFuture()
+          .completeExceptionally(new IllegalStateException(member.getName() + " is stopped"));
+    }
+  }
+}
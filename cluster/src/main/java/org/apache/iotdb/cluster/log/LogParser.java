@@ -27,6 +27,7 @@ import org.apache.iotdb.cluster.log.logtypes.CloseFileLog;
 import org.apache.iotdb.cluster.log.logtypes.EmptyContentLog;
 import org.apache.iotdb.cluster.log.logtypes.LargeTestLog;
 import org.apache.iotdb.cluster.log.logtypes.PhysicalPlanLog;
+import org.apache.iotdb.cluster.log.logtypes.PlanBatchLog;
 import org.apache.iotdb.cluster.log.logtypes.RemoveNodeLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -71,6 +72,11 @@ public class LogParser {
         physicalPlanLog.deserialize(buffer);
         log = physicalPlanLog;
         break;
+      case PLAN_BATCH:
+        PlanBatchLog planBatchLog = new PlanBatchLog();
+        planBatchLog.deserialize(buffer);
+        log = planBatchLog;
+        break;
       case CLOSE_FILE:
         CloseFileLog closeFileLog = new CloseFileLog();
         closeFileLog.deserialize(buffer);
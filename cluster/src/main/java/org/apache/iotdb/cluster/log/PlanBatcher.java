@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.iotdb.cluster.log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import org.apache.iotdb.cluster.utils.StatusUtils;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.service.rpc.thrift.TSStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A PlanBatcher coalesces the plans with the same key, e.g. the insertions into the same storage
+ * group, that arrive within a short window, so that they are executed as one batch. The first
+ * plan of a batch opens it and its thread waits until the window ends or the batch is full, then
+ * executes the batch for all its plans. The other threads only wait for the results of their own
+ * plans, so no extra thread is needed.
+ */
+public class PlanBatcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(PlanBatcher.class);
+
+  private final String name;
+  private final long windowMS;
+  private final int maxBatchSize;
+  /**
+   * executes a batch of plans and returns the status of each plan in the same order.
+   */
+  private final Function<List<PhysicalPlan>, List<TSStatus>> batchExecutor;
+  private final Map<Object, Batch> openBatches = new HashMap<>();
+
+  public PlanBatcher(String name, long windowMS, int maxBatchSize,
+      Function<List<PhysicalPlan>, List<TSStatus>> batchExecutor) {
+    this.name = name;
+    this.windowMS = windowMS;
+    this.maxBatchSize = maxBatchSize;
+    this.batchExecutor = batchExecutor;
+  }
+
+  /**
+   * Put the plan into the open batch of the key, or open a new batch if there is none, and wait
+   * until the batch is executed.
+   *
+   * @return the status of the plan
+   */
+  public TSStatus process(Object key, PhysicalPlan plan) {
+    Batch batch;
+    int position;
+    boolean opened = false;
+    boolean full;
+    synchronized (openBatches) {
+      batch = openBatches.get(key);
+      if (batch == null) {
+        batch = new Batch();
+        openBatches.put(key, batch);
+        opened = true;
+      }
+      position = batch.plans.size();
+      batch.plans.add(plan);
+      full = batch.plans.size() >= maxBatchSize;
+      if (full) {
+        // no more plans can join the batch
+        openBatches.remove(key);
+      }
+    }
+
+    if (full) {
+      batch.close();
+    }
+    if (opened) {
+      batch.waitForClose(windowMS);
+      synchronized (openBatches) {
+        openBatches.remove(key, batch);
+      }
+      execute(batch);
+    }
+    return batch.getStatus(position);
+  }
+
+  private void execute(Batch batch) {
+    if (logger.isDebugEnabled()) {
+      logger.debug("{}: Executing a batch of {} plans", name, batch.plans.size());
+    }
+    try {
+      batch.statuses.complete(batchExecutor.apply(batch.plans));
+    } catch (RuntimeException e) {
+      batch.statuses.completeExceptionally(e);
+    }
+  }
+
+  private class Batch {
+
+    // only modified when holding the lock of openBatches, and read after the batch is closed
+    private final List<PhysicalPlan> plans = new ArrayList<>();
+    private final CompletableFuture<List<TSStatus>> statuses = new CompletableFuture<>();
+    private boolean closed = false;
+
+    private synchronized void close() {
+      closed = true;
+      notifyAll();
+    }
+
+    private synchronized void waitForClose(long timeoutMS) {
+      long deadline = System.currentTimeMillis() + timeoutMS;
+      long remaining = timeoutMS;
+      while (!closed && remaining > 0) {
+        try {
+          wait(remaining);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        remaining = deadline - System.currentTimeMillis();
+      }
+    }
+
+    private TSStatus getStatus(int position) {
+      try {
+        return statuses.get().get(position);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        logger.warn("{}: Unexpected interruption when waiting for a batch", name);
+        return StatusUtils.TIME_OUT;
+      } catch (ExecutionException e) {
+        logger.error("{}: Cannot execute a batch of {} plans", name, plans.size(), e);
+        return StatusUtils.getStatus(StatusUtils.INTERNAL_ERROR, e.getMessage());
+      }
+    }
+  }
+}
@@ -19,44 +19,54 @@
 
 package org.apache.iotdb.cluster.log.applier;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import org.apache.iotdb.cluster.log.Log;
 import org.apache.iotdb.cluster.log.LogApplier;
-import org.apache.iotdb.cluster.log.logtypes.CloseFileLog;
 import org.apache.iotdb.cluster.log.logtypes.PhysicalPlanLog;
+import org.apache.iotdb.cluster.log.logtypes.PlanBatchLog;
 import org.apache.iotdb.cluster.server.monitor.Timer;
 import org.apache.iotdb.cluster.server.monitor.Timer.Statistic;
-import org.apache.iotdb.db.exception.metadata.IllegalPathException;
-import org.apache.iotdb.db.exception.metadata.StorageGroupNotSetException;
 import org.apache.iotdb.db.metadata.PartialPath;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertMultiTabletPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
-import org.apache.iotdb.db.service.IoTDB;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * AsyncDataLogApplier applies the logs that only change some devices in parallel. Each device is
+ * hashed to one of the CONCURRENT_CONSUMER_NUM consumers, so the logs of a device are applied in
+ * order by its consumer, and the devices of even one storage group are spread over all the
+ * consumers. A log of several devices is put into the queues of all their consumers and applied
+ * when all of them reach it, other logs are applied after all previous logs.
+ */
 public class AsyncDataLogApplier implements LogApplier {
 
   private static final Logger logger = LoggerFactory.getLogger(AsyncDataLogApplier.class);
   private static final int CONCURRENT_CONSUMER_NUM = Runtime.getRuntime().availableProcessors();
   private LogApplier embeddedApplier;
-  private Map<PartialPath, DataLogConsumer> consumerMap;
+  private DataLogConsumer[] consumers;
   private ExecutorService consumerPool;
   private String name;
 
-  // a plan that affects multiple sgs should wait until all consumers become empty to assure all
+  // a plan that may affect any device should wait until all consumers become empty to assure all
   // previous logs are applied, such a plan will wait on this condition if it finds any
   // consumers nonempty, and each time a consumer becomes empty, this will be notified so the
   // waiting log can start another round of check
@@ -64,7 +74,10 @@ public class AsyncDataLogApplier implements LogApplier {
 
   public AsyncDataLogApplier(LogApplier embeddedApplier, String name) {
     this.embeddedApplier = embeddedApplier;
-    consumerMap = new HashMap<>();
+    consumers = new DataLogConsumer[CONCURRENT_CONSUMER_NUM];
+    for (int i = 0; i < consumers.length; i++) {
+      consumers[i] = new DataLogConsumer(name + "-" + i);
+    }
     consumerPool = new ThreadPoolExecutor(CONCURRENT_CONSUMER_NUM,
         Integer.MAX_VALUE, 0, TimeUnit.SECONDS, new SynchronousQueue<>());
     this.name = name;
@@ -77,23 +90,14 @@ public class AsyncDataLogApplier implements LogApplier {
 
   @Override
   // synchronized: when a log is draining consumers, avoid other threads adding more logs so that
-  // the consumers will never be drained
+  // the consumers will never be drained, and the logs of several consumers are put into their
+  // queues in the same order
   public synchronized void apply(Log log) {
-
-    PartialPath logKey;
-    try {
-      logKey = getLogKey(log);
-    } catch (StorageGroupNotSetException e) {
-      logger.debug("Exception occurred when applying {}", log, e);
-      log.setException(e);
-      log.setApplied(true);
-      return;
-    }
-
-    if (logKey != null) {
-      // this plan only affects one sg, so we can run it with other plans in parallel
+    Set<Integer> consumerIndexes = getConsumerIndexes(log);
+    if (consumerIndexes != null) {
+      // this log only affects some devices, so we can run it with other logs in parallel
       long startTime = Statistic.RAFT_SENDER_COMMIT_TO_CONSUMER_LOGS.getOperationStartTime();
-      provideLogToConsumers(logKey, log);
+      provideLogToConsumers(consumerIndexes, log);
       Statistic.RAFT_SENDER_COMMIT_TO_CONSUMER_LOGS.calOperationCostTimeFromStart(startTime);
       return;
     }
@@ -105,58 +109,64 @@ public class AsyncDataLogApplier implements LogApplier {
     Statistic.RAFT_SENDER_COMMIT_EXCLUSIVE_LOGS.calOperationCostTimeFromStart(startTime);
   }
 
-  private PartialPath getLogKey(Log log) throws StorageGroupNotSetException {
+  /**
+   * @return the indexes of the consumers of the devices that the log changes, or null if the log
+   * may change any device
+   */
+  private Set<Integer> getConsumerIndexes(Log log) {
     // we can only apply some kinds of plans in parallel, for other logs, we must wait until all
-    // previous logs are applied, or the order of deletions and insertions may get wrong
+    // previous logs are applied, or the order of deletions and insertions may get wrong. A
+    // CloseFileLog closes the files of all devices in a storage group, so it is not parallel either
+    List<PhysicalPlan> plans;
     if (log instanceof PhysicalPlanLog) {
-      PhysicalPlanLog physicalPlanLog = (PhysicalPlanLog) log;
-      PhysicalPlan plan = physicalPlanLog.getPlan();
-      // this plan only affects one sg, so we can run it with other plans in parallel
-      return getPlanKey(plan);
-    } else if (log instanceof CloseFileLog) {
-      CloseFileLog closeFileLog = (CloseFileLog) log;
-      PartialPath partialPath = null;
-      try {
-        partialPath = new PartialPath(closeFileLog.getStorageGroupName());
-      } catch (IllegalPathException e) {
-        // unreachable
-      }
-      return partialPath;
+      plans = Collections.singletonList(((PhysicalPlanLog) log).getPlan());
+    } else if (log instanceof PlanBatchLog) {
+      plans = ((PlanBatchLog) log).getPlans();
+    } else {
+      return null;
     }
-    return null;
-  }
 
-  private PartialPath getPlanKey(PhysicalPlan plan) throws StorageGroupNotSetException {
-    return getPlanSG(plan);
+    Set<Integer> consumerIndexes = new HashSet<>();
+    for (PhysicalPlan plan : plans) {
+      List<PartialPath> devices = getPlanDevices(plan);
+      if (devices == null) {
+        return null;
+      }
+      for (PartialPath device : devices) {
+        consumerIndexes.add(Math.floorMod(device.hashCode(), consumers.length));
+      }
+    }
+    return consumerIndexes;
   }
 
   /**
-   * We can sure that the storage group of all InsertTabletPlans in InsertMultiTabletPlan are the same. this is
-   * done in {@link org.apache.iotdb.cluster.query.ClusterPlanRouter#splitAndRoutePlan(InsertMultiTabletPlan)}
-   *
-   * @return the sg that the plan belongs to
-   * @throws StorageGroupNotSetException if no sg found
+   * @return the devices that the plan changes, or null if the plan may change any device
    */
-  private PartialPath getPlanSG(PhysicalPlan plan) throws StorageGroupNotSetException {
-    PartialPath sgPath = null;
+  private List<PartialPath> getPlanDevices(PhysicalPlan plan) {
     if (plan instanceof InsertMultiTabletPlan) {
-      PartialPath deviceId = ((InsertMultiTabletPlan) plan).getFirstDeviceId();
-      sgPath = IoTDB.metaManager.getStorageGroupPath(deviceId);
+      List<PartialPath> devices = new ArrayList<>();
+      for (InsertTabletPlan tabletPlan : ((InsertMultiTabletPlan) plan)
+          .getInsertTabletPlanList()) {
+        devices.add(tabletPlan.getDeviceId());
+      }
+      return devices;
     } else if (plan instanceof InsertPlan) {
-      PartialPath deviceId = ((InsertPlan) plan).getDeviceId();
-      sgPath = IoTDB.metaManager.getStorageGroupPath(deviceId);
+      return Collections.singletonList(((InsertPlan) plan).getDeviceId());
     } else if (plan instanceof CreateTimeSeriesPlan) {
-      PartialPath path = ((CreateTimeSeriesPlan) plan).getPath();
-      sgPath = IoTDB.metaManager.getStorageGroupPath(path);
+      // the following insertions of the series are applied by the same consumer
+      return Collections.singletonList(((CreateTimeSeriesPlan) plan).getPath().getDevicePath());
     }
-    return sgPath;
+    return null;
   }
 
-  private void provideLogToConsumers(PartialPath planKey, Log log) {
+  private void provideLogToConsumers(Set<Integer> consumerIndexes, Log log) {
     if (Timer.ENABLE_INSTRUMENTING) {
       log.setEnqueueTime(System.nanoTime());
     }
-    consumerMap.computeIfAbsent(planKey, d -> new DataLogConsumer(name + "-" + d)).accept(log);
+    ApplyTask task = new ApplyTask(log, consumerIndexes.size());
+    for (Integer consumerIndex : consumerIndexes) {
+      consumers[consumerIndex].accept(task);
+    }
   }
 
   private void drainConsumers() {
@@ -174,7 +184,7 @@ public class AsyncDataLogApplier implements LogApplier {
   }
 
   private boolean allConsumersEmpty() {
-    for (DataLogConsumer consumer : consumerMap.values()) {
+    for (DataLogConsumer consumer : consumers) {
       if (!consumer.isEmpty()) {
         if (logger.isDebugEnabled()) {
           logger.debug("Consumer not empty: {}", consumer);
@@ -185,6 +195,18 @@ public class AsyncDataLogApplier implements LogApplier {
     return true;
   }
 
+  /**
+   * @return the number of logs waiting in the queue of each consumer, a consumer that has many
+   * more logs than the others is applying the logs of some hot devices
+   */
+  public List<Integer> getConsumerBacklogs() {
+    List<Integer> backlogs = new ArrayList<>(consumers.length);
+    for (DataLogConsumer consumer : consumers) {
+      backlogs.add(consumer.taskQueue.size());
+    }
+    return backlogs;
+  }
+
   private void applyInternal(Log log) {
     long startTime = Statistic.RAFT_SENDER_DATA_LOG_APPLY.getOperationStartTime();
     embeddedApplier.apply(log);
@@ -193,9 +215,33 @@ public class AsyncDataLogApplier implements LogApplier {
     }
   }
 
-  private class DataLogConsumer implements Runnable, Consumer<Log> {
+  /**
+   * A log in the queues of one or more consumers. The consumer that reaches it last applies it, so
+   * it is applied after the previous logs of all its devices, and the other consumers wait until
+   * it is applied, so the following logs of its devices are applied after it.
+   */
+  private static class ApplyTask {
 
-    private BlockingQueue<Log> logQueue = new ArrayBlockingQueue<>(4096);
+    private final Log log;
+    private final AtomicInteger unarrivedConsumerNum;
+    private final CountDownLatch appliedLatch = new CountDownLatch(1);
+
+    private ApplyTask(Log log, int consumerNum) {
+      this.log = log;
+      this.unarrivedConsumerNum = new AtomicInteger(consumerNum);
+    }
+
+    /**
+     * @return true if the calling consumer is the last one to reach the task and should apply it
+     */
+    private boolean arrive() {
+      return unarrivedConsumerNum.decrementAndGet() == 0;
+    }
+  }
+
+  private class DataLogConsumer implements Runnable, Consumer<ApplyTask> {
+
+    private BlockingQueue<ApplyTask> taskQueue = new ArrayBlockingQueue<>(4096);
     private volatile long lastLogIndex;
     private volatile long lastAppliedLogIndex;
     private String name;
@@ -218,12 +264,21 @@ public class AsyncDataLogApplier implements LogApplier {
       Thread.currentThread().setName(name);
       while (!Thread.currentThread().isInterrupted()) {
         try {
-          Log log = logQueue.take();
-          Statistic.RAFT_SENDER_IN_APPLY_QUEUE.calOperationCostTimeFromStart(log.getEnqueueTime());
+          ApplyTask task = taskQueue.take();
           try {
-            applyInternal(log);
+            if (task.arrive()) {
+              Statistic.RAFT_SENDER_IN_APPLY_QUEUE
+                  .calOperationCostTimeFromStart(task.log.getEnqueueTime());
+              try {
+                applyInternal(task.log);
+              } finally {
+                task.appliedLatch.countDown();
+              }
+            } else {
+              task.appliedLatch.await();
+            }
           } finally {
-            lastAppliedLogIndex = log.getCurrLogIndex();
+            lastAppliedLogIndex = task.log.getCurrLogIndex();
             if (isEmpty()) {
               synchronized (consumerEmptyCondition) {
                 consumerEmptyCondition.notifyAll();
@@ -242,7 +297,7 @@ public class AsyncDataLogApplier implements LogApplier {
     }
 
     @Override
-    public void accept(Log log) {
+    public void accept(ApplyTask task) {
       if (future == null || future.isCancelled() || future.isDone()) {
         if (future != null) {
           try {
@@ -257,21 +312,25 @@ public class AsyncDataLogApplier implements LogApplier {
         future = consumerPool.submit(this);
       }
 
+      Log log = task.log;
       try {
         lastLogIndex = log.getCurrLogIndex();
-        logQueue.put(log);
+        taskQueue.put(task);
       } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
-        log.setException(e);
-        log.setApplied(true);
         lastAppliedLogIndex = log.getCurrLogIndex();
+        if (task.arrive()) {
+          log.setException(e);
+          log.setApplied(true);
+          task.appliedLatch.countDown();
+        }
       }
     }
 
     @Override
     public String toString() {
       return "DataLogConsumer{" +
-          "logQueue=" + logQueue.size() +
+          "logQueue=" + taskQueue.size() +
           ", lastLogIndex=" + lastLogIndex +
           ", lastAppliedLogIndex=" + lastAppliedLogIndex +
           ", name='" + name + '\'' +
@@ -19,11 +19,13 @@
 
 package org.apache.iotdb.cluster.log.applier;
 
+import java.util.List;
 import org.apache.iotdb.cluster.config.ClusterConstant;
 import org.apache.iotdb.cluster.exception.CheckConsistencyException;
 import org.apache.iotdb.cluster.log.Log;
 import org.apache.iotdb.cluster.log.logtypes.CloseFileLog;
 import org.apache.iotdb.cluster.log.logtypes.PhysicalPlanLog;
+import org.apache.iotdb.cluster.log.logtypes.PlanBatchLog;
 import org.apache.iotdb.cluster.partition.slot.SlotPartitionTable;
 import org.apache.iotdb.cluster.server.member.DataGroupMember;
 import org.apache.iotdb.cluster.server.member.MetaGroupMember;
@@ -64,14 +66,9 @@ public class DataLogApplier extends BaseApplier {
     try {
       if (log instanceof PhysicalPlanLog) {
         PhysicalPlanLog physicalPlanLog = (PhysicalPlanLog) log;
-        PhysicalPlan plan = physicalPlanLog.getPlan();
-        if (plan instanceof InsertMultiTabletPlan) {
-          applyInsert((InsertMultiTabletPlan) plan);
-        } else if (plan instanceof InsertPlan) {
-          applyInsert((InsertPlan) plan);
-        } else {
-          applyPhysicalPlan(plan, dataGroupMember);
-        }
+        applyPlan(physicalPlanLog.getPlan());
+      } else if (log instanceof PlanBatchLog) {
+        applyBatch((PlanBatchLog) log);
       } else if (log instanceof CloseFileLog) {
         CloseFileLog closeFileLog = ((CloseFileLog) log);
         StorageEngine.getInstance()
@@ -82,16 +79,46 @@ public class DataLogApplier extends BaseApplier {
         logger.error("Unsupported log: {}", log);
       }
     } catch (Exception e) {
-      Throwable rootCause = IOUtils.getRootCause(e);
-      if (!(rootCause instanceof PathNotExistException)) {
-        logger.debug("Exception occurred when applying {}", log, e);
-      }
+      logApplyException(log, e);
       log.setException(e);
     } finally {
       log.setApplied(true);
     }
   }
 
+  private void logApplyException(Object logOrPlan, Exception e) {
+    Throwable rootCause = IOUtils.getRootCause(e);
+    if (!(rootCause instanceof PathNotExistException)) {
+      logger.debug("Exception occurred when applying {}", logOrPlan, e);
+    }
+  }
+
+  private void applyPlan(PhysicalPlan plan)
+      throws StorageGroupNotSetException, QueryProcessException, StorageEngineException {
+    if (plan instanceof InsertMultiTabletPlan) {
+      applyInsert((InsertMultiTabletPlan) plan);
+    } else if (plan instanceof InsertPlan) {
+      applyInsert((InsertPlan) plan);
+    } else {
+      applyPhysicalPlan(plan, dataGroupMember);
+    }
+  }
+
+  /**
+   * The plans in a batch are independent, a failed plan does not stop the following ones.
+   */
+  private void applyBatch(PlanBatchLog log) {
+    List<PhysicalPlan> plans = log.getPlans();
+    for (int i = 0; i < plans.size(); i++) {
+      try {
+        applyPlan(plans.get(i));
+      } catch (Exception e) {
+        logApplyException(plans.get(i), e);
+        log.setPlanException(i, e);
+      }
+    }
+  }
+
   private void applyInsert(InsertMultiTabletPlan plan)
       throws StorageGroupNotSetException, QueryProcessException, StorageEngineException {
     for (InsertTabletPlan insertTabletPlan : plan.getInsertTabletPlanList()) {
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.cluster.log.logtypes;
+
+import static org.apache.iotdb.cluster.log.Log.Types.PLAN_BATCH;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.apache.iotdb.cluster.log.Log;
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+
+/**
+ * PlanBatchLog contains the insertions into one storage group that are received by a data group
+ * leader at about the same time. The plans are applied one by one and each of them succeeds or
+ * fails independently, so unlike other logs, the exceptions in applying the plans are kept for
+ * each plan instead of being set as the exception of the log.
+ */
+public class PlanBatchLog extends Log {
+
+  private List<PhysicalPlan> plans;
+  private Exception[] planExceptions;
+
+  public PlanBatchLog() {
+  }
+
+  public PlanBatchLog(List<PhysicalPlan> plans) {
+    this.plans = plans;
+    this.planExceptions = new Exception[plans.size()];
+  }
+
+  @Override
+  public ByteBuffer serialize() {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(DEFAULT_BUFFER_SIZE);
+    try (DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream)) {
+      dataOutputStream.writeByte((byte) PLAN_BATCH.ordinal());
+
+      dataOutputStream.writeLong(getCurrLogIndex());
+      dataOutputStream.writeLong(getCurrLogTerm());
+
+      dataOutputStream.writeInt(plans.size());
+      for (PhysicalPlan plan : plans) {
+        plan.serialize(dataOutputStream);
+      }
+    } catch (IOException e) {
+      // unreachable
+    }
+
+    return ByteBuffer.wrap(byteArrayOutputStream.toByteArray());
+  }
+
+  @Override
+  public void deserialize(ByteBuffer buffer) {
+    setCurrLogIndex(buffer.getLong());
+    setCurrLogTerm(buffer.getLong());
+
+    int size = buffer.getInt();
+    plans = new ArrayList<>(size);
+    planExceptions = new Exception[size];
+    try {
+      for (int i = 0; i < size; i++) {
+        plans.add(PhysicalPlan.Factory.create(buffer));
+      }
+    } catch (IOException | IllegalPathException e) {
+      // applying a part of the batch would silently lose the other plans
+      throw new IllegalArgumentException(String.format("Cannot parse plan %d of the plan batch "
+          + "%d:%d of %d plans", plans.size(), getCurrLogIndex(), getCurrLogTerm(), size), e);
+    }
+  }
+
+  public List<PhysicalPlan> getPlans() {
+    return plans;
+  }
+
+  /**
+   * @return the exception in applying the i-th plan, or null if it is applied successfully
+   */
+  public Exception getPlanException(int i) {
+    return planExceptions[i];
+  }
+
+  public void setPlanException(int i, Exception planException) {
+    this.planExceptions[i] = planException;
+  }
+
+  @Override
+  public String toString() {
+    return "PlanBatchLog{size:" + plans.size() + ",term:" + getCurrLogTerm() + ",index:"
+        + getCurrLogIndex() + "}";
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    if (!super.equals(o)) {
+      return false;
+    }
+    PlanBatchLog that = (PlanBatchLog) o;
+    return Objects.equals(plans, that.plans);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(super.hashCode(), plans);
+  }
+}
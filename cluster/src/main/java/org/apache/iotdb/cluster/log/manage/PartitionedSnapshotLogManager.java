@@ -25,15 +25,20 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import org.apache.iotdb.cluster.config.ClusterConfig;
+import org.apache.iotdb.cluster.config.ClusterConstant;
+import org.apache.iotdb.cluster.config.ClusterDescriptor;
 import org.apache.iotdb.cluster.log.LogApplier;
 import org.apache.iotdb.cluster.log.Snapshot;
-import org.apache.iotdb.cluster.log.manage.serializable.SyncLogDequeSerializer;
 import org.apache.iotdb.cluster.log.snapshot.PartitionedSnapshot;
 import org.apache.iotdb.cluster.log.snapshot.SnapshotFactory;
 import org.apache.iotdb.cluster.partition.PartitionTable;
 import org.apache.iotdb.cluster.partition.slot.SlotPartitionTable;
 import org.apache.iotdb.cluster.rpc.thrift.Node;
 import org.apache.iotdb.cluster.server.member.DataGroupMember;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor.TimePartitionFilter;
 import org.apache.iotdb.db.metadata.mnode.MNode;
 import org.apache.iotdb.db.metadata.mnode.StorageGroupMNode;
 import org.apache.iotdb.db.service.IoTDB;
@@ -57,15 +62,57 @@ public abstract class PartitionedSnapshotLogManager<T extends Snapshot> extends
   PartitionTable partitionTable;
   Node thisNode;
   DataGroupMember dataGroupMember;
+  /**
+   * when the raft logs are used as the WAL of the storage engine, the applied logs before this
+   * index have been flushed by the storage engine and need not be reapplied after a restart.
+   */
+  private volatile long flushedLogIndex;
 
 
   protected PartitionedSnapshotLogManager(LogApplier logApplier, PartitionTable partitionTable,
       Node header, Node thisNode, SnapshotFactory<T> factory, DataGroupMember dataGroupMember) {
-    super(new SyncLogDequeSerializer(header.nodeIdentifier), logApplier, header.toString());
+    super(createStableEntryManager(header.nodeIdentifier), logApplier, header.toString());
     this.partitionTable = partitionTable;
     this.factory = factory;
     this.thisNode = thisNode;
     this.dataGroupMember = dataGroupMember;
+    this.flushedLogIndex = getMaxHaveAppliedCommitIndex();
+  }
+
+  @Override
+  protected long getDurableAppliedIndex() {
+    return isRaftLogUsedAsWal() ? flushedLogIndex : super.getDurableAppliedIndex();
+  }
+
+  @Override
+  void checkDeleteLog() {
+    if (isRaftLogUsedAsWal()) {
+      updateFlushedLogIndex();
+    }
+    super.checkDeleteLog();
+  }
+
+  private boolean isRaftLogUsedAsWal() {
+    ClusterConfig config = ClusterDescriptor.getInstance().getConfig();
+    return config.isUseRaftLogAsWal() && config.isEnableRaftLogPersistence();
+  }
+
+  /**
+   * Advance the flushed log index to the log before the first one whose data are still in the
+   * memtables of the slots of this group.
+   */
+  private void updateFlushedLogIndex() {
+    // read the applied index first, so the logs applied after it are checked by the storage engine
+    long appliedIndex = getMaxHaveAppliedCommitIndex();
+    Set<Integer> slotSet = new HashSet<>(
+        ((SlotPartitionTable) partitionTable).getNodeSlots(dataGroupMember.getHeader()));
+    TimePartitionFilter filter = (storageGroupName, timePartitionId) -> slotSet
+        .contains(SlotPartitionTable.getSlotStrategy()
+            .calculateSlotByPartitionNum(storageGroupName, timePartitionId,
+                ClusterConstant.SLOT_NUM));
+    long minUnflushedLogIndex = StorageEngine.getInstance().getMinUnflushedPlanIndex(filter);
+    flushedLogIndex = Math.max(flushedLogIndex, Math.min(appliedIndex, minUnflushedLogIndex - 1));
+    logger.debug("{}: the logs before {} are flushed", getName(), flushedLogIndex);
   }
 
   @Override
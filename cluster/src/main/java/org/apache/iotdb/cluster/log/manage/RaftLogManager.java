@@ -43,6 +43,8 @@ import org.apache.iotdb.cluster.log.Log;
 import org.apache.iotdb.cluster.log.LogApplier;
 import org.apache.iotdb.cluster.log.Snapshot;
 import org.apache.iotdb.cluster.log.StableEntryManager;
+import org.apache.iotdb.cluster.log.manage.serializable.SegmentedLogStore;
+import org.apache.iotdb.cluster.log.manage.serializable.SyncLogDequeSerializer;
 import org.apache.iotdb.cluster.server.monitor.Timer.Statistic;
 import org.apache.iotdb.db.utils.TestOnly;
 import org.slf4j.Logger;
@@ -182,6 +184,17 @@ public abstract class RaftLogManager {
     }
   }
 
+  /**
+   * @return the stable entry manager of the raft group whose logs are stored under the node
+   * identifier, chosen by is_use_segmented_raft_log_store
+   */
+  protected static StableEntryManager createStableEntryManager(int nodeIdentifier) {
+    if (ClusterDescriptor.getInstance().getConfig().isUseSegmentedRaftLogStore()) {
+      return new SegmentedLogStore(nodeIdentifier);
+    }
+    return new SyncLogDequeSerializer(nodeIdentifier);
+  }
+
   public Snapshot getSnapshot() {
     return getSnapshot(-1);
   }
@@ -590,7 +603,7 @@ public abstract class RaftLogManager {
       startTime = Statistic.RAFT_SENDER_COMMIT_APPEND_AND_STABLE_LOGS.getOperationStartTime();
       getCommittedEntryManager().append(entries);
       if (ClusterDescriptor.getInstance().getConfig().isEnableRaftLogPersistence()) {
-        getStableEntryManager().append(entries, maxHaveAppliedCommitIndex);
+        getStableEntryManager().append(entries, getDurableAppliedIndex());
       }
       Log lastLog = entries.get(entries.size() - 1);
       getUnCommittedEntryManager().stableTo(lastLog.getCurrLogIndex());
@@ -793,6 +806,10 @@ public abstract class RaftLogManager {
     this.committedEntryManager = committedEntryManager;
   }
 
+  public LogApplier getApplier() {
+    return logApplier;
+  }
+
   public StableEntryManager getStableEntryManager() {
     return stableEntryManager;
   }
@@ -805,6 +822,15 @@ public abstract class RaftLogManager {
     return maxHaveAppliedCommitIndex;
   }
 
+  /**
+   * @return the index before which the applied logs will survive a restart without being applied
+   * again, which is persisted with the logs and where the logs are reapplied from when the node
+   * restarts
+   */
+  protected long getDurableAppliedIndex() {
+    return maxHaveAppliedCommitIndex;
+  }
+
   /**
    * check whether delete the committed log
    */
@@ -0,0 +1,823 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.cluster.log.manage.serializable;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import org.apache.iotdb.cluster.config.ClusterConfig;
+import org.apache.iotdb.cluster.config.ClusterDescriptor;
+import org.apache.iotdb.cluster.exception.UnknownLogTypeException;
+import org.apache.iotdb.cluster.log.HardState;
+import org.apache.iotdb.cluster.log.Log;
+import org.apache.iotdb.cluster.log.LogParser;
+import org.apache.iotdb.cluster.log.StableEntryManager;
+import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
+import org.apache.iotdb.db.utils.MmapUtil;
+import org.apache.iotdb.db.utils.TestOnly;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SegmentedLogStore persists the committed raft logs of a raft group in segments. A segment is a
+ * data file holding the serialized logs back to back and an index file holding a fixed-width entry
+ * (the end offset of the log in the data file and its CRC32) for each log. The index file is
+ * memory-mapped, so a log is located by its index without reading or scanning any file. The logs
+ * of an append are written with one gathering write and forced with at most one fsync, and
+ * truncating logs only rewinds the last segment and drops the segments after it.
+ * <p>
+ * Unlike {@link SyncLogDequeSerializer}, the logs are written to the file system when they are
+ * appended instead of being buffered in memory, and they are forced to the disk every
+ * flush_raft_log_threshold logs. The logs after the last force are verified by their checksums
+ * when the store is recovered.
+ * <p>
+ * file name pattern: ${startLogIndex}.data for the data file of a segment and ${startLogIndex}.idx
+ * for its index file.
+ */
+public class SegmentedLogStore implements StableEntryManager {
+
+  private static final Logger logger = LoggerFactory.getLogger(SegmentedLogStore.class);
+
+  private static final String SEGMENT_DIR_NAME = "segments";
+  private static final String DATA_FILE_SUFFIX = ".data";
+  private static final String INDEX_FILE_SUFFIX = ".idx";
+  private static final String LOG_META = "logMeta";
+  private static final String LOG_META_TMP = "logMeta.tmp";
+
+  /**
+   * an index entry is the end offset of the log in the data file and the CRC32 of the log.
+   */
+  private static final int INDEX_ENTRY_SIZE = Long.BYTES + Integer.BYTES;
+
+  /**
+   * the index file of a segment is extended by so many entries when it is full.
+   */
+  private static final int INDEX_EXTENSION_ENTRY_NUM = 64 * 1024;
+
+  private final LogParser parser = LogParser.getINSTANCE();
+
+  private final String logDir;
+  private final File metaFile;
+  private LogManagerMeta meta;
+  private HardState state;
+
+  /**
+   * the segments by the index of their first logs, only the last one is appended.
+   */
+  private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+  /**
+   * the number of logs appended since the last force.
+   */
+  private int unforcedLogNum = 0;
+
+  private long maxSegmentSize;
+  private int maxSegmentNum;
+  private int maxPersistLogNum;
+  private int flushRaftLogThreshold;
+  private int maxLogNumPerFetch;
+
+  /**
+   * when the raft logs are used as the WAL of the storage engine, the logs that are not applied
+   * durably must be kept until the storage engine flushes them.
+   */
+  private boolean useRaftLogAsWal;
+
+  /**
+   * the lock uses when the segments are changed or read.
+   */
+  private final Lock lock = new ReentrantLock();
+
+  private volatile boolean isClosed = false;
+
+  /**
+   * build the store with node id, the segments are kept in a sub directory of the log directory
+   * of {@link SyncLogDequeSerializer} so the two stores never read the files of each other.
+   */
+  public SegmentedLogStore(int nodeIdentifier) {
+    this(SyncLogDequeSerializer.getLogDir(nodeIdentifier) + SEGMENT_DIR_NAME);
+  }
+
+  /**
+   * for log tools
+   *
+   * @param logPath log dir path
+   */
+  public SegmentedLogStore(String logPath) {
+    ClusterConfig config = ClusterDescriptor.getInstance().getConfig();
+    maxSegmentSize = config.getMaxRaftLogPersistDataSizePerFile();
+    maxSegmentNum = config.getMaxNumberOfPersistRaftLogFiles();
+    maxPersistLogNum = config.getMaxPersistRaftLogNumberOnDisk();
+    flushRaftLogThreshold = config.getFlushRaftLogThreshold();
+    maxLogNumPerFetch = config.getMaxNumberOfLogsPerFetchOnDisk();
+    useRaftLogAsWal = config.isUseRaftLogAsWal();
+
+    logDir = logPath + File.separator;
+    File dir = SystemFileFactory.INSTANCE.getFile(logDir);
+    if (!dir.exists() && !dir.mkdirs()) {
+      logger.error("Cannot create raft log dir {}", dir);
+    }
+    metaFile = SystemFileFactory.INSTANCE.getFile(logDir + LOG_META);
+    recoverMeta();
+    recoverSegments();
+  }
+
+  @TestOnly
+  String getLogDir() {
+    return logDir;
+  }
+
+  /**
+   * for log tools
+   */
+  public LogManagerMeta getMeta() {
+    return meta;
+  }
+
+  private void recoverMeta() {
+    File tempMetaFile = SystemFileFactory.INSTANCE.getFile(logDir + LOG_META_TMP);
+    // the temp file replaces the meta file atomically, so a remaining one is incomplete
+    try {
+      Files.deleteIfExists(tempMetaFile.toPath());
+    } catch (IOException e) {
+      logger.warn("Cannot delete incomplete log meta file {}", tempMetaFile, e);
+    }
+
+    meta = new LogManagerMeta();
+    state = new HardState();
+    if (metaFile.exists() && metaFile.length() > 0) {
+      try (BufferedInputStream inputStream = new BufferedInputStream(
+          new FileInputStream(metaFile))) {
+        meta = LogManagerMeta.deserialize(
+            ByteBuffer.wrap(ReadWriteIOUtils.readBytesWithSelfDescriptionLength(inputStream)));
+        state = HardState.deserialize(
+            ByteBuffer.wrap(ReadWriteIOUtils.readBytesWithSelfDescriptionLength(inputStream)));
+      } catch (IOException e) {
+        logger.error("Cannot recover log meta from {}", metaFile, e);
+        meta = new LogManagerMeta();
+        state = new HardState();
+      }
+    }
+    logger.info("Recovered log meta: {}, state: {}", meta, state);
+  }
+
+  private void serializeMeta() {
+    File tempMetaFile = SystemFileFactory.INSTANCE.getFile(logDir + LOG_META_TMP);
+    try {
+      try (FileOutputStream outputStream = new FileOutputStream(tempMetaFile)) {
+        ReadWriteIOUtils.write(meta.serialize(), outputStream);
+        ReadWriteIOUtils.write(state.serialize(), outputStream);
+        outputStream.getChannel().force(true);
+      }
+      Files.move(tempMetaFile.toPath(), metaFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.error("Error in serializing log meta into {}", metaFile, e);
+    }
+  }
+
+  private void recoverSegments() {
+    File[] dataFiles = SystemFileFactory.INSTANCE.getFile(logDir)
+        .listFiles((dir, name) -> name.endsWith(DATA_FILE_SUFFIX));
+    if (dataFiles == null) {
+      return;
+    }
+    for (File dataFile : dataFiles) {
+      String name = dataFile.getName();
+      long startIndex;
+      try {
+        startIndex = Long.parseLong(name.substring(0, name.length() - DATA_FILE_SUFFIX.length()));
+      } catch (NumberFormatException e) {
+        logger.warn("Ignore an unknown file {} in the raft log dir", dataFile);
+        continue;
+      }
+      try {
+        segments.put(startIndex, Segment.open(startIndex, dataFile, getIndexFile(startIndex)));
+      } catch (IOException e) {
+        logger.error("Cannot recover the raft log segment {}, its logs are dropped", dataFile, e);
+        deleteSegmentFiles(dataFile, getIndexFile(startIndex));
+      }
+    }
+
+    // the logs before the last index in the meta have been forced, the later ones may be partially
+    // written if the system crashed
+    long brokenIndex = findFirstBrokenLog(meta.getLastLogIndex() + 1);
+    if (brokenIndex != -1) {
+      logger.warn("{}: The raft log {} is broken, truncate the logs from it", this, brokenIndex);
+      truncateFrom(brokenIndex);
+    }
+    logger.info("{}: Recovered {} raft log segments, logs: [{}, {}]", this, segments.size(),
+        getFirstIndex(), getLastIndex());
+  }
+
+  /**
+   * @return the index of the first log from the given index that does not match its checksum, or
+   * -1 if they all match
+   */
+  private long findFirstBrokenLog(long fromIndex) {
+    for (Segment segment : segments.values()) {
+      for (long index = Math.max(segment.startIndex, fromIndex); index <= segment.getLastIndex();
+          index++) {
+        if (!segment.verify(index)) {
+          return index;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private File getDataFile(long startIndex) {
+    return SystemFileFactory.INSTANCE.getFile(logDir + startIndex + DATA_FILE_SUFFIX);
+  }
+
+  private File getIndexFile(long startIndex) {
+    return SystemFileFactory.INSTANCE.getFile(logDir + startIndex + INDEX_FILE_SUFFIX);
+  }
+
+  /**
+   * @return the index of the first stored log, or -1 if there is no log
+   */
+  private long getFirstIndex() {
+    for (Segment segment : segments.values()) {
+      if (segment.size > 0) {
+        return segment.startIndex;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the index of the last stored log, or -1 if there is no log
+   */
+  private long getLastIndex() {
+    for (Segment segment : segments.descendingMap().values()) {
+      if (segment.size > 0) {
+        return segment.getLastIndex();
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Recover all the logs after the max applied index in the meta.
+   */
+  @Override
+  public List<Log> getAllEntriesAfterAppliedIndex() {
+    lock.lock();
+    try {
+      long lastIndex = getLastIndex();
+      logger.debug("getAllEntriesAfterAppliedIndex, maxHaveAppliedCommitIndex={}, lastIndex={}",
+          meta.getMaxHaveAppliedCommitIndex(), lastIndex);
+      if (meta.getMaxHaveAppliedCommitIndex() >= lastIndex) {
+        return Collections.emptyList();
+      }
+      List<Log> logs = new ArrayList<>();
+      long startIndex = Math.max(meta.getMaxHaveAppliedCommitIndex(), getFirstIndex());
+      while (startIndex <= lastIndex) {
+        List<Log> fetchedLogs = getLogs(startIndex, lastIndex);
+        if (fetchedLogs.isEmpty()) {
+          break;
+        }
+        logs.addAll(fetchedLogs);
+        startIndex = fetchedLogs.get(fetchedLogs.size() - 1).getCurrLogIndex() + 1;
+      }
+      return logs;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void append(List<Log> entries, long maxHaveAppliedCommitIndex) throws IOException {
+    lock.lock();
+    try {
+      if (isClosed) {
+        throw new IOException(this + " is closed");
+      }
+      long firstIndex = entries.get(0).getCurrLogIndex();
+      if (firstIndex <= getLastIndex()) {
+        truncateFrom(firstIndex);
+      }
+
+      List<ByteBuffer> logBuffers = new ArrayList<>(entries.size());
+      for (Log log : entries) {
+        logBuffers.add(log.serialize());
+      }
+      int from = 0;
+      boolean segmentCreated = false;
+      while (from < logBuffers.size()) {
+        long index = firstIndex + from;
+        Segment segment = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        if (segment == null || segment.getLastIndex() + 1 != index
+            || (segment.size > 0
+            && segment.dataEnd + logBuffers.get(from).remaining() > maxSegmentSize)) {
+          segment = createSegment(index);
+          segmentCreated = true;
+        }
+        // a segment holds at least one log even if the log is larger than a segment
+        int to = from + 1;
+        long dataEnd = segment.dataEnd + logBuffers.get(from).remaining();
+        while (to < logBuffers.size()
+            && dataEnd + logBuffers.get(to).remaining() <= maxSegmentSize) {
+          dataEnd += logBuffers.get(to).remaining();
+          to++;
+        }
+        segment.append(logBuffers.subList(from, to));
+        from = to;
+      }
+
+      Log entry = entries.get(entries.size() - 1);
+      meta.setCommitLogIndex(entry.getCurrLogIndex());
+      meta.setCommitLogTerm(entry.getCurrLogTerm());
+      meta.setLastLogIndex(entry.getCurrLogIndex());
+      meta.setLastLogTerm(entry.getCurrLogTerm());
+      meta.setMaxHaveAppliedCommitIndex(maxHaveAppliedCommitIndex);
+
+      unforcedLogNum += entries.size();
+      if (unforcedLogNum >= flushRaftLogThreshold) {
+        forceFlushLogBuffer();
+      }
+      if (segmentCreated) {
+        deleteOutdatedSegments();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Start a new segment whose first log is the given index. The previous segment is forced and
+   * the truncated logs in its data file are released as it will not be appended anymore.
+   */
+  private Segment createSegment(long startIndex) throws IOException {
+    if (!segments.isEmpty()) {
+      Segment lastSegment = segments.lastEntry().getValue();
+      lastSegment.force();
+      lastSegment.seal();
+      if (lastSegment.size == 0) {
+        segments.pollLastEntry();
+        lastSegment.delete();
+      }
+    }
+    Segment segment = Segment.create(startIndex, getDataFile(startIndex),
+        getIndexFile(startIndex));
+    segments.put(startIndex, segment);
+    logger.info("{}: Created a raft log segment from {}", this, startIndex);
+    return segment;
+  }
+
+  /**
+   * Remove the logs whose indices are not smaller than the given index.
+   */
+  private void truncateFrom(long index) {
+    while (!segments.isEmpty() && segments.lastKey() >= index) {
+      segments.pollLastEntry().getValue().delete();
+    }
+    if (!segments.isEmpty()) {
+      Segment segment = segments.lastEntry().getValue();
+      if (segment.getLastIndex() >= index) {
+        segment.truncate((int) (index - segment.startIndex));
+      }
+    }
+  }
+
+  /**
+   * Delete the first segments if there are more than max_number_of_persist_raft_log_files segments
+   * or their logs are older than the last max_persist_raft_log_number_on_disk logs. The last
+   * segment is always kept.
+   */
+  private void deleteOutdatedSegments() {
+    long lastIndex = getLastIndex();
+    while (segments.size() > 1) {
+      Segment firstSegment = segments.firstEntry().getValue();
+      boolean outdated = segments.size() > maxSegmentNum
+          || lastIndex - firstSegment.getLastIndex() > maxPersistLogNum;
+      // the logs after the max applied index in the meta are reapplied when the node restarts, so
+      // if they are the only copy of the data that are not flushed, they must be kept
+      boolean applied = !useRaftLogAsWal
+          || firstSegment.getLastIndex() < meta.getMaxHaveAppliedCommitIndex();
+      if (!outdated || !applied) {
+        return;
+      }
+      segments.pollFirstEntry();
+      firstSegment.delete();
+    }
+  }
+
+  /**
+   * The logs are written to the file system when they are appended, there is nothing buffered.
+   */
+  @Override
+  public void flushLogBuffer() {
+    // do nothing
+  }
+
+  /**
+   * force the appended logs to the disk.
+   */
+  @Override
+  public void forceFlushLogBuffer() {
+    if (isClosed) {
+      return;
+    }
+    lock.lock();
+    try {
+      if (!segments.isEmpty()) {
+        segments.lastEntry().getValue().force();
+      }
+      unforcedLogNum = 0;
+      serializeMeta();
+    } catch (IOException e) {
+      logger.error("{}: Error when forcing raft logs", this, e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * The segments are deleted by the number of logs and segments kept on disk, so this is only a
+   * chance to check them.
+   */
+  @Override
+  public void removeCompactedEntries(long index) {
+    lock.lock();
+    try {
+      deleteOutdatedSegments();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void setHardStateAndFlush(HardState state) {
+    lock.lock();
+    try {
+      this.state = state;
+      serializeMeta();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public HardState getHardState() {
+    return state;
+  }
+
+  /**
+   * @param startIndex the log start index
+   * @param endIndex   the log end index
+   * @return the raft log which index between [startIndex, endIndex] or empty if not found, at most
+   * max_number_of_logs_per_fetch_on_disk logs are returned
+   */
+  @Override
+  public List<Log> getLogs(long startIndex, long endIndex) {
+    if (startIndex > endIndex || startIndex < 0) {
+      logger.error("Invalid log index range [{}, {}]", startIndex, endIndex);
+      return Collections.emptyList();
+    }
+    long newEndIndex = Math.min(endIndex, startIndex + maxLogNumPerFetch - 1);
+
+    lock.lock();
+    try {
+      List<Log> result = new ArrayList<>();
+      long index = startIndex;
+      while (index <= newEndIndex) {
+        Entry<Long, Segment> entry = segments.floorEntry(index);
+        if (entry == null || entry.getValue().getLastIndex() < index) {
+          break;
+        }
+        Segment segment = entry.getValue();
+        long segmentEndIndex = Math.min(newEndIndex, segment.getLastIndex());
+        segment.read(index, segmentEndIndex, result, parser);
+        index = segmentEndIndex + 1;
+      }
+      return result;
+    } catch (IOException | UnknownLogTypeException e) {
+      logger.error("{}: Cannot read raft logs [{}, {}]", this, startIndex, endIndex, e);
+      return Collections.emptyList();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void close() {
+    logger.info("{} is closing", this);
+    lock.lock();
+    try {
+      forceFlushLogBuffer();
+      for (Segment segment : segments.values()) {
+        segment.seal();
+        segment.close();
+      }
+      segments.clear();
+    } catch (IOException e) {
+      logger.error("{}: Error when closing raft log segments", this, e);
+    } finally {
+      isClosed = true;
+      lock.unlock();
+    }
+    logger.info("{} is closed", this);
+  }
+
+  /**
+   * clear all logs, the logs are appended from commitIndex + 1 afterwards.
+   */
+  @Override
+  public void clearAllLogs(long commitIndex) {
+    lock.lock();
+    try {
+      for (Segment segment : segments.values()) {
+        segment.delete();
+      }
+      segments.clear();
+      meta = new LogManagerMeta();
+      meta.setCommitLogIndex(commitIndex);
+      meta.setLastLogIndex(commitIndex);
+      meta.setMaxHaveAppliedCommitIndex(commitIndex);
+      unforcedLogNum = 0;
+      serializeMeta();
+      logger.info("{}: Cleared all logs, the next log is {}", this, commitIndex + 1);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static void deleteSegmentFiles(File dataFile, File indexFile) {
+    try {
+      Files.deleteIfExists(dataFile.toPath());
+      Files.deleteIfExists(indexFile.toPath());
+    } catch (IOException e) {
+      logger.error("Cannot delete raft log segment {}", dataFile, e);
+    }
+  }
+
+  @TestOnly
+  public void setMaxSegmentSize(long maxSegmentSize) {
+    this.maxSegmentSize = maxSegmentSize;
+  }
+
+  @TestOnly
+  public void setMaxSegmentNum(int maxSegmentNum) {
+    this.maxSegmentNum = maxSegmentNum;
+  }
+
+  @TestOnly
+  public void setUseRaftLogAsWal(boolean useRaftLogAsWal) {
+    this.useRaftLogAsWal = useRaftLogAsWal;
+  }
+
+  @TestOnly
+  public int getSegmentNum() {
+    return segments.size();
+  }
+
+  @Override
+  public String toString() {
+    return "SegmentedLogStore{" + logDir + "}";
+  }
+
+  /**
+   * A segment stores the logs from its start index consecutively. The i-th index entry is the end
+   * offset of the (startIndex + i)-th log in the data file, so the log starts at the end of the
+   * previous entry, and an entry of 0 after the last log marks the end of the index.
+   */
+  private static class Segment {
+
+    private final long startIndex;
+    private final File dataFile;
+    private final File indexFile;
+    private final RandomAccessFile dataRaf;
+    private final FileChannel dataChannel;
+    private final RandomAccessFile indexRaf;
+    private MappedByteBuffer indexBuffer;
+    private final CRC32 crc32 = new CRC32();
+
+    /**
+     * number of logs in the segment.
+     */
+    private int size;
+
+    /**
+     * end of the last log in the data file, where the next log is written.
+     */
+    private long dataEnd;
+
+    private Segment(long startIndex, File dataFile, File indexFile) throws IOException {
+      this.startIndex = startIndex;
+      this.dataFile = dataFile;
+      this.indexFile = indexFile;
+      this.dataRaf = new RandomAccessFile(dataFile, "rw");
+      this.dataChannel = dataRaf.getChannel();
+      this.indexRaf = new RandomAccessFile(indexFile, "rw");
+      long entryNum = Math.max(indexRaf.length() / INDEX_ENTRY_SIZE, INDEX_EXTENSION_ENTRY_NUM);
+      this.indexBuffer = indexRaf.getChannel()
+          .map(MapMode.READ_WRITE, 0, entryNum * INDEX_ENTRY_SIZE);
+    }
+
+    private static Segment create(long startIndex, File dataFile, File indexFile)
+        throws IOException {
+      // files of logs truncated before may remain
+      deleteSegmentFiles(dataFile, indexFile);
+      return new Segment(startIndex, dataFile, indexFile);
+    }
+
+    private static Segment open(long startIndex, File dataFile, File indexFile)
+        throws IOException {
+      Segment segment = new Segment(startIndex, dataFile, indexFile);
+      long dataLength = segment.dataRaf.length();
+      int capacity = segment.getCapacity();
+      long prevEnd = 0;
+      int num = 0;
+      while (num < capacity) {
+        long end = segment.indexBuffer.getLong(num * INDEX_ENTRY_SIZE);
+        if (end <= prevEnd || end > dataLength) {
+          break;
+        }
+        prevEnd = end;
+        num++;
+      }
+      segment.size = num;
+      segment.dataEnd = prevEnd;
+      // the entries after the first invalid one must not be taken as logs later
+      segment.clearIndexFrom(num);
+      return segment;
+    }
+
+    private int getCapacity() {
+      return indexBuffer.capacity() / INDEX_ENTRY_SIZE;
+    }
+
+    private long getLastIndex() {
+      return startIndex + size - 1;
+    }
+
+    private long getEndOffset(int i) {
+      return i == 0 ? 0 : indexBuffer.getLong((i - 1) * INDEX_ENTRY_SIZE);
+    }
+
+    private void append(List<ByteBuffer> logBuffers) throws IOException {
+      long totalSize = 0;
+      ByteBuffer[] buffers = new ByteBuffer[logBuffers.size()];
+      for (int i = 0; i < buffers.length; i++) {
+        buffers[i] = logBuffers.get(i).duplicate();
+        totalSize += buffers[i].remaining();
+      }
+      ensureIndexCapacity(size + buffers.length);
+
+      // the data are written before the index entries, so an entry never points to unwritten data
+      dataChannel.position(dataEnd);
+      long written = 0;
+      while (written < totalSize) {
+        written += dataChannel.write(buffers);
+      }
+      for (ByteBuffer logBuffer : logBuffers) {
+        ByteBuffer buffer = logBuffer.duplicate();
+        dataEnd += buffer.remaining();
+        crc32.reset();
+        crc32.update(buffer);
+        int position = size * INDEX_ENTRY_SIZE;
+        indexBuffer.putLong(position, dataEnd);
+        indexBuffer.putInt(position + Long.BYTES, (int) crc32.getValue());
+        size++;
+      }
+    }
+
+    private void ensureIndexCapacity(int entryNum) throws IOException {
+      if (entryNum <= getCapacity()) {
+        return;
+      }
+      long newCapacity =
+          ((long) (entryNum - 1) / INDEX_EXTENSION_ENTRY_NUM + 1) * INDEX_EXTENSION_ENTRY_NUM;
+      MappedByteBuffer newIndexBuffer = indexRaf.getChannel()
+          .map(MapMode.READ_WRITE, 0, newCapacity * INDEX_ENTRY_SIZE);
+      MmapUtil.clean(indexBuffer);
+      indexBuffer = newIndexBuffer;
+    }
+
+    /**
+     * read the logs [fromIndex, toIndex] of the segment with one read and add them to the result.
+     */
+    private void read(long fromIndex, long toIndex, List<Log> result, LogParser parser)
+        throws IOException, UnknownLogTypeException {
+      int from = (int) (fromIndex - startIndex);
+      int to = (int) (toIndex - startIndex);
+      long startOffset = getEndOffset(from);
+      ByteBuffer buffer = readData(startOffset, getEndOffset(to + 1));
+      for (int i = from; i <= to; i++) {
+        int logSize = (int) (getEndOffset(i + 1) - getEndOffset(i));
+        buffer.limit(buffer.position() + logSize);
+        result.add(parser.parse(buffer.slice()));
+        buffer.position(buffer.limit());
+      }
+    }
+
+    private ByteBuffer readData(long startOffset, long endOffset) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate((int) (endOffset - startOffset));
+      while (buffer.hasRemaining()) {
+        if (dataChannel.read(buffer, startOffset + buffer.position()) < 0) {
+          throw new IOException(
+              String.format("%s ends before %d", dataFile, startOffset + buffer.position()));
+        }
+      }
+      buffer.flip();
+      return buffer;
+    }
+
+    /**
+     * @return whether the log with the index matches its checksum
+     */
+    private boolean verify(long index) {
+      int i = (int) (index - startIndex);
+      try {
+        ByteBuffer buffer = readData(getEndOffset(i), getEndOffset(i + 1));
+        crc32.reset();
+        crc32.update(buffer);
+        return (int) crc32.getValue() == indexBuffer.getInt(i * INDEX_ENTRY_SIZE + Long.BYTES);
+      } catch (IOException e) {
+        logger.warn("Cannot read the raft log {} from {}", index, dataFile, e);
+        return false;
+      }
+    }
+
+    /**
+     * only keep the first newSize logs, the later logs will be overwritten.
+     */
+    private void truncate(int newSize) {
+      clearIndexFrom(newSize);
+      size = newSize;
+      dataEnd = getEndOffset(newSize);
+    }
+
+    private void clearIndexFrom(int entryIndex) {
+      int capacity = getCapacity();
+      for (int i = entryIndex; i < capacity && indexBuffer.getLong(i * INDEX_ENTRY_SIZE) != 0;
+          i++) {
+        indexBuffer.putLong(i * INDEX_ENTRY_SIZE, 0);
+        indexBuffer.putInt(i * INDEX_ENTRY_SIZE + Long.BYTES, 0);
+      }
+    }
+
+    private void force() throws IOException {
+      dataChannel.force(false);
+      indexBuffer.force();
+    }
+
+    /**
+     * release the space of the truncated logs at the end of the data file.
+     */
+    private void seal() throws IOException {
+      dataRaf.setLength(dataEnd);
+    }
+
+    private void close() {
+      MmapUtil.clean(indexBuffer);
+      try {
+        dataRaf.close();
+        indexRaf.close();
+      } catch (IOException e) {
+        logger.warn("Cannot close raft log segment {}", dataFile, e);
+      }
+    }
+
+    private void delete() {
+      close();
+      deleteSegmentFiles(dataFile, indexFile);
+    }
+  }
+}
@@ -134,6 +134,13 @@ public class SyncLogDequeSerializer implements StableEntryManager {
   private int maxPersistRaftLogNumberOnDisk = ClusterDescriptor.getInstance().getConfig()
       .getMaxPersistRaftLogNumberOnDisk();
 
+  /**
+   * when the raft logs are used as the WAL of the storage engine, the logs that are not applied
+   * durably must be kept until the storage engine flushes them.
+   */
+  private boolean useRaftLogAsWal = ClusterDescriptor.getInstance().getConfig()
+      .isUseRaftLogAsWal();
+
   private ScheduledExecutorService persistLogDeleteExecutorService;
   private ScheduledFuture<?> persistLogDeleteLogFuture;
 
@@ -234,7 +241,19 @@ public class SyncLogDequeSerializer implements StableEntryManager {
     if (meta.getMaxHaveAppliedCommitIndex() >= meta.getCommitLogIndex()) {
       return Collections.emptyList();
     }
-    return getLogs(meta.getMaxHaveAppliedCommitIndex(), meta.getCommitLogIndex());
+    // getLogs() returns at most MAX_NUMBER_OF_LOGS_PER_FETCH_ON_DISK logs each time, but all the
+    // logs must be recovered, e.g., they may be the only copy of the data that are not flushed
+    List<Log> logs = new ArrayList<>();
+    long startIndex = meta.getMaxHaveAppliedCommitIndex();
+    while (startIndex <= meta.getCommitLogIndex()) {
+      List<Log> fetchedLogs = getLogs(startIndex, meta.getCommitLogIndex());
+      if (fetchedLogs.isEmpty()) {
+        break;
+      }
+      logs.addAll(fetchedLogs);
+      startIndex = fetchedLogs.get(fetchedLogs.size() - 1).getCurrLogIndex() + 1;
+    }
+    return logs;
   }
 
   @Override
@@ -913,7 +932,8 @@ public class SyncLogDequeSerializer implements StableEntryManager {
     // 2. check the persist log file number
     lock.lock();
     try {
-      while (logDataFileList.size() > maxNumberOfPersistRaftLogFiles) {
+      while (logDataFileList.size() > maxNumberOfPersistRaftLogFiles
+          && canDeleteTheFirstLogFile()) {
         deleteTheFirstLogDataAndIndexFile();
       }
     } finally {
@@ -926,7 +946,8 @@ public class SyncLogDequeSerializer implements StableEntryManager {
       while (logDataFileList.size() > 1) {
         File firstFile = logDataFileList.get(0);
         String[] splits = firstFile.getName().split(FILE_NAME_SEPARATOR);
-        if (meta.getCommitLogIndex() - Long.parseLong(splits[1]) > maxPersistRaftLogNumberOnDisk) {
+        if (meta.getCommitLogIndex() - Long.parseLong(splits[1]) > maxPersistRaftLogNumberOnDisk
+            && canDeleteTheFirstLogFile()) {
           deleteTheFirstLogDataAndIndexFile();
         } else {
           return;
@@ -937,6 +958,19 @@ public class SyncLogDequeSerializer implements StableEntryManager {
     }
   }
 
+  /**
+   * The logs after the max applied index in the meta are reapplied when the node restarts, so if
+   * they are the only copy of the data that are not flushed, a log file can only be deleted when
+   * all its logs are before the index.
+   */
+  private boolean canDeleteTheFirstLogFile() {
+    if (!useRaftLogAsWal) {
+      return true;
+    }
+    String[] splits = logDataFileList.get(0).getName().split(FILE_NAME_SEPARATOR);
+    return Long.parseLong(splits[1]) < meta.getMaxHaveAppliedCommitIndex();
+  }
+
   private void forceDeleteAllLogDataFiles() {
     FileFilter logFilter = pathname -> {
       String s = pathname.getName();
@@ -1317,6 +1351,11 @@ public class SyncLogDequeSerializer implements StableEntryManager {
     this.maxNumberOfPersistRaftLogFiles = maxNumberOfPersistRaftLogFiles;
   }
 
+  @TestOnly
+  public void setUseRaftLogAsWal(boolean useRaftLogAsWal) {
+    this.useRaftLogAsWal = useRaftLogAsWal;
+  }
+
   @TestOnly
   public List<File> getLogDataFileList() {
     return logDataFileList;
@@ -19,6 +19,8 @@
 
 package org.apache.iotdb.cluster.log.snapshot;
 
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
@@ -27,13 +29,26 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.iotdb.cluster.RemoteTsFileResource;
 import org.apache.iotdb.cluster.client.async.AsyncDataClient;
 import org.apache.iotdb.cluster.client.sync.SyncClientAdaptor;
@@ -87,6 +102,11 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
   private static final Logger logger = LoggerFactory.getLogger(FileSnapshot.class);
 
   public static final int PULL_FILE_RETRY_INTERVAL_MS = 5000;
+  /**
+   * Written before the number of schemas, which is never negative, to tell the snapshots that
+   * carry the lengths of the data files from those of the older versions.
+   */
+  private static final int FORMAT_WITH_FILE_LENGTH = -1;
   private Collection<TimeseriesSchema> timeseriesSchemas;
   private List<RemoteTsFileResource> dataFiles;
 
@@ -113,6 +133,7 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
     DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
 
     try {
+      dataOutputStream.writeInt(FORMAT_WITH_FILE_LENGTH);
       logger.info("Start to serialize {} schemas", timeseriesSchemas.size());
       dataOutputStream.writeInt(timeseriesSchemas.size());
       for (TimeseriesSchema measurementSchema : timeseriesSchemas) {
@@ -134,13 +155,17 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
   @Override
   public void deserialize(ByteBuffer buffer) {
     int timeseriesNum = buffer.getInt();
+    boolean withFileLength = timeseriesNum == FORMAT_WITH_FILE_LENGTH;
+    if (withFileLength) {
+      timeseriesNum = buffer.getInt();
+    }
     for (int i = 0; i < timeseriesNum; i++) {
       timeseriesSchemas.add(TimeseriesSchema.deserializeFrom(buffer));
     }
     int fileNum = buffer.getInt();
     for (int i = 0; i < fileNum; i++) {
       RemoteTsFileResource resource = new RemoteTsFileResource();
-      resource.deserialize(buffer);
+      resource.deserialize(buffer, withFileLength);
       dataFiles.add(resource);
     }
   }
@@ -181,6 +206,36 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
     private static final String REMOTE_FILE_TEMP_DIR =
         IoTDBDescriptor.getInstance().getConfig().getSystemDir() + File.separator + "remote";
 
+    /**
+     * The size of each chunk of a file that is read from the remote node at a time.
+     */
+    private static final int FETCH_SIZE = 64 * 1024;
+
+    /**
+     * The suffix of the file that records which remote file is being pulled into a temporary file,
+     * so an interrupted pull can be resumed.
+     */
+    private static final String PULLING_SOURCE_SUFFIX = ".source";
+
+    /**
+     * The temporary files that no snapshot being installed refers to are removed once they have
+     * not been modified for so long, as no installation is going to resume them.
+     */
+    static final long STALE_TEMP_FILE_AGE_MS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Shared by all installers, so the total pulling throughput of the node is limited.
+     */
+    private static final RateLimiter pullRateLimiter = createPullRateLimiter();
+
+    /**
+     * Shared by all installers, so at most max_concurrent_snapshot_file_pulls files are pulled by
+     * the node at the same time.
+     */
+    private static final ExecutorService pullFilePool = Executors.newFixedThreadPool(
+        Math.max(1, ClusterDescriptor.getInstance().getConfig().getMaxConcurrentSnapshotFilePulls()),
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("PullSnapshotFile-%d").build());
+
     private static final Logger logger = LoggerFactory.getLogger(Installer.class);
     private DataGroupMember dataGroupMember;
     private SlotManager slotManager;
@@ -192,12 +247,20 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
       this.name = dataGroupMember.getName();
     }
 
+    private static RateLimiter createPullRateLimiter() {
+      int throughputMbPerSec = ClusterDescriptor.getInstance().getConfig()
+          .getSnapshotPullThroughputMbPerSec();
+      return RateLimiter.create(
+          throughputMbPerSec > 0 ? throughputMbPerSec * 1024.0 * 1024.0 : Double.MAX_VALUE);
+    }
+
     @Override
     public void install(FileSnapshot snapshot, int slot) throws SnapshotInstallationException {
       try {
         logger.info("Starting to install a snapshot {} into slot[{}]", snapshot, slot);
         installFileSnapshotSchema(snapshot);
         logger.info("Schemas in snapshot are registered");
+        removeStaleTempFiles(Collections.singletonList(snapshot));
 
         SlotStatus status = slotManager.getStatus(slot);
         if (status == SlotStatus.PULLING) {
@@ -231,6 +294,7 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
       for (FileSnapshot value : snapshotMap.values()) {
         installFileSnapshotSchema(value);
       }
+      removeStaleTempFiles(snapshotMap.values());
 
       for (Entry<Integer, FileSnapshot> integerSnapshotEntry : snapshotMap.entrySet()) {
         Integer slot = integerSnapshotEntry.getKey();
@@ -261,24 +325,101 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
       }
     }
 
+    /**
+     * Remove the temporary files and their source markers left by the interrupted installations,
+     * which are otherwise kept forever if their snapshots are never installed again. A file is
+     * kept if the given snapshots refer to it, so it can be resumed, or if it is modified
+     * recently, as the snapshots of other slots may be being installed into the same directory.
+     */
+    private void removeStaleTempFiles(Collection<FileSnapshot> snapshots) {
+      Path tempDir = Paths.get(REMOTE_FILE_TEMP_DIR);
+      if (!Files.isDirectory(tempDir)) {
+        return;
+      }
+      Set<Path> referencedFiles = new HashSet<>();
+      for (FileSnapshot snapshot : snapshots) {
+        for (RemoteTsFileResource resource : snapshot.getDataFiles()) {
+          referencedFiles.add(getTempFile(resource, resource.getSource()).toPath());
+        }
+      }
+
+      long staleTime = System.currentTimeMillis() - STALE_TEMP_FILE_AGE_MS;
+      List<Path> tempFiles;
+      try (Stream<Path> paths = Files.walk(tempDir)) {
+        tempFiles = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+      } catch (IOException e) {
+        logger.warn("{}: Cannot list the temporary files in {}", name, tempDir, e);
+        return;
+      }
+      for (Path tempFile : tempFiles) {
+        // the source marker, the modification file and the resource file go with their data file
+        Path dataFile = Paths.get(removeSuffix(removeSuffix(removeSuffix(tempFile.toString(),
+            PULLING_SOURCE_SUFFIX), ModificationFile.FILE_SUFFIX), TsFileResource.RESOURCE_SUFFIX));
+        if (referencedFiles.contains(dataFile)
+            || tempFile.toFile().lastModified() >= staleTime
+            || dataFile.toFile().lastModified() >= staleTime) {
+          continue;
+        }
+        try {
+          Files.deleteIfExists(tempFile);
+          logger.info("{}: Removed the stale temporary file {}", name, tempFile);
+        } catch (IOException e) {
+          logger.warn("{}: Cannot remove the stale temporary file {}", name, tempFile, e);
+        }
+      }
+    }
+
+    private static String removeSuffix(String path, String suffix) {
+      return path.endsWith(suffix) ? path.substring(0, path.length() - suffix.length()) : path;
+    }
+
+    /**
+     * Pull the files in the snapshot that this node does not have and load them. Up to
+     * max_concurrent_snapshot_file_pulls files are pulled concurrently, but they are loaded in the
+     * order of the snapshot, as a file may overlap with the previous ones.
+     */
     private void installFileSnapshotFiles(FileSnapshot snapshot, int slot)
         throws PullFileException {
       List<RemoteTsFileResource> remoteTsFileResources = snapshot.getDataFiles();
-      // pull file
-      for (int i = 0, remoteTsFileResourcesSize = remoteTsFileResources.size();
-          i < remoteTsFileResourcesSize; i++) {
-        RemoteTsFileResource resource = remoteTsFileResources.get(i);
-        logger.info("Pulling {}/{} files, current: {}", i + 1, remoteTsFileResources.size(),
-            resource);
-        try {
-          if (!isFileAlreadyPulled(resource)) {
-            loadRemoteFile(resource);
+      List<Future<File>> pulledFiles = new ArrayList<>(remoteTsFileResources.size());
+      try {
+        for (RemoteTsFileResource resource : remoteTsFileResources) {
+          if (isFileAlreadyPulled(resource)) {
+            pulledFiles.add(null);
           } else {
+            pulledFiles.add(pullFilePool.submit(() -> pullRemoteFile(resource,
+                resource.getSource())));
+          }
+        }
+
+        for (int i = 0, remoteTsFileResourcesSize = remoteTsFileResources.size();
+            i < remoteTsFileResourcesSize; i++) {
+          RemoteTsFileResource resource = remoteTsFileResources.get(i);
+          logger.info("Loading {}/{} files, current: {}", i + 1, remoteTsFileResources.size(),
+              resource);
+          Future<File> pulledFile = pulledFiles.get(i);
+          if (pulledFile == null) {
             // notify the snapshot provider to remove the hardlink
             removeRemoteHardLink(resource);
+          } else {
+            File tempFile = waitForPulledFile(resource, pulledFile);
+            if (tempFile != null && isFileAlreadyPulled(resource)) {
+              // a previous file in the snapshot contains the data of this file
+              logger.info("{}: {} is already loaded, skip it", name, resource);
+              Files.deleteIfExists(tempFile.toPath());
+            } else {
+              loadRemoteFile(resource, tempFile);
+            }
+          }
+        }
+      } catch (IllegalPathException | IOException e) {
+        throw new PullFileException(snapshot.toString(), null, e);
+      } finally {
+        // the files being pulled are resumed by the next installation
+        for (Future<File> pulledFile : pulledFiles) {
+          if (pulledFile != null) {
+            pulledFile.cancel(true);
           }
-        } catch (IllegalPathException e) {
-          throw new PullFileException(resource.getTsFilePath(), resource.getSource(), e);
         }
       }
       // all files are loaded, the slot can be queried without accessing the previous holder
@@ -286,6 +427,19 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
       logger.info("{}: slot {} is ready", name, slot);
     }
 
+    private File waitForPulledFile(RemoteTsFileResource resource, Future<File> pulledFile)
+        throws PullFileException {
+      try {
+        return pulledFile.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new PullFileException(resource.toString(), resource.getSource(), e);
+      } catch (ExecutionException e) {
+        throw new PullFileException(resource.toString(), resource.getSource(),
+            e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+      }
+    }
+
     /**
      * Check if the file "resource" is a duplication of some local files. As all data file close is
      * controlled by the data group leader, the files with the same version should contain identical
@@ -343,16 +497,11 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
      * from the header currently.
      *
      * @param resource
+     * @param tempFile the file pulled into a temporary directory, or null if it cannot be pulled
      */
-    private void loadRemoteFile(RemoteTsFileResource resource) throws PullFileException {
+    private void loadRemoteFile(RemoteTsFileResource resource, File tempFile)
+        throws PullFileException {
       Node sourceNode = resource.getSource();
-      // pull the file to a temporary directory
-      File tempFile;
-      try {
-        tempFile = pullRemoteFile(resource, sourceNode);
-      } catch (IOException e) {
-        throw new PullFileException(resource.toString(), sourceNode, e);
-      }
       if (tempFile != null) {
         resource.setFile(tempFile);
         try {
@@ -428,53 +577,74 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
     private File pullRemoteFile(RemoteTsFileResource resource, Node node) throws IOException {
       logger.info("{}: pulling remote file {} from {}, plan index [{}, {}]", name, resource, node
           , resource.getMinPlanIndex(), resource.getMaxPlanIndex());
-      // the new file is stored at:
-      // remote/<nodeIdentifier>/<FilePathUtils.getTsFilePrefixPath(resource)>/<newTsFile>
-      // you can see FilePathUtils.splitTsFilePath() method for details.
-      String tempFileName = FilePathUtils.getTsFileNameWithoutHardLink(resource);
-      String tempFilePath =
-          node.getNodeIdentifier() + File.separator + FilePathUtils.getTsFilePrefixPath(resource)
-              + File.separator + tempFileName;
-      File tempFile = new File(REMOTE_FILE_TEMP_DIR, tempFilePath);
+      File tempFile = getTempFile(resource, node);
       tempFile.getParentFile().mkdirs();
-      if (pullRemoteFile(resource.getTsFile().getAbsolutePath(), node, tempFile)) {
+      // the same data file has the same plan indexes and length, its modifications may differ
+      String source = resource.getTsFileLength() < 0 ? null : String.format("%d-%d-%d",
+          resource.getMinPlanIndex(), resource.getMaxPlanIndex(), resource.getTsFileLength());
+      if (pullRemoteFile(resource.getTsFile().getAbsolutePath(), node, tempFile, source,
+          resource.getTsFileLength())) {
         // TODO-Cluster#353: implement file examination, may be replaced with other algorithm
         if (resource.isWithModification()) {
-          File tempModFile = new File(REMOTE_FILE_TEMP_DIR,
-              tempFilePath + ModificationFile.FILE_SUFFIX);
-          pullRemoteFile(resource.getModFile().getFilePath(), node, tempModFile);
+          File tempModFile = new File(tempFile.getPath() + ModificationFile.FILE_SUFFIX);
+          pullRemoteFile(resource.getModFile().getFilePath(), node, tempModFile, null, -1);
         }
         return tempFile;
       }
       return null;
     }
 
+    private File getTempFile(RemoteTsFileResource resource, Node node) {
+      // the new file is stored at:
+      // remote/<nodeIdentifier>/<FilePathUtils.getTsFilePrefixPath(resource)>/<newTsFile>
+      // you can see FilePathUtils.splitTsFilePath() method for details.
+      String tempFileName = FilePathUtils.getTsFileNameWithoutHardLink(resource);
+      String tempFilePath =
+          node.getNodeIdentifier() + File.separator + FilePathUtils.getTsFilePrefixPath(resource)
+              + File.separator + tempFileName;
+      return new File(REMOTE_FILE_TEMP_DIR, tempFilePath);
+    }
+
     /**
      * Download the file "remotePath" from "node" and store it to "dest" using up to 64KB chunks. If
-     * the network is bad, this method will retry upto 5 times before returning a failure.
+     * the network is bad, this method will retry upto 5 times before returning a failure. If "dest"
+     * is a part of the same remote file, e.g., the previous installation is interrupted, the
+     * download continues from the end of it.
      *
-     * @param remotePath the file to be downloaded
-     * @param node       where to download the file
-     * @param dest       where to store the file
+     * @param remotePath     the file to be downloaded
+     * @param node           where to download the file
+     * @param dest           where to store the file
+     * @param source         identifies the content of the remote file, or null if the download
+     *                       cannot be resumed
+     * @param expectedLength the length of the remote file, or -1 if it is unknown
      * @return true if the file is successfully downloaded, false otherwise
      * @throws IOException
      */
-    private boolean pullRemoteFile(String remotePath, Node node, File dest) throws IOException {
+    boolean pullRemoteFile(String remotePath, Node node, File dest, String source,
+        long expectedLength) throws IOException {
+      File sourceFile = new File(dest.getPath() + PULLING_SOURCE_SUFFIX);
+      long offset = 0;
+      if (source != null && dest.exists() && sourceFile.exists()
+          && source.equals(
+          new String(Files.readAllBytes(sourceFile.toPath()), StandardCharsets.UTF_8))
+          && dest.length() <= expectedLength) {
+        offset = dest.length();
+        logger.info("{}: resume pulling file {} from {} at {}", name, remotePath, node, offset);
+      } else if (source != null) {
+        Files.write(sourceFile.toPath(), source.getBytes(StandardCharsets.UTF_8));
+      }
+
       int pullFileRetry = 5;
       for (int i = 0; i < pullFileRetry; i++) {
+        boolean downloaded = false;
         try (BufferedOutputStream bufferedOutputStream =
-            new BufferedOutputStream(new FileOutputStream(dest))) {
+            new BufferedOutputStream(new FileOutputStream(dest, offset > 0))) {
           if (ClusterDescriptor.getInstance().getConfig().isUseAsyncServer()) {
-            downloadFileAsync(node, remotePath, bufferedOutputStream);
+            downloadFileAsync(node, remotePath, offset, bufferedOutputStream);
           } else {
-            downloadFileSync(node, remotePath, bufferedOutputStream);
-          }
-
-          if (logger.isInfoEnabled()) {
-            logger.info("{}: remote file {} is pulled at {}, length: {}", name, remotePath, dest,
-                dest.length());
+            downloadFileSync(node, remotePath, offset, bufferedOutputStream);
           }
-          return true;
+          downloaded = true;
         } catch (TException e) {
           logger.warn("{}: Cannot pull file {} from {}, wait 5s to retry", name, remotePath, node,
               e);
@@ -484,11 +654,25 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
           return false;
         }
 
+        // a file of the known length is complete even if the request probing its end failed, as
+        // the remote file is removed once it is read through
+        if (expectedLength < 0 ? downloaded : dest.length() == expectedLength) {
+          if (logger.isInfoEnabled()) {
+            logger.info("{}: remote file {} is pulled at {}, length: {}", name, remotePath, dest,
+                dest.length());
+          }
+          Files.deleteIfExists(sourceFile.toPath());
+          return true;
+        }
+
+        if (downloaded) {
+          logger.warn("{}: the length of the pulled file {} is {} instead of {}, retry", name,
+              remotePath, dest.length(), expectedLength);
+        }
+        // keep what has been downloaded for the next try if it can be resumed
+        offset = source != null && dest.length() < expectedLength ? dest.length() : 0;
         try {
-          Files.delete(dest.toPath());
           Thread.sleep(PULL_FILE_RETRY_INTERVAL_MS);
-        } catch (IOException e) {
-          logger.warn("Cannot delete file when pulling {} from {} failed", remotePath, node);
         } catch (InterruptedException ex) {
           Thread.currentThread().interrupt();
           logger.warn("{}: Pulling file {} from {} interrupted", name, remotePath, node, ex);
@@ -499,18 +683,14 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
       return false;
     }
 
-    private void downloadFileAsync(Node node, String remotePath, OutputStream dest)
+    private void downloadFileAsync(Node node, String remotePath, long offset, OutputStream dest)
         throws IOException, TException, InterruptedException {
-      long offset = 0;
-      // TODO-Cluster: use elaborate downloading techniques
-      int fetchSize = 64 * 1024;
-
       while (true) {
         AsyncDataClient client = (AsyncDataClient) dataGroupMember.getAsyncClient(node);
         if (client == null) {
           throw new IOException("No available client for " + node.toString());
         }
-        ByteBuffer buffer = SyncClientAdaptor.readFile(client, remotePath, offset, fetchSize);
+        ByteBuffer buffer = SyncClientAdaptor.readFile(client, remotePath, offset, FETCH_SIZE);
         int len = writeBuffer(buffer, dest);
         if (len == 0) {
           break;
@@ -528,25 +708,22 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
       // notice: the buffer returned by thrift is a slice of a larger buffer which contains
       // the whole response, so buffer.position() is not 0 initially and buffer.limit() is
       // not the size of the downloaded chunk
-      dest.write(buffer.array(), buffer.position() + buffer.arrayOffset(),
-          buffer.limit() - buffer.position());
-      return buffer.limit() - buffer.position();
+      int len = buffer.limit() - buffer.position();
+      pullRateLimiter.acquire(len);
+      dest.write(buffer.array(), buffer.position() + buffer.arrayOffset(), len);
+      return len;
     }
 
-    private void downloadFileSync(Node node, String remotePath, OutputStream dest)
-        throws IOException {
+    private void downloadFileSync(Node node, String remotePath, long offset, OutputStream dest)
+        throws IOException, TException {
       SyncDataClient client = (SyncDataClient) dataGroupMember.getSyncClient(node);
       if (client == null) {
         throw new IOException("No available client for " + node.toString());
       }
 
-      long offset = 0;
-      // TODO-Cluster: use elaborate downloading techniques
-      int fetchSize = 64 * 1024;
-
       try {
         while (true) {
-          ByteBuffer buffer = client.readFile(remotePath, offset, fetchSize);
+          ByteBuffer buffer = client.readFile(remotePath, offset, FETCH_SIZE);
           int len = writeBuffer(buffer, dest);
           if (len == 0) {
             break;
@@ -555,6 +732,8 @@ public class FileSnapshot extends Snapshot implements TimeseriesSchemaSnapshot {
         }
       } catch (TException e) {
         client.getInputProtocol().getTransport().close();
+        // what has been downloaded is kept, and the rest is downloaded by the next try
+        throw e;
       } finally {
         ClientUtils.putBackSyncClient(client);
       }
@@ -87,6 +87,7 @@ import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.SetStorageGroupPlan;
 import org.apache.iotdb.db.qp.physical.sys.ShowTimeSeriesPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.dataset.ShowResultCursor;
 import org.apache.iotdb.db.query.dataset.ShowTimeSeriesResult;
 import org.apache.iotdb.db.service.IoTDB;
 import org.apache.iotdb.db.utils.SchemaUtils;
@@ -1339,6 +1340,15 @@ public class CMManager extends MManager {
     return showTimeSeriesResults;
   }
 
+  /**
+   * The timeseries are gathered from all groups, so the pages are fetched by showTimeseries().
+   */
+  @Override
+  public ShowResultCursor<ShowTimeSeriesResult> showTimeseriesCursor(ShowTimeSeriesPlan plan,
+      QueryContext context) {
+    return showTimeseriesByPages(plan, context);
+  }
+
   private List<ShowTimeSeriesResult> applyShowTimeseriesLimitOffset(
       ConcurrentSkipListSet<ShowTimeSeriesResult> resultSet,
       int limit, int offset) {
@@ -19,10 +19,9 @@
 
 package org.apache.iotdb.cluster.query;
 
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import org.apache.iotdb.cluster.rpc.thrift.Node;
 import org.apache.iotdb.db.query.context.QueryContext;
@@ -31,7 +30,7 @@ public class RemoteQueryContext extends QueryContext {
   /**
    * The remote nodes that are queried in this query, grouped by the header nodes.
    */
-  private Map<Node, Set<Node>> queriedNodesMap = new HashMap<>();
+  private Map<Node, Set<Node>> queriedNodesMap = new ConcurrentHashMap<>();
   /**
    * The readers constructed locally to respond a remote query.
    */
@@ -47,7 +46,8 @@ public class RemoteQueryContext extends QueryContext {
   }
 
   public void registerRemoteNode(Node node, Node header) {
-    queriedNodesMap.computeIfAbsent(header, n -> new HashSet<>()).add(node);
+    // the sub-queries of a query may be executed concurrently
+    queriedNodesMap.computeIfAbsent(header, n -> ConcurrentHashMap.newKeySet()).add(node);
   }
 
   public void registerLocalReader(long readerId) {
@@ -52,13 +52,13 @@ import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.metadata.PartialPath;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.service.ClientContext;
 import org.apache.iotdb.db.service.IoTDB;
 import org.apache.iotdb.db.service.TSServiceImpl;
 import org.apache.iotdb.db.utils.CommonUtils;
 import org.apache.iotdb.rpc.RpcTransportFactory;
 import org.apache.iotdb.rpc.RpcUtils;
 import org.apache.iotdb.rpc.TSStatusCode;
-import org.apache.iotdb.service.rpc.thrift.TSIService.Processor;
 import org.apache.iotdb.service.rpc.thrift.TSStatus;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.thrift.TException;
@@ -165,7 +165,7 @@ public class ClientServer extends TSServiceImpl {
       }
     }));
     // ClientServer will do the following processing when the HsHaServer has parsed a request
-    poolArgs.processor(new Processor<>(this));
+    poolArgs.processor(createProcessor());
     poolArgs.protocolFactory(protocolFactory);
     // nonblocking server requests FramedTransport
     poolArgs.transportFactory(RpcTransportFactory.INSTANCE);
@@ -212,8 +212,8 @@ public class ClientServer extends TSServiceImpl {
 
 
   /**
-   * EventHandler handles the preprocess and postprocess of the thrift requests, but it currently
-   * only release resources when a client disconnects.
+   * EventHandler handles the preprocess and postprocess of the thrift requests, it tracks the
+   * session of each client connection and releases its resources when the client disconnects.
    */
   class EventHandler implements TServerEventHandler {
 
@@ -224,18 +224,18 @@ public class ClientServer extends TSServiceImpl {
 
     @Override
     public ServerContext createContext(TProtocol input, TProtocol output) {
-      return null;
+      return new ClientContext();
     }
 
     @Override
     public void deleteContext(ServerContext serverContext, TProtocol input, TProtocol output) {
-      ClientServer.this.handleClientExit();
+      ClientServer.this.handleClientExit((ClientContext) serverContext);
     }
 
     @Override
     public void processContext(ServerContext serverContext, TTransport inputTransport,
         TTransport outputTransport) {
-      // do nothing
+      ClientServer.this.setCurrentContext((ClientContext) serverContext);
     }
   }
 
@@ -21,10 +21,12 @@ package org.apache.iotdb.cluster.server.handlers.caller;
 import static org.apache.iotdb.cluster.server.Response.RESPONSE_AGREE;
 
 import java.net.ConnectException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.cluster.config.ClusterDescriptor;
+import org.apache.iotdb.cluster.exception.RequestTimeOutException;
 import org.apache.iotdb.cluster.log.Log;
 import org.apache.iotdb.cluster.rpc.thrift.Node;
 import org.apache.iotdb.cluster.server.monitor.Peer;
@@ -91,6 +93,10 @@ public class AppendNodeEntryHandler implements AsyncMethodCallback<Long> {
           logger.debug("{}: Log [{}] {} is accepted by the quorum", member.getName(),
               log.getCurrLogIndex(), log);
           voteCounter.notifyAll();
+          if (log.getResultFuture() != null) {
+            // with async commit, the log is committed by the committer instead of the writer
+            member.getLogCommitter().offer(log);
+          }
         }
         peer.setMatchIndex(Math.max(log.getCurrLogIndex(), peer.getMatchIndex()));
       } else if (resp > 0) {
@@ -105,6 +111,9 @@ public class AppendNodeEntryHandler implements AsyncMethodCallback<Long> {
         }
         leaderShipStale.set(true);
         voteCounter.notifyAll();
+        if (voteCounter.get() > 0) {
+          failResult();
+        }
       } else {
         //e.g., Response.RESPONSE_LOG_MISMATCH
         logger.debug("{}: The log {} is rejected by {} because: {}", member.getName(), log,
@@ -133,12 +142,26 @@ public class AppendNodeEntryHandler implements AsyncMethodCallback<Long> {
       failedDecreasingCounter--;
       if (failedDecreasingCounter <= 0) {
         // quorum members have failed, there is no need to wait for others
+        boolean accepted = voteCounter.get() == 0;
         voteCounter.set(Integer.MAX_VALUE);
         voteCounter.notifyAll();
+        if (!accepted) {
+          failResult();
+        }
       }
     }
   }
 
+  /**
+   * with async commit, tell the writer that the log will not be accepted by the quorum.
+   */
+  private void failResult() {
+    CompletableFuture<Void> resultFuture = log.getResultFuture();
+    if (resultFuture != null) {
+      resultFuture.completeExceptionally(new RequestTimeOutException(log));
+    }
+  }
+
   public void setLog(Log log) {
     this.log = log;
   }
@@ -45,11 +45,13 @@ import org.apache.iotdb.cluster.client.async.AsyncDataHeartbeatClient;
 import org.apache.iotdb.cluster.client.sync.SyncClientPool;
 import org.apache.iotdb.cluster.client.sync.SyncDataClient;
 import org.apache.iotdb.cluster.client.sync.SyncDataHeartbeatClient;
+import org.apache.iotdb.cluster.config.ClusterConfig;
 import org.apache.iotdb.cluster.config.ClusterConstant;
 import org.apache.iotdb.cluster.config.ClusterDescriptor;
 import org.apache.iotdb.cluster.exception.LogExecutionException;
 import org.apache.iotdb.cluster.exception.SnapshotInstallationException;
 import org.apache.iotdb.cluster.log.LogApplier;
+import org.apache.iotdb.cluster.log.PlanBatcher;
 import org.apache.iotdb.cluster.log.Snapshot;
 import org.apache.iotdb.cluster.log.applier.AsyncDataLogApplier;
 import org.apache.iotdb.cluster.log.applier.DataLogApplier;
@@ -95,6 +97,9 @@ import org.apache.iotdb.db.exception.metadata.StorageGroupNotSetException;
 import org.apache.iotdb.db.metadata.PartialPath;
 import org.apache.iotdb.db.qp.executor.PlanExecutor;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
 import org.apache.iotdb.db.qp.physical.sys.FlushPlan;
 import org.apache.iotdb.db.service.IoTDB;
 import org.apache.iotdb.db.utils.TestOnly;
@@ -149,6 +154,12 @@ public class DataGroupMember extends RaftMember {
    */
   private boolean unchanged;
 
+  /**
+   * "planBatcher" puts concurrent insertions into the same storage group into one log when this
+   * node is the leader, created when the first insertion is batched.
+   */
+  private volatile PlanBatcher planBatcher;
+
   @TestOnly
   public DataGroupMember() {
     // constructor for test
@@ -673,7 +684,7 @@ public class DataGroupMember extends RaftMember {
   private TSStatus executeNonQueryPlanWithKnownLeader(PhysicalPlan plan) {
     if (character == NodeCharacter.LEADER) {
       long startTime = Statistic.DATA_GROUP_MEMBER_LOCAL_EXECUTION.getOperationStartTime();
-      TSStatus status = processPlanLocally(plan);
+      TSStatus status = processPlanLocallyOrInBatch(plan);
       Statistic.DATA_GROUP_MEMBER_LOCAL_EXECUTION.calOperationCostTimeFromStart(startTime);
       if (status != null) {
         return status;
@@ -690,6 +701,42 @@ public class DataGroupMember extends RaftMember {
     return StatusUtils.NO_LEADER;
   }
 
+  /**
+   * If plan batching is enabled, an insertion of a row or a tablet waits for a short window so
+   * that it is put into one log with the concurrent insertions into the same storage group.
+   * Other plans are processed by themselves.
+   */
+  private TSStatus processPlanLocallyOrInBatch(PhysicalPlan plan) {
+    if (USE_LOG_DISPATCHER
+        || ClusterDescriptor.getInstance().getConfig().getPlanBatchWindowMS() <= 0
+        || !(plan instanceof InsertRowPlan || plan instanceof InsertTabletPlan)) {
+      return processPlanLocally(plan);
+    }
+    PartialPath storageGroup;
+    try {
+      storageGroup = IoTDB.metaManager.getStorageGroupPath(((InsertPlan) plan).getDeviceId());
+    } catch (StorageGroupNotSetException e) {
+      // let the plan fail or pull the storage group by itself
+      return processPlanLocally(plan);
+    }
+    return getPlanBatcher().process(storageGroup, plan);
+  }
+
+  private PlanBatcher getPlanBatcher() {
+    if (planBatcher == null) {
+      synchronized (this) {
+        if (planBatcher == null) {
+          ClusterConfig config = ClusterDescriptor.getInstance().getConfig();
+          planBatcher = new PlanBatcher(name, config.getPlanBatchWindowMS(),
+              config.getMaxPlanNumInBatch(), plans -> plans.size() == 1
+              ? Collections.singletonList(processPlanLocally(plans.get(0)))
+              : processPlansLocally(plans));
+        }
+      }
+    }
+    return planBatcher;
+  }
+
   /**
    * When the node does not play a member in a group any more, the corresponding local data should
    * be removed.
@@ -766,12 +813,14 @@ public class DataGroupMember extends RaftMember {
   public DataMemberReport genReport() {
     long prevLastLogIndex = lastReportedLogIndex;
     lastReportedLogIndex = logManager.getLastLogIndex();
+    List<Integer> applierBacklogs = logManager.getApplier() instanceof AsyncDataLogApplier ?
+        ((AsyncDataLogApplier) logManager.getApplier()).getConsumerBacklogs() : null;
     return new DataMemberReport(character, leader.get(), term.get(),
         logManager.getLastLogTerm(), lastReportedLogIndex, logManager.getCommitLogIndex(),
         logManager.getCommitLogTerm(), getHeader(), readOnly,
         NodeStatusManager.getINSTANCE()
             .getLastResponseLatency(getHeader()), lastHeartbeatReceivedTime, prevLastLogIndex,
-        logManager.getMaxHaveAppliedCommitIndex());
+        logManager.getMaxHaveAppliedCommitIndex(), applierBacklogs);
   }
 
   @TestOnly
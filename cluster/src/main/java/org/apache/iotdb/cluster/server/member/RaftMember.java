@@ -27,11 +27,13 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -40,6 +42,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -52,16 +55,19 @@ import org.apache.iotdb.cluster.config.ClusterConstant;
 import org.apache.iotdb.cluster.config.ClusterDescriptor;
 import org.apache.iotdb.cluster.exception.CheckConsistencyException;
 import org.apache.iotdb.cluster.exception.LogExecutionException;
+import org.apache.iotdb.cluster.exception.RequestTimeOutException;
 import org.apache.iotdb.cluster.exception.UnknownLogTypeException;
 import org.apache.iotdb.cluster.log.CommitLogCallback;
 import org.apache.iotdb.cluster.log.CommitLogTask;
 import org.apache.iotdb.cluster.log.HardState;
 import org.apache.iotdb.cluster.log.Log;
+import org.apache.iotdb.cluster.log.LogCommitter;
 import org.apache.iotdb.cluster.log.LogDispatcher;
 import org.apache.iotdb.cluster.log.LogDispatcher.SendLogRequest;
 import org.apache.iotdb.cluster.log.LogParser;
 import org.apache.iotdb.cluster.log.catchup.CatchUpTask;
 import org.apache.iotdb.cluster.log.logtypes.PhysicalPlanLog;
+import org.apache.iotdb.cluster.log.logtypes.PlanBatchLog;
 import org.apache.iotdb.cluster.log.manage.RaftLogManager;
 import org.apache.iotdb.cluster.rpc.thrift.AppendEntriesRequest;
 import org.apache.iotdb.cluster.rpc.thrift.AppendEntryRequest;
@@ -234,6 +240,10 @@ public abstract class RaftMember {
    * logs.
    */
   private LogDispatcher logDispatcher;
+  /**
+   * logCommitter commits the logs accepted by the quorum in batches when async commit is used.
+   */
+  private LogCommitter logCommitter;
 
   protected RaftMember() {
   }
@@ -351,6 +361,18 @@ public abstract class RaftMember {
         logger.error("Unexpected interruption when waiting for commitLogPool to end", e);
       }
     }
+
+    synchronized (this) {
+      if (logCommitter != null) {
+        try {
+          logCommitter.close();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          logger.error("Unexpected interruption when waiting for logCommitter to end", e);
+        }
+        logCommitter = null;
+      }
+    }
     catchUpService = null;
     heartBeatService = null;
     appendLogThreadPool = null;
@@ -856,6 +878,24 @@ public abstract class RaftMember {
     if (USE_LOG_DISPATCHER) {
       return processPlanLocallyV2(plan);
     }
+    if (ClusterDescriptor.getInstance().getConfig().isUseAsyncCommit()) {
+      try {
+        return processPlanLocallyAsync(plan)
+            .get(RaftServer.getWriteOperationTimeoutMS(), TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        logger.warn("{}: Cannot get the result of {} in {}ms", name, plan,
+            RaftServer.getWriteOperationTimeoutMS());
+        return StatusUtils.TIME_OUT;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        logger.warn("{}: Unexpected interruption when waiting for the result of {}", name, plan);
+        return StatusUtils.TIME_OUT;
+      } catch (ExecutionException e) {
+        // the future handles all exceptions by itself
+        logger.error("{}: Unexpected error when processing {}", name, plan, e);
+        return StatusUtils.TIME_OUT;
+      }
+    }
 
     logger.debug("{}: Processing plan {}", name, plan);
     if (readOnly) {
@@ -884,6 +924,113 @@ public abstract class RaftMember {
     return StatusUtils.TIME_OUT;
   }
 
+  /**
+   * Create one log for all "plans", which are insertions into the same storage group, append it
+   * locally and to all followers like processPlanLocally. Only the group leader can call this
+   * method.
+   *
+   * @return the status of each plan, OK if the log is accepted and the plan is applied
+   * successfully
+   */
+  List<TSStatus> processPlansLocally(List<PhysicalPlan> plans) {
+    logger.debug("{}: Processing a batch of {} plans", name, plans.size());
+    if (readOnly) {
+      return Collections.nCopies(plans.size(), StatusUtils.NODE_READ_ONLY);
+    }
+    long startTime = Timer.Statistic.RAFT_SENDER_APPEND_LOG.getOperationStartTime();
+    PlanBatchLog log = new PlanBatchLog(plans);
+    // assign term and index to the new log and append it
+    synchronized (logManager) {
+      log.setCurrLogTerm(getTerm().get());
+      log.setCurrLogIndex(logManager.getLastLogIndex() + 1);
+
+      for (PhysicalPlan plan : plans) {
+        plan.setIndex(log.getCurrLogIndex());
+      }
+      logManager.append(log);
+    }
+    Timer.Statistic.RAFT_SENDER_APPEND_LOG.calOperationCostTimeFromStart(startTime);
+
+    try {
+      if (!appendLogInGroup(log)) {
+        return Collections.nCopies(plans.size(), StatusUtils.TIME_OUT);
+      }
+    } catch (LogExecutionException e) {
+      return Collections.nCopies(plans.size(), handleLogExecutionException(log, e));
+    }
+    List<TSStatus> statuses = new ArrayList<>(plans.size());
+    for (int i = 0; i < plans.size(); i++) {
+      Exception planException = log.getPlanException(i);
+      statuses.add(planException == null ? StatusUtils.OK
+          : handleLogExecutionException(log, new LogExecutionException(planException)));
+    }
+    return statuses;
+  }
+
+  /**
+   * Create a log for "plan", append it locally and send it to all followers without waiting for
+   * their votes. When the quorum accepts the log, it is committed by the LogCommitter together
+   * with the other accepted logs. Only the group leader can call this method.
+   *
+   * @return a future of OK when the log is applied, TIME_OUT when the log is not accepted by the
+   * quorum in time or the leadership is lost, or the status of the error in applying the log
+   */
+  CompletableFuture<TSStatus> processPlanLocallyAsync(PhysicalPlan plan) {
+    logger.debug("{}: Processing plan {} asynchronously", name, plan);
+    if (readOnly) {
+      return CompletableFuture.completedFuture(StatusUtils.NODE_READ_ONLY);
+    }
+    long startTime = Timer.Statistic.RAFT_SENDER_APPEND_LOG.getOperationStartTime();
+    PhysicalPlanLog log = new PhysicalPlanLog();
+    log.setResultFuture(new CompletableFuture<>());
+    // assign term and index to the new log and append it
+    synchronized (logManager) {
+      log.setCurrLogTerm(getTerm().get());
+      log.setCurrLogIndex(logManager.getLastLogIndex() + 1);
+
+      log.setPlan(plan);
+      plan.setIndex(log.getCurrLogIndex());
+      logManager.append(log);
+    }
+    Timer.Statistic.RAFT_SENDER_APPEND_LOG.calOperationCostTimeFromStart(startTime);
+
+    AtomicInteger voteCounter = new AtomicInteger(allNodes.size() / 2);
+    AtomicBoolean leaderShipStale = new AtomicBoolean(false);
+    AtomicLong newLeaderTerm = new AtomicLong(term.get());
+    LogCommitter committer = getLogCommitter();
+    if (allNodes.size() == 1) {
+      // single node group, no followers
+      committer.offer(log);
+    } else {
+      committer.scheduleTimeout(log, RaftServer.getWriteOperationTimeoutMS(),
+          () -> voteCounter.get() == 0);
+      // the handlers of the responses hand the log to the committer when the quorum accepts it
+      if (sendLogToFollowers(log, voteCounter, leaderShipStale, newLeaderTerm) != null) {
+        log.getResultFuture().completeExceptionally(new RequestTimeOutException(log));
+      }
+    }
+
+    return log.getResultFuture().handle((v, e) -> {
+      if (e == null) {
+        if (log.getException() != null) {
+          return handleLogExecutionException(log,
+              new LogExecutionException(log.getException()));
+        }
+        logger.debug(MSG_LOG_IS_ACCEPTED, name, log);
+        return StatusUtils.OK;
+      }
+      if (e instanceof LogExecutionException) {
+        return handleLogExecutionException(log, (LogExecutionException) e);
+      }
+      // a node has a larger term than the local node, so this node is no longer a valid leader
+      if (leaderShipStale.get()) {
+        stepDown(newLeaderTerm.get(), false);
+      }
+      logger.debug("{}: log {} is not accepted: {}", name, log, e.getMessage());
+      return StatusUtils.TIME_OUT;
+    });
+  }
+
   private TSStatus processPlanLocallyV2(PhysicalPlan plan) {
     logger.debug("{}: Processing plan {}", name, plan);
     if (readOnly) {
@@ -1285,6 +1432,13 @@ public abstract class RaftMember {
     return logDispatcher;
   }
 
+  public synchronized LogCommitter getLogCommitter() {
+    if (logCommitter == null) {
+      logCommitter = new LogCommitter(this);
+    }
+    return logCommitter;
+  }
+
   /**
    * wait until "voteCounter" counts down to zero, which means the quorum has received the log, or
    * one follower tells the node that it is no longer a valid leader, or a timeout is triggered.
@@ -1361,8 +1515,7 @@ public abstract class RaftMember {
     }
   }
 
-  private TSStatus handleLogExecutionException(
-      PhysicalPlanLog log, LogExecutionException e) {
+  private TSStatus handleLogExecutionException(Log log, LogExecutionException e) {
     Throwable cause = IOUtils.getRootCause(e);
     if (cause instanceof BatchProcessException) {
       return RpcUtils
@@ -1562,6 +1715,21 @@ public abstract class RaftMember {
     AtomicBoolean leaderShipStale = new AtomicBoolean(false);
     AtomicLong newLeaderTerm = new AtomicLong(term.get());
 
+    AppendLogResult result = sendLogToFollowers(log, voteCounter, leaderShipStale, newLeaderTerm);
+    if (result != null) {
+      return result;
+    }
+    return waitAppendResult(voteCounter, leaderShipStale, newLeaderTerm);
+  }
+
+  /**
+   * Send the log to each follower without waiting for their responses.
+   *
+   * @return null if the log is sent to all followers, or LEADERSHIP_STALE or TIME_OUT if the
+   * sending is aborted
+   */
+  private AppendLogResult sendLogToFollowers(Log log, AtomicInteger voteCounter,
+      AtomicBoolean leaderShipStale, AtomicLong newLeaderTerm) {
     AppendEntryRequest request = buildAppendEntryRequest(log, true);
 
     try {
@@ -1590,8 +1758,7 @@ public abstract class RaftMember {
       // retry if allNodes has changed
       return AppendLogResult.TIME_OUT;
     }
-
-    return waitAppendResult(voteCounter, leaderShipStale, newLeaderTerm);
+    return null;
   }
 
   /**
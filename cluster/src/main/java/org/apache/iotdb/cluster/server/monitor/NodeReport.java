@@ -151,15 +151,19 @@ public class NodeReport {
   public static class DataMemberReport extends RaftMemberReport {
     Node header;
     long headerLatency;
+    // the number of logs waiting in each consumer of the async applier, null if it is not used
+    List<Integer> applierBacklogs;
 
     public DataMemberReport(NodeCharacter character, Node leader, long term, long lastLogTerm,
         long lastLogIndex, long commitIndex, long commitTerm, Node header, boolean isReadOnly,
         long headerLatency,
-        long lastHeartbeatReceivedTime, long prevLastLogIndex, long maxAppliedLogIndex) {
+        long lastHeartbeatReceivedTime, long prevLastLogIndex, long maxAppliedLogIndex,
+        List<Integer> applierBacklogs) {
       super(character, leader, term, lastLogTerm, lastLogIndex, commitIndex, commitTerm, isReadOnly,
           lastHeartbeatReceivedTime, prevLastLogIndex, maxAppliedLogIndex);
       this.header = header;
       this.headerLatency = headerLatency;
+      this.applierBacklogs = applierBacklogs;
     }
 
     @Override
@@ -178,6 +182,7 @@ public class NodeReport {
           ", headerLatency=" + headerLatency + "ns" +
           ", lastHeartbeat=" + (System.currentTimeMillis() - lastHeartbeatReceivedTime) + "ms ago" +
           ", logIncrement=" + (lastLogIndex - prevLastLogIndex) +
+          (applierBacklogs != null ? ", applierBacklogs=" + applierBacklogs : "") +
           '}';
     }
   }
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.cluster.log;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import org.apache.iotdb.cluster.common.TestLog;
+import org.apache.iotdb.cluster.common.TestMetaGroupMember;
+import org.junit.Test;
+
+public class LogCommitterTest {
+
+  @Test
+  public void testFailLogsOnClose() throws InterruptedException {
+    LogCommitter committer = new LogCommitter(new TestMetaGroupMember());
+    Log pendingLog = new TestLog();
+    pendingLog.setResultFuture(new CompletableFuture<>());
+    committer.scheduleTimeout(pendingLog, 3600 * 1000L, () -> false);
+
+    committer.close();
+    // the log waiting for the votes is neither committed nor timed out after closing
+    assertTrue(pendingLog.getResultFuture().isCompletedExceptionally());
+
+    // a log accepted after closing is never committed either
+    Log acceptedLog = new TestLog();
+    acceptedLog.setResultFuture(new CompletableFuture<>());
+    committer.offer(acceptedLog);
+    assertTrue(acceptedLog.getResultFuture().isCompletedExceptionally());
+  }
+}
@@ -20,9 +20,11 @@
 package org.apache.iotdb.cluster.log.applier;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListSet;
@@ -36,7 +38,9 @@ import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.exception.metadata.StorageGroupNotSetException;
 import org.apache.iotdb.db.metadata.PartialPath;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertMultiTabletPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
 import org.apache.iotdb.db.service.IoTDB;
 import org.junit.After;
 import org.junit.Before;
@@ -163,4 +167,66 @@ public class AsyncDataLogApplierTest {
       asyncDataLogApplier.close();
     }
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testMultiDeviceLog() throws IllegalPathException, InterruptedException {
+    List<Long> appliedIndexes = Collections.synchronizedList(new ArrayList<>());
+    LogApplier dummyApplier = log -> {
+      try {
+        // let the insertions of the devices interleave
+        Thread.sleep(1);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      appliedIndexes.add(log.getCurrLogIndex());
+      log.setApplied(true);
+    };
+    AsyncDataLogApplier asyncDataLogApplier = new AsyncDataLogApplier(dummyApplier, "test");
+    try {
+      List<InsertTabletPlan> tabletPlans = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        tabletPlans.add(new InsertTabletPlan(new PartialPath(TestUtils.getTestSg(i)),
+            new String[0]));
+      }
+      for (int i = 0; i < 21; i++) {
+        PhysicalPlan plan;
+        if (i == 10) {
+          // the insertion of all devices must be applied between the others
+          plan = new InsertMultiTabletPlan(tabletPlans);
+        } else {
+          plan = new InsertRowPlan(new PartialPath(TestUtils.getTestSg(i % 10)), i,
+              new String[0], new String[0]);
+        }
+        PhysicalPlanLog log = new PhysicalPlanLog(plan);
+        log.setCurrLogIndex(i);
+        logsToApply.add(log);
+      }
+
+      for (Log log : logsToApply) {
+        asyncDataLogApplier.apply(log);
+      }
+      for (Log log : logsToApply) {
+        synchronized (log) {
+          while (!log.isApplied()) {
+            log.wait(10);
+          }
+        }
+      }
+
+      assertEquals(21, appliedIndexes.size());
+      int multiDeviceLogPos = appliedIndexes.indexOf(10L);
+      for (int pos = 0; pos < appliedIndexes.size(); pos++) {
+        if (pos < multiDeviceLogPos) {
+          assertTrue(appliedIndexes.get(pos) < 10);
+        } else if (pos > multiDeviceLogPos) {
+          assertTrue(appliedIndexes.get(pos) > 10);
+        }
+      }
+      for (int backlog : asyncDataLogApplier.getConsumerBacklogs()) {
+        assertEquals(0, backlog);
+      }
+    } finally {
+      asyncDataLogApplier.close();
+    }
+  }
+}
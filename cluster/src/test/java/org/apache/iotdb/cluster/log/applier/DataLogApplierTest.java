@@ -42,6 +42,7 @@ import org.apache.iotdb.cluster.coordinator.Coordinator;
 import org.apache.iotdb.cluster.log.LogApplier;
 import org.apache.iotdb.cluster.log.logtypes.CloseFileLog;
 import org.apache.iotdb.cluster.log.logtypes.PhysicalPlanLog;
+import org.apache.iotdb.cluster.log.logtypes.PlanBatchLog;
 import org.apache.iotdb.cluster.metadata.CMManager;
 import org.apache.iotdb.cluster.metadata.MetaPuller;
 import org.apache.iotdb.cluster.partition.PartitionGroup;
@@ -67,6 +68,7 @@ import org.apache.iotdb.db.exception.metadata.StorageGroupNotSetException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.metadata.PartialPath;
 import org.apache.iotdb.db.metadata.mnode.MeasurementMNode;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
 import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
 import org.apache.iotdb.db.qp.physical.sys.FlushPlan;
@@ -270,6 +272,45 @@ public class DataLogApplierTest extends IoTDBTest {
         log.getException().getMessage());
   }
 
+  @Test
+  public void testApplyPlanBatch()
+      throws QueryProcessException, IOException, QueryFilterOptimizationException, StorageEngineException, MetadataException, InterruptedException {
+    List<PhysicalPlan> plans = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      InsertRowPlan insertPlan = new InsertRowPlan();
+      insertPlan.setDeviceId(new PartialPath(TestUtils.getTestSg(1)));
+      insertPlan.setTime(i);
+      insertPlan.setNeedInferType(true);
+      insertPlan.setMeasurements(new String[]{TestUtils.getTestMeasurement(0)});
+      insertPlan.setDataTypes(new TSDataType[insertPlan.getMeasurements().length]);
+      insertPlan.setValues(new Object[]{String.valueOf(i)});
+      insertPlan
+          .setMeasurementMNodes(new MeasurementMNode[]{TestUtils.getTestMeasurementMNode(0)});
+      plans.add(insertPlan);
+    }
+    // this series does not exists any where, but the other plans are still applied
+    ((InsertRowPlan) plans.get(1)).setDeviceId(new PartialPath(TestUtils.getTestSg(5)));
+    PlanBatchLog log = new PlanBatchLog(plans);
+
+    applier.apply(log);
+    assertTrue(log.isApplied());
+    assertNull(log.getException());
+    assertNull(log.getPlanException(0));
+    assertEquals(
+        "org.apache.iotdb.db.exception.metadata.PathNotExistException: Path [root.test5.s0] does not exist",
+        log.getPlanException(1).getMessage());
+    assertNull(log.getPlanException(2));
+
+    QueryDataSet dataSet = query(Collections.singletonList(TestUtils.getTestSeries(1, 0)), null);
+    for (int time : new int[]{0, 2}) {
+      assertTrue(dataSet.hasNext());
+      RowRecord record = dataSet.next();
+      assertEquals(time, record.getTimestamp());
+      assertEquals(time, record.getFields().get(0).getDoubleV(), 0.00001);
+    }
+    assertFalse(dataSet.hasNext());
+  }
+
   @Test
   public void testApplyDeletion()
       throws QueryProcessException, MetadataException, QueryFilterOptimizationException, StorageEngineException, IOException, InterruptedException {
@@ -23,8 +23,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import org.apache.iotdb.cluster.common.TestUtils;
 import org.apache.iotdb.cluster.exception.UnknownLogTypeException;
 import org.apache.iotdb.cluster.log.Log;
@@ -34,6 +36,7 @@ import org.apache.iotdb.cluster.utils.Constants;
 import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.metadata.PartialPath;
 import org.apache.iotdb.db.metadata.mnode.MeasurementMNode;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.SetStorageGroupPlan;
@@ -84,6 +87,48 @@ public class SerializeLogTest {
     assertEquals(log, logPrime);
   }
 
+  @Test
+  public void testPlanBatchLog() throws UnknownLogTypeException, IllegalPathException {
+    List<PhysicalPlan> plans = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      InsertRowPlan plan = new InsertRowPlan();
+      plan.setDeviceId(new PartialPath("root.d1"));
+      plan.setMeasurements(new String[]{"s1"});
+      plan.setNeedInferType(true);
+      plan.setDataTypes(new TSDataType[plan.getMeasurements().length]);
+      plan.setValues(new Object[]{String.valueOf(i)});
+      MeasurementMNode[] schemas = {TestUtils.getTestMeasurementMNode(1)};
+      schemas[0].getSchema().setType(TSDataType.INT32);
+      plan.setMeasurementMNodes(schemas);
+      plan.setTime(i);
+      plans.add(plan);
+    }
+    PlanBatchLog log = new PlanBatchLog(plans);
+    log.setCurrLogIndex(2);
+    log.setCurrLogTerm(2);
+
+    ByteBuffer byteBuffer = log.serialize();
+    PlanBatchLog logPrime = (PlanBatchLog) LogParser.getINSTANCE().parse(byteBuffer);
+    assertEquals(log, logPrime);
+    assertEquals(3, logPrime.getPlans().size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCorruptPlanBatchLog() throws UnknownLogTypeException, IllegalPathException {
+    List<PhysicalPlan> plans = new ArrayList<>();
+    SetStorageGroupPlan plan = new SetStorageGroupPlan(new PartialPath("root.sg1"));
+    plans.add(plan);
+    plans.add(plan);
+    PlanBatchLog log = new PlanBatchLog(plans);
+    log.setCurrLogIndex(2);
+    log.setCurrLogTerm(2);
+
+    ByteBuffer byteBuffer = log.serialize();
+    // the type of the first plan, after the log type, index, term and the number of plans
+    byteBuffer.put(Byte.BYTES + 2 * Long.BYTES + Integer.BYTES, Byte.MAX_VALUE);
+    LogParser.getINSTANCE().parse(byteBuffer);
+  }
+
   @Test
   public void testAddNodeLog() throws UnknownLogTypeException {
     AddNodeLog log = new AddNodeLog();
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.cluster.log.manage.serializable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import org.apache.iotdb.cluster.common.IoTDBTest;
+import org.apache.iotdb.cluster.common.TestUtils;
+import org.apache.iotdb.cluster.config.ClusterConfig;
+import org.apache.iotdb.cluster.config.ClusterDescriptor;
+import org.apache.iotdb.cluster.log.HardState;
+import org.apache.iotdb.cluster.log.Log;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SegmentedLogStoreTest extends IoTDBTest {
+
+  private int testIdentifier = 1;
+  private List<Log> testLogs = TestUtils.prepareTestLogs(40);
+  private int oneLogSize = testLogs.get(0).serialize().remaining();
+
+  private SegmentedLogStore createStore() {
+    SegmentedLogStore store = new SegmentedLogStore(testIdentifier);
+    // 10 logs in each segment
+    store.setMaxSegmentSize(oneLogSize * 10L);
+    return store;
+  }
+
+  @Test
+  public void testAppendAndGet() throws IOException {
+    SegmentedLogStore store = createStore();
+    try {
+      store.append(testLogs.subList(0, 15), 0);
+      store.append(testLogs.subList(15, 40), 0);
+      Assert.assertEquals(4, store.getSegmentNum());
+
+      // across segments
+      Assert.assertEquals(testLogs.subList(5, 26), store.getLogs(5, 25));
+      Assert.assertEquals(testLogs.subList(39, 40), store.getLogs(39, 39));
+      // beyond the last log
+      Assert.assertEquals(testLogs.subList(35, 40), store.getLogs(35, 50));
+      Assert.assertTrue(store.getLogs(40, 50).isEmpty());
+    } finally {
+      store.close();
+    }
+  }
+
+  @Test
+  public void testRecover() throws IOException {
+    SegmentedLogStore store = createStore();
+    HardState hardState = new HardState();
+    hardState.setCurrentTerm(10);
+    try {
+      store.append(testLogs.subList(0, 25), 4);
+      store.setHardStateAndFlush(hardState);
+    } finally {
+      store.close();
+    }
+
+    store = createStore();
+    try {
+      Assert.assertEquals(hardState, store.getHardState());
+      Assert.assertEquals(24, store.getMeta().getCommitLogIndex());
+      Assert.assertEquals(testLogs.subList(4, 25), store.getAllEntriesAfterAppliedIndex());
+
+      // the last segment is appended after recovery
+      store.append(testLogs.subList(25, 30), 4);
+      Assert.assertEquals(testLogs.subList(20, 30), store.getLogs(20, 29));
+      Assert.assertEquals(3, store.getSegmentNum());
+    } finally {
+      store.close();
+    }
+  }
+
+  @Test
+  public void testTruncate() throws IOException {
+    SegmentedLogStore store = createStore();
+    try {
+      store.append(testLogs.subList(0, 25), 0);
+      // logs from 15 are replaced, the segment from 20 is dropped
+      List<Log> newLogs = TestUtils.prepareTestLogs(18);
+      for (Log log : newLogs) {
+        log.setCurrLogTerm(100);
+      }
+      store.append(newLogs.subList(15, 18), 0);
+      Assert.assertEquals(2, store.getSegmentNum());
+
+      List<Log> logs = store.getLogs(10, 30);
+      Assert.assertEquals(8, logs.size());
+      Assert.assertEquals(testLogs.subList(10, 15), logs.subList(0, 5));
+      Assert.assertEquals(newLogs.subList(15, 18), logs.subList(5, 8));
+    } finally {
+      store.close();
+    }
+
+    store = createStore();
+    try {
+      List<Log> logs = store.getLogs(15, 30);
+      Assert.assertEquals(3, logs.size());
+      for (Log log : logs) {
+        Assert.assertEquals(100, log.getCurrLogTerm());
+      }
+    } finally {
+      store.close();
+    }
+  }
+
+  @Test
+  public void testDeleteOutdatedSegments() throws IOException {
+    SegmentedLogStore store = createStore();
+    store.setMaxSegmentNum(2);
+    try {
+      store.setUseRaftLogAsWal(true);
+      store.append(testLogs.subList(0, 40), 5);
+      // the logs after the applied index are kept
+      Assert.assertEquals(4, store.getSegmentNum());
+      Assert.assertEquals(testLogs.subList(0, 3), store.getLogs(0, 2));
+
+      store.setUseRaftLogAsWal(false);
+      store.removeCompactedEntries(0);
+      Assert.assertEquals(2, store.getSegmentNum());
+      Assert.assertTrue(store.getLogs(0, 19).isEmpty());
+      Assert.assertEquals(testLogs.subList(20, 40), store.getLogs(20, 39));
+    } finally {
+      store.close();
+    }
+  }
+
+  @Test
+  public void testRecoverBrokenLogs() throws IOException {
+    SegmentedLogStore store = createStore();
+    store.setMaxSegmentSize(Long.MAX_VALUE);
+    store.append(testLogs.subList(0, 10), 0);
+    store.forceFlushLogBuffer();
+    // the logs after the force are written but not forced when the node crashes
+    store.append(testLogs.subList(10, 15), 0);
+
+    File dataFile = new File(store.getLogDir() + "0.data");
+    try (RandomAccessFile file = new RandomAccessFile(dataFile, "rw")) {
+      file.seek(oneLogSize * 13L);
+      int b = file.read();
+      file.seek(oneLogSize * 13L);
+      file.write(~b);
+    }
+
+    SegmentedLogStore recoveredStore = createStore();
+    try {
+      Assert.assertEquals(testLogs.subList(0, 13), recoveredStore.getLogs(0, 20));
+      recoveredStore.append(testLogs.subList(13, 15), 0);
+      Assert.assertEquals(testLogs.subList(0, 15), recoveredStore.getLogs(0, 20));
+    } finally {
+      recoveredStore.close();
+      store.close();
+    }
+  }
+
+  @Test
+  public void testClearAllLogs() throws IOException {
+    SegmentedLogStore store = createStore();
+    try {
+      store.append(testLogs.subList(0, 25), 0);
+      store.clearAllLogs(30);
+      Assert.assertTrue(store.getLogs(0, 25).isEmpty());
+      Assert.assertEquals(30, store.getMeta().getCommitLogIndex());
+
+      List<Log> newLogs = TestUtils.prepareTestLogs(35);
+      store.append(newLogs.subList(31, 35), 30);
+      Assert.assertEquals(newLogs.subList(31, 35), store.getLogs(31, 40));
+    } finally {
+      store.close();
+    }
+  }
+
+  @Test
+  public void testGetLogsPerFetch() throws IOException {
+    ClusterConfig config = ClusterDescriptor.getInstance().getConfig();
+    int prevMaxLogNumPerFetch = config.getMaxNumberOfLogsPerFetchOnDisk();
+    config.setMaxNumberOfLogsPerFetchOnDisk(8);
+    SegmentedLogStore store = createStore();
+    try {
+      store.append(testLogs.subList(0, 25), 0);
+      Assert.assertEquals(testLogs.subList(5, 13), store.getLogs(5, 20));
+      // the logs are fetched in batches
+      Assert.assertEquals(testLogs.subList(0, 25), store.getAllEntriesAfterAppliedIndex());
+    } finally {
+      store.close();
+      config.setMaxNumberOfLogsPerFetchOnDisk(prevMaxLogNumPerFetch);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testAppendAfterClose() throws IOException {
+    SegmentedLogStore store = createStore();
+    store.append(testLogs.subList(0, 5), 0);
+    store.close();
+    store.append(testLogs.subList(5, 10), 0);
+  }
+}
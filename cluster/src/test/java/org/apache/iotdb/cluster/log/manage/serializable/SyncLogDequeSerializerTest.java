@@ -550,6 +550,59 @@ public class SyncLogDequeSerializerTest extends IoTDBTest {
     }
   }
 
+  @Test
+  public void testDeleteLogsNotAppliedDurably() {
+    SyncLogDequeSerializer syncLogDequeSerializer = new SyncLogDequeSerializer(testIdentifier);
+    try {
+      syncLogDequeSerializer.setUseRaftLogAsWal(true);
+      prepareFiles(syncLogDequeSerializer);
+      // no log is applied durably, so all the files are kept for the recovery
+      syncLogDequeSerializer.checkDeletePersistRaftLog();
+      Assert.assertEquals(5, syncLogDequeSerializer.getLogDataFileList().size());
+
+      // file1 and file2 are before the applied index
+      syncLogDequeSerializer.getMeta().setMaxHaveAppliedCommitIndex(20);
+      syncLogDequeSerializer.checkDeletePersistRaftLog();
+      Assert.assertEquals(maxPersistLogFileNumber,
+          syncLogDequeSerializer.getLogDataFileList().size());
+      String[] splits = syncLogDequeSerializer.getLogDataFileList().get(0).getName()
+          .split(FILE_NAME_SEPARATOR);
+      Assert.assertEquals(18, Long.parseLong(splits[0]));
+    } finally {
+      syncLogDequeSerializer.close();
+    }
+  }
+
+  @Test
+  public void testGetAllEntriesAfterAppliedIndexBeyondOneFetch() {
+    SyncLogDequeSerializer syncLogDequeSerializer = new SyncLogDequeSerializer(testIdentifier);
+    int logNum = ClusterDescriptor.getInstance().getConfig().getMaxNumberOfLogsPerFetchOnDisk()
+        * 2 + 10;
+    List<Log> logs = TestUtils.prepareNodeLogs(logNum);
+    try {
+      for (int i = 0; i < logNum; i += 10) {
+        syncLogDequeSerializer.append(logs.subList(i, i + 10), 0);
+      }
+      syncLogDequeSerializer.setHardStateAndFlush(new HardState());
+    } catch (IOException e) {
+      Assert.fail(e.getMessage());
+    } finally {
+      syncLogDequeSerializer.close();
+    }
+
+    // recovery
+    syncLogDequeSerializer = new SyncLogDequeSerializer(testIdentifier);
+    try {
+      List<Log> recoveredLogs = syncLogDequeSerializer.getAllEntriesAfterAppliedIndex();
+      Assert.assertEquals(logNum, recoveredLogs.size());
+      for (int i = 0; i < logNum; i++) {
+        Assert.assertEquals(i, recoveredLogs.get(i).getCurrLogIndex());
+      }
+    } finally {
+      syncLogDequeSerializer.close();
+    }
+  }
+
   @Test
   public void testRecoverFromTemp() {
     SyncLogDequeSerializer syncLogDequeSerializer = new SyncLogDequeSerializer(testIdentifier);
@@ -19,14 +19,20 @@
 
 package org.apache.iotdb.cluster.log.snapshot;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +41,7 @@ import org.apache.iotdb.cluster.common.TestUtils;
 import org.apache.iotdb.cluster.config.ClusterDescriptor;
 import org.apache.iotdb.cluster.exception.SnapshotInstallationException;
 import org.apache.iotdb.cluster.partition.slot.SlotManager.SlotStatus;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
@@ -75,6 +82,85 @@ public class FileSnapshotTest extends DataSnapshotTest {
     FileSnapshot deserialized = new FileSnapshot();
     deserialized.deserialize(buffer);
     assertEquals(snapshot, deserialized);
+    for (int i = 0; i < 10; i++) {
+      assertEquals(tsFileResources.get(i).getTsFile().length(),
+          deserialized.getDataFiles().get(i).getTsFileLength());
+    }
+  }
+
+  @Test
+  public void testDeserializeWithoutFileLength() throws IOException, WriteProcessException {
+    List<TsFileResource> tsFileResources = TestUtils.prepareTsFileResources(0, 10, 10, 10, true);
+    // a snapshot of the older versions has no format marker and no file lengths
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
+    dataOutputStream.writeInt(1);
+    TestUtils.getTestTimeSeriesSchema(0, 0).serializeTo(dataOutputStream);
+    dataOutputStream.writeInt(tsFileResources.size());
+    for (TsFileResource resource : tsFileResources) {
+      ByteArrayOutputStream resourceOutputStream = new ByteArrayOutputStream();
+      new RemoteTsFileResource(resource, TestUtils.getNode(0))
+          .serialize(new DataOutputStream(resourceOutputStream));
+      byte[] resourceBytes = resourceOutputStream.toByteArray();
+      dataOutputStream.write(resourceBytes, 0, resourceBytes.length - Long.BYTES);
+    }
+
+    FileSnapshot snapshot = new FileSnapshot();
+    snapshot.deserialize(ByteBuffer.wrap(byteArrayOutputStream.toByteArray()));
+    assertEquals(1, snapshot.getTimeseriesSchemas().size());
+    assertEquals(tsFileResources.size(), snapshot.getDataFiles().size());
+    for (int i = 0; i < tsFileResources.size(); i++) {
+      RemoteTsFileResource dataFile = snapshot.getDataFiles().get(i);
+      assertEquals(tsFileResources.get(i).getTsFile().getPath(), dataFile.getTsFile().getPath());
+      assertEquals(-1, dataFile.getTsFileLength());
+    }
+  }
+
+  @Test
+  public void testResumePull() throws IOException, WriteProcessException {
+    List<TsFileResource> tsFileResources = TestUtils.prepareTsFileResources(0, 1, 10, 10, true);
+    File remoteFile = tsFileResources.get(0).getTsFile();
+    byte[] remoteBytes = Files.readAllBytes(remoteFile.toPath());
+    // the first half has been pulled by an interrupted installation, which is filled with zeros
+    // here so we can tell whether it is pulled again
+    int pulledLength = remoteBytes.length / 2;
+    File dest = new File(remoteFile.getPath() + ".pulled");
+    Files.write(dest.toPath(), new byte[pulledLength]);
+    File sourceFile = new File(dest.getPath() + ".source");
+    Files.write(sourceFile.toPath(), "0-9-1".getBytes(StandardCharsets.UTF_8));
+
+    FileSnapshot.Installer installer = new FileSnapshot.Installer(dataGroupMember);
+    assertTrue(installer.pullRemoteFile(remoteFile.getPath(), TestUtils.getNode(0), dest, "0-9-1",
+        remoteBytes.length));
+
+    byte[] pulledBytes = Files.readAllBytes(dest.toPath());
+    assertEquals(remoteBytes.length, pulledBytes.length);
+    for (int i = 0; i < pulledLength; i++) {
+      assertEquals(0, pulledBytes[i]);
+    }
+    for (int i = pulledLength; i < remoteBytes.length; i++) {
+      assertEquals(remoteBytes[i], pulledBytes[i]);
+    }
+    assertFalse(sourceFile.exists());
+  }
+
+  @Test
+  public void testPullWithAnotherSource() throws IOException, WriteProcessException {
+    List<TsFileResource> tsFileResources = TestUtils.prepareTsFileResources(0, 1, 10, 10, true);
+    File remoteFile = tsFileResources.get(0).getTsFile();
+    byte[] remoteBytes = Files.readAllBytes(remoteFile.toPath());
+    // the partially pulled file is of another remote file, so it cannot be resumed
+    File dest = new File(remoteFile.getPath() + ".pulled");
+    Files.write(dest.toPath(), new byte[remoteBytes.length / 2]);
+    File sourceFile = new File(dest.getPath() + ".source");
+    Files.write(sourceFile.toPath(), "0-8-1".getBytes(StandardCharsets.UTF_8));
+
+    FileSnapshot.Installer installer = new FileSnapshot.Installer(dataGroupMember);
+    assertTrue(installer.pullRemoteFile(remoteFile.getPath(), TestUtils.getNode(0), dest, "0-9-1",
+        remoteBytes.length));
+
+    assertArrayEquals(remoteBytes, Files.readAllBytes(dest.toPath()));
+    assertFalse(sourceFile.exists());
   }
 
   @Test
@@ -129,6 +215,38 @@ public class FileSnapshotTest extends DataSnapshotTest {
     }
   }
 
+  @Test
+  public void testRemoveStaleTempFiles()
+      throws IOException, SnapshotInstallationException, WriteProcessException {
+    File tempDir = new File(IoTDBDescriptor.getInstance().getConfig().getSystemDir(),
+        "remote" + File.separator + "0");
+    tempDir.mkdirs();
+    // left by an installation interrupted long ago
+    File staleFile = new File(tempDir, "stale.tsfile");
+    File staleSourceFile = new File(tempDir, "stale.tsfile.source");
+    // being pulled by the installation of another slot
+    File pullingFile = new File(tempDir, "pulling.tsfile");
+    for (File file : new File[]{staleFile, staleSourceFile, pullingFile}) {
+      Files.write(file.toPath(), new byte[1]);
+    }
+    long staleTime =
+        System.currentTimeMillis() - FileSnapshot.Installer.STALE_TEMP_FILE_AGE_MS - 1000;
+    assertTrue(staleFile.setLastModified(staleTime));
+    assertTrue(staleSourceFile.setLastModified(staleTime));
+
+    FileSnapshot snapshot = new FileSnapshot();
+    List<TsFileResource> tsFileResources = TestUtils.prepareTsFileResources(0, 1, 10, 10, true);
+    snapshot.addFile(tsFileResources.get(0), TestUtils.getNode(0));
+    snapshot.setTimeseriesSchemas(
+        Collections.singletonList(TestUtils.getTestTimeSeriesSchema(0, 0)));
+    dataGroupMember.getSlotManager().setToPulling(0, TestUtils.getNode(0));
+    snapshot.getDefaultInstaller(dataGroupMember).install(snapshot, 0);
+
+    assertFalse(staleFile.exists());
+    assertFalse(staleSourceFile.exists());
+    assertTrue(pullingFile.exists());
+  }
+
   @Test
   public void testInstallSync()
       throws IOException, SnapshotInstallationException, IllegalPathException, StorageEngineException, WriteProcessException {
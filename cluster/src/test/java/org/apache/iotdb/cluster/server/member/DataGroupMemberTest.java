@@ -42,6 +42,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import org.apache.iotdb.cluster.RemoteTsFileResource;
@@ -82,6 +83,7 @@ import org.apache.iotdb.cluster.server.handlers.caller.PullMeasurementSchemaHand
 import org.apache.iotdb.cluster.server.handlers.caller.PullSnapshotHandler;
 import org.apache.iotdb.cluster.server.service.DataAsyncService;
 import org.apache.iotdb.cluster.utils.Constants;
+import org.apache.iotdb.cluster.utils.StatusUtils;
 import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
@@ -102,6 +104,7 @@ import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.service.IoTDB;
 import org.apache.iotdb.db.utils.SerializeUtils;
+import org.apache.iotdb.service.rpc.thrift.TSStatus;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.filter.TimeFilter;
@@ -566,6 +569,99 @@ public class DataGroupMemberTest extends MemberTest {
     testThreadPool.shutdownNow();
   }
 
+  @Test
+  public void testLeaderExecuteNonQueryWithAsyncCommit()
+      throws QueryProcessException, IllegalPathException {
+    System.out.println("Start testLeaderExecuteNonQueryWithAsyncCommit()");
+    boolean prevUseAsyncCommit = ClusterDescriptor.getInstance().getConfig().isUseAsyncCommit();
+    ClusterDescriptor.getInstance().getConfig().setUseAsyncCommit(true);
+    dataGroupMember.setCharacter(NodeCharacter.LEADER);
+    dataGroupMember.setLeader(TestUtils.getNode(1));
+    ExecutorService testThreadPool = Executors.newFixedThreadPool(4);
+    dataGroupMember.setAppendLogThreadPool(testThreadPool);
+    try {
+      testMetaMember = super.getMetaGroupMember(TestUtils.getNode(0));
+      testMetaMember.setPartitionTable(partitionTable);
+      dataGroupMember.setLogManager(
+          getLogManager(partitionTable.getHeaderGroup(TestUtils.getNode(0)), dataGroupMember));
+      for (int i = 100; i < 110; i++) {
+        TimeseriesSchema timeseriesSchema = TestUtils.getTestTimeSeriesSchema(0, i);
+        CreateTimeSeriesPlan createTimeSeriesPlan =
+            new CreateTimeSeriesPlan(new PartialPath(timeseriesSchema.getFullPath()),
+                timeseriesSchema.getType(), timeseriesSchema.getEncodingType(),
+                timeseriesSchema.getCompressor(), timeseriesSchema.getProps(),
+                Collections.emptyMap(), Collections.emptyMap(), null);
+        assertEquals(200, dataGroupMember.executeNonQueryPlan(createTimeSeriesPlan).code);
+        assertTrue(
+            IoTDB.metaManager.isPathExist(new PartialPath(timeseriesSchema.getFullPath())));
+      }
+      assertEquals(dataGroupMember.getLogManager().getLastLogIndex(),
+          dataGroupMember.getLogManager().getCommitLogIndex());
+
+      // the log times out when the followers reject it
+      dummyResponse.set(Response.RESPONSE_LOG_MISMATCH);
+      TimeseriesSchema timeseriesSchema = TestUtils.getTestTimeSeriesSchema(0, 110);
+      CreateTimeSeriesPlan createTimeSeriesPlan =
+          new CreateTimeSeriesPlan(new PartialPath(timeseriesSchema.getFullPath()),
+              timeseriesSchema.getType(), timeseriesSchema.getEncodingType(),
+              timeseriesSchema.getCompressor(), timeseriesSchema.getProps(),
+              Collections.emptyMap(), Collections.emptyMap(), null);
+      assertEquals(StatusUtils.TIME_OUT,
+          dataGroupMember.processPlanLocally(createTimeSeriesPlan));
+    } finally {
+      dummyResponse.set(Response.RESPONSE_AGREE);
+      ClusterDescriptor.getInstance().getConfig().setUseAsyncCommit(prevUseAsyncCommit);
+      testThreadPool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testLeaderExecuteInsertionsInBatch() throws Exception {
+    System.out.println("Start testLeaderExecuteInsertionsInBatch()");
+    int prevPlanBatchWindowMS = ClusterDescriptor.getInstance().getConfig()
+        .getPlanBatchWindowMS();
+    ClusterDescriptor.getInstance().getConfig().setPlanBatchWindowMS(500);
+    dataGroupMember.setCharacter(NodeCharacter.LEADER);
+    dataGroupMember.setLeader(TestUtils.getNode(1));
+    ExecutorService testThreadPool = Executors.newFixedThreadPool(8);
+    dataGroupMember.setAppendLogThreadPool(testThreadPool);
+    ExecutorService clients = Executors.newFixedThreadPool(8);
+    try {
+      testMetaMember = super.getMetaGroupMember(TestUtils.getNode(0));
+      testMetaMember.setPartitionTable(partitionTable);
+      dataGroupMember.setLogManager(
+          getLogManager(partitionTable.getHeaderGroup(TestUtils.getNode(0)), dataGroupMember));
+      long prevLastLogIndex = dataGroupMember.getLogManager().getLastLogIndex();
+
+      List<Future<TSStatus>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        InsertRowPlan insertPlan = new InsertRowPlan();
+        insertPlan.setDeviceId(new PartialPath(TestUtils.getTestSg(0)));
+        insertPlan.setTime(i);
+        insertPlan.setNeedInferType(true);
+        insertPlan.setMeasurements(new String[]{TestUtils.getTestMeasurement(0)});
+        insertPlan.setDataTypes(new TSDataType[1]);
+        insertPlan.setValues(new Object[]{String.valueOf(i)});
+        insertPlan
+            .setMeasurementMNodes(new MeasurementMNode[]{TestUtils.getTestMeasurementMNode(0)});
+        insertPlan.transferType();
+        results.add(clients.submit(() -> dataGroupMember.executeNonQueryPlan(insertPlan)));
+      }
+      for (Future<TSStatus> result : results) {
+        assertEquals(200, result.get().code);
+      }
+      // the insertions are put into fewer logs
+      long logNum = dataGroupMember.getLogManager().getLastLogIndex() - prevLastLogIndex;
+      assertTrue(logNum < 8);
+      assertEquals(dataGroupMember.getLogManager().getLastLogIndex(),
+          dataGroupMember.getLogManager().getCommitLogIndex());
+    } finally {
+      ClusterDescriptor.getInstance().getConfig().setPlanBatchWindowMS(prevPlanBatchWindowMS);
+      clients.shutdownNow();
+      testThreadPool.shutdownNow();
+    }
+  }
+
   @Test
   public void testPullTimeseries() {
     System.out.println("Start testPullTimeseries()");
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.cluster.server.member;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.cluster.common.TestUtils;
+import org.apache.iotdb.cluster.config.ClusterConfig;
+import org.apache.iotdb.cluster.config.ClusterDescriptor;
+import org.apache.iotdb.db.metadata.PartialPath;
+import org.apache.iotdb.db.metadata.mnode.MeasurementMNode;
+import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.service.rpc.thrift.TSStatus;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+/**
+ * Raft append benchmark. Concurrent clients write through the leader of a local data group whose
+ * followers are simulated by the test clients, once committing by the writers and once by the
+ * async log committer, and the appends per second of both are printed.
+ */
+public class RaftAppendBenchmark extends MemberTest {
+
+  // the test clients open a socket for each request and never close it, so the total number of
+  // appends is limited by the open file limit
+  private static int clientNum = 16;
+  private static int appendNumPerClient = 250;
+
+  public static void main(String[] args) throws Exception {
+    RaftAppendBenchmark benchmark = new RaftAppendBenchmark();
+    benchmark.setUp();
+    ClusterConfig config = ClusterDescriptor.getInstance().getConfig();
+    boolean prevUseAsyncCommit = config.isUseAsyncCommit();
+    boolean prevEnableRaftLogPersistence = config.isEnableRaftLogPersistence();
+    int prevMaxNumOfLogsInMem = config.getMaxNumOfLogsInMem();
+    // the tests use a tiny raft log buffer and do not report the applied index, measure the append
+    // path only
+    config.setEnableRaftLogPersistence(false);
+    config.setMaxNumOfLogsInMem(Integer.MAX_VALUE);
+    try {
+      AtomicLong time = new AtomicLong();
+      for (boolean useAsyncCommit : new boolean[]{false, true, false, true}) {
+        config.setUseAsyncCommit(useAsyncCommit);
+        double appendsPerSec = benchmark.run(time);
+        System.out.println(String.format(
+            "Async commit: %s, clients: %d, appends per client: %d, appends/sec: %.1f",
+            useAsyncCommit, clientNum, appendNumPerClient, appendsPerSec));
+      }
+    } finally {
+      config.setUseAsyncCommit(prevUseAsyncCommit);
+      config.setEnableRaftLogPersistence(prevEnableRaftLogPersistence);
+      config.setMaxNumOfLogsInMem(prevMaxNumOfLogsInMem);
+      benchmark.tearDown();
+    }
+    System.exit(0);
+  }
+
+  private double run(AtomicLong time) throws Exception {
+    DataGroupMember leader = getDataGroupMember(TestUtils.getNode(0));
+    ExecutorService clients = Executors.newFixedThreadPool(clientNum);
+    List<Future<Void>> futures = new ArrayList<>();
+    long startTime = System.nanoTime();
+    for (int i = 0; i < clientNum; i++) {
+      futures.add(clients.submit(() -> {
+        for (int j = 0; j < appendNumPerClient; j++) {
+          TSStatus status = leader.processPlanLocally(createPlan(time.incrementAndGet()));
+          if (status.getCode() != 200) {
+            throw new IllegalStateException(status.toString());
+          }
+        }
+        return null;
+      }));
+    }
+    for (Future<Void> future : futures) {
+      future.get();
+    }
+    long elapsed = System.nanoTime() - startTime;
+    clients.shutdownNow();
+    return (double) clientNum * appendNumPerClient / elapsed * 1_000_000_000L;
+  }
+
+  private InsertRowPlan createPlan(long time) throws Exception {
+    InsertRowPlan insertPlan = new InsertRowPlan();
+    insertPlan.setDeviceId(new PartialPath(TestUtils.getTestSg(0)));
+    insertPlan.setTime(time);
+    insertPlan.setMeasurements(new String[]{TestUtils.getTestMeasurement(0)});
+    insertPlan.setNeedInferType(true);
+    insertPlan.setDataTypes(new TSDataType[1]);
+    insertPlan.setValues(new Object[]{"1.0"});
+    insertPlan.setMeasurementMNodes(
+        new MeasurementMNode[]{TestUtils.getTestMeasurementMNode(0)});
+    insertPlan.transferType();
+    return insertPlan;
+  }
+}
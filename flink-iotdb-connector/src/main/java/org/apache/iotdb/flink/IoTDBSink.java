@@ -19,21 +19,31 @@
 package org.apache.iotdb.flink;
 
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.state.FunctionInitializationContext;
+import org.apache.flink.runtime.state.FunctionSnapshotContext;
+import org.apache.flink.streaming.api.checkpoint.CheckpointedFunction;
 import org.apache.flink.streaming.api.functions.sink.RichSinkFunction;
 import org.apache.iotdb.rpc.StatementExecutionException;
 import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.session.pool.SessionPool;
 import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.write.record.Tablet;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,9 +51,15 @@ import org.slf4j.LoggerFactory;
  * The `IoTDBSink` allows flink jobs to write events into IoTDB timeseries. By default send only one
  * event after another, but you can change to batch by invoking `withBatchSize(int)`.
  *
+ * <p>In batch mode the events are buffered column by column in a tablet of each device and the
+ * tablets are sent by `insertTablets` when `batchSize` events are buffered or the flush interval
+ * elapses. Up to `sessionPoolSize` batches are sent concurrently while the following events are
+ * buffered, and a checkpoint waits until all buffered events are written, so the events before a
+ * checkpoint are written at least once.
+ *
  * @param <IN> the input data type
  */
-public class IoTDBSink<IN> extends RichSinkFunction<IN> {
+public class IoTDBSink<IN> extends RichSinkFunction<IN> implements CheckpointedFunction {
 
   private static final long serialVersionUID = 1L;
   private static final Logger LOG = LoggerFactory.getLogger(IoTDBSink.class);
@@ -56,13 +72,20 @@ public class IoTDBSink<IN> extends RichSinkFunction<IN> {
 
   private int batchSize = 0;
   private int flushIntervalMs = 3000;
-  private List<Event> batchList;
   private int sessionPoolSize = 2;
 
+  // the buffered events of each device and their total number, guarded by batchLock
+  private transient Object batchLock;
+  private transient Map<String, Tablet> tablets;
+  private transient int bufferedEventNum;
+  // the batches being sent, each one holds a permit, so at most sessionPoolSize are in flight
+  private transient ExecutorService flushExecutor;
+  private transient Semaphore inFlightPermits;
+  private transient AtomicReference<Exception> flushFailure;
+
   public IoTDBSink(IoTDBOptions options, IoTSerializationSchema<IN> schema) {
     this.options = options;
     this.serializationSchema = schema;
-    this.batchList = new LinkedList<>();
     this.timeseriesOptionMap = new HashMap<>();
     for (IoTDBOptions.TimeseriesOption timeseriesOption : options.getTimeseriesOptionList()) {
       timeseriesOptionMap.put(timeseriesOption.getPath(), timeseriesOption);
@@ -98,10 +121,14 @@ public class IoTDBSink<IN> extends RichSinkFunction<IN> {
 
   void initScheduler() {
     if (batchSize > 0) {
+      initBatch();
       scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
       scheduledExecutor.scheduleAtFixedRate(() -> {
         try {
-          flush();
+          // a failed batch is thrown by the next invoke() or snapshotState() to fail the task
+          sendAndWait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
         } catch (Exception e) {
           LOG.error("flush error", e);
         }
@@ -109,6 +136,18 @@ public class IoTDBSink<IN> extends RichSinkFunction<IN> {
     }
   }
 
+  private synchronized void initBatch() {
+    if (batchLock != null) {
+      return;
+    }
+    tablets = new HashMap<>();
+    flushExecutor = Executors.newFixedThreadPool(sessionPoolSize, new ThreadFactoryBuilder()
+        .setDaemon(true).setNameFormat("IoTDBSinkFlush-%d").build());
+    inFlightPermits = new Semaphore(sessionPoolSize);
+    flushFailure = new AtomicReference<>();
+    batchLock = new Object();
+  }
+
   //  for testing
   void setSessionPool(SessionPool pool) {
     this.pool = pool;
@@ -122,10 +161,12 @@ public class IoTDBSink<IN> extends RichSinkFunction<IN> {
     }
 
     if (batchSize > 0) {
-      synchronized (batchList) {
-        batchList.add(event);
-        if (batchList.size() >= batchSize) {
-          flush();
+      initBatch();
+      checkFlushFailure();
+      synchronized (batchLock) {
+        addToTablet(event);
+        if (bufferedEventNum >= batchSize) {
+          sendBufferedTablets();
         }
         return;
       }
@@ -137,6 +178,16 @@ public class IoTDBSink<IN> extends RichSinkFunction<IN> {
     LOG.debug("send event successfully");
   }
 
+  @Override
+  public void snapshotState(FunctionSnapshotContext context) throws Exception {
+    flush();
+  }
+
+  @Override
+  public void initializeState(FunctionInitializationContext context) {
+    // nothing is kept in the state, the buffered events are written before each checkpoint
+  }
+
   public IoTDBSink<IN> withBatchSize(int batchSize) {
     Preconditions.checkArgument(batchSize >= 0);
     this.batchSize = batchSize;
@@ -157,6 +208,9 @@ public class IoTDBSink<IN> extends RichSinkFunction<IN> {
 
   @Override
   public void close() throws Exception {
+    if (scheduledExecutor != null) {
+      scheduledExecutor.shutdown();
+    }
     if (pool != null) {
       try {
         flush();
@@ -165,8 +219,8 @@ public class IoTDBSink<IN> extends RichSinkFunction<IN> {
       }
       pool.close();
     }
-    if (scheduledExecutor != null) {
-      scheduledExecutor.shutdown();
+    if (flushExecutor != null) {
+      flushExecutor.shutdown();
     }
   }
 
@@ -174,9 +228,7 @@ public class IoTDBSink<IN> extends RichSinkFunction<IN> {
     if (device != null && measurements != null && values != null && measurements.size() == values
         .size()) {
       for (int i = 0; i < measurements.size(); i++) {
-        String measurement = device + TsFileConstant.PATH_SEPARATOR + measurements.get(i);
-        IoTDBOptions.TimeseriesOption timeseriesOption = timeseriesOptionMap.get(measurement);
-        if (timeseriesOption != null && TSDataType.TEXT.equals(timeseriesOption.getDataType())) {
+        if (isTextTimeseries(device, measurements.get(i))) {
           // The TEXT data type should be covered by " or '
           values.set(i, "'" + values.get(i) + "'");
         }
@@ -184,29 +236,122 @@ public class IoTDBSink<IN> extends RichSinkFunction<IN> {
     }
   }
 
-  private void flush() throws Exception {
-    if (batchSize > 0) {
-      synchronized (batchList) {
-        if (batchList.size() > 0) {
-          List<String> deviceIds = new ArrayList<>();
-          List<Long> timestamps = new ArrayList<>();
-          List<List<String>> measurementsList = new ArrayList<>();
-          List<List<TSDataType>> typesList = new ArrayList<>();
-          List<List<Object>> valuesList = new ArrayList<>();
-
-          for (Event event : batchList) {
-            convertText(event.getDevice(), event.getMeasurements(), event.getValues());
-            deviceIds.add(event.getDevice());
-            timestamps.add(event.getTimestamp());
-            measurementsList.add(event.getMeasurements());
-            typesList.add(event.getTypes());
-            valuesList.add(event.getValues());
-          }
-          pool.insertRecords(deviceIds, timestamps, measurementsList, typesList, valuesList);
-          LOG.debug("send event successfully");
-          batchList.clear();
+  private boolean isTextTimeseries(String device, String measurement) {
+    IoTDBOptions.TimeseriesOption timeseriesOption = timeseriesOptionMap
+        .get(device + TsFileConstant.PATH_SEPARATOR + measurement);
+    return timeseriesOption != null && TSDataType.TEXT.equals(timeseriesOption.getDataType());
+  }
+
+  /**
+   * Append the event as a row of the tablet of its device. A device whose events come with other
+   * measurements than the buffered ones is sent first, so every tablet has a fixed schema.
+   */
+  private void addToTablet(Event event) throws Exception {
+    Tablet tablet = tablets.get(event.getDevice());
+    if (tablet != null && !hasSchema(tablet, event)) {
+      sendBufferedTablets();
+      tablet = null;
+    }
+    if (tablet == null) {
+      List<MeasurementSchema> schemas = new ArrayList<>(event.getMeasurements().size());
+      for (int i = 0; i < event.getMeasurements().size(); i++) {
+        schemas.add(new MeasurementSchema(event.getMeasurements().get(i), event.getTypes().get(i)));
+      }
+      // all buffered events are sent once there are batchSize of them, so a tablet never overflows
+      tablet = new Tablet(event.getDevice(), schemas, batchSize);
+      tablets.put(event.getDevice(), tablet);
+    }
+
+    int row = tablet.rowSize++;
+    tablet.addTimestamp(row, event.getTimestamp());
+    for (int i = 0; i < event.getMeasurements().size(); i++) {
+      Object value = event.getValues().get(i);
+      if (event.getTypes().get(i) == TSDataType.TEXT) {
+        // quoted like the events sent one by one, so both modes write the same values
+        String text = String.valueOf(value);
+        if (isTextTimeseries(event.getDevice(), event.getMeasurements().get(i))) {
+          text = "'" + text + "'";
         }
+        value = Binary.valueOf(text);
       }
+      tablet.addValue(event.getMeasurements().get(i), row, value);
+    }
+    bufferedEventNum++;
+  }
+
+  private boolean hasSchema(Tablet tablet, Event event) {
+    List<MeasurementSchema> schemas = tablet.getSchemas();
+    if (schemas.size() != event.getMeasurements().size()) {
+      return false;
+    }
+    for (int i = 0; i < schemas.size(); i++) {
+      if (!schemas.get(i).getMeasurementId().equals(event.getMeasurements().get(i))
+          || schemas.get(i).getType() != event.getTypes().get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Send the buffered tablets in the background. Called with batchLock held, blocks while
+   * sessionPoolSize batches are in flight so that the buffered events are bounded.
+   */
+  private void sendBufferedTablets() throws InterruptedException {
+    if (tablets.isEmpty()) {
+      return;
+    }
+    Map<String, Tablet> batch = tablets;
+    tablets = new HashMap<>();
+    bufferedEventNum = 0;
+
+    inFlightPermits.acquire();
+    try {
+      flushExecutor.execute(() -> {
+        try {
+          pool.insertTablets(batch);
+          LOG.debug("send event successfully");
+        } catch (Exception e) {
+          LOG.error("Cannot send {} tablets to IoTDB", batch.size(), e);
+          flushFailure.compareAndSet(null, e);
+        } finally {
+          inFlightPermits.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      inFlightPermits.release();
+      throw e;
+    }
+  }
+
+  private void checkFlushFailure() throws Exception {
+    Exception failure = flushFailure.getAndSet(null);
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Send the buffered tablets and wait until all batches in flight are written, a failure of them
+   * is thrown.
+   */
+  private void flush() throws Exception {
+    if (batchSize > 0) {
+      sendAndWait();
+      checkFlushFailure();
+    }
+  }
+
+  /**
+   * Send the buffered tablets and wait until all batches in flight are written, a failure of them
+   * is kept to be thrown later.
+   */
+  private void sendAndWait() throws InterruptedException {
+    initBatch();
+    synchronized (batchLock) {
+      sendBufferedTablets();
     }
+    inFlightPermits.acquire(sessionPoolSize);
+    inFlightPermits.release(sessionPoolSize);
   }
 }
@@ -20,12 +20,12 @@ package org.apache.iotdb.flink;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
 import com.google.common.collect.Lists;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import org.apache.iotdb.session.pool.SessionPool;
 import org.junit.Before;
@@ -78,8 +78,7 @@ public class IoTDBSinkBatchInsertTest {
     tuple.put("values", "37.1");
     ioTDBSink.invoke(tuple, null);
 
-    verify(pool).insertRecords(any(List.class), any(List.class), any(List.class), any(List.class),
-        any(List.class));
+    verify(pool, timeout(1000)).insertTablets(any(Map.class));
 
     tuple = new HashMap();
     tuple.put("device", "root.sg.D01");
@@ -92,6 +91,22 @@ public class IoTDBSinkBatchInsertTest {
     verifyZeroInteractions(pool);
   }
 
+  @Test
+  public void testSnapshotState() throws Exception {
+    Map<String, String> tuple = new HashMap();
+    tuple.put("device", "root.sg.D01");
+    tuple.put("timestamp", "1581861293005");
+    tuple.put("measurements", "temperature");
+    tuple.put("types", "DOUBLE");
+    tuple.put("values", "36.5");
+    ioTDBSink.invoke(tuple, null);
+    verifyZeroInteractions(pool);
+
+    // the buffered events are written before the checkpoint completes
+    ioTDBSink.snapshotState(null);
+    verify(pool).insertTablets(any(Map.class));
+  }
+
   @Test
   public void close() throws Exception {
     Map<String, String> tuple = new HashMap();
@@ -104,8 +119,7 @@ public class IoTDBSinkBatchInsertTest {
     verifyZeroInteractions(pool);
 
     ioTDBSink.close();
-    verify(pool).insertRecords(any(List.class), any(List.class), any(List.class), any(List.class),
-        any(List.class));
+    verify(pool, timeout(1000)).insertTablets(any(Map.class));
     verify(pool).close();
   }
 }
@@ -19,14 +19,16 @@
 package org.apache.iotdb.flink;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
 import com.google.common.collect.Lists;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import org.apache.iotdb.rpc.StatementExecutionException;
 import org.apache.iotdb.session.pool.SessionPool;
 import org.junit.Before;
 import org.junit.Test;
@@ -62,14 +64,32 @@ public class IoTDBSinkBatchTimerTest {
 
     Thread.sleep(2500);
 
-    verify(pool).insertRecords(any(List.class), any(List.class), any(List.class), any(List.class),
-        any(List.class));
+    verify(pool, timeout(1000)).insertTablets(any(Map.class));
 
     Thread.sleep(1000);
 
     verifyZeroInteractions(pool);
   }
 
+  @Test(expected = StatementExecutionException.class)
+  public void testFailureAfterTimer() throws Exception {
+    doThrow(new StatementExecutionException("insertion failed")).when(pool)
+        .insertTablets(any(Map.class));
+    Map<String, String> tuple = new HashMap();
+    tuple.put("device", "root.sg.D01");
+    tuple.put("timestamp", "1581861293000");
+    tuple.put("measurements", "temperature");
+    tuple.put("types", "DOUBLE");
+    tuple.put("values", "36.5");
+    ioTDBSink.invoke(tuple, null);
+
+    verify(pool, timeout(2500)).insertTablets(any(Map.class));
+    Thread.sleep(500);
+
+    // the failure of the batch sent by the timer fails the task
+    ioTDBSink.invoke(tuple, null);
+  }
+
   @Test
   public void close() throws Exception {
     ioTDBSink.close();
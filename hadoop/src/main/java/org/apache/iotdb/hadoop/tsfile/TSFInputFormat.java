@@ -29,6 +29,8 @@ import org.apache.hadoop.io.MapWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.*;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.iotdb.hadoop.fileSystem.HDFSInput;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,6 +71,18 @@ TSFInputFormat extends FileInputFormat<NullWritable, MapWritable> {
    * key to configure the reading measurementIds
    */
   public static final String READ_MEASUREMENTID = "tsfile.read.measurement";
+  /**
+   * key to configure the inclusive lower bound of the time to read
+   */
+  public static final String READ_START_TIME = "tsfile.read.time.start";
+  /**
+   * key to configure the inclusive upper bound of the time to read
+   */
+  public static final String READ_END_TIME = "tsfile.read.time.end";
+  /**
+   * key to configure the size of a split in bytes, the block size of the file by default
+   */
+  public static final String SPLIT_SIZE = "tsfile.split.size";
   private static final Logger logger = LoggerFactory.getLogger(TSFInputFormat.class);
   private static final String SEPARATOR = ",";
 
@@ -175,6 +189,40 @@ TSFInputFormat extends FileInputFormat<NullWritable, MapWritable> {
     return configuration.getBoolean(READ_TIME_ENABLE, true);
   }
 
+  /**
+   * Set the time range to read, the splits without any data in it are not read
+   *
+   * @param job       hadoop job
+   * @param startTime the inclusive lower bound of the time
+   * @param endTime   the inclusive upper bound of the time
+   */
+  public static void setReadTimeRange(Job job, long startTime, long endTime) {
+    job.getConfiguration().setLong(READ_START_TIME, startTime);
+    job.getConfiguration().setLong(READ_END_TIME, endTime);
+  }
+
+  public static long getReadStartTime(Configuration configuration) {
+    return configuration.getLong(READ_START_TIME, Long.MIN_VALUE);
+  }
+
+  public static long getReadEndTime(Configuration configuration) {
+    return configuration.getLong(READ_END_TIME, Long.MAX_VALUE);
+  }
+
+  /**
+   * Set the size of a split, a split holds whole chunk groups of at least this size
+   *
+   * @param job       hadoop job
+   * @param splitSize the size of a split in bytes
+   */
+  public static void setSplitSize(Job job, long splitSize) {
+    job.getConfiguration().setLong(SPLIT_SIZE, splitSize);
+  }
+
+  public static long getSplitSize(Configuration configuration, long defaultSplitSize) {
+    return configuration.getLong(SPLIT_SIZE, defaultSplitSize);
+  }
+
   /**
    * Set filter exist or not
    *
@@ -268,7 +316,7 @@ TSFInputFormat extends FileInputFormat<NullWritable, MapWritable> {
         blockLocations = fileSystem.getFileBlockLocations(fileStatus, 0, length);
 
         logger.info("The block location information is {}", Arrays.toString(blockLocations));
-        splits.addAll(generateSplits(path, blockLocations));
+        splits.addAll(generateSplits(configuration, fileStatus, blockLocations));
       } else {
         logger.warn("The file length is " + length);
       }
@@ -284,6 +332,26 @@ TSFInputFormat extends FileInputFormat<NullWritable, MapWritable> {
    *
    * @throws IOException
    */
+  private static List<TSFInputSplit> generateSplits(Configuration configuration,
+      FileStatus fileStatus, BlockLocation[] blockLocations) throws IOException {
+    Path path = fileStatus.getPath();
+    List<TSFSplitPlanner.ChunkGroupRange> chunkGroups;
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(
+        new HDFSInput(path, configuration))) {
+      chunkGroups = TSFSplitPlanner.readChunkGroups(reader);
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Cannot read the metadata of {}, split it by blocks", path, e);
+      return generateSplits(path, blockLocations);
+    }
+    List<TSFInputSplit> splits = TSFSplitPlanner.plan(path, chunkGroups, blockLocations,
+        getSplitSize(configuration, fileStatus.getBlockSize()), getReadDeviceIds(configuration),
+        getReadMeasurementIds(configuration), getReadStartTime(configuration),
+        getReadEndTime(configuration));
+    logger.info("{} chunk groups of {} are planned into {} splits", chunkGroups.size(), path,
+        splits.size());
+    return splits;
+  }
+
   private static List<TSFInputSplit> generateSplits(Path path, BlockLocation[] blockLocations)
       throws IOException {
     List<TSFInputSplit> splits = new ArrayList<>();
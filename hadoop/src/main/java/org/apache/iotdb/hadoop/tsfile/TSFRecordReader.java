@@ -41,7 +41,11 @@ import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Field;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.expression.IExpression;
 import org.apache.iotdb.tsfile.read.expression.QueryExpression;
+import org.apache.iotdb.tsfile.read.expression.impl.GlobalTimeExpression;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -102,17 +106,25 @@ public class TSFRecordReader extends RecordReader<NullWritable, MapWritable> imp
     readerSet.setReadDeviceId(TSFInputFormat.getReadDeviceId(configuration));
     readerSet.setReadTime(TSFInputFormat.getReadTime(configuration));
 
-    try (ReadOnlyTsFile queryEngine = new ReadOnlyTsFile(reader)) {
-      for (String deviceId : deviceIds) {
-        List<Path> paths = measurementIds.stream()
-                .map(measurementId -> new Path(deviceId, measurementId))
-                .collect(toList());
-        QueryExpression queryExpression = QueryExpression.create(paths, null);
-        QueryDataSet dataSet = queryEngine.query(queryExpression,
-                split.getStart(), split.getStart() + split.getLength());
-        dataSetList.add(dataSet);
-        deviceIdList.add(deviceId);
-      }
+    long startTime = TSFInputFormat.getReadStartTime(configuration);
+    long endTime = TSFInputFormat.getReadEndTime(configuration);
+    IExpression timeExpression = null;
+    if (startTime != Long.MIN_VALUE || endTime != Long.MAX_VALUE) {
+      timeExpression = new GlobalTimeExpression(
+          FilterFactory.and(TimeFilter.gtEq(startTime), TimeFilter.ltEq(endTime)));
+    }
+
+    // the data sets read the chunks lazily, the reader is closed with the record reader
+    ReadOnlyTsFile queryEngine = new ReadOnlyTsFile(reader);
+    for (String deviceId : deviceIds) {
+      List<Path> paths = measurementIds.stream()
+              .map(measurementId -> new Path(deviceId, measurementId))
+              .collect(toList());
+      QueryExpression queryExpression = QueryExpression.create(paths, timeExpression);
+      QueryDataSet dataSet = queryEngine.query(queryExpression,
+              split.getStart(), split.getStart() + split.getLength());
+      dataSetList.add(dataSet);
+      deviceIdList.add(deviceId);
     }
   }
 
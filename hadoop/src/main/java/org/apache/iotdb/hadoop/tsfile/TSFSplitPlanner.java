@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.hadoop.tsfile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.Path;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+
+/**
+ * Plans the splits of a TsFile by its metadata instead of its blocks. The chunk groups of the file
+ * are recovered from the chunk metadata of each device and packed into splits of about the given
+ * size, so a split never cuts a chunk group and a reader does not have to look for the device
+ * boundaries. As a chunk belongs to the split containing its header, every chunk is still read by
+ * exactly one split. The device, measurements and time range of the chunk groups are kept, so that
+ * a split without any chunk group matching the query is not read at all.
+ */
+public class TSFSplitPlanner {
+
+  private TSFSplitPlanner() {
+    // util class
+  }
+
+  /**
+   * Read the chunk groups of a TsFile from its metadata, ordered by their offsets.
+   */
+  public static List<ChunkGroupRange> readChunkGroups(TsFileSequenceReader reader)
+      throws IOException {
+    List<ChunkGroupChunk> chunks = new ArrayList<>();
+    for (String device : reader.getAllDevices()) {
+      for (List<ChunkMetadata> chunkMetadataList : reader.readChunkMetadataInDevice(device)
+          .values()) {
+        for (ChunkMetadata chunkMetadata : chunkMetadataList) {
+          chunks.add(new ChunkGroupChunk(device, chunkMetadata));
+        }
+      }
+    }
+    chunks.sort(Comparator.comparingLong(c -> c.chunkMetadata.getOffsetOfChunkHeader()));
+
+    List<ChunkGroupRange> chunkGroups = new ArrayList<>();
+    ChunkGroupRange current = null;
+    for (ChunkGroupChunk chunk : chunks) {
+      String measurement = chunk.chunkMetadata.getMeasurementUid();
+      // a chunk group holds at most one chunk of each measurement of its device
+      if (current == null || !current.device.equals(chunk.device)
+          || current.measurements.contains(measurement)) {
+        current = new ChunkGroupRange(chunk.device, chunk.chunkMetadata.getOffsetOfChunkHeader());
+        chunkGroups.add(current);
+      }
+      current.measurements.add(measurement);
+      current.startTime = Math.min(current.startTime, chunk.chunkMetadata.getStartTime());
+      current.endTime = Math.max(current.endTime, chunk.chunkMetadata.getEndTime());
+    }
+    // a chunk group ends where the next one starts, and the last one where the metadata starts
+    long metaOffset = reader.readFileMetadata().getMetaOffset();
+    for (int i = 0; i < chunkGroups.size(); i++) {
+      chunkGroups.get(i).endOffset = i + 1 < chunkGroups.size()
+          ? chunkGroups.get(i + 1).startOffset : metaOffset;
+    }
+    return chunkGroups;
+  }
+
+  /**
+   * Pack the chunk groups into splits of at least splitSize bytes, except the last one, and drop
+   * the splits whose chunk groups do not match the query.
+   *
+   * @param blockLocations the blocks of the file, the hosts of a split are those of the block
+   * holding most of it
+   * @param devices the devices to read, empty for all devices
+   * @param measurements the measurements to read, empty for all measurements
+   * @param startTime the inclusive lower bound of the time to read
+   * @param endTime the inclusive upper bound of the time to read
+   */
+  @SuppressWarnings("squid:S00107") // Suppress too many parameters warning
+  public static List<TSFInputSplit> plan(Path path, List<ChunkGroupRange> chunkGroups,
+      BlockLocation[] blockLocations, long splitSize, Collection<String> devices,
+      Collection<String> measurements, long startTime, long endTime) throws IOException {
+    List<TSFInputSplit> splits = new ArrayList<>();
+    int splitStart = 0;
+    boolean matched = false;
+    for (int i = 0; i < chunkGroups.size(); i++) {
+      ChunkGroupRange chunkGroup = chunkGroups.get(i);
+      matched |= chunkGroup.matches(devices, measurements, startTime, endTime);
+      long start = chunkGroups.get(splitStart).startOffset;
+      if (chunkGroup.endOffset - start >= splitSize || i == chunkGroups.size() - 1) {
+        if (matched) {
+          long length = chunkGroup.endOffset - start;
+          splits.add(new TSFInputSplit(path, getHosts(blockLocations, start, length), start,
+              length));
+        }
+        splitStart = i + 1;
+        matched = false;
+      }
+    }
+    return splits;
+  }
+
+  private static String[] getHosts(BlockLocation[] blockLocations, long start, long length)
+      throws IOException {
+    String[] hosts = new String[0];
+    long maxOverlap = 0;
+    for (BlockLocation blockLocation : blockLocations) {
+      long overlap = Math.min(start + length, blockLocation.getOffset() + blockLocation.getLength())
+          - Math.max(start, blockLocation.getOffset());
+      if (overlap > maxOverlap) {
+        maxOverlap = overlap;
+        hosts = blockLocation.getHosts();
+      }
+    }
+    return hosts;
+  }
+
+  /**
+   * The offsets, device, measurements and time range of a chunk group.
+   */
+  public static class ChunkGroupRange {
+
+    private final String device;
+    private final long startOffset;
+    private long endOffset;
+    private final Set<String> measurements = new HashSet<>();
+    private long startTime = Long.MAX_VALUE;
+    private long endTime = Long.MIN_VALUE;
+
+    private ChunkGroupRange(String device, long startOffset) {
+      this.device = device;
+      this.startOffset = startOffset;
+    }
+
+    public boolean matches(Collection<String> devices, Collection<String> measurements,
+        long startTime, long endTime) {
+      if (!devices.isEmpty() && !devices.contains(device)) {
+        return false;
+      }
+      if (!measurements.isEmpty() && measurements.stream()
+          .noneMatch(this.measurements::contains)) {
+        return false;
+      }
+      return this.startTime <= endTime && startTime <= this.endTime;
+    }
+
+    /**
+     * Whether the chunk group belongs to the split in the given range, i.e., starts in it.
+     */
+    public boolean isIn(long splitStart, long splitEnd) {
+      return splitStart <= startOffset && startOffset < splitEnd;
+    }
+
+    public String getDevice() {
+      return device;
+    }
+
+    public long getStartOffset() {
+      return startOffset;
+    }
+
+    public long getEndOffset() {
+      return endOffset;
+    }
+
+    public Set<String> getMeasurements() {
+      return measurements;
+    }
+
+    public long getStartTime() {
+      return startTime;
+    }
+
+    public long getEndTime() {
+      return endTime;
+    }
+
+    @Override
+    public String toString() {
+      return "ChunkGroupRange{" + device + ", [" + startOffset + ", " + endOffset + "), time ["
+          + startTime + ", " + endTime + "]}";
+    }
+  }
+
+  private static class ChunkGroupChunk {
+
+    private final String device;
+    private final ChunkMetadata chunkMetadata;
+
+    private ChunkGroupChunk(String device, ChunkMetadata chunkMetadata) {
+      this.device = device;
+      this.chunkMetadata = chunkMetadata;
+    }
+  }
+}
@@ -25,11 +25,19 @@ import org.apache.hadoop.mapreduce.TaskAttemptID;
 import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
 import org.apache.iotdb.hadoop.fileSystem.HDFSInput;
 import org.apache.iotdb.hadoop.tsfile.constant.TestConstant;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.*;
 
@@ -182,4 +190,81 @@ public class TSFHadoopTest {
       fail(e.getMessage());
     }
   }
+
+  @Test
+  public void splitPlanningTest() throws Exception {
+    // 4 chunk groups of 2 devices, 100 rows in each
+    File file = new File(tsfilePath);
+    try (TsFileWriter writer = new TsFileWriter(file)) {
+      for (String device : new String[]{"device_1", "device_2"}) {
+        writer.registerTimeseries(new Path(device, "sensor_1"),
+            new MeasurementSchema("sensor_1", TSDataType.INT64, TSEncoding.PLAIN));
+      }
+      for (int group = 0; group < 2; group++) {
+        for (String device : new String[]{"device_1", "device_2"}) {
+          for (long time = group * 100L; time < (group + 1) * 100L; time++) {
+            TSRecord record = new TSRecord(time, device);
+            record.addTuple(new LongDataPoint("sensor_1", time));
+            writer.write(record);
+          }
+        }
+        writer.flushAllChunkGroups();
+      }
+    }
+
+    List<TSFSplitPlanner.ChunkGroupRange> chunkGroups;
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(tsfilePath)) {
+      chunkGroups = TSFSplitPlanner.readChunkGroups(reader);
+    }
+    assertEquals(4, chunkGroups.size());
+    assertEquals("device_1", chunkGroups.get(0).getDevice());
+    assertEquals(100, chunkGroups.get(2).getStartTime());
+
+    // one split for each chunk group
+    Job job = Job.getInstance();
+    TSFInputFormat.setInputPaths(job, tsfilePath);
+    TSFInputFormat.setSplitSize(job, 1);
+    String[] sensors = {"sensor_1"};
+    TSFInputFormat.setReadMeasurementIds(job, sensors);
+    TSFInputFormat.setReadDeviceIds(job, new String[]{"device_1", "device_2"});
+    List<InputSplit> inputSplits = inputFormat.getSplits(job);
+    assertEquals(4, inputSplits.size());
+    for (int i = 0; i < inputSplits.size(); i++) {
+      TSFInputSplit split = (TSFInputSplit) inputSplits.get(i);
+      assertEquals(chunkGroups.get(i).getStartOffset(), split.getStart());
+      assertEquals(chunkGroups.get(i).getEndOffset(), split.getStart() + split.getLength());
+    }
+    assertEquals(400, countRows(job, inputSplits));
+
+    // the splits of the other device and out of the time range are skipped
+    TSFInputFormat.setReadDeviceIds(job, new String[]{"device_2"});
+    TSFInputFormat.setReadTimeRange(job, 150, 1000);
+    inputSplits = inputFormat.getSplits(job);
+    assertEquals(1, inputSplits.size());
+    assertEquals(chunkGroups.get(3).getStartOffset(),
+        ((TSFInputSplit) inputSplits.get(0)).getStart());
+    assertEquals(50, countRows(job, inputSplits));
+
+    // all chunk groups in one split
+    TSFInputFormat.setSplitSize(job, Long.MAX_VALUE);
+    TSFInputFormat.setReadTimeRange(job, Long.MIN_VALUE, Long.MAX_VALUE);
+    inputSplits = inputFormat.getSplits(job);
+    assertEquals(1, inputSplits.size());
+    assertEquals(200, countRows(job, inputSplits));
+  }
+
+  private int countRows(Job job, List<InputSplit> inputSplits)
+      throws IOException, InterruptedException {
+    int rowNum = 0;
+    for (InputSplit inputSplit : inputSplits) {
+      TSFRecordReader recordReader = new TSFRecordReader();
+      recordReader.initialize(inputSplit,
+          new TaskAttemptContextImpl(job.getConfiguration(), new TaskAttemptID()));
+      while (recordReader.nextKeyValue()) {
+        rowNum++;
+      }
+      recordReader.close();
+    }
+    return rowNum;
+  }
 }
@@ -20,9 +20,11 @@ package org.apache.iotdb.db.concurrent;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.apache.thrift.server.TThreadPoolServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -118,6 +120,16 @@ public class IoTDBThreadPoolFactory {
     return Executors.newScheduledThreadPool(corePoolSize, new IoTThreadFactory(poolName, handler));
   }
 
+  /**
+   * Create the worker pool of a non-blocking thrift server, at most maxQueuedRequestNum requests
+   * wait for the workers and the connections of the other requests are closed.
+   */
+  public static ThreadPoolExecutor createThriftRpcWorkerThreadPool(int workerThreads,
+      int maxQueuedRequestNum, String poolName) {
+    return new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(maxQueuedRequestNum), new IoTThreadFactory(poolName));
+  }
+
   /**
    * function for creating thrift rpc client thread pool.
    */
@@ -128,6 +128,30 @@ public class IoTDBConfig {
    */
   private int rpcMaxConcurrentClientNum = 65535;
 
+  /**
+   * Whether to serve the clients with a selector-based non-blocking server, in which the
+   * connections do not occupy a thread and the requests are processed by a fixed number of worker
+   * threads. Otherwise each connection is served by a thread.
+   */
+  private boolean rpcSelectorServerEnable = false;
+
+  /**
+   * Number of the selector threads that read and write the connections of the non-blocking
+   * server.
+   */
+  private int rpcSelectorThreadNum = 2;
+
+  /**
+   * Number of the worker threads that process the requests of the non-blocking server.
+   */
+  private int rpcSelectorWorkerThreadNum = Runtime.getRuntime().availableProcessors() * 2;
+
+  /**
+   * Max number of the requests of the non-blocking server that wait for a worker thread, the
+   * connections of further requests are closed.
+   */
+  private int rpcMaxQueuedRequestNum = 10000;
+
   /**
    * Memory allocated for the write process
    */
@@ -144,9 +168,11 @@ public class IoTDBConfig {
   private long allocateMemoryForSchema = Runtime.getRuntime().maxMemory() * 1 / 10;
 
   /**
-   * Memory allocated for the read process besides cache
+   * Memory allocated for the read process besides cache, the default file metadata cache (1/50 of
+   * the read memory) is taken out of it
    */
-  private long allocateMemoryForReadWithoutCache = Runtime.getRuntime().maxMemory() * 9 / 100;
+  private long allocateMemoryForReadWithoutCache =
+      Runtime.getRuntime().maxMemory() * 9 / 100 - Runtime.getRuntime().maxMemory() * 3 / 500;
 
   private volatile int maxQueryDeduplicatedPathNum = 1000;
 
@@ -155,6 +181,12 @@ public class IoTDBConfig {
    */
   private double bufferedArraysMemoryProportion = 0.6;
 
+  /**
+   * Whether the points of the non-TEXT series in memtables are stored in direct buffers instead of
+   * heap arrays.
+   */
+  private boolean enableOffHeapMemtable = false;
+
   /**
    * Flush proportion for system
    */
@@ -165,6 +197,13 @@ public class IoTDBConfig {
    */
   private double rejectProportion = 0.8;
 
+  /**
+   * Proportion of the memory of the read caches that can be lent to writing and queries when
+   * their own memory is used up. The caches are shrunk by at most this proportion and get the
+   * memory back when it is returned. 0 disables the lending.
+   */
+  private double cacheLendableProportion = 0.5;
+
   /**
    * If storage group increased more than this threshold, report to system.
    */
@@ -298,6 +337,21 @@ public class IoTDBConfig {
    */
   private int concurrentQueryThread = Runtime.getRuntime().availableProcessors();
 
+  /**
+   * How many tasks a GROUP BY time query without value filter splits its series into, so that
+   * the series compute batches of time intervals concurrently in the query thread pool. 1 means
+   * all series are computed serially by the thread that fetches the result. When <= 0, use
+   * concurrentQueryThread.
+   */
+  private int groupByParallelism = 1;
+
+  /**
+   * How many devices after the current one an ALIGN BY DEVICE query plans and starts the
+   * sub-queries of in advance, in the query prefetch thread pool. 0 means the sub-query of each
+   * device is executed after the results of the previous device are fetched.
+   */
+  private int alignByDevicePrefetchNum = 2;
+
   /**
    * Is the write mem control for writing enable.
    */
@@ -424,6 +478,12 @@ public class IoTDBConfig {
    */
   private long allocateMemoryForChunkCache = allocateMemoryForRead / 10;
 
+  /**
+   * Memory allocated for file metadata cache in read process, which keeps the footer, the bloom
+   * filter and the root metadata index node of each TsFile
+   */
+  private long allocateMemoryForFileMetadataCache = allocateMemoryForRead / 50;
+
   /**
    * Whether to enable Last cache
    */
@@ -788,6 +848,12 @@ public class IoTDBConfig {
   // max size for tag and attribute of one time series
   private int tagAttributeTotalSize = 700;
 
+  // max number of timeseries whose tags and attributes are cached in memory
+  private int tagAttributeCacheSize = 10000;
+
+  // max number of modifications (deletions) of all mods files held in memory
+  private long modificationCacheSize = 200000;
+
   // In one insert (one device, one timestamp, multiple measurements),
   // if enable partial insert, one measurement failure will not impact other measurements
   private boolean enablePartialInsert = true;
@@ -1250,6 +1316,22 @@ public class IoTDBConfig {
     this.concurrentQueryThread = concurrentQueryThread;
   }
 
+  public int getAlignByDevicePrefetchNum() {
+    return alignByDevicePrefetchNum;
+  }
+
+  public void setAlignByDevicePrefetchNum(int alignByDevicePrefetchNum) {
+    this.alignByDevicePrefetchNum = alignByDevicePrefetchNum;
+  }
+
+  public int getGroupByParallelism() {
+    return groupByParallelism;
+  }
+
+  public void setGroupByParallelism(int groupByParallelism) {
+    this.groupByParallelism = groupByParallelism;
+  }
+
   public long getTsFileSizeThreshold() {
     return tsFileSizeThreshold;
   }
@@ -1282,6 +1364,38 @@ public class IoTDBConfig {
     this.rpcMaxConcurrentClientNum = rpcMaxConcurrentClientNum;
   }
 
+  public boolean isRpcSelectorServerEnable() {
+    return rpcSelectorServerEnable;
+  }
+
+  public void setRpcSelectorServerEnable(boolean rpcSelectorServerEnable) {
+    this.rpcSelectorServerEnable = rpcSelectorServerEnable;
+  }
+
+  public int getRpcSelectorThreadNum() {
+    return rpcSelectorThreadNum;
+  }
+
+  public void setRpcSelectorThreadNum(int rpcSelectorThreadNum) {
+    this.rpcSelectorThreadNum = rpcSelectorThreadNum;
+  }
+
+  public int getRpcSelectorWorkerThreadNum() {
+    return rpcSelectorWorkerThreadNum;
+  }
+
+  public void setRpcSelectorWorkerThreadNum(int rpcSelectorWorkerThreadNum) {
+    this.rpcSelectorWorkerThreadNum = rpcSelectorWorkerThreadNum;
+  }
+
+  public int getRpcMaxQueuedRequestNum() {
+    return rpcMaxQueuedRequestNum;
+  }
+
+  public void setRpcMaxQueuedRequestNum(int rpcMaxQueuedRequestNum) {
+    this.rpcMaxQueuedRequestNum = rpcMaxQueuedRequestNum;
+  }
+
   public int getmManagerCacheSize() {
     return mManagerCacheSize;
   }
@@ -1426,6 +1540,14 @@ public class IoTDBConfig {
     this.bufferedArraysMemoryProportion = bufferedArraysMemoryProportion;
   }
 
+  public boolean isEnableOffHeapMemtable() {
+    return enableOffHeapMemtable;
+  }
+
+  public void setEnableOffHeapMemtable(boolean enableOffHeapMemtable) {
+    this.enableOffHeapMemtable = enableOffHeapMemtable;
+  }
+
   public double getFlushProportion() {
     return flushProportion;
   }
@@ -1442,6 +1564,14 @@ public class IoTDBConfig {
     this.rejectProportion = rejectProportion;
   }
 
+  public double getCacheLendableProportion() {
+    return cacheLendableProportion;
+  }
+
+  public void setCacheLendableProportion(double cacheLendableProportion) {
+    this.cacheLendableProportion = cacheLendableProportion;
+  }
+
   public long getStorageGroupSizeReportThreshold() {
     return storageGroupSizeReportThreshold;
   }
@@ -1718,6 +1848,14 @@ public class IoTDBConfig {
     this.allocateMemoryForChunkCache = allocateMemoryForChunkCache;
   }
 
+  public long getAllocateMemoryForFileMetadataCache() {
+    return allocateMemoryForFileMetadataCache;
+  }
+
+  public void setAllocateMemoryForFileMetadataCache(long allocateMemoryForFileMetadataCache) {
+    this.allocateMemoryForFileMetadataCache = allocateMemoryForFileMetadataCache;
+  }
+
   public boolean isLastCacheEnabled() {
     return lastCacheEnable;
   }
@@ -2127,6 +2265,22 @@ public class IoTDBConfig {
     this.tagAttributeTotalSize = tagAttributeTotalSize;
   }
 
+  public int getTagAttributeCacheSize() {
+    return tagAttributeCacheSize;
+  }
+
+  public void setTagAttributeCacheSize(int tagAttributeCacheSize) {
+    this.tagAttributeCacheSize = tagAttributeCacheSize;
+  }
+
+  public long getModificationCacheSize() {
+    return modificationCacheSize;
+  }
+
+  public void setModificationCacheSize(long modificationCacheSize) {
+    this.modificationCacheSize = modificationCacheSize;
+  }
+
   public int getPrimitiveArraySize() {
     return primitiveArraySize;
   }
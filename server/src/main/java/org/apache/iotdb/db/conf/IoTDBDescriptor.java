@@ -153,6 +153,26 @@ public class IoTDBDescriptor {
       conf.setRpcPort(Integer.parseInt(properties.getProperty("rpc_port",
           Integer.toString(conf.getRpcPort()))));
 
+      conf.setRpcSelectorServerEnable(
+          Boolean.parseBoolean(properties.getProperty("rpc_selector_server_enable",
+              Boolean.toString(conf.isRpcSelectorServerEnable()))));
+
+      conf.setRpcSelectorThreadNum(Math.max(1, Integer.parseInt(properties
+          .getProperty("rpc_selector_thread_num",
+              Integer.toString(conf.getRpcSelectorThreadNum())).trim())));
+
+      int rpcSelectorWorkerThreadNum = Integer.parseInt(properties
+          .getProperty("rpc_selector_worker_thread_num",
+              Integer.toString(conf.getRpcSelectorWorkerThreadNum())).trim());
+      if (rpcSelectorWorkerThreadNum <= 0) {
+        rpcSelectorWorkerThreadNum = Runtime.getRuntime().availableProcessors() * 2;
+      }
+      conf.setRpcSelectorWorkerThreadNum(rpcSelectorWorkerThreadNum);
+
+      conf.setRpcMaxQueuedRequestNum(Math.max(1, Integer.parseInt(properties
+          .getProperty("rpc_max_queued_request_num",
+              Integer.toString(conf.getRpcMaxQueuedRequestNum())).trim())));
+
       conf.setTimestampPrecision(properties.getProperty("timestamp_precision",
           conf.getTimestampPrecision()));
 
@@ -160,12 +180,20 @@ public class IoTDBDescriptor {
           Double.parseDouble(properties.getProperty("buffered_arrays_memory_proportion",
               Double.toString(conf.getBufferedArraysMemoryProportion()))));
 
+      conf.setEnableOffHeapMemtable(
+          Boolean.parseBoolean(properties.getProperty("enable_off_heap_memtable",
+              Boolean.toString(conf.isEnableOffHeapMemtable()))));
+
       conf.setFlushProportion(Double.parseDouble(properties.getProperty("flush_proportion",
           Double.toString(conf.getFlushProportion()))));
 
       conf.setRejectProportion(Double.parseDouble(properties.getProperty("reject_proportion",
           Double.toString(conf.getRejectProportion()))));
 
+      conf.setCacheLendableProportion(
+          Double.parseDouble(properties.getProperty("cache_lendable_proportion",
+              Double.toString(conf.getCacheLendableProportion()))));
+
       conf.setStorageGroupSizeReportThreshold(
           Long.parseLong(properties.getProperty("storage_group_report_threshold",
               Long.toString(conf.getStorageGroupSizeReportThreshold()))));
@@ -348,6 +376,18 @@ public class IoTDBDescriptor {
         conf.setConcurrentQueryThread(Runtime.getRuntime().availableProcessors());
       }
 
+      conf.setGroupByParallelism(Integer
+          .parseInt(properties.getProperty("group_by_parallelism",
+              Integer.toString(conf.getGroupByParallelism()))));
+
+      if (conf.getGroupByParallelism() <= 0) {
+        conf.setGroupByParallelism(conf.getConcurrentQueryThread());
+      }
+
+      conf.setAlignByDevicePrefetchNum(Math.max(0, Integer
+          .parseInt(properties.getProperty("align_by_device_prefetch_num",
+              Integer.toString(conf.getAlignByDevicePrefetchNum())))));
+
       conf.setmManagerCacheSize(Integer
           .parseInt(properties.getProperty("metadata_node_cache_size",
               Integer.toString(conf.getmManagerCacheSize())).trim()));
@@ -493,6 +533,14 @@ public class IoTDBDescriptor {
           Integer.parseInt(properties.getProperty("tag_attribute_total_size",
               String.valueOf(conf.getTagAttributeTotalSize())))
       );
+      conf.setTagAttributeCacheSize(
+          Integer.parseInt(properties.getProperty("tag_attribute_cache_size",
+              String.valueOf(conf.getTagAttributeCacheSize())))
+      );
+      conf.setModificationCacheSize(
+          Long.parseLong(properties.getProperty("modification_cache_size",
+              String.valueOf(conf.getModificationCacheSize())))
+      );
       conf.setPrimitiveArraySize((Integer.parseInt(
           properties.getProperty(
               "primitive_array_size", String.valueOf(conf.getPrimitiveArraySize())))));
@@ -692,6 +740,14 @@ public class IoTDBDescriptor {
         .parseInt(properties.getProperty("max_number_of_points_in_page",
             Integer.toString(
                 TSFileDescriptor.getInstance().getConfig().getMaxNumberOfPointsInPage()))));
+    TSFileDescriptor.getInstance().getConfig().setPageTimeAlignmentInterval(Long
+        .parseLong(properties.getProperty("page_time_alignment_interval",
+            Long.toString(
+                TSFileDescriptor.getInstance().getConfig().getPageTimeAlignmentInterval()))));
+    TSFileDescriptor.getInstance().getConfig().setAdaptiveEncodingEnabled(Boolean
+        .parseBoolean(properties.getProperty("enable_adaptive_encoding",
+            Boolean.toString(
+                TSFileDescriptor.getInstance().getConfig().isAdaptiveEncodingEnabled()))));
     TSFileDescriptor.getInstance().getConfig().setTimeSeriesDataType(properties
         .getProperty("time_series_data_type",
             TSFileDescriptor.getInstance().getConfig().getTimeSeriesDataType()));
@@ -827,6 +883,10 @@ public class IoTDBDescriptor {
       return;
     }
 
+    conf.setAllocateMemoryForFileMetadataCache((long) (conf.getAllocateMemoryForRead()
+        * Double.parseDouble(properties.getProperty("file_metadata_cache_memory_proportion",
+        Double.toString(0.02)))));
+
     String queryMemoryAllocateProportion = properties
         .getProperty("chunkmeta_chunk_timeseriesmeta_free_memory_proportion");
     if (queryMemoryAllocateProportion != null) {
@@ -835,7 +895,9 @@ public class IoTDBDescriptor {
       for (String proportion : proportions) {
         proportionSum += Integer.parseInt(proportion.trim());
       }
-      long maxMemoryAvailable = conf.getAllocateMemoryForRead();
+      // the file metadata cache is taken out of the read memory before it is split
+      long maxMemoryAvailable = conf.getAllocateMemoryForRead()
+          - conf.getAllocateMemoryForFileMetadataCache();
       if (proportionSum != 0) {
         try {
           conf.setAllocateMemoryForChunkMetaDataCache(
@@ -864,6 +864,22 @@ public class StorageEngine implements IService {
     processorMap.get(storageGroupPath).removePartitions(filter);
   }
 
+  /**
+   * Get the min index of the plans whose data are still in memtables, among the time partitions
+   * that satisfy the filter. A plan with a smaller index has been flushed or is not in these time
+   * partitions.
+   *
+   * @return the min plan index or Long.MAX_VALUE if there is no such plan
+   */
+  public long getMinUnflushedPlanIndex(TimePartitionFilter filter) {
+    long minPlanIndex = Long.MAX_VALUE;
+    for (VirtualStorageGroupManager virtualStorageGroupManager : processorMap.values()) {
+      minPlanIndex = Math.min(minPlanIndex,
+          virtualStorageGroupManager.getMinUnflushedPlanIndex(filter));
+    }
+    return minPlanIndex;
+  }
+
   public Map<PartialPath, VirtualStorageGroupManager> getProcessorMap() {
     return processorMap;
   }
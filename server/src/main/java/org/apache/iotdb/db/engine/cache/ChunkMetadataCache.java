@@ -178,6 +178,18 @@ public class ChunkMetadataCache {
     return lruCache.getMaxMemory();
   }
 
+  /**
+   * Resize the cache, used by MemoryManager to lend the memory of the cache to other modules.
+   */
+  public void setMaxMemory(long maxMemory) {
+    lock.writeLock().lock();
+    try {
+      lruCache.setMaxMemory(maxMemory);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
   public double getUsedMemoryProportion() {
     return lruCache.getUsedMemoryProportion();
   }
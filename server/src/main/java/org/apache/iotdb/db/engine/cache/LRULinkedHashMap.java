@@ -40,7 +40,7 @@ public abstract class LRULinkedHashMap<K extends Accountable, V> {
   /**
    * maximum memory threshold.
    */
-  private final long maxMemory;
+  private long maxMemory;
   /**
    * current used memory.
    */
@@ -49,7 +49,7 @@ public abstract class LRULinkedHashMap<K extends Accountable, V> {
   /**
    * memory size we need to retain while the cache is full
    */
-  private final long retainMemory;
+  private long retainMemory;
 
   protected int count = 0;
   protected long averageSize = 0;
@@ -66,16 +66,20 @@ public abstract class LRULinkedHashMap<K extends Accountable, V> {
     usedMemory += size;
     V v = linkedHashMap.put(key, value);
     if (usedMemory > maxMemory) {
-      Iterator<Entry<K, V>> iterator = linkedHashMap.entrySet().iterator();
-      while (usedMemory > retainMemory && iterator.hasNext()) {
-        Entry<K, V> entry = iterator.next();
-        usedMemory -= entry.getKey().getRamSize();
-        iterator.remove();
-      }
+      evict();
     }
     return v;
   }
 
+  private void evict() {
+    Iterator<Entry<K, V>> iterator = linkedHashMap.entrySet().iterator();
+    while (usedMemory > retainMemory && iterator.hasNext()) {
+      Entry<K, V> entry = iterator.next();
+      usedMemory -= entry.getKey().getRamSize();
+      iterator.remove();
+    }
+  }
+
   public V get(K key) {
     return linkedHashMap.get(key);
   }
@@ -119,6 +123,18 @@ public abstract class LRULinkedHashMap<K extends Accountable, V> {
     return maxMemory;
   }
 
+  /**
+   * Change the memory threshold, the least recently used entries are evicted if the cache is
+   * larger than the new threshold.
+   */
+  public void setMaxMemory(long maxMemory) {
+    this.maxMemory = maxMemory;
+    this.retainMemory = (long) (maxMemory * RETAIN_PERCENT);
+    if (usedMemory > maxMemory) {
+      evict();
+    }
+  }
+
   public long getAverageSize() {
     return averageSize;
   }
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.query.pool.QueryTaskPoolManager;
+import org.apache.iotdb.db.utils.TestOnly;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.file.metadata.MetadataIndexEntry;
+import org.apache.iotdb.tsfile.file.metadata.MetadataIndexNode;
+import org.apache.iotdb.tsfile.file.metadata.TsFileMetadata;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.utils.BloomFilter;
+import org.apache.iotdb.tsfile.utils.RamUsageEstimator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class is used to cache <code>TsFileMetadata</code>, i.e. the footer, the bloom filter and
+ * the root metadata index node of each TsFile, so that readers opened again for the same file do
+ * not read them from disk. An entry is only used by a reader whose file metadata is at the same
+ * position, so a file rewritten under the same name never gets the metadata of its old version.
+ * The caching strategy is LRU.
+ */
+public class TsFileMetadataCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(TsFileMetadataCache.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private static final long MEMORY_THRESHOLD_IN_FILE_METADATA_CACHE = config
+      .getAllocateMemoryForFileMetadataCache();
+  private static final boolean CACHE_ENABLE = config.isMetaDataCacheEnable();
+
+  private final LRULinkedHashMap<AccountableString, FileMetadataEntry> lruCache;
+
+  private final AtomicLong cacheHitNum = new AtomicLong();
+  private final AtomicLong cacheRequestNum = new AtomicLong();
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private TsFileMetadataCache() {
+    if (CACHE_ENABLE) {
+      logger.info("TsFileMetadataCache size = " + MEMORY_THRESHOLD_IN_FILE_METADATA_CACHE);
+    }
+    lruCache = new LRULinkedHashMap<AccountableString, FileMetadataEntry>(
+        MEMORY_THRESHOLD_IN_FILE_METADATA_CACHE) {
+
+      @Override
+      protected long calEntrySize(AccountableString key, FileMetadataEntry value) {
+        // the size of bloom filters and index nodes differs a lot between files, so unlike the
+        // other caches every entry is estimated instead of using an average size
+        return RamUsageEstimator.shallowSizeOf(key) + RamUsageEstimator.sizeOf(key.getString())
+            + RamUsageEstimator.shallowSizeOf(value) + estimateSize(value.fileMetadata);
+      }
+    };
+  }
+
+  public static TsFileMetadataCache getInstance() {
+    return TsFileMetadataCacheHolder.INSTANCE;
+  }
+
+  private static long estimateSize(TsFileMetadata fileMetadata) {
+    long size = RamUsageEstimator.shallowSizeOf(fileMetadata);
+    BloomFilter bloomFilter = fileMetadata.getBloomFilter();
+    if (bloomFilter != null) {
+      size += RamUsageEstimator.shallowSizeOf(bloomFilter) + bloomFilter.getSize() / Byte.SIZE;
+    }
+    MetadataIndexNode metadataIndex = fileMetadata.getMetadataIndex();
+    if (metadataIndex != null) {
+      size += RamUsageEstimator.shallowSizeOf(metadataIndex);
+      for (MetadataIndexEntry entry : metadataIndex.getChildren()) {
+        size += RamUsageEstimator.NUM_BYTES_OBJECT_REF + RamUsageEstimator.shallowSizeOf(entry)
+            + RamUsageEstimator.sizeOf(entry.getName());
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Get the file metadata of the file of the reader, from the cache if it has been read by another
+   * reader of the same file, or from the file otherwise. The reader will use the returned file
+   * metadata afterwards.
+   */
+  public TsFileMetadata get(TsFileSequenceReader reader) throws IOException {
+    if (!CACHE_ENABLE) {
+      return reader.readFileMetadata();
+    }
+
+    cacheRequestNum.incrementAndGet();
+
+    AccountableString key = new AccountableString(reader.getFileName());
+    FileMetadataEntry entry;
+    lock.readLock().lock();
+    try {
+      entry = lruCache.get(key);
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    if (entry != null && entry.fileMetadataPos == reader.getFileMetadataPos()) {
+      cacheHitNum.incrementAndGet();
+      printCacheLog(true);
+      reader.setFileMetadata(entry.fileMetadata);
+      return entry.fileMetadata;
+    }
+
+    printCacheLog(false);
+    TsFileMetadata fileMetadata = reader.readFileMetadata();
+    lock.writeLock().lock();
+    try {
+      lruCache.put(key, new FileMetadataEntry(reader.getFileMetadataPos(), fileMetadata));
+    } finally {
+      lock.writeLock().unlock();
+    }
+    return fileMetadata;
+  }
+
+  /**
+   * Read the file metadata of a sealed or loaded file into the cache in the query thread pool, so
+   * that the first query on the file does not have to read it and the flush or loading of the
+   * file does not wait for it.
+   */
+  public void prewarm(String filePath) {
+    if (!CACHE_ENABLE) {
+      return;
+    }
+    try {
+      QueryTaskPoolManager.getInstance().submit(() -> load(filePath));
+    } catch (RejectedExecutionException e) {
+      logger.debug("Skip prewarming the file metadata of {} as the query pool is closed",
+          filePath);
+    }
+  }
+
+  private void load(String filePath) {
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(filePath)) {
+      // files of old versions are read by another reader, leave them to the first query
+      if (reader.readVersionNumber() == TSFileConfig.VERSION_NUMBER) {
+        get(reader);
+      }
+    } catch (IOException | RuntimeException e) {
+      // only a missed chance to cache, the metadata will be read when the file is queried, e.g. a
+      // broken file is reported by the query instead of the loading
+      logger.warn("Cannot prewarm the file metadata of {}", filePath, e);
+    }
+  }
+
+  private void printCacheLog(boolean isHit) {
+    if (!logger.isDebugEnabled()) {
+      return;
+    }
+    logger.debug(
+        "[TsFileMetadata cache {}hit] The number of requests for cache is {}, hit rate is {}.",
+        isHit ? "" : "didn't ", cacheRequestNum.get(),
+        cacheHitNum.get() * 1.0 / cacheRequestNum.get());
+  }
+
+  public double calculateFileMetadataHitRatio() {
+    if (cacheRequestNum.get() != 0) {
+      return cacheHitNum.get() * 1.0 / cacheRequestNum.get();
+    } else {
+      return 0;
+    }
+  }
+
+  public long getUsedMemory() {
+    return lruCache.getUsedMemory();
+  }
+
+  public long getMaxMemory() {
+    return lruCache.getMaxMemory();
+  }
+
+  /**
+   * Resize the cache, used by MemoryManager to lend the memory of the cache to other modules.
+   */
+  public void setMaxMemory(long maxMemory) {
+    lock.writeLock().lock();
+    try {
+      lruCache.setMaxMemory(maxMemory);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public double getUsedMemoryProportion() {
+    return lruCache.getUsedMemoryProportion();
+  }
+
+  /**
+   * clear LRUCache.
+   */
+  public void clear() {
+    lock.writeLock().lock();
+    if (lruCache != null) {
+      lruCache.clear();
+    }
+    lock.writeLock().unlock();
+  }
+
+  public void remove(String filePath) {
+    lock.writeLock().lock();
+    try {
+      lruCache.remove(new AccountableString(filePath));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @TestOnly
+  public boolean isEmpty() {
+    return lruCache.isEmpty();
+  }
+
+  private static class FileMetadataEntry {
+
+    private final long fileMetadataPos;
+    private final TsFileMetadata fileMetadata;
+
+    private FileMetadataEntry(long fileMetadataPos, TsFileMetadata fileMetadata) {
+      this.fileMetadataPos = fileMetadataPos;
+      this.fileMetadata = fileMetadata;
+    }
+  }
+
+  /**
+   * singleton pattern.
+   */
+  private static class TsFileMetadataCacheHolder {
+
+    private static final TsFileMetadataCache INSTANCE = new TsFileMetadataCache();
+  }
+}
@@ -34,6 +34,7 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.cache.ChunkCache;
 import org.apache.iotdb.db.engine.cache.ChunkMetadataCache;
 import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
+import org.apache.iotdb.db.engine.cache.TsFileMetadataCache;
 import org.apache.iotdb.db.engine.merge.manage.MergeManager;
 import org.apache.iotdb.db.engine.merge.manage.MergeResource;
 import org.apache.iotdb.db.engine.merge.selector.IMergeFileSelector;
@@ -69,6 +70,11 @@ public abstract class TsFileManagement {
   public ModificationFile mergingModification;
   private long mergeStartTime;
 
+  /**
+   * the TTL of the storage group, the expired chunks are dropped by compactions
+   */
+  protected volatile long dataTTL = Long.MAX_VALUE;
+
   public TsFileManagement(String storageGroupName, String storageGroupDir) {
     this.storageGroupName = storageGroupName;
     this.storageGroupDir = storageGroupDir;
@@ -161,6 +167,17 @@ public abstract class TsFileManagement {
 
   protected abstract void merge(long timePartition);
 
+  public void setDataTTL(long dataTTL) {
+    this.dataTTL = dataTTL;
+  }
+
+  /**
+   * @return the time before which the data is expired, or Long.MIN_VALUE if TTL is not set
+   */
+  protected long getTimeLowerBound() {
+    return dataTTL == Long.MAX_VALUE ? Long.MIN_VALUE : System.currentTimeMillis() - dataTTL;
+  }
+
   public class CompactionMergeTask implements Runnable {
 
     private CloseCompactionMergeCallBack closeCompactionMergeCallBack;
@@ -324,6 +341,7 @@ public abstract class TsFileManagement {
         ChunkCache.getInstance().clear();
         ChunkMetadataCache.getInstance().clear();
         TimeSeriesMetadataCache.getInstance().clear();
+        TsFileMetadataCache.getInstance().clear();
       }
     } finally {
       writeUnlock();
@@ -405,7 +405,7 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
             List<Modification> modifications = new ArrayList<>();
             CompactionUtils
                 .merge(targetTsFileResource, getTsFileList(isSeq), storageGroupName,
-                    compactionLogger, deviceSet, isSeq, modifications);
+                    compactionLogger, deviceSet, isSeq, modifications, getTimeLowerBound());
             compactionLogger.close();
           } else {
             writer.close();
@@ -435,7 +435,7 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
             CompactionUtils
                 .merge(targetResource, sourceTsFileResources, storageGroupName,
                     compactionLogger, deviceSet,
-                    isSeq, modifications);
+                    isSeq, modifications, getTimeLowerBound());
             // complete compaction and delete source file
             writeLock();
             try {
@@ -536,7 +536,7 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
         seqFileNumInEachLevel);
     if (enableUnseqCompaction && unseqLevelNum <= 1 && forkedUnSequenceTsFileResources.size() > 0) {
       merge(isForceFullMerge, getTsFileList(true), forkedUnSequenceTsFileResources.get(0),
-          Long.MAX_VALUE);
+          dataTTL);
     } else {
       merge(forkedUnSequenceTsFileResources, false, timePartition, unseqLevelNum,
           unseqFileNumInEachLevel);
@@ -566,7 +566,7 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
           if (enableUnseqCompaction && !sequence && i == currMaxLevel - 2) {
             // do not merge current unseq file level to upper level and just merge all of them to seq file
             isSeqMerging = false;
-            merge(isForceFullMerge, getTsFileList(true), mergeResources.get(i), Long.MAX_VALUE);
+            merge(isForceFullMerge, getTsFileList(true), mergeResources.get(i), dataTTL);
           } else {
             CompactionLogger compactionLogger = new CompactionLogger(storageGroupDir,
                 storageGroupName);
@@ -591,7 +591,7 @@ public class LevelCompactionTsFileManagement extends TsFileManagement {
             // merge, read from source files and write to target file
             CompactionUtils
                 .merge(newResource, toMergeTsFiles, storageGroupName, compactionLogger,
-                    new HashSet<>(), sequence, modifications);
+                    new HashSet<>(), sequence, modifications, getTimeLowerBound());
             logger.info(
                 "{} [Compaction] merged level-{}'s {} TsFiles to next level, and start to delete old files",
                 storageGroupName, i, toMergeTsFiles.size());
@@ -25,19 +25,22 @@ import static org.apache.iotdb.db.utils.QueryUtils.modifyChunkMetaData;
 import com.google.common.util.concurrent.RateLimiter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.cache.TsFileMetadataCache;
 import org.apache.iotdb.db.engine.merge.manage.MergeManager;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
+import org.apache.iotdb.db.engine.modification.ModificationIndex;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
@@ -68,11 +71,17 @@ public class CompactionUtils {
     throw new IllegalStateException("Utility class");
   }
 
-  private static Pair<ChunkMetadata, Chunk> readByAppendMerge(
+  /**
+   * append the pages of the chunks of a series into as few chunks as possible. Chunks whose value
+   * encoding differs, e.g. chosen by adaptive encoding, cannot share a chunk header, so a new chunk
+   * is started whenever the encoding changes.
+   */
+  private static List<Pair<ChunkMetadata, Chunk>> readByAppendMerge(
       Map<TsFileSequenceReader, List<ChunkMetadata>> readerChunkMetadataMap,
-      Map<String, List<Modification>> modificationCache, PartialPath seriesPath,
+      Map<String, ModificationIndex> modificationCache, PartialPath seriesPath,
       List<Modification> modifications)
       throws IOException {
+    List<Pair<ChunkMetadata, Chunk>> newChunks = new ArrayList<>();
     ChunkMetadata newChunkMetadata = null;
     Chunk newChunk = null;
     for (Entry<TsFileSequenceReader, List<ChunkMetadata>> entry : readerChunkMetadataMap
@@ -83,22 +92,25 @@ public class CompactionUtils {
           modifications);
       for (ChunkMetadata chunkMetadata : chunkMetadataList) {
         Chunk chunk = reader.readMemChunk(chunkMetadata);
-        if (newChunkMetadata == null) {
+        if (newChunkMetadata == null || newChunk.getHeader().getEncodingType() != chunk
+            .getHeader().getEncodingType()) {
           newChunkMetadata = chunkMetadata;
           newChunk = chunk;
+          newChunks.add(new Pair<>(newChunkMetadata, newChunk));
         } else {
           newChunk.mergeChunk(chunk);
           newChunkMetadata.mergeChunkMetadata(chunkMetadata);
         }
       }
     }
-    return new Pair<>(newChunkMetadata, newChunk);
+    return newChunks;
   }
 
   private static long readByDeserializeMerge(
       Map<TsFileSequenceReader, List<ChunkMetadata>> readerChunkMetadataMap, long maxVersion,
-      Map<Long, TimeValuePair> timeValuePairMap, Map<String, List<Modification>> modificationCache,
-      PartialPath seriesPath, List<Modification> modifications) throws IOException {
+      Map<Long, TimeValuePair> timeValuePairMap, Map<String, ModificationIndex> modificationCache,
+      PartialPath seriesPath, List<Modification> modifications, long timeLowerBound)
+      throws IOException {
     for (Entry<TsFileSequenceReader, List<ChunkMetadata>> entry : readerChunkMetadataMap
         .entrySet()) {
       TsFileSequenceReader reader = entry.getKey();
@@ -114,7 +126,10 @@ public class CompactionUtils {
               chunkReader.nextPageData());
           while (iPointReader.hasNextTimeValuePair()) {
             TimeValuePair timeValuePair = iPointReader.nextTimeValuePair();
-            timeValuePairMap.put(timeValuePair.getTimestamp(), timeValuePair);
+            // the points out of TTL are dropped as they are rewritten anyway
+            if (timeValuePair.getTimestamp() >= timeLowerBound) {
+              timeValuePairMap.put(timeValuePair.getTimestamp(), timeValuePair);
+            }
           }
         }
       }
@@ -126,13 +141,13 @@ public class CompactionUtils {
       RateLimiter compactionWriteRateLimiter,
       Entry<String, Map<TsFileSequenceReader, List<ChunkMetadata>>> entry,
       TsFileResource targetResource, RestorableTsFileIOWriter writer,
-      Map<String, List<Modification>> modificationCache, List<Modification> modifications)
+      Map<String, ModificationIndex> modificationCache, List<Modification> modifications)
       throws IOException, IllegalPathException {
-    Pair<ChunkMetadata, Chunk> chunkPair = readByAppendMerge(entry.getValue(),
+    List<Pair<ChunkMetadata, Chunk>> chunkPairs = readByAppendMerge(entry.getValue(),
         modificationCache, new PartialPath(device, entry.getKey()), modifications);
-    ChunkMetadata newChunkMetadata = chunkPair.left;
-    Chunk newChunk = chunkPair.right;
-    if (newChunkMetadata != null && newChunk != null) {
+    for (Pair<ChunkMetadata, Chunk> chunkPair : chunkPairs) {
+      ChunkMetadata newChunkMetadata = chunkPair.left;
+      Chunk newChunk = chunkPair.right;
       maxVersion = Math.max(newChunkMetadata.getVersion(), maxVersion);
       // wait for limit write
       MergeManager.mergeRateLimiterAcquire(compactionWriteRateLimiter,
@@ -144,16 +159,89 @@ public class CompactionUtils {
     return maxVersion;
   }
 
+  /**
+   * Transfer the raw bytes of the chunks of the given series into the target file without reading
+   * them into memory. For each source file, chunks of these series are transferred in the order
+   * they are stored, so that adjacent chunks are transferred together.
+   *
+   * @param readers the readers of the source files, in the order the files are merged
+   */
+  public static long writeByTransferMerge(long maxVersion, String device,
+      RateLimiter compactionWriteRateLimiter,
+      Map<String, Map<TsFileSequenceReader, List<ChunkMetadata>>> measurementChunkMetadataMap,
+      List<TsFileSequenceReader> readers, TsFileResource targetResource,
+      RestorableTsFileIOWriter writer) throws IOException {
+    for (TsFileSequenceReader reader : readers) {
+      List<ChunkMetadata> chunkMetadataList = new ArrayList<>();
+      for (Map<TsFileSequenceReader, List<ChunkMetadata>> readerChunkMetadataMap :
+          measurementChunkMetadataMap.values()) {
+        chunkMetadataList
+            .addAll(readerChunkMetadataMap.getOrDefault(reader, Collections.emptyList()));
+      }
+      if (chunkMetadataList.isEmpty()) {
+        continue;
+      }
+      chunkMetadataList.sort(Comparator.comparingLong(ChunkMetadata::getOffsetOfChunkHeader));
+      for (ChunkMetadata chunkMetadata : chunkMetadataList) {
+        maxVersion = Math.max(chunkMetadata.getVersion(), maxVersion);
+        targetResource.updateStartTime(device, chunkMetadata.getStartTime());
+        targetResource.updateEndTime(device, chunkMetadata.getEndTime());
+      }
+      long transferredSize = writer.transferChunks(reader, chunkMetadataList);
+      // limit the write of following chunks
+      MergeManager.mergeRateLimiterAcquire(compactionWriteRateLimiter, transferredSize);
+    }
+    return maxVersion;
+  }
+
+  /**
+   * A series can be written by transferring its chunks if none of them is small enough to be
+   * merged with others, and no modification of the source files touches the series.
+   */
+  private static boolean isSeriesTransferable(PartialPath seriesPath,
+      Map<TsFileSequenceReader, List<ChunkMetadata>> readerChunkMetadataMap,
+      Map<String, ModificationIndex> modificationCache) {
+    int mergeChunkPointNum = IoTDBDescriptor.getInstance().getConfig()
+        .getMergeChunkPointNumberThreshold();
+    for (Entry<TsFileSequenceReader, List<ChunkMetadata>> entry : readerChunkMetadataMap
+        .entrySet()) {
+      for (ChunkMetadata chunkMetadata : entry.getValue()) {
+        if (chunkMetadata.getNumOfPoints() < mergeChunkPointNum) {
+          return false;
+        }
+      }
+      if (!getModificationsWithCache(entry.getKey(), modificationCache)
+          .getModifications(seriesPath).isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public static long writeByDeserializeMerge(long maxVersion, String device,
       RateLimiter compactionRateLimiter,
       Entry<String, Map<TsFileSequenceReader, List<ChunkMetadata>>> entry,
       TsFileResource targetResource, RestorableTsFileIOWriter writer,
-      Map<String, List<Modification>> modificationCache, List<Modification> modifications)
+      Map<String, ModificationIndex> modificationCache, List<Modification> modifications)
       throws IOException, IllegalPathException {
+    return writeByDeserializeMerge(maxVersion, device, compactionRateLimiter, entry,
+        targetResource, writer, modificationCache, modifications, Long.MIN_VALUE);
+  }
+
+  /**
+   * @param timeLowerBound the points before it are out of TTL and not written
+   */
+  public static long writeByDeserializeMerge(long maxVersion, String device,
+      RateLimiter compactionRateLimiter,
+      Entry<String, Map<TsFileSequenceReader, List<ChunkMetadata>>> entry,
+      TsFileResource targetResource, RestorableTsFileIOWriter writer,
+      Map<String, ModificationIndex> modificationCache, List<Modification> modifications,
+      long timeLowerBound) throws IOException, IllegalPathException {
     Map<Long, TimeValuePair> timeValuePairMap = new TreeMap<>();
     Map<TsFileSequenceReader, List<ChunkMetadata>> readerChunkMetadataMap = entry.getValue();
     maxVersion = readByDeserializeMerge(readerChunkMetadataMap, maxVersion, timeValuePairMap,
-        modificationCache, new PartialPath(device, entry.getKey()), modifications);
+        modificationCache, new PartialPath(device, entry.getKey()), modifications,
+        timeLowerBound);
     boolean isChunkMetadataEmpty = true;
     for (List<ChunkMetadata> chunkMetadataList : readerChunkMetadataMap.values()) {
       if (!chunkMetadataList.isEmpty()) {
@@ -201,22 +289,36 @@ public class CompactionUtils {
     return tsFileDevicesSet;
   }
 
+  /**
+   * merge the files without dropping the data out of TTL.
+   */
+  public static void merge(TsFileResource targetResource,
+      List<TsFileResource> tsFileResources, String storageGroup,
+      CompactionLogger compactionLogger,
+      Set<String> devices, boolean sequence, List<Modification> modifications)
+      throws IOException, IllegalPathException {
+    merge(targetResource, tsFileResources, storageGroup, compactionLogger, devices, sequence,
+        modifications, Long.MIN_VALUE);
+  }
+
   /**
    * @param targetResource   the target resource to be merged to
    * @param tsFileResources  the source resource to be merged
    * @param storageGroup     the storage group name
    * @param compactionLogger the logger
    * @param devices          the devices to be skipped(used by recover)
+   * @param timeLowerBound   the data before it is out of TTL, the chunks ending before it are
+   *                         dropped, and so are the points of the chunks that are deserialized
    */
   @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
   public static void merge(TsFileResource targetResource,
       List<TsFileResource> tsFileResources, String storageGroup,
       CompactionLogger compactionLogger,
-      Set<String> devices, boolean sequence, List<Modification> modifications)
-      throws IOException, IllegalPathException {
+      Set<String> devices, boolean sequence, List<Modification> modifications,
+      long timeLowerBound) throws IOException, IllegalPathException {
     RestorableTsFileIOWriter writer = new RestorableTsFileIOWriter(targetResource.getTsFile());
     Map<String, TsFileSequenceReader> tsFileSequenceReaderMap = new HashMap<>();
-    Map<String, List<Modification>> modificationCache = new HashMap<>();
+    Map<String, ModificationIndex> modificationCache = new HashMap<>();
     RateLimiter compactionWriteRateLimiter = MergeManager.getINSTANCE().getMergeWriteRateLimiter();
     Set<String> tsFileDevicesMap = getTsFileDevicesSet(tsFileResources, tsFileSequenceReaderMap,
         storageGroup);
@@ -224,7 +326,6 @@ public class CompactionUtils {
       if (devices.contains(device)) {
         continue;
       }
-      writer.startChunkGroup(device);
       // sort chunkMeta by measurement
       Map<String, Map<TsFileSequenceReader, List<ChunkMetadata>>> measurementChunkMetadataMap = new HashMap<>();
       for (TsFileResource levelResource : tsFileResources) {
@@ -237,6 +338,10 @@ public class CompactionUtils {
             .readChunkMetadataInDevice(device);
         for (Entry<String, List<ChunkMetadata>> entry : chunkMetadataMap.entrySet()) {
           for (ChunkMetadata chunkMetadata : entry.getValue()) {
+            if (chunkMetadata.getEndTime() < timeLowerBound) {
+              // the chunk is out of TTL
+              continue;
+            }
             Map<TsFileSequenceReader, List<ChunkMetadata>> readerChunkMetadataMap;
             String measurementUid = chunkMetadata.getMeasurementUid();
             if (measurementChunkMetadataMap.containsKey(measurementUid)) {
@@ -257,19 +362,31 @@ public class CompactionUtils {
           }
         }
       }
+      if (measurementChunkMetadataMap.isEmpty()) {
+        // all the chunks of the device are out of TTL
+        continue;
+      }
+      writer.startChunkGroup(device);
       if (!sequence) {
         long maxVersion = Long.MIN_VALUE;
         for (Entry<String, Map<TsFileSequenceReader, List<ChunkMetadata>>> entry : measurementChunkMetadataMap
             .entrySet()) {
           maxVersion = writeByDeserializeMerge(maxVersion, device, compactionWriteRateLimiter,
-              entry, targetResource, writer, modificationCache, modifications);
+              entry, targetResource, writer, modificationCache, modifications, timeLowerBound);
         }
         writer.endChunkGroup();
       } else {
         long maxVersion = Long.MIN_VALUE;
+        Map<String, Map<TsFileSequenceReader, List<ChunkMetadata>>> transferableChunkMetadataMap = new HashMap<>();
         for (Entry<String, Map<TsFileSequenceReader, List<ChunkMetadata>>> entry : measurementChunkMetadataMap
             .entrySet()) {
           Map<TsFileSequenceReader, List<ChunkMetadata>> readerChunkMetadatasMap = entry.getValue();
+          if (isSeriesTransferable(new PartialPath(device, entry.getKey()),
+              readerChunkMetadatasMap, modificationCache)) {
+            // the chunks are large enough and intact, copy their bytes later in one pass
+            transferableChunkMetadataMap.put(entry.getKey(), readerChunkMetadatasMap);
+            continue;
+          }
           boolean isPageEnoughLarge = true;
           for (List<ChunkMetadata> chunkMetadatas : readerChunkMetadatasMap.values()) {
             for (ChunkMetadata chunkMetadata : chunkMetadatas) {
@@ -289,9 +406,22 @@ public class CompactionUtils {
                 .debug("{} [Compaction] page too small, use deserialize merge", storageGroup);
             // we have to deserialize chunks to merge pages
             maxVersion = writeByDeserializeMerge(maxVersion, device, compactionWriteRateLimiter,
-                entry, targetResource, writer, modificationCache, modifications);
+                entry, targetResource, writer, modificationCache, modifications, timeLowerBound);
           }
         }
+        if (!transferableChunkMetadataMap.isEmpty()) {
+          logger.debug("{} [Compaction] chunks enough large, use transfer merge", storageGroup);
+          List<TsFileSequenceReader> readers = new ArrayList<>();
+          for (TsFileResource levelResource : tsFileResources) {
+            TsFileSequenceReader reader = tsFileSequenceReaderMap
+                .get(levelResource.getTsFile().getAbsolutePath());
+            if (reader != null) {
+              readers.add(reader);
+            }
+          }
+          maxVersion = writeByTransferMerge(maxVersion, device, compactionWriteRateLimiter,
+              transferableChunkMetadataMap, readers, targetResource, writer);
+        }
         writer.endChunkGroup();
       }
       if (compactionLogger != null) {
@@ -309,6 +439,7 @@ public class CompactionUtils {
     targetResource.serialize();
     writer.endFile();
     targetResource.close();
+    TsFileMetadataCache.getInstance().prewarm(targetResource.getTsFilePath());
   }
 
   private static TsFileSequenceReader buildReaderFromTsFileResource(TsFileResource levelResource,
@@ -332,20 +463,28 @@ public class CompactionUtils {
   }
 
   private static void modifyChunkMetaDataWithCache(TsFileSequenceReader reader,
-      List<ChunkMetadata> chunkMetadataList, Map<String, List<Modification>> modificationCache,
+      List<ChunkMetadata> chunkMetadataList, Map<String, ModificationIndex> modificationCache,
       PartialPath seriesPath, List<Modification> usedModifications) {
-    List<Modification> modifications =
-        modificationCache.computeIfAbsent(reader.getFileName(),
-            fileName -> new LinkedList<>(
-                new ModificationFile(fileName + ModificationFile.FILE_SUFFIX)
-                    .getModifications()));
-    List<Modification> seriesModifications = new LinkedList<>();
-    for (Modification modification : modifications) {
-      if (modification.getPath().matchFullPath(seriesPath)) {
-        seriesModifications.add(modification);
-        usedModifications.add(modification);
-      }
-    }
+    List<Modification> seriesModifications = getModificationsWithCache(reader, modificationCache)
+        .getModifications(seriesPath);
+    usedModifications.addAll(seriesModifications);
     modifyChunkMetaData(chunkMetadataList, seriesModifications);
   }
+
+  private static ModificationIndex getModificationsWithCache(TsFileSequenceReader reader,
+      Map<String, ModificationIndex> modificationCache) {
+    return modificationCache.computeIfAbsent(reader.getFileName(), fileName -> {
+      ModificationFile modificationFile = new ModificationFile(
+          fileName + ModificationFile.FILE_SUFFIX);
+      ModificationIndex modificationIndex =
+          new ModificationIndex(modificationFile.getModifications());
+      try {
+        // release the modifications of the file, the index holds them during the compaction
+        modificationFile.close();
+      } catch (IOException e) {
+        logger.warn("Cannot close the mods file of {}", fileName, e);
+      }
+      return modificationIndex;
+    });
+  }
 }
\ No newline at end of file
@@ -18,6 +18,8 @@
  */
 package org.apache.iotdb.db.engine.flush;
 
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import org.apache.iotdb.db.concurrent.WrappedRunnable;
 import org.apache.iotdb.db.conf.IoTDBConfig;
@@ -32,6 +34,8 @@ import org.apache.iotdb.db.monitor.StatMonitor;
 import org.apache.iotdb.db.service.IService;
 import org.apache.iotdb.db.service.JMXService;
 import org.apache.iotdb.db.service.ServiceType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.write.chunk.EncodingSelector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -87,6 +91,20 @@ public class FlushManager implements FlushManagerMBean, IService {
     return FlushSubTaskPoolManager.getInstance().getWaitingTasksNumber();
   }
 
+  @Override
+  public Map<String, Long> getAdaptiveEncodingChoices() {
+    Map<String, Long> choices = new TreeMap<>();
+    for (Map.Entry<TSEncoding, Long> entry : EncodingSelector.getChosenChunkNum().entrySet()) {
+      choices.put(entry.getKey().name(), entry.getValue());
+    }
+    return choices;
+  }
+
+  @Override
+  public long getAdaptiveEncodingSavedBytes() {
+    return EncodingSelector.getSavedBytes();
+  }
+
   class FlushThread extends WrappedRunnable {
 
     @Override
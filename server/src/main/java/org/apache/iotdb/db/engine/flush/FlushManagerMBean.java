@@ -19,6 +19,8 @@
 
 package org.apache.iotdb.db.engine.flush;
 
+import java.util.Map;
+
 public interface FlushManagerMBean {
 
   int getNumberOfWorkingTasks();
@@ -28,4 +30,15 @@ public interface FlushManagerMBean {
   int getNumberOfWorkingSubTasks();
 
   int getNumberOfPendingSubTasks();
+
+  /**
+   * @return how many written chunks have chosen each value encoding, if adaptive encoding is
+   * enabled
+   */
+  Map<String, Long> getAdaptiveEncodingChoices();
+
+  /**
+   * @return bytes of the first pages of chunks saved by adaptive encoding
+   */
+  long getAdaptiveEncodingSavedBytes();
 }
@@ -155,9 +155,7 @@ public class WritableMemChunk implements IWritableMemChunk {
   @Override
   public synchronized TVList getSortedTVListForQuery() {
     sortTVList();
-    // increase reference count
-    list.increaseReferenceCount();
-    return list;
+    return list.getListForQuery();
   }
 
   private void sortTVList() {
@@ -31,6 +31,7 @@ import java.util.Random;
 import org.apache.iotdb.db.engine.modification.io.LocalTextModificationAccessor;
 import org.apache.iotdb.db.engine.modification.io.ModificationReader;
 import org.apache.iotdb.db.engine.modification.io.ModificationWriter;
+import org.apache.iotdb.db.metadata.PartialPath;
 import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
 import org.slf4j.Logger;
@@ -46,6 +47,8 @@ public class ModificationFile implements AutoCloseable {
   public static final String FILE_SUFFIX = ".mods";
 
   private List<Modification> modifications;
+  // built from the modifications when the modifications of a timeseries are first looked up
+  private ModificationIndex index;
   private ModificationWriter writer;
   private ModificationReader reader;
   private String filePath;
@@ -66,6 +69,7 @@ public class ModificationFile implements AutoCloseable {
   private void init() {
     synchronized (this) {
       modifications = (List<Modification>) reader.read();
+      index = null;
     }
   }
 
@@ -83,14 +87,28 @@ public class ModificationFile implements AutoCloseable {
     synchronized (this) {
       writer.close();
       modifications = null;
+      index = null;
+      ModificationFileCache.getInstance().remove(this);
+    }
+  }
+
+  /**
+   * Release the modifications in memory, they will be read again when needed.
+   */
+  void releaseCache() {
+    synchronized (this) {
+      modifications = null;
+      index = null;
     }
   }
 
   public void abort() throws IOException {
     synchronized (this) {
+      checkInit();
       if (!modifications.isEmpty()) {
         writer.abort();
         modifications.remove(modifications.size() - 1);
+        index = null;
       }
     }
   }
@@ -103,11 +121,17 @@ public class ModificationFile implements AutoCloseable {
    * @throws IOException if IOException is thrown when writing the modification to the store.
    */
   public void write(Modification mod) throws IOException {
+    int modificationNum;
     synchronized (this) {
       checkInit();
       writer.write(mod);
       modifications.add(mod);
+      if (index != null) {
+        index.add(mod);
+      }
+      modificationNum = modifications.size();
     }
+    ModificationFileCache.getInstance().access(this, modificationNum);
   }
 
   /**
@@ -116,10 +140,34 @@ public class ModificationFile implements AutoCloseable {
    * @return an ArrayList of modifications.
    */
   public Collection<Modification> getModifications() {
+    List<Modification> copy;
     synchronized (this) {
       checkInit();
-      return new ArrayList<>(modifications);
+      copy = new ArrayList<>(modifications);
+    }
+    ModificationFileCache.getInstance().access(this, copy.size());
+    return copy;
+  }
+
+  /**
+   * Get the modifications of a timeseries stored in this file, which are looked up in an index of
+   * the modifications instead of matching all of them.
+   *
+   * @return an ArrayList of modifications.
+   */
+  public List<Modification> getModifications(PartialPath path) {
+    List<Modification> pathModifications;
+    int modificationNum;
+    synchronized (this) {
+      checkInit();
+      if (index == null) {
+        index = new ModificationIndex(modifications);
+      }
+      pathModifications = index.getModifications(path);
+      modificationNum = modifications.size();
     }
+    ModificationFileCache.getInstance().access(this, modificationNum);
+    return pathModifications;
   }
 
   public String getFilePath() {
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.modification;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.utils.TestOnly;
+
+/**
+ * ModificationFileCache bounds the number of modifications held in memory by all
+ * ModificationFiles. When a file loads or adds modifications beyond the bound, the least recently
+ * used other files release their modifications, which are read again from disk when they are
+ * needed.
+ */
+class ModificationFileCache {
+
+  // the number of cached modifications of each file, in the access order
+  private final Map<ModificationFile, Integer> cachedFiles = new LinkedHashMap<>(16, 0.75f, true);
+  private long cachedModificationNum = 0;
+
+  private ModificationFileCache() {
+  }
+
+  static ModificationFileCache getInstance() {
+    return ModificationFileCacheHolder.INSTANCE;
+  }
+
+  /**
+   * Called without holding the lock of the file after the file is accessed with the given number
+   * of modifications in memory. The files without modifications are not registered, as they hold
+   * nothing to release.
+   */
+  void access(ModificationFile file, int modificationNum) {
+    if (modificationNum == 0) {
+      remove(file);
+      return;
+    }
+    long maxModificationNum = IoTDBDescriptor.getInstance().getConfig().getModificationCacheSize();
+    List<ModificationFile> evictedFiles = new ArrayList<>();
+    synchronized (this) {
+      Integer prevNum = cachedFiles.put(file, modificationNum);
+      cachedModificationNum += modificationNum - (prevNum == null ? 0 : prevNum);
+      Iterator<Entry<ModificationFile, Integer>> iterator = cachedFiles.entrySet().iterator();
+      while (cachedModificationNum > maxModificationNum && iterator.hasNext()) {
+        Entry<ModificationFile, Integer> entry = iterator.next();
+        if (entry.getKey() != file) {
+          cachedModificationNum -= entry.getValue();
+          iterator.remove();
+          evictedFiles.add(entry.getKey());
+        }
+      }
+    }
+    // released after leaving the cache lock, so the cache never waits for the lock of a file
+    for (ModificationFile evictedFile : evictedFiles) {
+      evictedFile.releaseCache();
+    }
+  }
+
+  synchronized void remove(ModificationFile file) {
+    Integer num = cachedFiles.remove(file);
+    if (num != null) {
+      cachedModificationNum -= num;
+    }
+  }
+
+  @TestOnly
+  synchronized boolean contains(ModificationFile file) {
+    return cachedFiles.containsKey(file);
+  }
+
+  private static class ModificationFileCacheHolder {
+
+    private static final ModificationFileCache INSTANCE = new ModificationFileCache();
+  }
+}
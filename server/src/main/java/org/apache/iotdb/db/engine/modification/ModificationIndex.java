@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.modification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.metadata.PartialPath;
+
+/**
+ * ModificationIndex finds the modifications of a timeseries without matching the timeseries
+ * against every modification. A modification whose path has no wildcard deletes the timeseries
+ * prefixed by its path, so it is indexed by its path and found by looking up each prefix of the
+ * timeseries. The modifications with wildcards are still matched one by one, and they are usually
+ * a few. <b>Note: It's not thread safe.</b>
+ */
+public class ModificationIndex {
+
+  private final Map<String, List<Modification>> pathModifications = new HashMap<>();
+  private final List<Modification> wildcardModifications = new ArrayList<>();
+  private int size = 0;
+
+  public ModificationIndex(Collection<Modification> modifications) {
+    for (Modification modification : modifications) {
+      add(modification);
+    }
+  }
+
+  public void add(Modification modification) {
+    if (hasWildcard(modification.getPath())) {
+      wildcardModifications.add(modification);
+    } else {
+      pathModifications.computeIfAbsent(modification.getPathString(), p -> new ArrayList<>(1))
+          .add(modification);
+    }
+    size++;
+  }
+
+  private static boolean hasWildcard(PartialPath path) {
+    for (String node : path.getNodes()) {
+      if (IoTDBConstant.PATH_WILDCARD.equals(node)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the modifications whose paths match the given timeseries, as
+   * PartialPath.matchFullPath()
+   */
+  public List<Modification> getModifications(PartialPath path) {
+    List<Modification> modifications = new ArrayList<>();
+    if (!pathModifications.isEmpty()) {
+      String[] nodes = path.getNodes();
+      StringBuilder prefix = new StringBuilder();
+      for (int i = 0; i < nodes.length; i++) {
+        if (i > 0) {
+          prefix.append(IoTDBConstant.PATH_SEPARATOR);
+        }
+        prefix.append(nodes[i]);
+        List<Modification> prefixModifications = pathModifications.get(prefix.toString());
+        if (prefixModifications != null) {
+          modifications.addAll(prefixModifications);
+        }
+      }
+    }
+    for (Modification modification : wildcardModifications) {
+      if (modification.getPath().matchFullPath(path)) {
+        modifications.add(modification);
+      }
+    }
+    return modifications;
+  }
+
+  public int size() {
+    return size;
+  }
+}
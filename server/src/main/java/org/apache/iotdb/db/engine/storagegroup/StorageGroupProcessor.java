@@ -55,6 +55,7 @@ import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.directories.DirectoryManager;
 import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.cache.TsFileMetadataCache;
 import org.apache.iotdb.db.engine.compaction.CompactionMergeTaskPoolManager;
 import org.apache.iotdb.db.engine.compaction.TsFileManagement;
 import org.apache.iotdb.db.engine.compaction.level.LevelCompactionTsFileManagement;
@@ -1307,7 +1308,9 @@ public class StorageGroupProcessor {
   }
 
   /**
-   * Iterate each TsFile and try to lock and remove those out of TTL.
+   * Iterate each TsFile and try to lock and remove those out of TTL. The files are checked without
+   * the write lock, and the expired ones are removed from the lists in a batch under the write
+   * lock, the physical removal is done after the lock is released.
    */
   public synchronized void checkFilesTTL() {
     if (dataTTL == Long.MAX_VALUE) {
@@ -1323,46 +1326,95 @@ public class StorageGroupProcessor {
     List<TsFileResource> seqFiles = new ArrayList<>(tsFileManagement.getTsFileList(true));
     List<TsFileResource> unseqFiles = new ArrayList<>(tsFileManagement.getTsFileList(false));
 
-    for (TsFileResource tsFileResource : seqFiles) {
-      checkFileTTL(tsFileResource, timeLowerBound, true);
+    List<TsFileResource> expiredSeqFiles = getExpiredFiles(seqFiles, timeLowerBound);
+    List<TsFileResource> expiredUnseqFiles = getExpiredFiles(unseqFiles, timeLowerBound);
+    if (expiredSeqFiles.isEmpty() && expiredUnseqFiles.isEmpty()) {
+      return;
+    }
+
+    List<TsFileResource> removedSeqFiles;
+    List<TsFileResource> removedUnseqFiles;
+    writeLock();
+    try {
+      removedSeqFiles = removeExpiredFiles(expiredSeqFiles, true);
+      removedUnseqFiles = removeExpiredFiles(expiredUnseqFiles, false);
+    } finally {
+      writeUnlock();
     }
-    for (TsFileResource tsFileResource : unseqFiles) {
-      checkFileTTL(tsFileResource, timeLowerBound, false);
+
+    // the removed files are invisible to new queries and merges, and still write-locked
+    for (TsFileResource resource : removedSeqFiles) {
+      removeExpiredFile(resource, timeLowerBound);
+    }
+    for (TsFileResource resource : removedUnseqFiles) {
+      removeExpiredFile(resource, timeLowerBound);
     }
   }
 
-  private void checkFileTTL(TsFileResource resource, long timeLowerBound, boolean isSeq) {
-    if (resource.isMerging() || !resource.isClosed()
-        || !resource.isDeleted() && resource.stillLives(timeLowerBound)) {
-      return;
+  private List<TsFileResource> getExpiredFiles(List<TsFileResource> resources,
+      long timeLowerBound) {
+    List<TsFileResource> expiredFiles = new ArrayList<>();
+    for (TsFileResource resource : resources) {
+      if (!resource.isMerging() && resource.isClosed()
+          && (resource.isDeleted() || isPartitionExpired(resource, timeLowerBound)
+          || !resource.stillLives(timeLowerBound))) {
+        expiredFiles.add(resource);
+      }
     }
+    return expiredFiles;
+  }
 
-    writeLock();
-    try {
+  /**
+   * @return true if the whole time partition of the file is before the time lower bound, so the
+   * file is expired without checking its devices
+   */
+  private boolean isPartitionExpired(TsFileResource resource, long timeLowerBound) {
+    if (!StorageEngine.isEnablePartition()) {
+      return false;
+    }
+    long partitionInterval = StorageEngine.getTimePartitionInterval();
+    long partitionEndTime = (resource.getTimePartition() + 1) * partitionInterval - 1;
+    return partitionEndTime < timeLowerBound;
+  }
+
+  /**
+   * Remove the expired files that are not used by any merges or queries from the file lists, the
+   * caller should hold the write lock.
+   *
+   * @return the removed files, which are write-locked and should be removed physically
+   */
+  private List<TsFileResource> removeExpiredFiles(List<TsFileResource> expiredFiles,
+      boolean isSeq) {
+    List<TsFileResource> removedFiles = new ArrayList<>();
+    for (TsFileResource resource : expiredFiles) {
       // prevent new merges and queries from choosing this file
       resource.setDeleted(true);
       // the file may be chosen for merge after the last check and before writeLock()
       // double check to ensure the file is not used by a merge
       if (resource.isMerging()) {
-        return;
+        continue;
       }
-
       // ensure that the file is not used by any queries
       if (resource.tryWriteLock()) {
-        try {
-          // physical removal
-          resource.remove();
-          if (logger.isInfoEnabled()) {
-            logger.info("Removed a file {} before {} by ttl ({}ms)", resource.getTsFilePath(),
-                new Date(timeLowerBound), dataTTL);
-          }
-          tsFileManagement.remove(resource, isSeq);
-        } finally {
-          resource.writeUnlock();
-        }
+        removedFiles.add(resource);
+      }
+    }
+    if (!removedFiles.isEmpty()) {
+      tsFileManagement.removeAll(removedFiles, isSeq);
+    }
+    return removedFiles;
+  }
+
+  private void removeExpiredFile(TsFileResource resource, long timeLowerBound) {
+    try {
+      // physical removal
+      resource.remove();
+      if (logger.isInfoEnabled()) {
+        logger.info("Removed a file {} before {} by ttl ({}ms)", resource.getTsFilePath(),
+            new Date(timeLowerBound), dataTTL);
       }
     } finally {
-      writeUnlock();
+      resource.writeUnlock();
     }
   }
 
@@ -1630,15 +1682,19 @@ public class StorageGroupProcessor {
       throws IOException {
     for (TsFileResource tsFileResource : tsFileResourceList) {
       if (canSkipDelete(tsFileResource, devicePaths, deletion.getStartTime(),
-          deletion.getEndTime())) {
+          deletion.getEndTime()) || isWrittenAfterPlan(tsFileResource, planIndex)) {
         continue;
       }
 
       deletion.setFileOffset(tsFileResource.getTsFileSize());
-      // write deletion into modification file
-      tsFileResource.getModFile().write(deletion);
-      // remember to close mod file
-      tsFileResource.getModFile().close();
+      if (!isDeletionInModFile(tsFileResource, deletion)) {
+        // write deletion into modification file
+        tsFileResource.getModFile().write(deletion);
+        // remember to close mod file
+        tsFileResource.getModFile().close();
+        // add a record in case of rollback
+        updatedModFiles.add(tsFileResource.getModFile());
+      }
 
       tsFileResource.updatePlanIndexes(planIndex);
 
@@ -1647,12 +1703,30 @@ public class StorageGroupProcessor {
         TsFileProcessor tsfileProcessor = tsFileResource.getUnsealedFileProcessor();
         tsfileProcessor.deleteDataInMemory(deletion, devicePaths);
       }
-
-      // add a record in case of rollback
-      updatedModFiles.add(tsFileResource.getModFile());
     }
   }
 
+  /**
+   * A deletion must not remove the data of the plans after it. In a cluster, the deletion may be
+   * applied again from the raft logs after a restart, when the data of the later logs have been
+   * flushed into new files. Files without plan indexes (e.g., loaded ones) are never skipped, nor
+   * is any file when the deletion has no plan index.
+   */
+  private boolean isWrittenAfterPlan(TsFileResource tsFileResource, long planIndex) {
+    long minPlanIndex = tsFileResource.getMinPlanIndex();
+    return planIndex > 0 && minPlanIndex != Long.MAX_VALUE && minPlanIndex > planIndex;
+  }
+
+  /**
+   * @return true if the deletion has been written for the sealed file, e.g., it is applied again
+   * from the raft logs after a restart, so writing it again would only enlarge the mod file
+   */
+  private boolean isDeletionInModFile(TsFileResource tsFileResource, Deletion deletion) {
+    ModificationFile modFile = tsFileResource.getModFile();
+    return tsFileResource.isClosed() && modFile.exists()
+        && modFile.getModifications().contains(deletion);
+  }
+
   private void tryToDeleteLastCache(PartialPath deviceId, PartialPath originalPath,
       long startTime, long endTime) throws WriteProcessException {
     if (!IoTDBDescriptor.getInstance().getConfig().isLastCacheEnabled()) {
@@ -2396,6 +2470,7 @@ public class StorageGroupProcessor {
           e.getMessage()));
     }
 
+    TsFileMetadataCache.getInstance().prewarm(tsFileResource.getTsFilePath());
     updatePartitionFileVersion(filePartitionId, tsFileResource.getVersion());
     return true;
   }
@@ -2519,8 +2594,32 @@ public class StorageGroupProcessor {
     return workUnsequenceTsFileProcessors.values();
   }
 
+  /**
+   * @return the min index of the plans whose data are not flushed in the time partitions that
+   * satisfy the filter, or Long.MAX_VALUE if there is no such plan
+   */
+  public long getMinUnflushedPlanIndex(TimePartitionFilter filter) {
+    long minPlanIndex = Long.MAX_VALUE;
+    insertLock.readLock().lock();
+    try {
+      List<TsFileProcessor> processors = new ArrayList<>(workSequenceTsFileProcessors.values());
+      processors.addAll(workUnsequenceTsFileProcessors.values());
+      processors.addAll(closingSequenceTsFileProcessor.cloneList());
+      processors.addAll(closingUnSequenceTsFileProcessor.cloneList());
+      for (TsFileProcessor processor : processors) {
+        if (filter.satisfy(logicalStorageGroupName, processor.getTimeRangeId())) {
+          minPlanIndex = Math.min(minPlanIndex, processor.getMinUnflushedPlanIndex());
+        }
+      }
+    } finally {
+      insertLock.readLock().unlock();
+    }
+    return minPlanIndex;
+  }
+
   public void setDataTTL(long dataTTL) {
     this.dataTTL = dataTTL;
+    tsFileManagement.setDataTTL(dataTTL);
     checkFilesTTL();
   }
 
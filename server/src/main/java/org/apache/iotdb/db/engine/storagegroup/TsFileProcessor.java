@@ -34,6 +34,7 @@ import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.adapter.CompressionRatio;
 import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.cache.TsFileMetadataCache;
 import org.apache.iotdb.db.engine.flush.CloseFileListener;
 import org.apache.iotdb.db.engine.flush.FlushListener;
 import org.apache.iotdb.db.engine.flush.FlushManager;
@@ -842,6 +843,7 @@ public class TsFileProcessor {
     tsFileResource.serialize();
     writer.endFile();
     logger.info("Ended file {}", tsFileResource);
+    TsFileMetadataCache.getInstance().prewarm(tsFileResource.getTsFilePath());
 
     // remove this processor from Closing list in StorageGroupProcessor,
     // mark the TsFileResource closed, no need writer anymore
@@ -898,6 +900,24 @@ public class TsFileProcessor {
     return flushingMemTables.size();
   }
 
+  /**
+   * @return the min index of the plans in the working and flushing memtables, i.e., the plans whose
+   * data are not flushed into the file yet, or Long.MAX_VALUE if there is no such plan
+   */
+  public long getMinUnflushedPlanIndex() {
+    long minPlanIndex = Long.MAX_VALUE;
+    // read the working memtable before the flushing ones, so that a memtable that becomes flushing
+    // meanwhile is not missed
+    IMemTable memTable = workMemTable;
+    if (memTable != null) {
+      minPlanIndex = memTable.getMinPlanIndex();
+    }
+    for (IMemTable flushingMemTable : flushingMemTables) {
+      minPlanIndex = Math.min(minPlanIndex, flushingMemTable.getMinPlanIndex());
+    }
+    return minPlanIndex;
+  }
+
   RestorableTsFileIOWriter getWriter() {
     return writer;
   }
@@ -34,6 +34,7 @@ import java.util.Random;
 import java.util.Set;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.cache.TsFileMetadataCache;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
 import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor.UpgradeTsFileResourceCallBack;
@@ -470,6 +471,17 @@ public class TsFileResource {
    * Remove the data file, its resource file, and its modification file physically.
    */
   public void remove() {
+    TsFileMetadataCache.getInstance().remove(file.getPath());
+    if (modFile != null) {
+      // so that the modifications of the removed file are not kept in ModificationFileCache
+      try {
+        modFile.close();
+      } catch (IOException e) {
+        logger.error("ModificationFile {} cannot be closed: {}", modFile.getFilePath(),
+            e.getMessage());
+      }
+      modFile = null;
+    }
     try {
       Files.deleteIfExists(file.toPath());
     } catch (IOException e) {
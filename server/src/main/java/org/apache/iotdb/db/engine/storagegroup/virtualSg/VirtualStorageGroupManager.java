@@ -392,6 +392,20 @@ public class VirtualStorageGroupManager {
     }
   }
 
+  /**
+   * push getMinUnflushedPlanIndex operation down to all virtual storage group processors
+   */
+  public long getMinUnflushedPlanIndex(TimePartitionFilter filter) {
+    long minPlanIndex = Long.MAX_VALUE;
+    for (StorageGroupProcessor storageGroupProcessor : virtualStorageGroupProcessor) {
+      if (storageGroupProcessor != null) {
+        minPlanIndex = Math.min(minPlanIndex,
+            storageGroupProcessor.getMinUnflushedPlanIndex(filter));
+      }
+    }
+    return minPlanIndex;
+  }
+
   /**
    * push getWorkingStorageGroupPartitions operation down to all virtual storage group processors
    */
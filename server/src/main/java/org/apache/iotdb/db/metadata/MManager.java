@@ -33,6 +33,7 @@ import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -81,6 +82,7 @@ import org.apache.iotdb.db.qp.physical.sys.ShowDevicesPlan;
 import org.apache.iotdb.db.qp.physical.sys.ShowTimeSeriesPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.dataset.ShowDevicesResult;
+import org.apache.iotdb.db.query.dataset.ShowResultCursor;
 import org.apache.iotdb.db.query.dataset.ShowTimeSeriesResult;
 import org.apache.iotdb.db.rescon.MemTableManager;
 import org.apache.iotdb.db.rescon.PrimitiveArrayManager;
@@ -707,6 +709,37 @@ public class MManager {
     return mtree.getDevices(plan);
   }
 
+  /**
+   * Get a cursor over the devices of the plan, which traverses the MTree lazily like
+   * showTimeseriesCursor(). As getDevices(), the devices of each page are sorted by their names.
+   */
+  public ShowResultCursor<ShowDevicesResult> getDevicesCursor(ShowDevicesPlan plan)
+      throws MetadataException {
+    Iterator<MNode> iterator = mtree.getDeviceIterator(plan.getPath());
+    for (int i = 0; i < plan.getOffset() && iterator.hasNext(); i++) {
+      iterator.next();
+    }
+    int[] remaining = {plan.hasLimit() ? plan.getLimit() : Integer.MAX_VALUE};
+    return num -> {
+      List<PartialPath> devices = new ArrayList<>();
+      while (devices.size() < num && remaining[0] > 0 && iterator.hasNext()) {
+        devices.add(iterator.next().getPartialPath());
+        remaining[0]--;
+      }
+      Collections.sort(devices);
+      List<ShowDevicesResult> res = new ArrayList<>(devices.size());
+      for (PartialPath device : devices) {
+        if (plan.hasSgCol()) {
+          res.add(new ShowDevicesResult(device.getFullPath(),
+              getStorageGroupPath(device).getFullPath()));
+        } else {
+          res.add(new ShowDevicesResult(device.getFullPath()));
+        }
+      }
+      return res;
+    };
+  }
+
   /**
    * Get all nodes from the given level
    *
@@ -874,7 +907,7 @@ public class MManager {
           .collect(toList());
     }
 
-    List<ShowTimeSeriesResult> res = new LinkedList<>();
+    List<MeasurementMNode> resultNodes = new ArrayList<>();
     String[] prefixNodes = plan.getPath().getNodes();
     int curOffset = -1;
     int count = 0;
@@ -888,25 +921,43 @@ public class MManager {
             continue;
           }
         }
-        try {
-          Pair<Map<String, String>, Map<String, String>> tagAndAttributePair =
-              tagLogFile.read(config.getTagAttributeTotalSize(), leaf.getOffset());
-          MeasurementSchema measurementSchema = leaf.getSchema();
-          res.add(new ShowTimeSeriesResult(leaf.getFullPath(), leaf.getAlias(),
-              getStorageGroupPath(leaf.getPartialPath()).getFullPath(),
-              measurementSchema.getType(),
-              measurementSchema.getEncodingType(),
-              measurementSchema.getCompressor(), tagAndAttributePair.left,
-              tagAndAttributePair.right));
-          if (limit != 0) {
-            count++;
-          }
-        } catch (IOException e) {
-          throw new MetadataException(
-              "Something went wrong while deserialize tag info of " + leaf.getFullPath(), e);
+        resultNodes.add(leaf);
+        if (limit != 0) {
+          count++;
         }
       }
     }
+
+    return toShowTimeseriesResults(resultNodes, plan);
+  }
+
+  private List<ShowTimeSeriesResult> toShowTimeseriesResults(List<MeasurementMNode> resultNodes,
+      ShowTimeSeriesPlan plan) throws MetadataException {
+    // the tags of all results are read together instead of one random read per result
+    long[] tagFileOffsets = new long[resultNodes.size()];
+    for (int i = 0; i < tagFileOffsets.length; i++) {
+      tagFileOffsets[i] = resultNodes.get(i).getOffset();
+    }
+    Map<Long, Pair<Map<String, String>, Map<String, String>>> tagAndAttributePairs;
+    try {
+      tagAndAttributePairs = tagLogFile.read(config.getTagAttributeTotalSize(), tagFileOffsets);
+    } catch (IOException e) {
+      throw new MetadataException(
+          "Something went wrong while deserialize tag info of " + plan.getPath(), e);
+    }
+
+    List<ShowTimeSeriesResult> res = new ArrayList<>(resultNodes.size());
+    for (MeasurementMNode leaf : resultNodes) {
+      Pair<Map<String, String>, Map<String, String>> tagAndAttributePair =
+          tagAndAttributePairs.get(leaf.getOffset());
+      MeasurementSchema measurementSchema = leaf.getSchema();
+      res.add(new ShowTimeSeriesResult(leaf.getFullPath(), leaf.getAlias(),
+          getStorageGroupPath(leaf.getPartialPath()).getFullPath(),
+          measurementSchema.getType(),
+          measurementSchema.getEncodingType(),
+          measurementSchema.getCompressor(), tagAndAttributePair.left,
+          tagAndAttributePair.right));
+    }
     return res;
   }
 
@@ -936,6 +987,55 @@ public class MManager {
     }
   }
 
+  /**
+   * Get a cursor over the results of the plan, which skips the offset of the plan once and ends
+   * after the limit of the plan if the plan has one. The cursor traverses the MTree lazily and
+   * reads the tags of a page at a time, so showing a large subtree takes neither the memory of all
+   * the results nor the time to collect them before the first page. The results ordered by heat or
+   * filtered by a tag need all the matched timeseries, they are fetched by pages of
+   * showTimeseries().
+   */
+  public ShowResultCursor<ShowTimeSeriesResult> showTimeseriesCursor(ShowTimeSeriesPlan plan,
+      QueryContext context) throws MetadataException {
+    if ((plan.getKey() != null && plan.getValue() != null) || plan.isOrderByHeat()) {
+      return showTimeseriesByPages(plan, context);
+    }
+    Iterator<MNode> iterator = mtree.getMeasurementMNodeIterator(plan.getPath());
+    for (int i = 0; i < plan.getOffset() && iterator.hasNext(); i++) {
+      iterator.next();
+    }
+    int[] remaining = {plan.hasLimit() ? plan.getLimit() : Integer.MAX_VALUE};
+    return num -> {
+      List<MeasurementMNode> resultNodes = new ArrayList<>();
+      while (resultNodes.size() < num && remaining[0] > 0 && iterator.hasNext()) {
+        resultNodes.add((MeasurementMNode) iterator.next());
+        remaining[0]--;
+      }
+      return toShowTimeseriesResults(resultNodes, plan);
+    };
+  }
+
+  /**
+   * Get a cursor whose pages are fetched by showTimeseries() with the offset of each page.
+   */
+  protected ShowResultCursor<ShowTimeSeriesResult> showTimeseriesByPages(ShowTimeSeriesPlan plan,
+      QueryContext context) {
+    int[] nextOffset = {plan.getOffset()};
+    int[] remaining = {plan.hasLimit() ? plan.getLimit() : Integer.MAX_VALUE};
+    return num -> {
+      int pageSize = Math.min(num, remaining[0]);
+      if (pageSize <= 0) {
+        return Collections.emptyList();
+      }
+      plan.setOffset(nextOffset[0]);
+      plan.setLimit(pageSize);
+      List<ShowTimeSeriesResult> results = showTimeseries(plan, context);
+      nextOffset[0] += pageSize;
+      remaining[0] -= pageSize;
+      return results;
+    };
+  }
+
   /**
    * Get the result of ShowTimeseriesPlan
    *
@@ -949,25 +1049,29 @@ public class MManager {
     } else {
       ans = mtree.getAllMeasurementSchema(plan);
     }
+    // the tags of all results are read together instead of one random read per result
+    long[] tagFileOffsets = new long[ans.size()];
+    int index = 0;
+    for (Pair<PartialPath, String[]> ansString : ans) {
+      tagFileOffsets[index++] = Long.parseLong(ansString.right[5]);
+    }
+    Map<Long, Pair<Map<String, String>, Map<String, String>>> tagAndAttributePairs;
+    try {
+      tagAndAttributePairs = tagLogFile.read(config.getTagAttributeTotalSize(), tagFileOffsets);
+    } catch (IOException e) {
+      throw new MetadataException(
+          "Something went wrong while deserialize tag info of " + plan.getPath(), e);
+    }
+
     List<ShowTimeSeriesResult> res = new LinkedList<>();
     for (Pair<PartialPath, String[]> ansString : ans) {
-      long tagFileOffset = Long.parseLong(ansString.right[5]);
-      try {
-        Pair<Map<String, String>, Map<String, String>> tagAndAttributePair =
-            new Pair<>(Collections.emptyMap(), Collections.emptyMap());
-        if (tagFileOffset >= 0) {
-          tagAndAttributePair = tagLogFile.read(config.getTagAttributeTotalSize(), tagFileOffset);
-        }
-        res.add(new ShowTimeSeriesResult(ansString.left.getFullPath(), ansString.right[0],
-            ansString.right[1],
-            TSDataType.valueOf(ansString.right[2]), TSEncoding.valueOf(ansString.right[3]),
-            CompressionType.valueOf(ansString.right[4]), tagAndAttributePair.left,
-            tagAndAttributePair.right));
-      } catch (IOException e) {
-        throw new MetadataException(
-            "Something went wrong while deserialize tag info of " + ansString.left.getFullPath(),
-            e);
-      }
+      Pair<Map<String, String>, Map<String, String>> tagAndAttributePair =
+          tagAndAttributePairs.get(Long.parseLong(ansString.right[5]));
+      res.add(new ShowTimeSeriesResult(ansString.left.getFullPath(), ansString.right[0],
+          ansString.right[1],
+          TSDataType.valueOf(ansString.right[2]), TSEncoding.valueOf(ansString.right[3]),
+          CompressionType.valueOf(ansString.right[4]), tagAndAttributePair.left,
+          tagAndAttributePair.right));
     }
     return res;
 
@@ -36,18 +36,22 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import org.apache.iotdb.db.conf.IoTDBConfig;
@@ -1109,6 +1113,104 @@ public class MTree implements Serializable {
     }
   }
 
+  /**
+   * Iterate the measurement nodes under the given path lazily, in the same order as
+   * getAllMeasurementSchema().
+   */
+  Iterator<MNode> getMeasurementMNodeIterator(PartialPath prefixPath) throws MetadataException {
+    return new MatchedMNodeIterator(prefixPath, MeasurementMNode.class::isInstance);
+  }
+
+  /**
+   * Iterate the devices under the given path lazily, in the same order as getDevices().
+   */
+  Iterator<MNode> getDeviceIterator(PartialPath prefixPath) throws MetadataException {
+    return new MatchedMNodeIterator(prefixPath, node -> node.getChildren().values().stream()
+        .anyMatch(MeasurementMNode.class::isInstance));
+  }
+
+  /**
+   * A depth-first traversal of the nodes matching a path and their descendants, which only keeps
+   * the nodes of the current branch, so the traversal can be paused after any node. The nodes
+   * added or removed during the traversal may or may not be visited.
+   */
+  private class MatchedMNodeIterator implements Iterator<MNode> {
+
+    private final String[] nodes;
+    private final Predicate<MNode> filter;
+    // the children to visit of each node on the current branch
+    private final Deque<ChildIterator> stack = new ArrayDeque<>();
+    private MNode next;
+
+    private MatchedMNodeIterator(PartialPath prefixPath, Predicate<MNode> filter)
+        throws IllegalPathException {
+      this.nodes = prefixPath.getNodes();
+      if (nodes.length == 0 || !nodes[0].equals(root.getName())) {
+        throw new IllegalPathException(prefixPath.getFullPath());
+      }
+      this.filter = filter;
+      visit(root, 1);
+    }
+
+    private void visit(MNode node, int idx) {
+      if (nodes.length <= idx && filter.test(node)) {
+        next = node;
+      }
+      String nodeReg = MetaUtils.getNodeRegByIdx(idx, nodes);
+      if (!nodeReg.contains(PATH_WILDCARD)) {
+        MNode child = node.getChild(nodeReg);
+        if (child != null) {
+          stack.push(new ChildIterator(Collections.singletonList(child).iterator(), idx + 1,
+              null));
+        }
+      } else if (!node.getChildren().isEmpty()) {
+        stack.push(new ChildIterator(node.getChildren().values().iterator(), idx + 1,
+            Pattern.compile(nodeReg.replace("*", ".*"))));
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && !stack.isEmpty()) {
+        ChildIterator children = stack.peek();
+        if (!children.iterator.hasNext()) {
+          stack.pop();
+          continue;
+        }
+        MNode child = children.iterator.next();
+        if (children.pattern == null || children.pattern.matcher(child.getName()).matches()) {
+          visit(child, children.idx);
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public MNode next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      MNode node = next;
+      next = null;
+      return node;
+    }
+  }
+
+  private static class ChildIterator {
+
+    private final Iterator<MNode> iterator;
+    // the index in the path of the children
+    private final int idx;
+    // null if the children are not filtered
+    private final Pattern pattern;
+
+    private ChildIterator(Iterator<MNode> iterator, int idx, Pattern pattern) {
+      this.iterator = iterator;
+      this.idx = idx;
+      this.pattern = pattern;
+    }
+  }
+
   /**
    * Get child node path in the next level of the given path.
    *
@@ -23,8 +23,14 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
@@ -44,6 +50,24 @@ public class TagLogFile implements AutoCloseable {
 
   private static final byte FILL_BYTE = 0;
 
+  // the records are read in blocks of at most so many records when reading many of them
+  private static final int MAX_RECORD_NUM_IN_BLOCK = 64;
+
+  /**
+   * The recently read or written tags and attributes, by the position of their record. The cached
+   * maps are never returned to the callers directly, as the callers may modify the maps before
+   * writing them back.
+   */
+  private final Map<Long, Pair<Map<String, String>, Map<String, String>>> cache;
+
+  /**
+   * The number of writes, increased together with caching the written record while holding the
+   * lock of the cache. A record read from the file is only cached if no write happened since the
+   * read began, otherwise the read may have got the data before a write and replace the newer
+   * cached record.
+   */
+  private volatile long writeVersion = 0;
+
   public TagLogFile(String schemaDir, String logFileName) throws IOException {
 
     File metadataDir = SystemFileFactory.INSTANCE.getFile(schemaDir);
@@ -60,6 +84,16 @@ public class TagLogFile implements AutoCloseable {
     this.fileChannel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.DSYNC);
     // move the current position to the tail of the file
     this.fileChannel.position(fileChannel.size());
+
+    int cacheSize = IoTDBDescriptor.getInstance().getConfig().getTagAttributeCacheSize();
+    this.cache = Collections.synchronizedMap(
+        new LinkedHashMap<Long, Pair<Map<String, String>, Map<String, String>>>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(
+              Entry<Long, Pair<Map<String, String>, Map<String, String>>> eldest) {
+            return size() > cacheSize;
+          }
+        });
   }
 
   /**
@@ -69,23 +103,103 @@ public class TagLogFile implements AutoCloseable {
     if (position < 0) {
       return new Pair<>(Collections.emptyMap(), Collections.emptyMap());
     }
+    Pair<Map<String, String>, Map<String, String>> cached = cache.get(position);
+    if (cached != null) {
+      return copy(cached);
+    }
+    long version = writeVersion;
     ByteBuffer byteBuffer = ByteBuffer.allocate(size);
     fileChannel.read(byteBuffer, position);
     byteBuffer.flip();
-    return new Pair<>(ReadWriteIOUtils.readMap(byteBuffer), ReadWriteIOUtils.readMap(byteBuffer));
+    Pair<Map<String, String>, Map<String, String>> pair = new Pair<>(
+        ReadWriteIOUtils.readMap(byteBuffer), ReadWriteIOUtils.readMap(byteBuffer));
+    cacheRead(version, position, pair);
+    return pair;
+  }
+
+  /**
+   * Read the tags and attributes of many records. The records not cached are read in the order of
+   * their positions, and the adjacent ones are read together, so reading the records of many
+   * timeseries does not issue a random read for each of them.
+   *
+   * @return tags map and attributes map of each position, the negative positions are mapped to
+   * empty maps
+   */
+  public Map<Long, Pair<Map<String, String>, Map<String, String>>> read(int size,
+      long[] positions) throws IOException {
+    Map<Long, Pair<Map<String, String>, Map<String, String>>> results = new HashMap<>();
+    long version = writeVersion;
+    long[] sortedPositions = positions.clone();
+    Arrays.sort(sortedPositions);
+    List<Long> uncachedPositions = new ArrayList<>();
+    for (long position : sortedPositions) {
+      if (results.containsKey(position)) {
+        continue;
+      }
+      Pair<Map<String, String>, Map<String, String>> cached =
+          position < 0 ? null : cache.get(position);
+      if (position < 0 || cached != null) {
+        results.put(position, position < 0
+            ? new Pair<>(Collections.emptyMap(), Collections.emptyMap()) : copy(cached));
+      } else {
+        // a placeholder so that the duplicated positions are read once
+        results.put(position, null);
+        uncachedPositions.add(position);
+      }
+    }
+
+    int blockStart = 0;
+    while (blockStart < uncachedPositions.size()) {
+      long startPosition = uncachedPositions.get(blockStart);
+      int blockEnd = blockStart + 1;
+      while (blockEnd < uncachedPositions.size()
+          && uncachedPositions.get(blockEnd) + size - startPosition
+          <= (long) size * MAX_RECORD_NUM_IN_BLOCK) {
+        blockEnd++;
+      }
+      ByteBuffer block = ByteBuffer
+          .allocate((int) (uncachedPositions.get(blockEnd - 1) + size - startPosition));
+      while (block.hasRemaining()) {
+        if (fileChannel.read(block, startPosition + block.position()) < 0) {
+          break;
+        }
+      }
+      for (int i = blockStart; i < blockEnd; i++) {
+        long position = uncachedPositions.get(i);
+        block.position((int) (position - startPosition));
+        Pair<Map<String, String>, Map<String, String>> pair = new Pair<>(
+            ReadWriteIOUtils.readMap(block), ReadWriteIOUtils.readMap(block));
+        cacheRead(version, position, pair);
+        results.put(position, pair);
+      }
+      blockStart = blockEnd;
+    }
+    return results;
   }
 
   public Map<String, String> readTag(int size, long position) throws IOException {
-    ByteBuffer byteBuffer = ByteBuffer.allocate(size);
-    fileChannel.read(byteBuffer, position);
-    byteBuffer.flip();
-    return ReadWriteIOUtils.readMap(byteBuffer);
+    return read(size, position).left;
+  }
+
+  private void cacheRead(long version, long position,
+      Pair<Map<String, String>, Map<String, String>> pair) {
+    synchronized (cache) {
+      if (version == writeVersion) {
+        cache.putIfAbsent(position, copy(pair));
+      }
+    }
+  }
+
+  private static Pair<Map<String, String>, Map<String, String>> copy(
+      Pair<Map<String, String>, Map<String, String>> pair) {
+    return new Pair<>(new HashMap<>(pair.left), new HashMap<>(pair.right));
   }
 
   public long write(Map<String, String> tagMap, Map<String, String> attributeMap) throws IOException, MetadataException {
     long offset = fileChannel.position();
     ByteBuffer byteBuffer = convertMapToByteBuffer(tagMap, attributeMap);
     fileChannel.write(byteBuffer);
+    cacheWritten(offset, tagMap, attributeMap);
     return offset;
   }
 
@@ -95,6 +209,17 @@ public class TagLogFile implements AutoCloseable {
   public void write(Map<String, String> tagMap, Map<String, String> attributeMap, long position) throws IOException, MetadataException {
     ByteBuffer byteBuffer = convertMapToByteBuffer(tagMap, attributeMap);
     fileChannel.write(byteBuffer, position);
+    cacheWritten(position, tagMap, attributeMap);
+  }
+
+  private void cacheWritten(long position, Map<String, String> tagMap,
+      Map<String, String> attributeMap) {
+    synchronized (cache) {
+      writeVersion++;
+      cache.put(position, new Pair<>(
+          tagMap == null ? new HashMap<>() : new HashMap<>(tagMap),
+          attributeMap == null ? new HashMap<>() : new HashMap<>(attributeMap)));
+    }
   }
 
   private ByteBuffer convertMapToByteBuffer(Map<String, String> tagMap, Map<String, String> attributeMap) throws MetadataException {
@@ -27,6 +27,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.cache.TsFileMetadataCache;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.service.IService;
 import org.apache.iotdb.db.service.ServiceType;
@@ -175,6 +176,13 @@ public class FileReaderManager implements IService {
             throw new IOException("The version of this TsFile is not corrent. ");
           }
         }
+        try {
+          // reuse the file metadata read by earlier readers of this file
+          TsFileMetadataCache.getInstance().get(tsFileReader);
+        } catch (IOException e) {
+          tsFileReader.close();
+          throw e;
+        }
       }
       readerMap.put(filePath, tsFileReader);
       return tsFileReader;
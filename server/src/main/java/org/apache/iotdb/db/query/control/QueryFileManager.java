@@ -18,7 +18,6 @@
  */
 package org.apache.iotdb.db.query.control;
 
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -51,8 +50,9 @@ public class QueryFileManager {
    * this method must be invoked.
    */
   void addQueryId(long queryId) {
-    sealedFilePathsMap.computeIfAbsent(queryId, x -> new HashSet<>());
-    unsealedFilePathsMap.computeIfAbsent(queryId, x -> new HashSet<>());
+    // the sub-queries of a query may be executed concurrently
+    sealedFilePathsMap.computeIfAbsent(queryId, x -> ConcurrentHashMap.newKeySet());
+    unsealedFilePathsMap.computeIfAbsent(queryId, x -> ConcurrentHashMap.newKeySet());
   }
 
 
@@ -79,7 +79,8 @@ public class QueryFileManager {
       if (tsFileResource.isDeleted()) {
         Map<Long, Set<TsFileResource>> pathMap = !isClosed ? unsealedFilePathsMap : sealedFilePathsMap;
         // This resource may be removed by other threads of this query.
-        if (pathMap.get(queryId).remove(tsFileResource)) {
+        Set<TsFileResource> usedFiles = pathMap.get(queryId);
+        if (usedFiles != null && usedFiles.remove(tsFileResource)) {
           FileReaderManager.getInstance().decreaseFileReaderReference(tsFileResource, isClosed);
         }
         iterator.remove();
@@ -107,16 +108,13 @@ public class QueryFileManager {
   }
 
   /**
-   * Increase the usage reference of filePath of job id. Before the invoking of this method,
-   * <code>this.setqueryIdForCurrentRequestThread</code> has been invoked,
-   * so <code>sealedFilePathsMap.get(queryId)</code> or <code>unsealedFilePathsMap.get(queryId)</code>
-   * must not return null.
+   * Increase the usage reference of filePath of job id. Nothing is done if the query has already
+   * ended, as the reference would never be decreased then.
    */
   void addFilePathToMap(long queryId, TsFileResource tsFile, boolean isClosed) {
     Map<Long, Set<TsFileResource>> pathMap = isClosed ? sealedFilePathsMap : unsealedFilePathsMap;
-    //TODO this is not an atomic operation, is there concurrent problem?
-    if (!pathMap.get(queryId).contains(tsFile)) {
-      pathMap.get(queryId).add(tsFile);
+    Set<TsFileResource> usedFiles = pathMap.get(queryId);
+    if (usedFiles != null && usedFiles.add(tsFile)) {
       FileReaderManager.getInstance().increaseFileReaderReference(tsFile, isClosed);
     }
   }
@@ -20,12 +20,11 @@ package org.apache.iotdb.db.query.control;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBConstant;
@@ -39,6 +38,7 @@ import org.apache.iotdb.db.metadata.PartialPath;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.externalsort.serialize.IExternalSortFileDeserializer;
 import org.apache.iotdb.db.query.udf.service.TemporaryQueryDataFileService;
+import org.apache.iotdb.db.rescon.MemoryManager;
 import org.apache.iotdb.tsfile.read.expression.impl.SingleSeriesExpression;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.slf4j.Logger;
@@ -75,6 +75,12 @@ public class QueryResourceManager {
 
   private final Map<Long, Long> queryIdEstimatedMemoryMap;
 
+  // memory borrowed from the caches by the queries whose memory cannot be applied for
+  private final Map<Long, Long> queryIdBorrowedMemoryMap = new ConcurrentHashMap<>();
+
+  // the queries running without memory, neither applied for nor borrowed
+  private final Set<Long> unreservedQueryIds = ConcurrentHashMap.newKeySet();
+
   // current total free memory for reading process(not including the cache memory)
   private final AtomicLong totalFreeMemoryForRead;
 
@@ -115,12 +121,48 @@ public class QueryResourceManager {
           queryIdEstimatedMemoryMap.put(queryId, estimatedMemoryUsage);
         } else {
           totalFreeMemoryForRead.addAndGet(estimatedMemoryUsage);
+          borrowMemoryFromCaches(queryId, estimatedMemoryUsage);
         }
       }
     }
     return queryId;
   }
 
+  /**
+   * Borrow the memory of a query from the caches when the memory for reading is used up. The query
+   * still runs if the caches cannot lend enough, but it is counted as an unreserved one.
+   */
+  private void borrowMemoryFromCaches(long queryId, long estimatedMemoryUsage) {
+    // the caches are only shrunk when the whole estimate is lent, a partial lend is returned
+    // before any cache entry is evicted for it
+    long borrowed = MemoryManager.getInstance().lendCacheMemoryWithoutResize(estimatedMemoryUsage);
+    if (borrowed == estimatedMemoryUsage) {
+      queryIdBorrowedMemoryMap.put(queryId, borrowed);
+      MemoryManager.getInstance().resizeCaches();
+    } else {
+      MemoryManager.getInstance().returnCacheMemoryWithoutResize(borrowed);
+      unreservedQueryIds.add(queryId);
+      logger.debug("Query {} runs without reserving its estimated {} bytes", queryId,
+          estimatedMemoryUsage);
+    }
+  }
+
+  public long getFreeMemoryForRead() {
+    return totalFreeMemoryForRead.get();
+  }
+
+  public long getBorrowedMemory() {
+    long borrowedMemory = 0;
+    for (long memory : queryIdBorrowedMemoryMap.values()) {
+      borrowedMemory += memory;
+    }
+    return borrowedMemory;
+  }
+
+  public int getUnreservedQueryNum() {
+    return unreservedQueryIds.size();
+  }
+
   public Map<Long, Integer> getChunkNumMap() {
     return chunkNumMap;
   }
@@ -137,7 +179,8 @@ public class QueryResourceManager {
    */
   public void registerTempExternalSortFile(long queryId,
       IExternalSortFileDeserializer deserializer) {
-    externalSortFileMap.computeIfAbsent(queryId, x -> new ArrayList<>()).add(deserializer);
+    externalSortFileMap.computeIfAbsent(queryId, x -> new CopyOnWriteArrayList<>())
+        .add(deserializer);
   }
 
   public QueryDataSource getQueryDataSource(PartialPath selectedPath,
@@ -149,9 +192,9 @@ public class QueryResourceManager {
         .query(singleSeriesExpression, context, filePathsManager);
     // calculate the distinct number of seq and unseq tsfiles
     if (config.isEnablePerformanceTracing()) {
-      seqFileNumMap.computeIfAbsent(context.getQueryId(), k -> new HashSet<>())
+      seqFileNumMap.computeIfAbsent(context.getQueryId(), k -> ConcurrentHashMap.newKeySet())
           .addAll((queryDataSource.getSeqResources()));
-      unseqFileNumMap.computeIfAbsent(context.getQueryId(), k -> new HashSet<>())
+      unseqFileNumMap.computeIfAbsent(context.getQueryId(), k -> ConcurrentHashMap.newKeySet())
           .addAll((queryDataSource.getUnseqResources()));
     }
     return queryDataSource;
@@ -202,6 +245,11 @@ public class QueryResourceManager {
     if (estimatedMemoryUsage != null) {
       totalFreeMemoryForRead.addAndGet(estimatedMemoryUsage);
     }
+    Long borrowedMemory = queryIdBorrowedMemoryMap.remove(queryId);
+    if (borrowedMemory != null) {
+      MemoryManager.getInstance().returnCacheMemory(borrowedMemory);
+    }
+    unreservedQueryIds.remove(queryId);
 
     // remove usage of opened file paths of current thread
     filePathsManager.removeUsedFilesForQuery(queryId);
@@ -24,7 +24,11 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
@@ -36,9 +40,11 @@ import org.apache.iotdb.db.qp.physical.crud.AlignByDevicePlan;
 import org.apache.iotdb.db.qp.physical.crud.AlignByDevicePlan.MeasurementType;
 import org.apache.iotdb.db.qp.physical.crud.FillQueryPlan;
 import org.apache.iotdb.db.qp.physical.crud.GroupByTimePlan;
+import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
 import org.apache.iotdb.db.qp.physical.crud.RawDataQueryPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.executor.IQueryRouter;
+import org.apache.iotdb.db.query.pool.QueryPrefetchPoolManager;
 import org.apache.iotdb.db.service.IoTDB;
 import org.apache.iotdb.tsfile.exception.filter.QueryFilterOptimizationException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -54,10 +60,12 @@ import org.apache.iotdb.tsfile.utils.Binary;
  */
 public class AlignByDeviceDataSet extends QueryDataSet {
 
+  private static final QueryPrefetchPoolManager PREFETCH_POOL_MANAGER = QueryPrefetchPoolManager
+      .getInstance();
+
   private DataSetType dataSetType;
   private IQueryRouter queryRouter;
   private QueryContext context;
-  private IExpression expression;
 
   private List<String> measurements;
   private List<PartialPath> devices;
@@ -78,6 +86,15 @@ public class AlignByDeviceDataSet extends QueryDataSet {
   private List<String> executeColumns;
   private int pathsNum = 0;
 
+  private final int prefetchNum = IoTDBDescriptor.getInstance().getConfig()
+      .getAlignByDevicePrefetchNum();
+  // may also be drained by the thread releasing the query
+  private final Queue<Future<DeviceQuery>> prefetchedQueries = new ConcurrentLinkedQueue<>();
+  // guards prefetchCancelled and runningPrefetchNum
+  private final Object prefetchLock = new Object();
+  private boolean prefetchCancelled = false;
+  private int runningPrefetchNum = 0;
+
   public AlignByDeviceDataSet(AlignByDevicePlan alignByDevicePlan, QueryContext context,
       IQueryRouter queryRouter) {
     super(null, alignByDevicePlan.getDataTypes());
@@ -121,7 +138,6 @@ public class AlignByDeviceDataSet extends QueryDataSet {
   }
 
   @Override
-  @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
   public boolean hasNextWithoutConstraint() throws IOException {
     if (curDataSetInitialized && currentDataSet.hasNext()) {
       return true;
@@ -129,81 +145,214 @@ public class AlignByDeviceDataSet extends QueryDataSet {
       curDataSetInitialized = false;
     }
 
-    while (deviceIterator.hasNext()) {
-      currentDevice = deviceIterator.next();
-      // get all measurements of current device
-      Set<String> measurementOfGivenDevice = getDeviceMeasurements(currentDevice);
-
-      // extract paths and aggregations queried from all measurements
-      // executeColumns is for calculating rowRecord
-      executeColumns = new ArrayList<>();
-      List<PartialPath> executePaths = new ArrayList<>();
-      List<TSDataType> tsDataTypes = new ArrayList<>();
-      List<String> executeAggregations = new ArrayList<>();
-      for (String column : measurementDataTypeMap.keySet()) {
-        String measurement = column;
-        if (dataSetType == DataSetType.GROUPBYTIME || dataSetType == DataSetType.AGGREGATE) {
-          measurement = column.substring(column.indexOf('(') + 1, column.indexOf(')'));
-          if (measurementOfGivenDevice.contains(measurement)) {
-            executeAggregations.add(column.substring(0, column.indexOf('(')));
-          }
-        }
-        if (measurementOfGivenDevice.contains(measurement)) {
-          executeColumns.add(column);
-          executePaths.add(currentDevice.concatNode(measurement));
-          tsDataTypes.add(measurementDataTypeMap.get(column));
-        }
+    DeviceQuery deviceQuery;
+    while ((deviceQuery = nextDeviceQuery()) != null) {
+      currentDevice = deviceQuery.device;
+      executeColumns = deviceQuery.executeColumns;
+      currentDataSet = deviceQuery.dataSet;
+
+      if (IoTDBDescriptor.getInstance().getConfig().isEnablePerformanceTracing()) {
+        pathsNum += executeColumns.size();
       }
 
-      // get filter to execute for the current device
-      if (deviceToFilterMap != null) {
-        this.expression = deviceToFilterMap.get(currentDevice.getFullPath());
+      if (deviceQuery.hasNext) {
+        curDataSetInitialized = true;
+        return true;
       }
+    }
+    return false;
+  }
 
-      if (IoTDBDescriptor.getInstance().getConfig().isEnablePerformanceTracing()) {
-        pathsNum += executeColumns.size();
+  /**
+   * Get the sub-query of the next device. The sub-queries of the following prefetchNum devices are
+   * submitted to the query prefetch pool, so that they are planned and started while the results
+   * of the current device are fetched, and the devices are still returned in order.
+   *
+   * @return null if there is no more device
+   */
+  private DeviceQuery nextDeviceQuery() throws IOException {
+    if (prefetchNum <= 0) {
+      return deviceIterator.hasNext() ? executeDeviceQuery(deviceIterator.next()) : null;
+    }
+
+    while (prefetchedQueries.size() <= prefetchNum && deviceIterator.hasNext()) {
+      PartialPath device = deviceIterator.next();
+      prefetchedQueries.add(PREFETCH_POOL_MANAGER.submit(() -> prefetchDeviceQuery(device)));
+    }
+    Future<DeviceQuery> future = prefetchedQueries.poll();
+    if (future == null) {
+      return null;
+    }
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Execute the sub-query of the device in the query prefetch pool.
+   *
+   * @return null if the prefetching has been cancelled
+   */
+  private DeviceQuery prefetchDeviceQuery(PartialPath device) throws IOException {
+    synchronized (prefetchLock) {
+      if (prefetchCancelled) {
+        return null;
+      }
+      runningPrefetchNum++;
+    }
+    try {
+      return executeDeviceQuery(device);
+    } finally {
+      synchronized (prefetchLock) {
+        runningPrefetchNum--;
+        prefetchLock.notifyAll();
       }
+    }
+  }
 
+  /**
+   * Cancel the prefetched sub-queries that have not started and wait for the running ones to
+   * finish. This must be invoked before the resources of the query are released, otherwise the
+   * running sub-queries may use the released files or register files after the release.
+   */
+  public void cancelPrefetchedQueries() {
+    synchronized (prefetchLock) {
+      prefetchCancelled = true;
+      Future<DeviceQuery> future;
+      while ((future = prefetchedQueries.poll()) != null) {
+        future.cancel(false);
+      }
       try {
-        switch (dataSetType) {
-          case GROUPBYTIME:
-            groupByTimePlan.setDeduplicatedPaths(executePaths);
-            groupByTimePlan.setDeduplicatedDataTypes(tsDataTypes);
-            groupByTimePlan.setDeduplicatedAggregations(executeAggregations);
-            groupByTimePlan.setExpression(expression);
-            currentDataSet = queryRouter.groupBy(groupByTimePlan, context);
-            break;
-          case AGGREGATE:
-            aggregationPlan.setDeduplicatedPaths(executePaths);
-            aggregationPlan.setDeduplicatedAggregations(executeAggregations);
-            aggregationPlan.setDeduplicatedDataTypes(tsDataTypes);
-            aggregationPlan.setExpression(expression);
-            currentDataSet = queryRouter.aggregate(aggregationPlan, context);
-            break;
-          case FILL:
-            fillQueryPlan.setDeduplicatedDataTypes(tsDataTypes);
-            fillQueryPlan.setDeduplicatedPaths(executePaths);
-            currentDataSet = queryRouter.fill(fillQueryPlan, context);
-            break;
-          case QUERY:
-            rawDataQueryPlan.setDeduplicatedPaths(executePaths);
-            rawDataQueryPlan.setDeduplicatedDataTypes(tsDataTypes);
-            rawDataQueryPlan.setExpression(expression);
-            currentDataSet = queryRouter.rawDataQuery(rawDataQueryPlan, context);
-            break;
-          default:
-            throw new IOException("unsupported DataSetType");
+        while (runningPrefetchNum > 0) {
+          prefetchLock.wait();
         }
-      } catch (QueryProcessException | QueryFilterOptimizationException | StorageEngineException e) {
-        throw new IOException(e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
       }
+    }
+  }
 
-      if (currentDataSet.hasNext()) {
-        curDataSetInitialized = true;
-        return true;
+  /**
+   * Plan and execute the sub-query of the device, each device uses its own plan so that the
+   * sub-queries of different devices can be executed concurrently.
+   */
+  private DeviceQuery executeDeviceQuery(PartialPath device) throws IOException {
+    // get all measurements of current device
+    Set<String> measurementOfGivenDevice = getDeviceMeasurements(device);
+
+    // extract paths and aggregations queried from all measurements
+    // executeColumns is for calculating rowRecord
+    List<String> deviceExecuteColumns = new ArrayList<>();
+    List<PartialPath> executePaths = new ArrayList<>();
+    List<TSDataType> tsDataTypes = new ArrayList<>();
+    List<String> executeAggregations = new ArrayList<>();
+    for (String column : measurementDataTypeMap.keySet()) {
+      String measurement = column;
+      if (dataSetType == DataSetType.GROUPBYTIME || dataSetType == DataSetType.AGGREGATE) {
+        measurement = column.substring(column.indexOf('(') + 1, column.indexOf(')'));
+        if (measurementOfGivenDevice.contains(measurement)) {
+          executeAggregations.add(column.substring(0, column.indexOf('(')));
+        }
+      }
+      if (measurementOfGivenDevice.contains(measurement)) {
+        deviceExecuteColumns.add(column);
+        executePaths.add(device.concatNode(measurement));
+        tsDataTypes.add(measurementDataTypeMap.get(column));
       }
     }
-    return false;
+
+    // get filter to execute for the current device
+    IExpression expression = null;
+    if (deviceToFilterMap != null) {
+      expression = deviceToFilterMap.get(device.getFullPath());
+    }
+
+    QueryDataSet dataSet;
+    try {
+      switch (dataSetType) {
+        case GROUPBYTIME:
+          GroupByTimePlan deviceGroupByTimePlan = copyGroupByTimePlan();
+          deviceGroupByTimePlan.setDeduplicatedPaths(executePaths);
+          deviceGroupByTimePlan.setDeduplicatedDataTypes(tsDataTypes);
+          deviceGroupByTimePlan.setDeduplicatedAggregations(executeAggregations);
+          deviceGroupByTimePlan.setExpression(expression);
+          dataSet = queryRouter.groupBy(deviceGroupByTimePlan, context);
+          break;
+        case AGGREGATE:
+          AggregationPlan deviceAggregationPlan = new AggregationPlan();
+          copyAggregationPlan(aggregationPlan, deviceAggregationPlan);
+          deviceAggregationPlan.setDeduplicatedPaths(executePaths);
+          deviceAggregationPlan.setDeduplicatedAggregations(executeAggregations);
+          deviceAggregationPlan.setDeduplicatedDataTypes(tsDataTypes);
+          deviceAggregationPlan.setExpression(expression);
+          dataSet = queryRouter.aggregate(deviceAggregationPlan, context);
+          break;
+        case FILL:
+          FillQueryPlan deviceFillQueryPlan = new FillQueryPlan();
+          copyQueryPlan(fillQueryPlan, deviceFillQueryPlan);
+          deviceFillQueryPlan.setQueryTime(fillQueryPlan.getQueryTime());
+          deviceFillQueryPlan.setFillType(fillQueryPlan.getFillType());
+          deviceFillQueryPlan.setDeduplicatedDataTypes(tsDataTypes);
+          deviceFillQueryPlan.setDeduplicatedPaths(executePaths);
+          dataSet = queryRouter.fill(deviceFillQueryPlan, context);
+          break;
+        case QUERY:
+          RawDataQueryPlan deviceRawDataQueryPlan = new RawDataQueryPlan();
+          copyQueryPlan(rawDataQueryPlan, deviceRawDataQueryPlan);
+          deviceRawDataQueryPlan.setDeduplicatedPaths(executePaths);
+          deviceRawDataQueryPlan.setDeduplicatedDataTypes(tsDataTypes);
+          deviceRawDataQueryPlan.setExpression(expression);
+          dataSet = queryRouter.rawDataQuery(deviceRawDataQueryPlan, context);
+          break;
+        default:
+          throw new IOException("unsupported DataSetType");
+      }
+    } catch (QueryProcessException | QueryFilterOptimizationException | StorageEngineException e) {
+      throw new IOException(e);
+    }
+
+    // also prefetch the first result, so that the devices without any result are skipped fast
+    return new DeviceQuery(device, deviceExecuteColumns, dataSet, dataSet.hasNext());
+  }
+
+  private GroupByTimePlan copyGroupByTimePlan() {
+    GroupByTimePlan plan = new GroupByTimePlan();
+    copyAggregationPlan(groupByTimePlan, plan);
+    plan.setStartTime(groupByTimePlan.getStartTime());
+    plan.setEndTime(groupByTimePlan.getEndTime());
+    plan.setInterval(groupByTimePlan.getInterval());
+    plan.setSlidingStep(groupByTimePlan.getSlidingStep());
+    plan.setIntervalByMonth(groupByTimePlan.isIntervalByMonth());
+    plan.setSlidingStepByMonth(groupByTimePlan.isSlidingStepByMonth());
+    plan.setLeftCRightO(groupByTimePlan.isLeftCRightO());
+    return plan;
+  }
+
+  private void copyAggregationPlan(AggregationPlan from, AggregationPlan to) {
+    copyQueryPlan(from, to);
+    to.setAggregations(from.getAggregations());
+    to.setLevel(from.getLevel());
+  }
+
+  private void copyQueryPlan(QueryPlan from, QueryPlan to) {
+    to.setPaths(from.getPaths());
+    to.setDataTypes(from.getDataTypes());
+    to.setAlignByTime(from.isAlignByTime());
+    to.setRowLimit(from.getRowLimit());
+    to.setRowOffset(from.getRowOffset());
+    to.setAscending(from.isAscending());
+    to.setLoginUserName(from.getLoginUserName());
   }
 
   protected Set<String> getDeviceMeasurements(PartialPath device) throws IOException {
@@ -258,4 +407,20 @@ public class AlignByDeviceDataSet extends QueryDataSet {
     GROUPBYTIME, AGGREGATE, FILL, QUERY
   }
 
+  private static class DeviceQuery {
+
+    private final PartialPath device;
+    private final List<String> executeColumns;
+    private final QueryDataSet dataSet;
+    private final boolean hasNext;
+
+    private DeviceQuery(PartialPath device, List<String> executeColumns, QueryDataSet dataSet,
+        boolean hasNext) {
+      this.device = device;
+      this.executeColumns = executeColumns;
+      this.dataSet = dataSet;
+      this.hasNext = hasNext;
+    }
+  }
+
 }
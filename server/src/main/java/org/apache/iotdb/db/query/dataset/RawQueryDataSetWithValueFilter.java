@@ -30,6 +30,13 @@ import org.apache.iotdb.tsfile.read.query.timegenerator.TimeGenerator;
 
 public class RawQueryDataSetWithValueFilter extends QueryDataSet implements UDFInputDataSet {
 
+  /**
+   * The timestamps of the time generator are looked up in batches, the first batch is small in
+   * case only a few rows are fetched and the batches grow up to the max size.
+   */
+  private static final int MIN_BATCH_SIZE = 64;
+  private static final int MAX_BATCH_SIZE = 4096;
+
   private final TimeGenerator timeGenerator;
   private final List<IReaderByTimestamp> seriesReaderByTimestampList;
   private final List<Boolean> cached;
@@ -38,6 +45,13 @@ public class RawQueryDataSetWithValueFilter extends QueryDataSet implements UDFI
   private RowRecord cachedRowRecord;
   private Object[] cachedRowInObjects;
 
+  private int batchSize;
+  private long[] timestamps;
+  // values of each series in the timestamps of the batch
+  private Object[][] values;
+  private int batchLength;
+  private int batchIndex;
+
   /**
    * constructor of EngineDataSetWithValueFilter.
    *
@@ -55,6 +69,7 @@ public class RawQueryDataSetWithValueFilter extends QueryDataSet implements UDFI
     this.timeGenerator = timeGenerator;
     this.seriesReaderByTimestampList = readers;
     this.cached = cached;
+    this.values = new Object[readers.size()][];
   }
 
   @Override
@@ -80,21 +95,12 @@ public class RawQueryDataSetWithValueFilter extends QueryDataSet implements UDFI
    * @return if there has next row record.
    */
   private boolean cacheRowRecord() throws IOException {
-    while (timeGenerator.hasNext()) {
+    while (batchIndex < batchLength || fillBatch()) {
       boolean hasField = false;
-      long timestamp = timeGenerator.next();
-      RowRecord rowRecord = new RowRecord(timestamp);
+      RowRecord rowRecord = new RowRecord(timestamps[batchIndex]);
 
       for (int i = 0; i < seriesReaderByTimestampList.size(); i++) {
-        Object value;
-        // get value from readers in time generator
-        if (cached.get(i)) {
-          value = timeGenerator.getValue(paths.get(i), timestamp);
-        } else {
-          // get value from series reader without filter
-          IReaderByTimestamp reader = seriesReaderByTimestampList.get(i);
-          value = reader.getValueInTimestamp(timestamp);
-        }
+        Object value = values[i][batchIndex];
         if (value == null) {
           rowRecord.addField(null);
         } else {
@@ -102,6 +108,7 @@ public class RawQueryDataSetWithValueFilter extends QueryDataSet implements UDFI
           rowRecord.addField(value, dataTypes.get(i));
         }
       }
+      batchIndex++;
       if (hasField) {
         hasCachedRow = true;
         cachedRowRecord = rowRecord;
@@ -111,6 +118,55 @@ public class RawQueryDataSetWithValueFilter extends QueryDataSet implements UDFI
     return hasCachedRow;
   }
 
+  /**
+   * Take the next batch of timestamps from the time generator and look up the values of each
+   * series in them, by one pass over the data of the series.
+   *
+   * @return false if the time generator has no more timestamps
+   */
+  private boolean fillBatch() throws IOException {
+    if (batchSize == 0) {
+      batchSize = rowLimit > 0 ? Math.min(rowLimit + rowOffset, MAX_BATCH_SIZE) : MIN_BATCH_SIZE;
+    } else {
+      batchSize = Math.min(batchSize * 2, MAX_BATCH_SIZE);
+    }
+    if (timestamps == null || timestamps.length < batchSize) {
+      timestamps = new long[batchSize];
+    }
+    int seriesNumber = seriesReaderByTimestampList.size();
+    for (int i = 0; i < seriesNumber; i++) {
+      if (cached.get(i)) {
+        values[i] = new Object[batchSize];
+      }
+    }
+
+    batchIndex = 0;
+    batchLength = 0;
+    while (batchLength < batchSize && timeGenerator.hasNext()) {
+      long timestamp = timeGenerator.next();
+      timestamps[batchLength] = timestamp;
+      // the readers in the time generator only hold the values of the current timestamp
+      for (int i = 0; i < seriesNumber; i++) {
+        if (cached.get(i)) {
+          values[i][batchLength] = timeGenerator.getValue(paths.get(i), timestamp);
+        }
+      }
+      batchLength++;
+    }
+    if (batchLength == 0) {
+      return false;
+    }
+
+    for (int i = 0; i < seriesNumber; i++) {
+      if (!cached.get(i)) {
+        // get values from series reader without filter
+        values[i] = seriesReaderByTimestampList.get(i)
+            .getValuesInTimestamps(timestamps, batchLength);
+      }
+    }
+    return true;
+  }
+
   @Override
   public boolean hasNextRowInObjects() throws IOException {
     if (hasCachedRow) {
@@ -131,22 +187,20 @@ public class RawQueryDataSetWithValueFilter extends QueryDataSet implements UDFI
 
   private boolean cacheRowInObjects() throws IOException {
     int seriesNumber = seriesReaderByTimestampList.size();
-    while (timeGenerator.hasNext()) {
+    while (batchIndex < batchLength || fillBatch()) {
       boolean hasField = false;
 
       Object[] rowInObjects = new Object[seriesNumber + 1];
-      long timestamp = timeGenerator.next();
-      rowInObjects[seriesNumber] = timestamp;
+      rowInObjects[seriesNumber] = timestamps[batchIndex];
 
       for (int i = 0; i < seriesNumber; i++) {
-        Object value = cached.get(i)
-            ? timeGenerator.getValue(paths.get(i), timestamp)
-            : seriesReaderByTimestampList.get(i).getValueInTimestamp(timestamp);
+        Object value = values[i][batchIndex];
         if (value != null) {
           hasField = true;
           rowInObjects[i] = value;
         }
       }
+      batchIndex++;
 
       if (hasField) {
         hasCachedRow = true;
@@ -31,11 +31,17 @@ import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 import org.apache.iotdb.tsfile.utils.Binary;
 
+/**
+ * A ShowDataSet returns the results of a SHOW statement by pages. Unless the statement has a
+ * limit, whose results are fetched as one page, the pages have the size of the limit of the plan
+ * when the data set is created, which is the fetch size of the client.
+ */
 public abstract class ShowDataSet extends QueryDataSet {
   protected ShowPlan plan;
   private List<RowRecord> result = new ArrayList<>();
   private int index = 0;
   protected boolean hasLimit;
+  protected int pageSize;
 
   protected ShowDataSet(List<Path> paths, List<TSDataType> dataTypes) {
     super(paths, dataTypes);
@@ -43,8 +49,7 @@ public abstract class ShowDataSet extends QueryDataSet {
 
   @Override
   public boolean hasNextWithoutConstraint() throws IOException {
-    if (index == result.size() && !hasLimit && result.size() == plan.getLimit()) {
-      plan.setOffset(plan.getOffset() + plan.getLimit());
+    if (index == result.size() && !hasLimit && result.size() == pageSize) {
       try {
         result = getQueryDataSet();
         index = 0;
@@ -55,6 +60,9 @@ public abstract class ShowDataSet extends QueryDataSet {
     return index < result.size();
   }
 
+  /**
+   * Fetch the next page of the results.
+   */
   public abstract List<RowRecord> getQueryDataSet() throws MetadataException;
 
   @Override
@@ -41,6 +41,7 @@ public class ShowDevicesDataSet extends ShowDataSet {
   private static final TSDataType[] resourceTypes = {TSDataType.TEXT};
 
   private boolean hasSgCol;
+  private final ShowResultCursor<ShowDevicesResult> cursor;
 
   public ShowDevicesDataSet(ShowDevicesPlan showDevicesPlan) throws MetadataException {
     super(showDevicesPlan.hasSgCol() ? Arrays.asList(resourcePathsWithSg) : Arrays.asList(resourcePaths),
@@ -48,12 +49,14 @@ public class ShowDevicesDataSet extends ShowDataSet {
     hasSgCol = showDevicesPlan.hasSgCol();
     this.plan = showDevicesPlan;
     hasLimit = plan.hasLimit();
+    pageSize = plan.getLimit();
+    cursor = IoTDB.metaManager.getDevicesCursor(showDevicesPlan);
     getQueryDataSet();
   }
 
   @Override
   public List<RowRecord> getQueryDataSet() throws MetadataException {
-    List<ShowDevicesResult> devicesList = IoTDB.metaManager.getDevices((ShowDevicesPlan) plan);
+    List<ShowDevicesResult> devicesList = cursor.next(pageSize);
     List<RowRecord> records = new ArrayList<>();
     for (ShowDevicesResult result : devicesList) {
       RowRecord record = new RowRecord(0);
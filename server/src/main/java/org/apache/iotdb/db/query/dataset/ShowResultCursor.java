@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset;
+
+import java.util.List;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+
+/**
+ * A cursor over the results of a SHOW statement, from which a ShowDataSet fetches one page of
+ * results at a time, so the results need not be collected before the first page is returned.
+ */
+@FunctionalInterface
+public interface ShowResultCursor<T extends ShowResult> {
+
+  /**
+   * @return the next at most num results, fewer only if the results are exhausted
+   */
+  List<T> next(int num) throws MetadataException;
+}
@@ -44,7 +44,7 @@ import org.apache.iotdb.tsfile.read.common.RowRecord;
 
 public class ShowTimeseriesDataSet extends ShowDataSet {
 
-  private final QueryContext context;
+  private final ShowResultCursor<ShowTimeSeriesResult> cursor;
 
   private static final Path[] resourcePaths = {new PartialPath(COLUMN_TIMESERIES, false),
       new PartialPath(COLUMN_TIMESERIES_ALIAS, false),
@@ -61,14 +61,15 @@ public class ShowTimeseriesDataSet extends ShowDataSet {
       throws MetadataException {
     super(Arrays.asList(resourcePaths), Arrays.asList(resourceTypes));
     this.plan = showTimeSeriesPlan;
-    this.context = context;
     hasLimit = plan.hasLimit();
+    pageSize = plan.getLimit();
+    cursor = IoTDB.metaManager.showTimeseriesCursor(showTimeSeriesPlan, context);
     getQueryDataSet();
   }
 
   @Override
   public List<RowRecord> getQueryDataSet() throws MetadataException {
-    List<ShowTimeSeriesResult> timeseriesList = IoTDB.metaManager.showTimeseries((ShowTimeSeriesPlan) plan, context);
+    List<ShowTimeSeriesResult> timeseriesList = cursor.next(pageSize);
     List<RowRecord> records = new ArrayList<>();
     for (ShowTimeSeriesResult result : timeseriesList) {
       RowRecord record = new RowRecord(0);
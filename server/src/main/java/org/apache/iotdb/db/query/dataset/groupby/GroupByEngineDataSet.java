@@ -21,6 +21,7 @@ package org.apache.iotdb.db.query.dataset.groupby;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
 import org.apache.iotdb.db.qp.physical.crud.GroupByTimePlan;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.utils.TestOnly;
@@ -152,6 +153,30 @@ public abstract class GroupByEngineDataSet extends QueryDataSet {
     return true;
   }
 
+  /**
+   * @return the intervals that hasNextWithoutConstraint() will move to after the current one, at
+   * most maxNum of them. The current interval is not changed.
+   */
+  protected List<Pair<Long, Long>> getNextIntervals(int maxNum) {
+    long prevStartTime = curStartTime;
+    long prevEndTime = curEndTime;
+    int prevIntervalTimes = intervalTimes;
+    boolean prevHasCachedTimeInterval = hasCachedTimeInterval;
+
+    List<Pair<Long, Long>> intervals = new ArrayList<>();
+    hasCachedTimeInterval = false;
+    while (intervals.size() < maxNum && hasNextWithoutConstraint()) {
+      intervals.add(new Pair<>(curStartTime, curEndTime));
+      hasCachedTimeInterval = false;
+    }
+
+    curStartTime = prevStartTime;
+    curEndTime = prevEndTime;
+    intervalTimes = prevIntervalTimes;
+    hasCachedTimeInterval = prevHasCachedTimeInterval;
+    return intervals;
+  }
+
   /**
    * add natural months based on the first starttime to avoid edge cases, ie 2/28
    * @param numMonths numMonths is updated in hasNextWithoutConstraint()
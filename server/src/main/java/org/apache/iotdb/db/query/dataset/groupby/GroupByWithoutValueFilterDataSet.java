@@ -26,18 +26,24 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.util.stream.Collectors;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.metadata.PartialPath;
+import org.apache.iotdb.db.qp.physical.crud.GroupByTimeFillPlan;
 import org.apache.iotdb.db.qp.physical.crud.GroupByTimePlan;
 import org.apache.iotdb.db.query.aggregation.AggregateResult;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.factory.AggregateResultFactory;
 import org.apache.iotdb.db.query.filter.TsFileFilter;
+import org.apache.iotdb.db.query.pool.QueryTaskPoolManager;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Field;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.read.expression.IExpression;
@@ -52,6 +58,8 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
   private static final Logger logger = LoggerFactory
       .getLogger(GroupByWithoutValueFilterDataSet.class);
 
+  private static final QueryTaskPoolManager TASK_POOL_MANAGER = QueryTaskPoolManager.getInstance();
+
   private Map<PartialPath, GroupByExecutor> pathExecutors = new HashMap<>();
 
   /**
@@ -65,6 +73,26 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
    */
   private Map<PartialPath, List<Integer>> resultIndexes = new HashMap<>();
 
+  /**
+   * the path executors split into at most groupByParallelism groups, the first group is computed
+   * by the calling thread and the others in the query thread pool
+   */
+  private List<List<Entry<PartialPath, GroupByExecutor>>> executorGroups = new ArrayList<>();
+
+  /**
+   * how many intervals each executor group computes in one task when the groups are computed
+   * concurrently, so that a task covers a range of intervals instead of a single one
+   */
+  private static final int INTERVAL_BATCH_SIZE = 1024;
+
+  /**
+   * the fields of the intervals that have been computed concurrently but not returned yet, one
+   * row per interval
+   */
+  private Field[][] cachedRows;
+  private int cachedRowIndex;
+  private int cachedRowNum;
+
   public GroupByWithoutValueFilterDataSet() {
   }
 
@@ -109,6 +137,19 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     } finally {
       StorageEngine.getInstance().mergeUnLock(list);
     }
+
+    // GROUP BY FILL peeks previous intervals through the executors, which must not have moved past
+    // the current interval
+    int groupNum = groupByTimePlan instanceof GroupByTimeFillPlan ? 1
+        : Math.min(IoTDBDescriptor.getInstance().getConfig().getGroupByParallelism(),
+            pathExecutors.size());
+    for (int i = 0; i < groupNum; i++) {
+      executorGroups.add(new ArrayList<>());
+    }
+    int executorIndex = 0;
+    for (Entry<PartialPath, GroupByExecutor> pathToExecutorEntry : pathExecutors.entrySet()) {
+      executorGroups.get(executorIndex++ % groupNum).add(pathToExecutorEntry);
+    }
   }
 
   @Override
@@ -125,17 +166,20 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
       record = new RowRecord(curEndTime - 1);
     }
 
-    AggregateResult[] fields = new AggregateResult[paths.size()];
+    if (executorGroups.size() > 1) {
+      if (cachedRowIndex >= cachedRowNum) {
+        calcResultsConcurrently();
+      }
+      for (Field field : cachedRows[cachedRowIndex]) {
+        record.addField(field);
+      }
+      cachedRowIndex++;
+      return record;
+    }
 
+    AggregateResult[] fields = new AggregateResult[paths.size()];
     try {
-      for (Entry<PartialPath, GroupByExecutor> pathToExecutorEntry : pathExecutors.entrySet()) {
-        GroupByExecutor executor = pathToExecutorEntry.getValue();
-        List<AggregateResult> aggregations = executor.calcResult(curStartTime, curEndTime);
-        for (int i = 0; i < aggregations.size(); i++) {
-          int resultIndex = resultIndexes.get(pathToExecutorEntry.getKey()).get(i);
-          fields[resultIndex] = aggregations.get(i);
-        }
-      }
+      calcResult(pathExecutors.entrySet(), curStartTime, curEndTime, fields);
     } catch (QueryProcessException e) {
       logger.error("GroupByWithoutValueFilterDataSet execute has error", e);
       throw new IOException(e.getMessage(), e);
@@ -151,6 +195,110 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     return record;
   }
 
+  private void calcResult(Iterable<Entry<PartialPath, GroupByExecutor>> pathToExecutorEntries,
+      long intervalStartTime, long intervalEndTime, AggregateResult[] fields)
+      throws IOException, QueryProcessException {
+    for (Entry<PartialPath, GroupByExecutor> pathToExecutorEntry : pathToExecutorEntries) {
+      GroupByExecutor executor = pathToExecutorEntry.getValue();
+      List<AggregateResult> aggregations = executor.calcResult(intervalStartTime, intervalEndTime);
+      for (int i = 0; i < aggregations.size(); i++) {
+        int resultIndex = resultIndexes.get(pathToExecutorEntry.getKey()).get(i);
+        fields[resultIndex] = aggregations.get(i);
+      }
+    }
+  }
+
+  /**
+   * Compute the fields of an executor group in the given intervals. The AggregateResults are
+   * reused by the executors across intervals, so their values are copied into the rows.
+   */
+  private void calcResults(List<Entry<PartialPath, GroupByExecutor>> executorGroup,
+      List<Pair<Long, Long>> intervals, Field[][] rows)
+      throws IOException, QueryProcessException {
+    AggregateResult[] fields = new AggregateResult[paths.size()];
+    for (int i = 0; i < intervals.size(); i++) {
+      Pair<Long, Long> interval = intervals.get(i);
+      calcResult(executorGroup, interval.left, interval.right, fields);
+      for (Entry<PartialPath, GroupByExecutor> pathToExecutorEntry : executorGroup) {
+        for (int resultIndex : resultIndexes.get(pathToExecutorEntry.getKey())) {
+          AggregateResult res = fields[resultIndex];
+          rows[i][resultIndex] = Field.getField(res.getResult(), res.getResultDataType());
+        }
+      }
+    }
+  }
+
+  /**
+   * Compute the current interval and the following ones, at most INTERVAL_BATCH_SIZE in total and
+   * no more than the LIMIT and OFFSET still allow, with one task per executor group. Every group only reads its own executors and writes
+   * distinct indexes of the rows, and the calling thread waits for all of them, so the intervals
+   * are still returned in order.
+   */
+  private void calcResultsConcurrently() throws IOException {
+    List<Pair<Long, Long>> intervals = new ArrayList<>();
+    intervals.add(new Pair<>(curStartTime, curEndTime));
+    intervals.addAll(getNextIntervals(getIntervalBatchSize() - 1));
+    Field[][] rows = new Field[intervals.size()][paths.size()];
+
+    List<FutureTask<Void>> tasks = new ArrayList<>(executorGroups.size() - 1);
+    for (int i = 1; i < executorGroups.size(); i++) {
+      List<Entry<PartialPath, GroupByExecutor>> executorGroup = executorGroups.get(i);
+      FutureTask<Void> task = new FutureTask<>(() -> {
+        calcResults(executorGroup, intervals, rows);
+        return null;
+      });
+      TASK_POOL_MANAGER.submit(task);
+      tasks.add(task);
+    }
+
+    Throwable exception = null;
+    try {
+      calcResults(executorGroups.get(0), intervals, rows);
+    } catch (IOException | QueryProcessException e) {
+      exception = e;
+    }
+    for (FutureTask<Void> task : tasks) {
+      // run the task in this thread if the pool has not started it yet, so a busy pool (or a
+      // calling thread that belongs to the pool) cannot block the query, run() does nothing if
+      // the task has been started
+      task.run();
+      try {
+        task.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        exception = exception == null ? new IOException(e.getMessage(), e) : exception;
+      } catch (ExecutionException e) {
+        exception = exception == null ? e.getCause() : exception;
+      }
+    }
+
+    if (exception instanceof IOException) {
+      throw (IOException) exception;
+    } else if (exception != null) {
+      logger.error("GroupByWithoutValueFilterDataSet execute has error", exception);
+      throw new IOException(exception.getMessage(), exception);
+    }
+    cachedRows = rows;
+    cachedRowIndex = 0;
+    cachedRowNum = intervals.size();
+  }
+
+  /**
+   * @return how many intervals, the current one included, are computed in the next batch. Without
+   * a LIMIT it is INTERVAL_BATCH_SIZE, otherwise the intervals beyond the OFFSET and LIMIT are not
+   * computed as they are never returned.
+   */
+  private int getIntervalBatchSize() {
+    if (rowLimit <= 0) {
+      return INTERVAL_BATCH_SIZE;
+    }
+    // a row skipped for the OFFSET is still counted by rowOffset, while next() has counted the
+    // current row in alreadyReturnedRowNum before computing it
+    long remainingRowNum = rowOffset > 0 ? (long) rowOffset + rowLimit
+        : rowLimit - alreadyReturnedRowNum + 1L;
+    return (int) Math.max(1, Math.min(INTERVAL_BATCH_SIZE, remainingRowNum));
+  }
+
   @Override
   public Pair<Long, Object> peekNextNotNullValue(Path path, int i) throws IOException {
     Pair<Long, Object> result = null;
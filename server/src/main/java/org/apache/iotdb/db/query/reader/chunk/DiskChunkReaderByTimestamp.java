@@ -20,6 +20,8 @@ package org.apache.iotdb.db.query.reader.chunk;
 
 import java.io.IOException;
 import org.apache.iotdb.db.query.reader.series.IReaderByTimestamp;
+import org.apache.iotdb.db.utils.QueryUtils;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReaderByTimestamp;
 
@@ -64,6 +66,59 @@ public class DiskChunkReaderByTimestamp implements IReaderByTimestamp {
     return null;
   }
 
+  @Override
+  public Object[] getValuesInTimestamps(long[] timestamps, int length) throws IOException {
+    Object[] values = new Object[length];
+    int i = 0;
+    while (i < length) {
+      if (data == null || !data.hasCurrent() || data.getMaxTimestamp() < timestamps[i]) {
+        i = nextPageHolding(timestamps, i, length);
+        if (i >= length) {
+          break;
+        }
+      }
+      // look up all the timestamps within the current page in one pass
+      for (; i < length && timestamps[i] <= data.getMaxTimestamp(); i++) {
+        values[i] = data.getValueInTimestamp(timestamps[i]);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Decode the next page holding any of the timestamps from the given index, the pages holding
+   * none of them are skipped by their statistics.
+   *
+   * @return the index of the first timestamp not before the new page, or length if there is no
+   * such page
+   */
+  private int nextPageHolding(long[] timestamps, int from, int length) throws IOException {
+    data = null;
+    if (chunkReaderByTimestamp == null) {
+      return length;
+    }
+    int index = from;
+    while (chunkReaderByTimestamp.hasNextSatisfiedPage()) {
+      Statistics statistics = chunkReaderByTimestamp.currentPageStatistics();
+      index = QueryUtils
+          .firstTimestampNotBefore(timestamps, index, length, statistics.getStartTime(), true);
+      if (index >= length) {
+        return length;
+      }
+      if (timestamps[index] > statistics.getEndTime()) {
+        chunkReaderByTimestamp.skipCurrentPage();
+        continue;
+      }
+      BatchData pageData = chunkReaderByTimestamp.nextPageData();
+      // the page may be empty after the deletions
+      if (pageData.hasCurrent()) {
+        data = pageData;
+        return index;
+      }
+    }
+    return length;
+  }
+
   private boolean hasNext() throws IOException {
     if (data != null && data.hasCurrent()) {
       return true;
@@ -36,6 +36,22 @@ public interface IReaderByTimestamp {
    */
   Object getValueInTimestamp(long timestamp) throws IOException;
 
+  /**
+   * Returns the values under the first length timestamps, null for a timestamp without value. The
+   * timestamps must be monotonic in the order of the reader and follow the timestamps of the
+   * previous calls, like those of <code>getValueInTimestamp</code>.
+   * <p>
+   * Readers overriding this method look up all the timestamps in a page in one pass, and skip the
+   * data not holding any of them without decoding it.
+   */
+  default Object[] getValuesInTimestamps(long[] timestamps, int length) throws IOException {
+    Object[] values = new Object[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = getValueInTimestamp(timestamps[i]);
+    }
+    return values;
+  }
+
   /**
    * Returns whether there is no more data in reader.
    * <p>True means no more data. False means you can still get more data</p>
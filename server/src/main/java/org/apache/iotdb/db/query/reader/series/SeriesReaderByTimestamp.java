@@ -24,6 +24,7 @@ import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.metadata.PartialPath;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.filter.TsFileFilter;
+import org.apache.iotdb.db.utils.QueryUtils;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.BatchData;
@@ -36,6 +37,14 @@ public class SeriesReaderByTimestamp implements IReaderByTimestamp {
   private BatchData batchData;
   private boolean ascending;
 
+  /**
+   * The timestamps of getValuesInTimestamps not looked up yet, the data without any of them is
+   * skipped by its statistics. Null when looking up a single timestamp.
+   */
+  private long[] pendingTimestamps;
+  private int pendingFrom;
+  private int pendingLength;
+
   public SeriesReaderByTimestamp(PartialPath seriesPath, Set<String> allSensors,
       TSDataType dataType, QueryContext context, QueryDataSource dataSource,
       TsFileFilter fileFilter, boolean ascending) {
@@ -61,6 +70,32 @@ public class SeriesReaderByTimestamp implements IReaderByTimestamp {
     return batchData.getValueInTimestamp(timestamp);
   }
 
+  @Override
+  public Object[] getValuesInTimestamps(long[] timestamps, int length) throws IOException {
+    Object[] values = new Object[length];
+    pendingTimestamps = timestamps;
+    pendingLength = length;
+    try {
+      int i = 0;
+      while (i < length) {
+        long timestamp = timestamps[i];
+        pendingFrom = i;
+        seriesReader.setTimeFilter(timestamp);
+        if ((batchData == null || !hasAvailableData(batchData, timestamp)) && !hasNext(
+            timestamp)) {
+          break;
+        }
+        // look up all the timestamps within the current page in one pass
+        for (; i < length && hasAvailableData(batchData, timestamps[i]); i++) {
+          values[i] = batchData.getValueInTimestamp(timestamps[i]);
+        }
+      }
+    } finally {
+      pendingTimestamps = null;
+    }
+    return values;
+  }
+
   @Override
   public boolean readerIsEmpty() throws IOException {
     return seriesReader.isEmpty() && isEmpty(batchData);
@@ -87,7 +122,7 @@ public class SeriesReaderByTimestamp implements IReaderByTimestamp {
      */
     while (seriesReader.hasNextFile()) {
       Statistics statistics = seriesReader.currentFileStatistics();
-      if (!satisfyTimeFilter(statistics)) {
+      if (!satisfyTimeFilter(statistics) || !holdsPendingTimestamp(statistics)) {
         seriesReader.skipCurrentFile();
         continue;
       }
@@ -101,7 +136,7 @@ public class SeriesReaderByTimestamp implements IReaderByTimestamp {
   private boolean readChunkData(long timestamp) throws IOException {
     while (seriesReader.hasNextChunk()) {
       Statistics statistics = seriesReader.currentChunkStatistics();
-      if (!satisfyTimeFilter(statistics)) {
+      if (!satisfyTimeFilter(statistics) || !holdsPendingTimestamp(statistics)) {
         seriesReader.skipCurrentChunk();
         continue;
       }
@@ -115,7 +150,8 @@ public class SeriesReaderByTimestamp implements IReaderByTimestamp {
   private boolean readPageData(long timestamp) throws IOException {
     while (seriesReader.hasNextPage()) {
       if (!seriesReader.isPageOverlapped()) {
-        if (!satisfyTimeFilter(seriesReader.currentPageStatistics())) {
+        Statistics statistics = seriesReader.currentPageStatistics();
+        if (!satisfyTimeFilter(statistics) || !holdsPendingTimestamp(statistics)) {
           seriesReader.skipCurrentPage();
           continue;
         }
@@ -135,6 +171,16 @@ public class SeriesReaderByTimestamp implements IReaderByTimestamp {
     return seriesReader.getTimeFilter().satisfy(statistics);
   }
 
+  private boolean holdsPendingTimestamp(Statistics statistics) {
+    if (pendingTimestamps == null) {
+      return true;
+    }
+    int index = QueryUtils.firstTimestampNotBefore(pendingTimestamps, pendingFrom, pendingLength,
+        ascending ? statistics.getStartTime() : statistics.getEndTime(), ascending);
+    return index < pendingLength && (ascending ? pendingTimestamps[index] <= statistics
+        .getEndTime() : pendingTimestamps[index] >= statistics.getStartTime());
+  }
+
   private boolean isEmpty(BatchData batchData) {
     return batchData == null || !batchData.hasCurrent();
   }
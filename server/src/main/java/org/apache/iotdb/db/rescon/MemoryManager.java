@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.rescon;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.cache.ChunkCache;
+import org.apache.iotdb.db.engine.cache.ChunkMetadataCache;
+import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
+import org.apache.iotdb.db.engine.cache.TsFileMetadataCache;
+import org.apache.iotdb.db.exception.StartupException;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.service.IService;
+import org.apache.iotdb.db.service.JMXService;
+import org.apache.iotdb.db.service.ServiceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MemoryManager lets the memory of the read caches be borrowed by writing (SystemInfo) and queries
+ * (QueryResourceManager) when their own memory is used up, instead of leaving it idle while the
+ * other modules are blocked. The caches are shrunk in proportion to their configured sizes, by at
+ * most IoTDBConfig.getCacheLendableProportion() in total, and grow back when the memory is
+ * returned. The memory of all the modules is exposed through JMX.
+ */
+public class MemoryManager implements MemoryManagerMBean, IService {
+
+  private static final Logger logger = LoggerFactory.getLogger(MemoryManager.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /**
+   * the memory lent by the caches and not returned yet
+   */
+  private long lentCacheMemory = 0L;
+
+  // serializes resizing the caches, so the last resize applies the latest lent memory
+  private final Object resizeLock = new Object();
+
+  private MemoryManager() {
+  }
+
+  public static MemoryManager getInstance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  /**
+   * Borrow memory from the read caches, the caches are shrunk and their least recently used
+   * entries evicted.
+   *
+   * @param size the memory wanted
+   * @return the memory actually lent, which is less than the wanted one if the caches cannot lend
+   * more, and should be returned by returnCacheMemory()
+   */
+  public long lendCacheMemory(long size) {
+    long lent = lendCacheMemoryWithoutResize(size);
+    if (lent > 0) {
+      resizeCaches();
+    }
+    return lent;
+  }
+
+  /**
+   * Like lendCacheMemory(), but only records the lent memory. The caller must call resizeCaches()
+   * afterwards without holding its own locks, as evicting the cache entries may take long.
+   */
+  public synchronized long lendCacheMemoryWithoutResize(long size) {
+    long lendable = (long) (getCacheMemory() * config.getCacheLendableProportion())
+        - lentCacheMemory;
+    long lent = Math.min(size, lendable);
+    if (lent <= 0) {
+      return 0;
+    }
+    lentCacheMemory += lent;
+    logger.debug("{} bytes of the caches are lent, {} bytes lent in total", lent,
+        lentCacheMemory);
+    return lent;
+  }
+
+  /**
+   * Return the memory borrowed by lendCacheMemory() so that the caches grow back.
+   */
+  public void returnCacheMemory(long size) {
+    if (size > 0) {
+      returnCacheMemoryWithoutResize(size);
+      resizeCaches();
+    }
+  }
+
+  /**
+   * Like returnCacheMemory(), but only records the returned memory. The caller must call
+   * resizeCaches() afterwards without holding its own locks.
+   */
+  public synchronized void returnCacheMemoryWithoutResize(long size) {
+    if (size <= 0) {
+      return;
+    }
+    lentCacheMemory -= Math.min(size, lentCacheMemory);
+    logger.debug("{} bytes are returned to the caches, {} bytes lent in total", size,
+        lentCacheMemory);
+  }
+
+  /**
+   * Resize the caches by the memory lent now. It is not done while holding the lock of this
+   * manager, so lending and returning memory never wait for the cache evictions.
+   */
+  public void resizeCaches() {
+    synchronized (resizeLock) {
+      double ratio;
+      synchronized (this) {
+        ratio = getCacheMemory() == 0 ? 1 : 1 - lentCacheMemory * 1.0 / getCacheMemory();
+      }
+      ChunkCache.getInstance()
+          .setMaxMemory((long) (config.getAllocateMemoryForChunkCache() * ratio));
+      ChunkMetadataCache.getInstance()
+          .setMaxMemory((long) (config.getAllocateMemoryForChunkMetaDataCache() * ratio));
+      TimeSeriesMetadataCache.getInstance()
+          .setMaxMemory((long) (config.getAllocateMemoryForTimeSeriesMetaDataCache() * ratio));
+      TsFileMetadataCache.getInstance()
+          .setMaxMemory((long) (config.getAllocateMemoryForFileMetadataCache() * ratio));
+    }
+  }
+
+  @Override
+  public long getWriteMemory() {
+    return SystemInfo.getInstance().getMemorySizeForWrite();
+  }
+
+  @Override
+  public long getWriteMemoryBorrowed() {
+    return SystemInfo.getInstance().getBorrowedMemory();
+  }
+
+  @Override
+  public long getWriteMemoryUsed() {
+    return SystemInfo.getInstance().getTotalSgMemCost();
+  }
+
+  @Override
+  public boolean isWriteRejected() {
+    return SystemInfo.getInstance().isRejected();
+  }
+
+  @Override
+  public long getCacheMemory() {
+    return config.getAllocateMemoryForChunkCache()
+        + config.getAllocateMemoryForChunkMetaDataCache()
+        + config.getAllocateMemoryForTimeSeriesMetaDataCache()
+        + config.getAllocateMemoryForFileMetadataCache();
+  }
+
+  @Override
+  public synchronized long getCacheMemoryLent() {
+    return lentCacheMemory;
+  }
+
+  @Override
+  public long getCacheMemoryUsed() {
+    return ChunkCache.getInstance().getUsedMemory()
+        + ChunkMetadataCache.getInstance().getUsedMemory()
+        + TimeSeriesMetadataCache.getInstance().getUsedMemory()
+        + TsFileMetadataCache.getInstance().getUsedMemory();
+  }
+
+  @Override
+  public long getQueryMemory() {
+    return config.getAllocateMemoryForReadWithoutCache();
+  }
+
+  @Override
+  public long getQueryMemoryFree() {
+    return QueryResourceManager.getInstance().getFreeMemoryForRead();
+  }
+
+  @Override
+  public long getQueryMemoryBorrowed() {
+    return QueryResourceManager.getInstance().getBorrowedMemory();
+  }
+
+  @Override
+  public int getUnreservedQueryNum() {
+    return QueryResourceManager.getInstance().getUnreservedQueryNum();
+  }
+
+  @Override
+  public void start() throws StartupException {
+    try {
+      JMXService.registerMBean(getInstance(), ServiceType.MEMORY_MANAGER_SERVICE.getJmxName());
+    } catch (Exception e) {
+      throw new StartupException(this.getID().getName(), e.getMessage());
+    }
+  }
+
+  @Override
+  public void stop() {
+    JMXService.deregisterMBean(ServiceType.MEMORY_MANAGER_SERVICE.getJmxName());
+    logger.info("{}: stop {}...", IoTDBConstant.GLOBAL_DB_NAME, this.getID().getName());
+  }
+
+  @Override
+  public ServiceType getID() {
+    return ServiceType.MEMORY_MANAGER_SERVICE;
+  }
+
+  private static class InstanceHolder {
+
+    private InstanceHolder() {
+    }
+
+    private static final MemoryManager INSTANCE = new MemoryManager();
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.rescon;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.utils.MmapUtil;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+/**
+ * Manage the direct buffers of off-heap TVLists. Each buffer holds the timestamps and the values of
+ * PrimitiveArrayManager.ARRAY_SIZE points, so it costs the same memory as the arrays of a heap
+ * TVList. Released buffers are kept for reuse until they reach the same size threshold as the
+ * buffered arrays of PrimitiveArrayManager, the others are freed at once.
+ */
+public class OffHeapArrayManager {
+
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /**
+   * data type -> buffers released and waiting for reuse
+   */
+  private static final Map<TSDataType, ArrayDeque<ByteBuffer>> bufferedArraysMap = new EnumMap<>(
+      TSDataType.class);
+
+  private static final double BUFFERED_ARRAY_SIZE_THRESHOLD =
+      config.getAllocateMemoryForWrite() * config.getBufferedArraysMemoryProportion();
+
+  /**
+   * total size of buffers waiting for reuse
+   */
+  private static final AtomicLong bufferedArraysRamSize = new AtomicLong();
+
+  static {
+    for (TSDataType dataType : TSDataType.values()) {
+      bufferedArraysMap.put(dataType, new ArrayDeque<>());
+    }
+  }
+
+  private OffHeapArrayManager() {
+  }
+
+  /**
+   * @return the bytes of a buffer for the data type, the values follow the timestamps
+   */
+  public static int getArraySize(TSDataType dataType) {
+    return PrimitiveArrayManager.ARRAY_SIZE * (Long.BYTES + dataType.getDataTypeSize());
+  }
+
+  /**
+   * Get a buffer for the data type, reuse a released one if there is any.
+   */
+  public static ByteBuffer getArray(TSDataType dataType) {
+    ArrayDeque<ByteBuffer> buffers = bufferedArraysMap.get(dataType);
+    synchronized (buffers) {
+      ByteBuffer buffer = buffers.poll();
+      if (buffer != null) {
+        bufferedArraysRamSize.addAndGet(-buffer.capacity());
+        return buffer;
+      }
+    }
+    return ByteBuffer.allocateDirect(getArraySize(dataType)).order(ByteOrder.nativeOrder());
+  }
+
+  /**
+   * Bring back a buffer got by getArray(), it is kept for reuse if the threshold allows, otherwise
+   * its memory is freed without waiting for GC. The heap buffers of the copies of off-heap TVLists
+   * are ignored.
+   */
+  public static void release(TSDataType dataType, ByteBuffer buffer) {
+    if (!buffer.isDirect()) {
+      return;
+    }
+    if (bufferedArraysRamSize.get() + buffer.capacity() > BUFFERED_ARRAY_SIZE_THRESHOLD) {
+      MmapUtil.clean((MappedByteBuffer) buffer);
+      return;
+    }
+    ArrayDeque<ByteBuffer> buffers = bufferedArraysMap.get(dataType);
+    synchronized (buffers) {
+      buffers.add(buffer);
+    }
+    bufferedArraysRamSize.addAndGet(buffer.capacity());
+  }
+
+  public static long getBufferedArraysRamSize() {
+    return bufferedArraysRamSize.get();
+  }
+
+  public static void close() {
+    for (ArrayDeque<ByteBuffer> buffers : bufferedArraysMap.values()) {
+      synchronized (buffers) {
+        for (ByteBuffer buffer : buffers) {
+          MmapUtil.clean((MappedByteBuffer) buffer);
+        }
+        buffers.clear();
+      }
+    }
+    bufferedArraysRamSize.set(0);
+  }
+}
@@ -42,6 +42,12 @@ public class SystemInfo {
   private volatile boolean rejected = false;
 
   private static long memorySizeForWrite = config.getAllocateMemoryForWrite();
+  /**
+   * memory borrowed from the read caches when the memory for write is used up
+   */
+  private static long borrowedMemory = 0L;
+  // whether the borrowed memory changed and the caches are not resized by it yet
+  private boolean cachesToResize = false;
   private Map<StorageGroupInfo, Long> reportedSgMemCostMap = new HashMap<>();
 
   private static double FLUSH_THERSHOLD = memorySizeForWrite * config.getFlushProportion();
@@ -55,44 +61,105 @@ public class SystemInfo {
    *
    * @param storageGroupInfo storage group
    */
-  public synchronized void reportStorageGroupStatus(StorageGroupInfo storageGroupInfo) {
-    long delta = storageGroupInfo.getMemCost() -
-        reportedSgMemCostMap.getOrDefault(storageGroupInfo, 0L);
-    totalSgMemCost += delta;
-    if (logger.isDebugEnabled()) {
-      logger.debug("Report Storage Group Status to the system. "
-          + "After adding {}, current sg mem cost is {}.", delta, totalSgMemCost);
-    }
-    reportedSgMemCostMap.put(storageGroupInfo, storageGroupInfo.getMemCost());
-    storageGroupInfo.setLastReportedSize(storageGroupInfo.getMemCost());
-    if (totalSgMemCost >= FLUSH_THERSHOLD) {
-      logger.debug("The total storage group mem costs are too large, call for flushing. "
-          + "Current sg cost is {}", totalSgMemCost);
-      chooseTSPToMarkFlush();
-    }
-    if (totalSgMemCost >= REJECT_THERSHOLD) {
-      logger.info("Change system to reject status...");
-      rejected = true;
+  public void reportStorageGroupStatus(StorageGroupInfo storageGroupInfo) {
+    synchronized (this) {
+      long delta = storageGroupInfo.getMemCost() -
+          reportedSgMemCostMap.getOrDefault(storageGroupInfo, 0L);
+      totalSgMemCost += delta;
+      if (logger.isDebugEnabled()) {
+        logger.debug("Report Storage Group Status to the system. "
+            + "After adding {}, current sg mem cost is {}.", delta, totalSgMemCost);
+      }
+      reportedSgMemCostMap.put(storageGroupInfo, storageGroupInfo.getMemCost());
+      storageGroupInfo.setLastReportedSize(storageGroupInfo.getMemCost());
+      if (totalSgMemCost >= FLUSH_THERSHOLD) {
+        logger.debug("The total storage group mem costs are too large, call for flushing. "
+            + "Current sg cost is {}", totalSgMemCost);
+        chooseTSPToMarkFlush();
+      }
+      if (totalSgMemCost >= REJECT_THERSHOLD) {
+        borrowMemoryFromCaches();
+      }
+      if (totalSgMemCost >= REJECT_THERSHOLD) {
+        logger.info("Change system to reject status...");
+        rejected = true;
+      }
+    }
+    resizeCachesIfNeeded();
+  }
+
+  /**
+   * Borrow memory from the read caches, so that the writing is not rejected while the caches are
+   * idle. The borrowed memory is enough for the memory of the storage groups to stay under the
+   * reject threshold until they are reported again.
+   */
+  private void borrowMemoryFromCaches() {
+    long wanted = (long) (totalSgMemCost / config.getRejectProportion())
+        + config.getStorageGroupSizeReportThreshold() - memorySizeForWrite - borrowedMemory;
+    long borrowed = MemoryManager.getInstance().lendCacheMemoryWithoutResize(wanted);
+    if (borrowed > 0) {
+      borrowedMemory += borrowed;
+      cachesToResize = true;
+      updateThresholds();
+      logger.info("Borrow {} bytes from the caches for writing, {} bytes borrowed in total",
+          borrowed, borrowedMemory);
+    }
+  }
+
+  /**
+   * Return the memory borrowed from the caches once the memory of the storage groups gets under
+   * the flush threshold of the memory for write itself.
+   */
+  private void returnMemoryToCaches() {
+    if (borrowedMemory > 0 && totalSgMemCost < memorySizeForWrite * config.getFlushProportion()) {
+      MemoryManager.getInstance().returnCacheMemoryWithoutResize(borrowedMemory);
+      logger.info("Return {} bytes borrowed for writing to the caches", borrowedMemory);
+      borrowedMemory = 0;
+      cachesToResize = true;
+      updateThresholds();
     }
   }
 
+  /**
+   * Resize the caches after the memory borrowed from them changed. It is called after leaving the
+   * lock of SystemInfo, so the writes reporting their memory never wait for the cache evictions.
+   */
+  private void resizeCachesIfNeeded() {
+    synchronized (this) {
+      if (!cachesToResize) {
+        return;
+      }
+      cachesToResize = false;
+    }
+    MemoryManager.getInstance().resizeCaches();
+  }
+
+  private static void updateThresholds() {
+    FLUSH_THERSHOLD = (memorySizeForWrite + borrowedMemory) * config.getFlushProportion();
+    REJECT_THERSHOLD = (memorySizeForWrite + borrowedMemory) * config.getRejectProportion();
+  }
+
   /**
    * Report resetting the mem cost of sg to system.
    * It will be called after flushing, closing and failed to insert
    *
    * @param storageGroupInfo storage group
    */
-  public synchronized void resetStorageGroupStatus(StorageGroupInfo storageGroupInfo,
+  public void resetStorageGroupStatus(StorageGroupInfo storageGroupInfo,
       boolean shouldInvokeFlush) {
-    if (reportedSgMemCostMap.containsKey(storageGroupInfo)) {
-      this.totalSgMemCost -= (reportedSgMemCostMap.get(storageGroupInfo) -
-          storageGroupInfo.getMemCost());
-      storageGroupInfo.setLastReportedSize(storageGroupInfo.getMemCost());
-      reportedSgMemCostMap.put(storageGroupInfo, storageGroupInfo.getMemCost());
-      if (shouldInvokeFlush) {
-        checkSystemToInvokeFlush();
+    synchronized (this) {
+      if (reportedSgMemCostMap.containsKey(storageGroupInfo)) {
+        this.totalSgMemCost -= (reportedSgMemCostMap.get(storageGroupInfo) -
+            storageGroupInfo.getMemCost());
+        storageGroupInfo.setLastReportedSize(storageGroupInfo.getMemCost());
+        reportedSgMemCostMap.put(storageGroupInfo, storageGroupInfo.getMemCost());
+        returnMemoryToCaches();
+        if (shouldInvokeFlush) {
+          checkSystemToInvokeFlush();
+        }
       }
     }
+    resizeCachesIfNeeded();
   }
 
   private void checkSystemToInvokeFlush() {
@@ -185,6 +252,18 @@ public class SystemInfo {
     return rejected;
   }
 
+  public synchronized long getTotalSgMemCost() {
+    return totalSgMemCost;
+  }
+
+  public synchronized long getMemorySizeForWrite() {
+    return memorySizeForWrite;
+  }
+
+  public synchronized long getBorrowedMemory() {
+    return borrowedMemory;
+  }
+
   public void setEncodingFasterThanIo(boolean isEncodingFasterThanIo) {
     this.isEncodingFasterThanIo = isEncodingFasterThanIo;
   }
@@ -194,9 +273,18 @@ public class SystemInfo {
   }
 
   public void close() {
-    reportedSgMemCostMap.clear();
-    totalSgMemCost = 0;
-    rejected = false;
+    synchronized (this) {
+      reportedSgMemCostMap.clear();
+      totalSgMemCost = 0;
+      rejected = false;
+      if (borrowedMemory > 0) {
+        MemoryManager.getInstance().returnCacheMemoryWithoutResize(borrowedMemory);
+        cachesToResize = true;
+      }
+      borrowedMemory = 0;
+      updateThresholds();
+    }
+    resizeCachesIfNeeded();
   }
 
   public static SystemInfo getInstance() {
@@ -213,13 +301,11 @@ public class SystemInfo {
 
   public synchronized void applyTemporaryMemoryForFlushing(long estimatedTemporaryMemSize) {
     memorySizeForWrite -= estimatedTemporaryMemSize;
-    FLUSH_THERSHOLD = memorySizeForWrite * config.getFlushProportion();
-    REJECT_THERSHOLD = memorySizeForWrite * config.getRejectProportion();
+    updateThresholds();
   }
 
   public synchronized void releaseTemporaryMemoryForFlushing(long estimatedTemporaryMemSize) {
     memorySizeForWrite += estimatedTemporaryMemSize;
-    FLUSH_THERSHOLD = memorySizeForWrite * config.getFlushProportion();
-    REJECT_THERSHOLD = memorySizeForWrite * config.getRejectProportion();
+    updateThresholds();
   }
 }
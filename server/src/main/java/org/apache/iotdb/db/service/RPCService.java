@@ -24,13 +24,16 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.runtime.RPCServiceException;
 import org.apache.iotdb.db.service.thrift.ThriftService;
 import org.apache.iotdb.db.service.thrift.ThriftServiceThread;
-import org.apache.iotdb.service.rpc.thrift.TSIService.Processor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * A service to handle jdbc request from client.
  */
 public class RPCService extends ThriftService implements RPCServiceMBean {
 
+  private static final Logger logger = LoggerFactory.getLogger(RPCService.class);
+
   private TSServiceImpl impl;
 
   private RPCService() {
@@ -56,7 +59,7 @@ public class RPCService extends ThriftService implements RPCServiceMBean {
       throws ClassNotFoundException, IllegalAccessException, InstantiationException {
       impl = (TSServiceImpl) Class.forName(IoTDBDescriptor.getInstance().getConfig()
           .getRpcImplClassName()).newInstance();
-      processor = new Processor<>(impl);
+      processor = impl.createProcessor();
   }
 
   @Override
@@ -64,18 +67,44 @@ public class RPCService extends ThriftService implements RPCServiceMBean {
       throws IllegalAccessException, InstantiationException, ClassNotFoundException {
     IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
     try {
-      thriftServiceThread = new ThriftServiceThread(processor,
-          getID().getName(), ThreadName.RPC_CLIENT.getName(),
-          config.getRpcAddress(), config.getRpcPort(), config.getRpcMaxConcurrentClientNum(),
-          config.getThriftServerAwaitTimeForStopService(),
-          new RPCServiceThriftHandler(impl),
-          IoTDBDescriptor.getInstance().getConfig().isRpcThriftCompressionEnable());
+      if (config.isRpcSelectorServerEnable() && !config.isRpcAdvancedCompressionEnable()) {
+        thriftServiceThread = new ThriftServiceThread(processor,
+            getID().getName(), ThreadName.RPC_CLIENT.getName(),
+            config.getRpcAddress(), config.getRpcPort(), config.getRpcSelectorThreadNum(),
+            config.getRpcSelectorWorkerThreadNum(), config.getRpcMaxQueuedRequestNum(),
+            config.getThriftServerAwaitTimeForStopService(),
+            new RPCServiceThriftHandler(impl),
+            config.isRpcThriftCompressionEnable());
+      } else {
+        if (config.isRpcSelectorServerEnable()) {
+          logger.warn("The selector server does not support rpc_advanced_compression_enable, "
+              + "each connection is served by a thread instead");
+        }
+        thriftServiceThread = new ThriftServiceThread(processor,
+            getID().getName(), ThreadName.RPC_CLIENT.getName(),
+            config.getRpcAddress(), config.getRpcPort(), config.getRpcMaxConcurrentClientNum(),
+            config.getThriftServerAwaitTimeForStopService(),
+            new RPCServiceThriftHandler(impl),
+            IoTDBDescriptor.getInstance().getConfig().isRpcThriftCompressionEnable());
+      }
     } catch (RPCServiceException e) {
       throw new IllegalAccessException(e.getMessage());
     }
     thriftServiceThread.setName(ThreadName.RPC_SERVICE.getName());
   }
 
+  @Override
+  public int getQueuedRequestNum() {
+    ThriftServiceThread serviceThread = thriftServiceThread;
+    return serviceThread == null ? 0 : serviceThread.getQueuedRequestNum();
+  }
+
+  @Override
+  public String getRequestLatencyReport() {
+    ThriftServiceThread serviceThread = thriftServiceThread;
+    return serviceThread == null ? "" : serviceThread.getRequestLatencyReport();
+  }
+
   @Override
   public String getBindIP() {
     return IoTDBDescriptor.getInstance().getConfig().getRpcAddress();
@@ -26,6 +26,17 @@ public interface RPCServiceMBean {
 
   int getRPCPort();
 
+  /**
+   * @return the number of the requests waiting for a worker thread, only when the selector server
+   * is enabled
+   */
+  int getQueuedRequestNum();
+
+  /**
+   * @return the number of requests and the latency of each RPC method
+   */
+  String getRequestLatencyReport();
+
   void startService() throws StartupException;
 
   void restartService() throws StartupException;
@@ -33,14 +33,13 @@ public class RPCServiceThriftHandler implements TServerEventHandler {
 
   @Override
   public ServerContext createContext(TProtocol arg0, TProtocol arg1) {
-    // nothing
-    return null;
+    return new ClientContext();
   }
 
   @Override
   public void deleteContext(ServerContext arg0, TProtocol arg1, TProtocol arg2) {
     //release query resources.
-    serviceImpl.handleClientExit();
+    serviceImpl.handleClientExit((ClientContext) arg0);
   }
 
   @Override
@@ -50,6 +49,6 @@ public class RPCServiceThriftHandler implements TServerEventHandler {
 
   @Override
   public void processContext(ServerContext arg0, TTransport arg1, TTransport arg2) {
-    // nothing
+    serviceImpl.setCurrentContext((ClientContext) arg0);
   }
 }
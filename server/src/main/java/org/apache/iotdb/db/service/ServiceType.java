@@ -46,6 +46,8 @@ public enum ServiceType {
   CACHE_HIT_RATIO_DISPLAY_SERVICE("CACHE_HIT_RATIO_DISPLAY_SERVICE",
       generateJmxName(IoTDBConstant.IOTDB_PACKAGE, "Cache Hit Ratio")),
   QUERY_TIME_MANAGER("Query time manager", "Query time"),
+  MEMORY_MANAGER_SERVICE("Memory Manager",
+      generateJmxName(IoTDBConstant.IOTDB_PACKAGE, "Memory Manager")),
 
   FLUSH_SERVICE("Flush ServerService",
       generateJmxName("org.apache.iotdb.db.engine.pool", "Flush Manager")),
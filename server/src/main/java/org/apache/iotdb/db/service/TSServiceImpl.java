@@ -30,6 +30,7 @@ import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -147,6 +148,8 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 import org.apache.thrift.TException;
+import org.apache.thrift.TProcessor;
+import org.apache.thrift.protocol.TProtocol;
 import org.apache.thrift.server.ServerContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -199,8 +202,11 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
   // (queryId -> QueryDataSet)
   private final Map<Long, QueryDataSet> queryId2DataSet = new ConcurrentHashMap<>();
 
-  // When the client abnormally exits, we can still know who to disconnect
-  private final ThreadLocal<Long> currSessionId = new ThreadLocal<>();
+  // the connection of the request being processed by the current thread, it is set before each
+  // request and cleared after it as the requests of a connection may be processed by different
+  // threads, and the session is kept in the connection so that we can still know who to disconnect
+  // when the client abnormally exits
+  private final ThreadLocal<ClientContext> currContext = new ThreadLocal<>();
 
   public static final TSProtocolVersion CURRENT_RPC_VERSION = TSProtocolVersion.IOTDB_SERVICE_PROTOCOL_V3;
 
@@ -262,7 +268,10 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       sessionId = sessionIdGenerator.incrementAndGet();
       sessionIdUsernameMap.put(sessionId, req.getUsername());
       sessionIdZoneIdMap.put(sessionId, ZoneId.of(req.getZoneId()));
-      currSessionId.set(sessionId);
+      ClientContext context = currContext.get();
+      if (context != null) {
+        context.setSessionId(sessionId);
+      }
       AUDIT_LOGGER.info("User {} opens Session-{}", req.getUsername(), sessionId);
       LOGGER.info(
           "{}: Login status: {}. User : {}", IoTDBConstant.GLOBAL_DB_NAME, tsStatus.message,
@@ -287,7 +296,10 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     long sessionId = req.getSessionId();
     AUDIT_LOGGER.info("Session-{} is closing", sessionId);
 
-    currSessionId.remove();
+    ClientContext context = currContext.get();
+    if (context != null && Objects.equals(context.getSessionId(), sessionId)) {
+      context.setSessionId(null);
+    }
     sessionIdZoneIdMap.remove(sessionId);
 
     for (long statementId : sessionId2StatementId.getOrDefault(sessionId, Collections.emptySet())) {
@@ -316,7 +328,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     if (AUDIT_LOGGER.isDebugEnabled()) {
       AUDIT_LOGGER
           .debug("{}: receive close operation from Session {}", IoTDBConstant.GLOBAL_DB_NAME,
-              currSessionId.get());
+              getCurrSessionId());
     }
 
     try {
@@ -356,6 +368,9 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     if (dataSet instanceof UDTFDataSet) {
       ((UDTFDataSet) dataSet).finalizeUDFs(queryId);
     }
+    if (dataSet instanceof AlignByDeviceDataSet) {
+      ((AlignByDeviceDataSet) dataSet).cancelPrefetchedQueries();
+    }
     QueryResourceManager.getInstance().endQuery(queryId);
   }
 
@@ -545,7 +560,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       PhysicalPlan plan, int fetchSize, long timeout, String username)
       throws QueryProcessException, SQLException, StorageEngineException, QueryFilterOptimizationException, MetadataException, IOException, InterruptedException, TException, AuthException {
     queryCount.incrementAndGet();
-    AUDIT_LOGGER.debug("Session {} execute Query: {}", currSessionId.get(), statement);
+    AUDIT_LOGGER.debug("Session {} execute Query: {}", getCurrSessionId(), statement);
     long startTime = System.currentTimeMillis();
     long queryId = -1;
     try {
@@ -1037,11 +1052,47 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     return AuthorityChecker.check(username, paths, plan.getOperatorType(), targetUser);
   }
 
-  protected void handleClientExit() {
-    Long sessionId = currSessionId.get();
+  /**
+   * @return the thrift processor of this service, which clears the context of the current thread
+   * after each request so that it is never seen by a request of another connection
+   */
+  public TProcessor createProcessor() {
+    return new TSIService.Processor<TSServiceImpl>(this) {
+      @Override
+      public void process(TProtocol in, TProtocol out) throws TException {
+        try {
+          super.process(in, out);
+        } finally {
+          currContext.remove();
+        }
+      }
+    };
+  }
+
+  /**
+   * Called before each request of the client connection, with the context created when it
+   * connected.
+   */
+  protected void setCurrentContext(ClientContext context) {
+    currContext.set(context);
+  }
+
+  private Long getCurrSessionId() {
+    ClientContext context = currContext.get();
+    return context == null ? null : context.getSessionId();
+  }
+
+  /**
+   * Called when the client connection is closed, the session opened through it is closed if the
+   * client did not close it.
+   */
+  protected void handleClientExit(ClientContext context) {
+    currContext.remove();
+    Long sessionId = context == null ? null : context.getSessionId();
     if (sessionId != null) {
       TSCloseSessionReq req = new TSCloseSessionReq(sessionId);
       closeSession(req);
+      context.setSessionId(null);
     }
   }
 
@@ -1088,7 +1139,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
 
     if (AUDIT_LOGGER.isDebugEnabled()) {
       AUDIT_LOGGER
-          .debug("Session {} insertRecords, first device {}, first time {}", currSessionId.get(),
+          .debug("Session {} insertRecords, first device {}, first time {}", getCurrSessionId(),
               req.deviceIds.get(0), req.getTimestamps().get(0));
     }
 
@@ -1129,7 +1180,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
 
     if (AUDIT_LOGGER.isDebugEnabled()) {
       AUDIT_LOGGER
-          .debug("Session {} insertRecords, device {}, first time {}", currSessionId.get(),
+          .debug("Session {} insertRecords, device {}, first time {}", getCurrSessionId(),
               req.deviceId, req.getTimestamps().get(0));
     }
 
@@ -1168,7 +1219,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
 
     if (AUDIT_LOGGER.isDebugEnabled()) {
       AUDIT_LOGGER
-          .debug("Session {} insertRecords, first device {}, first time {}", currSessionId.get(),
+          .debug("Session {} insertRecords, first device {}, first time {}", getCurrSessionId(),
               req.deviceIds.get(0), req.getTimestamps().get(0));
     }
 
@@ -1254,7 +1305,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       }
 
       AUDIT_LOGGER
-          .debug("Session {} insertRecord, device {}, time {}", currSessionId.get(),
+          .debug("Session {} insertRecord, device {}, time {}", getCurrSessionId(),
               req.getDeviceId(), req.getTimestamp());
 
       InsertRowPlan plan = new InsertRowPlan(
@@ -1278,7 +1329,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       }
 
       AUDIT_LOGGER
-          .debug("Session {} insertRecord, device {}, time {}", currSessionId.get(),
+          .debug("Session {} insertRecord, device {}, time {}", getCurrSessionId(),
               req.getDeviceId(), req.getTimestamp());
 
       InsertRowPlan plan = new InsertRowPlan();
@@ -1450,7 +1501,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       }
 
       if (AUDIT_LOGGER.isDebugEnabled()) {
-        AUDIT_LOGGER.debug("Session-{} create timeseries {}", currSessionId.get(), req.getPath());
+        AUDIT_LOGGER.debug("Session-{} create timeseries {}", getCurrSessionId(), req.getPath());
       }
 
       CreateTimeSeriesPlan plan = new CreateTimeSeriesPlan(new PartialPath(req.path),
@@ -1475,7 +1526,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       }
 
       if (AUDIT_LOGGER.isDebugEnabled()) {
-        AUDIT_LOGGER.debug("Session-{} create {} timeseries, the first is {}", currSessionId.get(),
+        AUDIT_LOGGER.debug("Session-{} create {} timeseries, the first is {}", getCurrSessionId(),
             req.getPaths().size(), req.getPaths().get(0));
       }
 
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.service.thrift;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.thrift.TException;
+import org.apache.thrift.TProcessor;
+import org.apache.thrift.protocol.TMessage;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolDecorator;
+
+/**
+ * A TProcessor that records the number and the latency of the requests of each RPC method of the
+ * processor it wraps. The latency of a request starts when its message begins to be read, so the
+ * time a connection waits for its next request is not included.
+ */
+public class ProcessorWithMetrics implements TProcessor {
+
+  private final TProcessor processor;
+  private final Map<String, RpcStatistic> statistics = new ConcurrentHashMap<>();
+
+  public ProcessorWithMetrics(TProcessor processor) {
+    this.processor = processor;
+  }
+
+  @Override
+  public void process(TProtocol in, TProtocol out) throws TException {
+    TimedProtocol timedIn = new TimedProtocol(in);
+    try {
+      processor.process(timedIn, out);
+    } finally {
+      if (timedIn.methodName != null) {
+        statistics.computeIfAbsent(timedIn.methodName, m -> new RpcStatistic())
+            .add(System.nanoTime() - timedIn.startTime);
+      }
+    }
+  }
+
+  /**
+   * @return one line for each RPC method, with its number of requests and its average and max
+   * latency in milliseconds
+   */
+  public String getLatencyReport() {
+    StringBuilder report = new StringBuilder();
+    for (Entry<String, RpcStatistic> entry : new TreeMap<>(statistics).entrySet()) {
+      RpcStatistic statistic = entry.getValue();
+      long count = statistic.count.sum();
+      report.append(String.format("%s: count=%d, avg=%.3fms, max=%.3fms%n", entry.getKey(), count,
+          count == 0 ? 0.0 : statistic.totalNanos.sum() / 1_000_000.0 / count,
+          statistic.maxNanos.get() / 1_000_000.0));
+    }
+    return report.toString();
+  }
+
+  private static class RpcStatistic {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private void add(long nanos) {
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+  }
+
+  /**
+   * Records the method name and the start time of the request when its message is read.
+   */
+  private static class TimedProtocol extends TProtocolDecorator {
+
+    private String methodName;
+    private long startTime;
+
+    private TimedProtocol(TProtocol protocol) {
+      super(protocol);
+    }
+
+    @Override
+    public TMessage readMessageBegin() throws TException {
+      TMessage message = super.readMessageBegin();
+      startTime = System.nanoTime();
+      methodName = message.name;
+      return message;
+    }
+  }
+}
@@ -21,6 +21,7 @@ package org.apache.iotdb.db.service.thrift;
 
 import java.net.InetSocketAddress;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
 import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.exception.runtime.RPCServiceException;
@@ -33,6 +34,9 @@ import org.apache.thrift.protocol.TProtocolFactory;
 import org.apache.thrift.server.TServer;
 import org.apache.thrift.server.TServerEventHandler;
 import org.apache.thrift.server.TThreadPoolServer;
+import org.apache.thrift.server.TThreadedSelectorServer;
+import org.apache.thrift.transport.TNonblockingServerSocket;
+import org.apache.thrift.transport.TNonblockingServerTransport;
 import org.apache.thrift.transport.TServerSocket;
 import org.apache.thrift.transport.TServerTransport;
 import org.apache.thrift.transport.TTransportException;
@@ -51,17 +55,19 @@ public class ThriftServiceThread extends Thread {
   private TProtocolFactory protocolFactory;
   private TThreadPoolServer.Args poolArgs;
 
+  // records the requests of each RPC method
+  private ProcessorWithMetrics processorWithMetrics;
+  // the worker pool of the non-blocking server, null if each connection is served by a thread
+  private ThreadPoolExecutor workerPool;
+
   @SuppressWarnings("squid:S107")
   public ThriftServiceThread(TProcessor processor, String serviceName,
       String threadsName,
       String bindAddress, int port, int maxWorkerThreads, int timeoutMs,
       TServerEventHandler serverEventHandler, boolean compress) {
-    if (compress) {
-      protocolFactory = new TCompactProtocol.Factory();
-    } else {
-      protocolFactory = new TBinaryProtocol.Factory();
-    }
+    initProtocolFactory(compress);
     this.serviceName = serviceName;
+    this.processorWithMetrics = new ProcessorWithMetrics(processor);
 
     try {
       serverTransport = openTransport(bindAddress, port);
@@ -71,26 +77,93 @@ public class ThriftServiceThread extends Thread {
           .stopTimeoutVal(timeoutMs);
       poolArgs.executorService = IoTDBThreadPoolFactory.createThriftRpcClientThreadPool(poolArgs,
           threadsName);
-      poolArgs.processor(processor);
+      poolArgs.processor(processorWithMetrics);
       poolArgs.protocolFactory(protocolFactory);
       poolArgs.transportFactory(RpcTransportFactory.INSTANCE);
       poolServer = new TThreadPoolServer(poolArgs);
       poolServer.setServerEventHandler(serverEventHandler);
     } catch (TTransportException e) {
-      close();
-      if (threadStopLatch == null) {
-        logger.debug("Stop Count Down latch is null");
-      } else {
-        logger.debug("Stop Count Down latch is {}", threadStopLatch.getCount());
-      }
-      if (threadStopLatch != null && threadStopLatch.getCount() == 1) {
-        threadStopLatch.countDown();
+      catchFailedInitialization(e);
+    }
+  }
+
+  /**
+   * Serve the clients with a selector-based non-blocking server. The connections are read and
+   * written by the selector threads, so idle connections do not occupy a thread, and the requests
+   * are processed by a fixed number of worker threads. The requests are framed as those of the
+   * thread-per-connection server, but the snappy compressed frames are not supported.
+   */
+  @SuppressWarnings("squid:S107")
+  public ThriftServiceThread(TProcessor processor, String serviceName,
+      String threadsName, String bindAddress, int port, int selectorThreads, int workerThreads,
+      int maxQueuedRequestNum, int timeoutMs, TServerEventHandler serverEventHandler,
+      boolean compress) {
+    initProtocolFactory(compress);
+    this.serviceName = serviceName;
+    this.processorWithMetrics = new ProcessorWithMetrics(processor);
+
+    try {
+      serverTransport = openNonblockingTransport(bindAddress, port);
+      workerPool = IoTDBThreadPoolFactory
+          .createThriftRpcWorkerThreadPool(workerThreads, maxQueuedRequestNum, threadsName);
+      TThreadedSelectorServer.Args selectorArgs = new TThreadedSelectorServer.Args(
+          (TNonblockingServerTransport) serverTransport)
+          .selectorThreads(selectorThreads)
+          .executorService(workerPool)
+          .stopTimeoutVal(timeoutMs);
+      selectorArgs.processor(processorWithMetrics);
+      selectorArgs.protocolFactory(protocolFactory);
+      poolServer = new TThreadedSelectorServer(selectorArgs);
+      poolServer.setServerEventHandler(serverEventHandler);
+    } catch (TTransportException e) {
+      catchFailedInitialization(e);
+    }
+  }
+
+  private void initProtocolFactory(boolean compress) {
+    if (compress) {
+      protocolFactory = new TCompactProtocol.Factory();
+    } else {
+      protocolFactory = new TBinaryProtocol.Factory();
+    }
+  }
+
+  private void catchFailedInitialization(TTransportException e) {
+    close();
+    if (threadStopLatch == null) {
+      logger.debug("Stop Count Down latch is null");
+    } else {
+      logger.debug("Stop Count Down latch is {}", threadStopLatch.getCount());
+    }
+    if (threadStopLatch != null && threadStopLatch.getCount() == 1) {
+      threadStopLatch.countDown();
+    }
+    logger.debug("{}: close TThreadPoolServer and TServerSocket for {}",
+        IoTDBConstant.GLOBAL_DB_NAME, serviceName);
+    throw new RPCServiceException(String.format("%s: failed to start %s, because ",
+        IoTDBConstant.GLOBAL_DB_NAME, serviceName), e);
+  }
+
+  @SuppressWarnings("java:S2259")
+  private TServerTransport openNonblockingTransport(String bindAddress, int port)
+      throws TTransportException {
+    int maxRetry = 5;
+    long retryIntervalMS = 5000;
+    TTransportException lastExp = null;
+    for (int i = 0; i < maxRetry; i++) {
+      try {
+        return new TNonblockingServerSocket(new InetSocketAddress(bindAddress, port));
+      } catch (TTransportException e) {
+        lastExp = e;
+        try {
+          Thread.sleep(retryIntervalMS);
+        } catch (InterruptedException interruptedException) {
+          Thread.currentThread().interrupt();
+          break;
+        }
       }
-      logger.debug("{}: close TThreadPoolServer and TServerSocket for {}",
-          IoTDBConstant.GLOBAL_DB_NAME, serviceName);
-      throw new RPCServiceException(String.format("%s: failed to start %s, because ",
-          IoTDBConstant.GLOBAL_DB_NAME, serviceName), e);
     }
+    throw lastExp;
   }
 
   @SuppressWarnings("java:S2259")
@@ -151,12 +224,29 @@ public class ThriftServiceThread extends Thread {
 
       poolServer = null;
     }
+    if (workerPool != null) {
+      workerPool.shutdownNow();
+      workerPool = null;
+    }
     if (serverTransport != null) {
       serverTransport.close();
       serverTransport = null;
     }
   }
 
+  /**
+   * @return the number of the requests waiting for a worker thread of the non-blocking server, 0
+   * if each connection is served by a thread
+   */
+  public int getQueuedRequestNum() {
+    ThreadPoolExecutor pool = workerPool;
+    return pool == null ? 0 : pool.getQueue().size();
+  }
+
+  public String getRequestLatencyReport() {
+    return processorWithMetrics.getLatencyReport();
+  }
+
   public boolean isServing() {
     if (poolServer != null) {
       return poolServer.isServing();
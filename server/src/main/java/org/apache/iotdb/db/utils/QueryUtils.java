@@ -34,6 +34,26 @@ public class QueryUtils {
     // util class
   }
 
+  /**
+   * @param timestamps monotonic timestamps, increasing if ascending and decreasing otherwise
+   * @return the index of the first timestamp in [from, to) that is not before the given time in
+   * the order of the timestamps, or to if there is no such timestamp
+   */
+  public static int firstTimestampNotBefore(long[] timestamps, int from, int to, long time,
+      boolean ascending) {
+    int low = from;
+    int high = to;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (ascending ? timestamps[mid] < time : timestamps[mid] > time) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
   /**
    * modifyChunkMetaData iterates the chunkMetaData and applies all available modifications on it to
    * generate a ModifiedChunkMetadata. <br/> the caller should guarantee that chunkMetaData and
@@ -0,0 +1,407 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils.datastructure;
+
+import static org.apache.iotdb.db.rescon.PrimitiveArrayManager.ARRAY_SIZE;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.db.rescon.OffHeapArrayManager;
+import org.apache.iotdb.db.rescon.PrimitiveArrayManager;
+import org.apache.iotdb.db.utils.MathUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TimeValuePair;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+
+/**
+ * A TVList of a fixed-length data type whose points are stored in direct buffers from
+ * OffHeapArrayManager instead of heap arrays, so that large memtables do not burden GC. Each buffer
+ * holds the timestamps of ARRAY_SIZE points followed by their values, a value is stored by its raw
+ * bits in as many bytes as the data type takes.
+ */
+public class OffHeapTVList extends TVList {
+
+  private final TSDataType dataType;
+  private final int valueSize;
+
+  private final List<ByteBuffer> buffers;
+
+  /**
+   * raw bits of the values, for sorting
+   */
+  private long[][] sortedValues;
+
+  private long pivotValue;
+
+  OffHeapTVList(TSDataType dataType) {
+    super();
+    if (dataType == TSDataType.TEXT) {
+      throw new UnsupportedOperationException("TEXT values cannot be stored off heap");
+    }
+    this.dataType = dataType;
+    this.valueSize = dataType.getDataTypeSize();
+    buffers = new ArrayList<>();
+  }
+
+  @Override
+  public long getTime(int index) {
+    if (index >= size) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    return buffers.get(index / ARRAY_SIZE).getLong((index % ARRAY_SIZE) * Long.BYTES);
+  }
+
+  private long getValueBits(int index) {
+    if (index >= size) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    ByteBuffer buffer = buffers.get(index / ARRAY_SIZE);
+    int position = ARRAY_SIZE * Long.BYTES + (index % ARRAY_SIZE) * valueSize;
+    switch (valueSize) {
+      case Byte.BYTES:
+        return buffer.get(position);
+      case Integer.BYTES:
+        return buffer.getInt(position);
+      default:
+        return buffer.getLong(position);
+    }
+  }
+
+  private void set(int index, long timestamp, long valueBits) {
+    if (index >= size) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    ByteBuffer buffer = buffers.get(index / ARRAY_SIZE);
+    int elementIndex = index % ARRAY_SIZE;
+    buffer.putLong(elementIndex * Long.BYTES, timestamp);
+    int position = ARRAY_SIZE * Long.BYTES + elementIndex * valueSize;
+    switch (valueSize) {
+      case Byte.BYTES:
+        buffer.put(position, (byte) valueBits);
+        break;
+      case Integer.BYTES:
+        buffer.putInt(position, (int) valueBits);
+        break;
+      default:
+        buffer.putLong(position, valueBits);
+        break;
+    }
+  }
+
+  private void put(long timestamp, long valueBits) {
+    checkExpansion();
+    minTime = Math.min(minTime, timestamp);
+    size++;
+    set(size - 1, timestamp, valueBits);
+    if (sorted && size > 1 && timestamp < getTime(size - 2)) {
+      sorted = false;
+    }
+  }
+
+  /**
+   * Append points whose minTime and sorted have been updated.
+   */
+  private void append(long timestamp, long valueBits) {
+    checkExpansion();
+    size++;
+    set(size - 1, timestamp, valueBits);
+  }
+
+  private void checkDataType(TSDataType expected) {
+    if (dataType != expected) {
+      throw new UnsupportedOperationException(ERR_DATATYPE_NOT_CONSISTENT);
+    }
+  }
+
+  @Override
+  public void putLong(long timestamp, long value) {
+    checkDataType(TSDataType.INT64);
+    put(timestamp, value);
+  }
+
+  @Override
+  public void putInt(long timestamp, int value) {
+    checkDataType(TSDataType.INT32);
+    put(timestamp, value);
+  }
+
+  @Override
+  public void putFloat(long timestamp, float value) {
+    checkDataType(TSDataType.FLOAT);
+    put(timestamp, Float.floatToRawIntBits(value));
+  }
+
+  @Override
+  public void putDouble(long timestamp, double value) {
+    checkDataType(TSDataType.DOUBLE);
+    put(timestamp, Double.doubleToRawLongBits(value));
+  }
+
+  @Override
+  public void putBoolean(long timestamp, boolean value) {
+    checkDataType(TSDataType.BOOLEAN);
+    put(timestamp, value ? 1 : 0);
+  }
+
+  @Override
+  public void putLongs(long[] time, long[] value, int start, int end) {
+    checkDataType(TSDataType.INT64);
+    updateMinTimeAndSorted(time, start, end);
+    for (int i = start; i < end; i++) {
+      append(time[i], value[i]);
+    }
+  }
+
+  @Override
+  public void putInts(long[] time, int[] value, int start, int end) {
+    checkDataType(TSDataType.INT32);
+    updateMinTimeAndSorted(time, start, end);
+    for (int i = start; i < end; i++) {
+      append(time[i], value[i]);
+    }
+  }
+
+  @Override
+  public void putFloats(long[] time, float[] value, int start, int end) {
+    checkDataType(TSDataType.FLOAT);
+    updateMinTimeAndSorted(time, start, end);
+    for (int i = start; i < end; i++) {
+      append(time[i], Float.floatToRawIntBits(value[i]));
+    }
+  }
+
+  @Override
+  public void putDoubles(long[] time, double[] value, int start, int end) {
+    checkDataType(TSDataType.DOUBLE);
+    updateMinTimeAndSorted(time, start, end);
+    for (int i = start; i < end; i++) {
+      append(time[i], Double.doubleToRawLongBits(value[i]));
+    }
+  }
+
+  @Override
+  public void putBooleans(long[] time, boolean[] value, int start, int end) {
+    checkDataType(TSDataType.BOOLEAN);
+    updateMinTimeAndSorted(time, start, end);
+    for (int i = start; i < end; i++) {
+      append(time[i], value[i] ? 1 : 0);
+    }
+  }
+
+  @Override
+  public long getLong(int index) {
+    checkDataType(TSDataType.INT64);
+    return getValueBits(index);
+  }
+
+  @Override
+  public int getInt(int index) {
+    checkDataType(TSDataType.INT32);
+    return (int) getValueBits(index);
+  }
+
+  @Override
+  public float getFloat(int index) {
+    checkDataType(TSDataType.FLOAT);
+    return Float.intBitsToFloat((int) getValueBits(index));
+  }
+
+  @Override
+  public double getDouble(int index) {
+    checkDataType(TSDataType.DOUBLE);
+    return Double.longBitsToDouble(getValueBits(index));
+  }
+
+  @Override
+  public boolean getBoolean(int index) {
+    checkDataType(TSDataType.BOOLEAN);
+    return getValueBits(index) != 0;
+  }
+
+  /**
+   * The queries read a copy on heap instead of this list, so the direct buffers are only held by
+   * the memtable and are given back to OffHeapArrayManager when it is released, instead of being
+   * dropped with the list after the queries.
+   */
+  @Override
+  public TVList getListForQuery() {
+    return clone();
+  }
+
+  /**
+   * @return a copy whose points are in heap buffers, which are freed by GC with the copy and are
+   * not taken from or given back to OffHeapArrayManager
+   */
+  @Override
+  public OffHeapTVList clone() {
+    OffHeapTVList cloneList = new OffHeapTVList(dataType);
+    cloneAs(cloneList);
+    for (ByteBuffer buffer : buffers) {
+      ByteBuffer cloneBuffer = ByteBuffer.allocate(buffer.capacity()).order(buffer.order());
+      ByteBuffer source = buffer.duplicate();
+      source.clear();
+      cloneBuffer.put(source);
+      cloneList.buffers.add(cloneBuffer);
+    }
+    return cloneList;
+  }
+
+  @Override
+  public int delete(long lowerBound, long upperBound) {
+    int deletedNumber = super.delete(lowerBound, upperBound);
+    // release the buffers that are empty
+    int newArrayNum = size / ARRAY_SIZE;
+    if (size % ARRAY_SIZE != 0) {
+      newArrayNum++;
+    }
+    while (buffers.size() > newArrayNum) {
+      releaseLastValueArray();
+    }
+    return deletedNumber;
+  }
+
+  @Override
+  public void sort() {
+    if (sortedTimestamps == null || sortedTimestamps.length < size) {
+      sortedTimestamps = (long[][]) PrimitiveArrayManager
+          .createDataListsByType(TSDataType.INT64, size);
+    }
+    if (sortedValues == null || sortedValues.length < size) {
+      sortedValues = (long[][]) PrimitiveArrayManager.createDataListsByType(TSDataType.INT64, size);
+    }
+    sort(0, size);
+    clearSortedValue();
+    clearSortedTime();
+    sorted = true;
+  }
+
+  @Override
+  protected void checkExpansion() {
+    if ((size % ARRAY_SIZE) == 0) {
+      expandValues();
+    }
+  }
+
+  @Override
+  protected void expandValues() {
+    buffers.add(OffHeapArrayManager.getArray(dataType));
+  }
+
+  @Override
+  protected void releaseLastValueArray() {
+    OffHeapArrayManager.release(dataType, buffers.remove(buffers.size() - 1));
+  }
+
+  @Override
+  void clearValue() {
+    for (ByteBuffer buffer : buffers) {
+      OffHeapArrayManager.release(dataType, buffer);
+    }
+    buffers.clear();
+  }
+
+  @Override
+  void clearSortedValue() {
+    if (sortedValues != null) {
+      sortedValues = null;
+    }
+  }
+
+  @Override
+  protected void setFromSorted(int src, int dest) {
+    set(dest, sortedTimestamps[src / ARRAY_SIZE][src % ARRAY_SIZE],
+        sortedValues[src / ARRAY_SIZE][src % ARRAY_SIZE]);
+  }
+
+  @Override
+  protected void set(int src, int dest) {
+    set(dest, getTime(src), getValueBits(src));
+  }
+
+  @Override
+  protected void setToSorted(int src, int dest) {
+    sortedTimestamps[dest / ARRAY_SIZE][dest % ARRAY_SIZE] = getTime(src);
+    sortedValues[dest / ARRAY_SIZE][dest % ARRAY_SIZE] = getValueBits(src);
+  }
+
+  @Override
+  protected void reverseRange(int lo, int hi) {
+    hi--;
+    while (lo < hi) {
+      long loT = getTime(lo);
+      long loV = getValueBits(lo);
+      long hiT = getTime(hi);
+      long hiV = getValueBits(hi);
+      set(lo++, hiT, hiV);
+      set(hi--, loT, loV);
+    }
+  }
+
+  @Override
+  protected void saveAsPivot(int pos) {
+    pivotTime = getTime(pos);
+    pivotValue = getValueBits(pos);
+  }
+
+  @Override
+  protected void setPivotTo(int pos) {
+    set(pos, pivotTime, pivotValue);
+  }
+
+  @Override
+  public TimeValuePair getTimeValuePair(int index) {
+    return new TimeValuePair(getTime(index), getValue(index));
+  }
+
+  @Override
+  protected TimeValuePair getTimeValuePair(int index, long time, Integer floatPrecision,
+      TSEncoding encoding) {
+    boolean round = encoding == TSEncoding.RLE || encoding == TSEncoding.TS_2DIFF;
+    if (round && dataType == TSDataType.FLOAT) {
+      return new TimeValuePair(time, TsPrimitiveType.getByType(TSDataType.FLOAT,
+          MathUtils.roundWithGivenPrecision(getFloat(index), floatPrecision)));
+    } else if (round && dataType == TSDataType.DOUBLE) {
+      return new TimeValuePair(time, TsPrimitiveType.getByType(TSDataType.DOUBLE,
+          MathUtils.roundWithGivenPrecision(getDouble(index), floatPrecision)));
+    }
+    return new TimeValuePair(time, getValue(index));
+  }
+
+  private TsPrimitiveType getValue(int index) {
+    switch (dataType) {
+      case BOOLEAN:
+        return TsPrimitiveType.getByType(dataType, getBoolean(index));
+      case INT32:
+        return TsPrimitiveType.getByType(dataType, getInt(index));
+      case INT64:
+        return TsPrimitiveType.getByType(dataType, getLong(index));
+      case FLOAT:
+        return TsPrimitiveType.getByType(dataType, getFloat(index));
+      default:
+        return TsPrimitiveType.getByType(dataType, getDouble(index));
+    }
+  }
+
+  @Override
+  public TSDataType getDataType() {
+    return dataType;
+  }
+}
@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.rescon.PrimitiveArrayManager;
 import org.apache.iotdb.db.utils.TestOnly;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -38,7 +39,7 @@ import org.apache.iotdb.tsfile.utils.Binary;
 public abstract class TVList {
 
   protected static final int SMALL_ARRAY_LENGTH = 32;
-  private static final String ERR_DATATYPE_NOT_CONSISTENT = "DataType not consistent";
+  protected static final String ERR_DATATYPE_NOT_CONSISTENT = "DataType not consistent";
   protected List<long[]> timestamps;
   protected int size;
 
@@ -60,6 +61,10 @@ public abstract class TVList {
   }
 
   public static TVList newList(TSDataType dataType) {
+    if (dataType != TSDataType.TEXT
+        && IoTDBDescriptor.getInstance().getConfig().isEnableOffHeapMemtable()) {
+      return new OffHeapTVList(dataType);
+    }
     switch (dataType) {
       case TEXT:
         return new BinaryTVList();
@@ -96,6 +101,15 @@ public abstract class TVList {
     referenceCount.incrementAndGet();
   }
 
+  /**
+   * @return the list read by a query, which is this list with its reference count increased, so
+   * that it is cloned instead of being sorted while the query reads it
+   */
+  public TVList getListForQuery() {
+    increaseReferenceCount();
+    return this;
+  }
+
   public int getReferenceCount() {
     return referenceCount.get();
   }
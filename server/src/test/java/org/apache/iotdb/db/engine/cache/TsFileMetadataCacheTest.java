@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import java.io.File;
+import java.io.IOException;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.MetadataManagerHelper;
+import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy.DirectFlushPolicy;
+import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.WriteProcessException;
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
+import org.apache.iotdb.tsfile.file.metadata.TsFileMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TsFileMetadataCacheTest {
+
+  private String storageGroup = "root.vehicle.d0";
+  private String measurementId0 = "s0";
+  private StorageGroupProcessor storageGroupProcessor;
+  private String systemDir = TestConstant.BASE_OUTPUT_PATH.concat("data")
+      .concat(File.separator).concat("info");
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    MetadataManagerHelper.initMetadata();
+    storageGroupProcessor = new StorageGroupProcessor(systemDir, storageGroup,
+        new DirectFlushPolicy(), storageGroup);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    FileReaderManager.getInstance().closeAndRemoveAllOpenedReaders();
+    storageGroupProcessor.syncDeleteDataFiles();
+    EnvironmentUtils.cleanEnv();
+    EnvironmentUtils.cleanDir(systemDir);
+  }
+
+  private void insertData() throws WriteProcessException, IllegalPathException {
+    for (int j = 1; j <= 100; j++) {
+      TSRecord record = new TSRecord(j, storageGroup);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId0, String.valueOf(j)));
+      storageGroupProcessor.insert(new InsertRowPlan(record));
+    }
+    storageGroupProcessor.syncCloseAllWorkingTsFileProcessors();
+  }
+
+  @Test
+  public void testSharedAcrossReaders()
+      throws IOException, WriteProcessException, IllegalPathException, InterruptedException {
+    insertData();
+    // the file metadata is cached in the background when the file is sealed
+    long waitStartTime = System.currentTimeMillis();
+    while (TsFileMetadataCache.getInstance().isEmpty()
+        && System.currentTimeMillis() - waitStartTime < 10_000) {
+      Thread.sleep(10);
+    }
+    Assert.assertFalse(TsFileMetadataCache.getInstance().isEmpty());
+    TsFileResource resource = storageGroupProcessor.getSequenceFileTreeSet().get(0);
+
+    TsFileSequenceReader reader = FileReaderManager.getInstance()
+        .get(resource.getTsFilePath(), true);
+    TsFileMetadata fileMetadata = reader.readFileMetadata();
+    Assert.assertTrue(fileMetadata.getBloomFilter()
+        .contains(storageGroup + TsFileConstant.PATH_SEPARATOR + measurementId0));
+
+    // a reader opened again does not read the file metadata from the file
+    FileReaderManager.getInstance().closeAndRemoveAllOpenedReaders();
+    reader = FileReaderManager.getInstance().get(resource.getTsFilePath(), true);
+    Assert.assertSame(fileMetadata, reader.readFileMetadata());
+
+    FileReaderManager.getInstance().closeAndRemoveAllOpenedReaders();
+    resource.remove();
+    Assert.assertTrue(TsFileMetadataCache.getInstance().isEmpty());
+  }
+}
@@ -27,6 +27,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -141,6 +142,93 @@ public class CompactionChunkTest extends LevelCompactionTest {
     reader.close();
   }
 
+  @Test
+  public void testTransferMerge() throws IOException, IllegalPathException {
+    List<TsFileResource> sourceTsfileResources = seqResources.subList(1, 4);
+    File file = new File(TestConstant.BASE_OUTPUT_PATH
+        .concat(1 + IoTDBConstant.FILE_NAME_SEPARATOR + 1 + IoTDBConstant.FILE_NAME_SEPARATOR + 1
+            + ".tsfile"));
+    TsFileResource targetTsfileResource = new TsFileResource(file);
+    Map<Path, Integer> sourceChunkNums = new HashMap<>();
+    for (TsFileResource tsFileResource : sourceTsfileResources) {
+      try (TsFileSequenceReader reader = new TsFileSequenceReader(
+          tsFileResource.getTsFilePath())) {
+        for (Path path : reader.getAllPaths()) {
+          sourceChunkNums.merge(path, reader.getChunkMetadataList(path).size(), Integer::sum);
+        }
+      }
+    }
+    // no chunk is small enough to be merged, so all chunks are transferred as they are
+    CompactionUtils.merge(targetTsfileResource, new ArrayList<>(sourceTsfileResources),
+        COMPACTION_TEST_SG, null, new HashSet<>(), true, new ArrayList<>());
+
+    TsFileSequenceReader reader = new TsFileSequenceReader(file.getPath());
+    List<Path> paths = reader.getAllPaths();
+    assertEquals(deviceNum * measurementNum, paths.size());
+    for (Path path : paths) {
+      List<ChunkMetadata> chunkMetadataList = reader.getChunkMetadataList(path);
+      assertEquals((int) sourceChunkNums.get(path), chunkMetadataList.size());
+      long totalPointCount = 0;
+      for (ChunkMetadata chunkMetadata : chunkMetadataList) {
+        Chunk chunk = reader.readMemChunk(chunkMetadata);
+        assertEquals(path.getMeasurement(), chunk.getHeader().getMeasurementID());
+        IChunkReader chunkReader = new ChunkReaderByTimestamp(chunk);
+        long chunkPointCount = 0;
+        while (chunkReader.hasNextSatisfiedPage()) {
+          BatchData batchData = chunkReader.nextPageData();
+          for (int i = 0; i < batchData.length(); i++) {
+            assertEquals(ptNum + totalPointCount + chunkPointCount + i,
+                batchData.getTimeByIndex(i));
+            assertEquals(batchData.getTimeByIndex(i), batchData.getDoubleByIndex(i), 0.001);
+          }
+          chunkPointCount += batchData.length();
+        }
+        assertEquals(chunkPointCount, chunkMetadata.getNumOfPoints());
+        totalPointCount += chunkPointCount;
+      }
+      assertEquals(3 * ptNum, totalPointCount);
+      assertEquals(ptNum, targetTsfileResource.getStartTime(path.getDevice()));
+      assertEquals(4 * ptNum - 1, targetTsfileResource.getEndTime(path.getDevice()));
+    }
+    reader.close();
+  }
+
+  @Test
+  public void testMergeWithTTL() throws IOException, IllegalPathException {
+    List<TsFileResource> sourceTsfileResources = seqResources.subList(1, 4);
+    // the chunks of the first file are out of TTL and dropped, the others are kept as they are
+    checkMergeWithTTL(sourceTsfileResources, true, 2 * ptNum, 2 * ptNum);
+    // the deserialized points out of TTL are dropped
+    checkMergeWithTTL(sourceTsfileResources, false, 2 * ptNum + ptNum / 2,
+        2 * ptNum + ptNum / 2);
+  }
+
+  private void checkMergeWithTTL(List<TsFileResource> sourceTsfileResources, boolean sequence,
+      long timeLowerBound, long expectedStartTime) throws IOException, IllegalPathException {
+    File file = new File(TestConstant.BASE_OUTPUT_PATH
+        .concat(1 + IoTDBConstant.FILE_NAME_SEPARATOR + 1 + IoTDBConstant.FILE_NAME_SEPARATOR + 1
+            + ".tsfile"));
+    TsFileResource targetTsfileResource = new TsFileResource(file);
+    CompactionUtils.merge(targetTsfileResource, new ArrayList<>(sourceTsfileResources),
+        COMPACTION_TEST_SG, null, new HashSet<>(), sequence, new ArrayList<>(), timeLowerBound);
+
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getPath())) {
+      List<Path> paths = reader.getAllPaths();
+      assertEquals(deviceNum * measurementNum, paths.size());
+      for (Path path : paths) {
+        long pointCount = 0;
+        for (ChunkMetadata chunkMetadata : reader.getChunkMetadataList(path)) {
+          pointCount += chunkMetadata.getNumOfPoints();
+        }
+        assertEquals(4 * ptNum - expectedStartTime, pointCount);
+        assertEquals(expectedStartTime, targetTsfileResource.getStartTime(path.getDevice()));
+        assertEquals(4 * ptNum - 1, targetTsfileResource.getEndTime(path.getDevice()));
+      }
+    }
+    FileUtils.forceDelete(file);
+    FileUtils.deleteQuietly(new File(file.getPath() + TsFileResource.RESOURCE_SUFFIX));
+  }
+
   @Test
   public void testDeserializeMerge() throws IOException, IllegalPathException {
     Map<String, Map<TsFileSequenceReader, List<ChunkMetadata>>> measurementChunkMetadataMap = new HashMap<>();
@@ -18,13 +18,18 @@
  */
 package org.apache.iotdb.db.engine.memtable;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.WriteProcessException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 
 /**
- * Memtable insert benchmark. Bench the Memtable and get its performance.
+ * Memtable insert benchmark. Bench the Memtable with heap and off-heap TVLists and get their
+ * performance and GC time.
  */
 public class MemtableBenchmark {
 
@@ -42,20 +47,47 @@ public class MemtableBenchmark {
   }
 
   public static void main(String[] args) throws WriteProcessException {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    boolean prevEnableOffHeapMemtable = config.isEnableOffHeapMemtable();
+    try {
+      // the first two rounds warm up
+      for (boolean enableOffHeapMemtable : new boolean[]{false, true, false, true}) {
+        config.setEnableOffHeapMemtable(enableOffHeapMemtable);
+        run(enableOffHeapMemtable);
+      }
+    } finally {
+      config.setEnableOffHeapMemtable(prevEnableOffHeapMemtable);
+    }
+  }
+
+  private static void run(boolean enableOffHeapMemtable) throws WriteProcessException {
     IMemTable memTable = new PrimitiveMemTable();
+    final long startGcTime = getGcTime();
     final long startTime = System.currentTimeMillis();
     // cpu not locality
     for (int i = 0; i < numOfPoint; i++) {
       for (int j = 0; j < numOfMeasurement; j++) {
         memTable.write(deviceId, measurementId[j], new MeasurementSchema(measurementId[j], tsDataType, TSEncoding.PLAIN), System.nanoTime(),
-            String.valueOf(System.currentTimeMillis()));
+            System.currentTimeMillis());
       }
     }
+    // a full GC walks all the live arrays of the memtable, as the GCs during a long ingestion do
+    System.gc();
 
     final long endTime = System.currentTimeMillis();
     System.out.println(String.format(
-        "Num of time series: %d, " + "Num of points for each time series: %d, "
-            + "The total time: %d ms. ",
-        numOfMeasurement, numOfPoint, endTime - startTime));
+        "Off heap: %s, Num of time series: %d, " + "Num of points for each time series: %d, "
+            + "The total time: %d ms, GC time: %d ms. ",
+        enableOffHeapMemtable, numOfMeasurement, numOfPoint, endTime - startTime,
+        getGcTime() - startGcTime));
+    memTable.release();
+  }
+
+  private static long getGcTime() {
+    long gcTime = 0;
+    for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      gcTime += gcBean.getCollectionTime();
+    }
+    return gcTime;
   }
 }
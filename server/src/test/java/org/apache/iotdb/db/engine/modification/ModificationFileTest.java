@@ -20,13 +20,20 @@
 package org.apache.iotdb.db.engine.modification;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.metadata.PartialPath;
 import org.junit.Test;
 
@@ -97,4 +104,69 @@ public class ModificationFileTest {
       new File(tempFileName).delete();
     }
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testPathModifications() throws IllegalPathException {
+    String tempFileName = TestConstant.BASE_OUTPUT_PATH.concat("mod.temp");
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    long prevCacheSize = config.getModificationCacheSize();
+    // too small to hold the modifications of both files
+    config.setModificationCacheSize(3);
+    Modification[] modifications = new Modification[]{
+        new Deletion(new PartialPath("root.sg.d1.s1"), 1, 1),
+        new Deletion(new PartialPath("root.sg.d1"), 2, 2),
+        new Deletion(new PartialPath("root.sg.*.s1"), 3, 3, 4),
+        new Deletion(new PartialPath("root.sg.d2.s1"), 4, 4, 5),
+        new Deletion(new PartialPath("root.sg.d1.s11"), 5, 5, 6)
+    };
+    try (ModificationFile mFile = new ModificationFile(tempFileName);
+        ModificationFile otherFile = new ModificationFile(tempFileName + "2")) {
+      for (int i = 0; i < 3; i++) {
+        mFile.write(modifications[i]);
+      }
+      assertEquals(Arrays.asList(modifications[1], modifications[0], modifications[2]),
+          mFile.getModifications(new PartialPath("root.sg.d1.s1")));
+      // added after the index is built
+      for (int i = 3; i < 5; i++) {
+        mFile.write(modifications[i]);
+      }
+      assertEquals(Arrays.asList(modifications[3], modifications[2]),
+          mFile.getModifications(new PartialPath("root.sg.d2.s1")));
+      assertEquals(Arrays.asList(modifications[1], modifications[4]),
+          mFile.getModifications(new PartialPath("root.sg.d1.s11")));
+
+      // the modifications of the other file release those of this one, which are read again
+      otherFile.write(modifications[0]);
+      otherFile.getModifications(new PartialPath("root.sg.d1.s1"));
+      assertEquals(Collections.singletonList(modifications[1]),
+          mFile.getModifications(new PartialPath("root.sg.d1.s2")));
+      assertEquals(5, mFile.getModifications().size());
+    } catch (IOException e) {
+      fail(e.getMessage());
+    } finally {
+      config.setModificationCacheSize(prevCacheSize);
+      new File(tempFileName).delete();
+      new File(tempFileName + "2").delete();
+    }
+  }
+
+  @Test
+  public void testCachedFiles() throws IllegalPathException, IOException {
+    String tempFileName = TestConstant.BASE_OUTPUT_PATH.concat("mod.temp");
+    ModificationFileCache cache = ModificationFileCache.getInstance();
+    try {
+      ModificationFile mFile = new ModificationFile(tempFileName);
+      // a file without modifications holds nothing to release
+      assertTrue(mFile.getModifications().isEmpty());
+      assertFalse(cache.contains(mFile));
+
+      mFile.write(new Deletion(new PartialPath("root.sg.d1.s1"), 1, 1));
+      assertTrue(cache.contains(mFile));
+      mFile.remove();
+      assertFalse(cache.contains(mFile));
+      assertFalse(new File(tempFileName).exists());
+    } finally {
+      new File(tempFileName).delete();
+    }
+  }
+}
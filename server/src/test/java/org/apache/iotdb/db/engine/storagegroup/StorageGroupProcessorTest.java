@@ -620,6 +620,65 @@ public class StorageGroupProcessorTest {
     }
   }
 
+  @Test
+  public void testMinUnflushedPlanIndex()
+      throws WriteProcessException, IllegalPathException {
+    Assert.assertEquals(Long.MAX_VALUE, processor.getMinUnflushedPlanIndex((sg, partition) -> true));
+    for (int j = 1; j <= 10; j++) {
+      TSRecord record = new TSRecord(j, deviceId);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+      InsertRowPlan plan = new InsertRowPlan(record);
+      plan.setIndex(100 + j);
+      processor.insert(plan);
+    }
+    Assert.assertEquals(101, processor.getMinUnflushedPlanIndex((sg, partition) -> true));
+    Assert.assertEquals(Long.MAX_VALUE,
+        processor.getMinUnflushedPlanIndex((sg, partition) -> false));
+
+    processor.syncCloseAllWorkingTsFileProcessors();
+    Assert.assertEquals(Long.MAX_VALUE, processor.getMinUnflushedPlanIndex((sg, partition) -> true));
+  }
+
+  @Test
+  public void testReapplyDeletionAfterRestart()
+      throws WriteProcessException, IOException, IllegalPathException, QueryProcessException,
+      StorageGroupProcessorException {
+    // plan 1 is flushed into the first file
+    for (int j = 1; j <= 10; j++) {
+      TSRecord record = new TSRecord(j, deviceId);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+      InsertRowPlan plan = new InsertRowPlan(record);
+      plan.setIndex(1);
+      processor.insert(plan);
+    }
+    processor.syncCloseAllWorkingTsFileProcessors();
+    // plan 2 deletes a part of it
+    processor.delete(new PartialPath(deviceId, measurementId), 1, 5, 2);
+    // plan 3 writes the deleted part again and is flushed into the second file
+    for (int j = 1; j <= 5; j++) {
+      TSRecord record = new TSRecord(j, deviceId);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+      InsertRowPlan plan = new InsertRowPlan(record);
+      plan.setIndex(3);
+      processor.insert(plan);
+    }
+    processor.syncCloseAllWorkingTsFileProcessors();
+
+    // after a restart, the raft logs that replace the WAL apply plan 2 again
+    processor = new DummySGP(systemDir, storageGroup);
+    processor.delete(new PartialPath(deviceId, measurementId), 1, 5, 2);
+
+    QueryDataSource queryDataSource = processor
+        .query(new PartialPath(deviceId), measurementId, context, null, null);
+    Assert.assertEquals(1, queryDataSource.getSeqResources().size());
+    Assert.assertEquals(1, queryDataSource.getUnseqResources().size());
+    // the deletion is not written twice into the first file
+    Assert.assertEquals(1,
+        queryDataSource.getSeqResources().get(0).getModFile().getModifications().size());
+    // nor does it delete the data written after it
+    Assert.assertFalse(queryDataSource.getUnseqResources().get(0).getModFile().exists());
+  }
+
   class DummySGP extends StorageGroupProcessor {
 
     DummySGP(String systemInfoDir, String storageGroupName) throws StorageGroupProcessorException {
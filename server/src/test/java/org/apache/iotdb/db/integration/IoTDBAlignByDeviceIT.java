@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.compaction.CompactionStrategy;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
@@ -197,6 +198,41 @@ public class IoTDBAlignByDeviceIT {
     }
   }
 
+  @Test
+  public void selectWithoutPrefetchTest() throws ClassNotFoundException {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    int prevPrefetchNum = config.getAlignByDevicePrefetchNum();
+    config.setAlignByDevicePrefetchNum(0);
+    try {
+      selectTest();
+      aggregateTest();
+      groupByTimeTest();
+    } finally {
+      config.setAlignByDevicePrefetchNum(prevPrefetchNum);
+    }
+  }
+
+  @Test
+  public void closeWithPrefetchedDevicesTest() throws ClassNotFoundException {
+    Class.forName(Config.JDBC_DRIVER_NAME);
+    try (Connection connection = DriverManager
+        .getConnection(Config.IOTDB_URL_PREFIX + "127.0.0.1:6667/", "root", "root");
+        Statement statement = connection.createStatement()) {
+      statement.setFetchSize(1);
+      // the sub-queries of the following devices are still prefetched when the query is closed
+      try (ResultSet resultSet = statement
+          .executeQuery("select * from root.vehicle align by device")) {
+        Assert.assertTrue(resultSet.next());
+        Assert.assertEquals("root.vehicle.d0", resultSet.getString("Device"));
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail(e.getMessage());
+    }
+    // the files used by the prefetched sub-queries are released
+    selectTest();
+  }
+
   @Test
   public void selectWithDuplicatedPathsTest() throws ClassNotFoundException {
     String[] retArray = new String[]{
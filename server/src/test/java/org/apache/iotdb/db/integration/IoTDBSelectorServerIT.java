@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.service.RPCService;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.jdbc.Config;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Serve the clients with the selector-based non-blocking server.
+ */
+public class IoTDBSelectorServerIT {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private boolean prevRpcSelectorServerEnable;
+  private int prevRpcSelectorWorkerThreadNum;
+
+  @Before
+  public void setUp() throws Exception {
+    prevRpcSelectorServerEnable = config.isRpcSelectorServerEnable();
+    prevRpcSelectorWorkerThreadNum = config.getRpcSelectorWorkerThreadNum();
+    config.setRpcSelectorServerEnable(true);
+    // fewer workers than connections
+    config.setRpcSelectorWorkerThreadNum(2);
+    EnvironmentUtils.closeStatMonitor();
+    EnvironmentUtils.envSetUp();
+    Class.forName(Config.JDBC_DRIVER_NAME);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+    config.setRpcSelectorServerEnable(prevRpcSelectorServerEnable);
+    config.setRpcSelectorWorkerThreadNum(prevRpcSelectorWorkerThreadNum);
+  }
+
+  @Test
+  public void testManyConnections() throws Exception {
+    int connectionNum = 10;
+    List<Connection> connections = new ArrayList<>();
+    try {
+      for (int i = 0; i < connectionNum; i++) {
+        connections.add(DriverManager
+            .getConnection(Config.IOTDB_URL_PREFIX + "127.0.0.1:6667/", "root", "root"));
+      }
+      // the requests of the connections are interleaved
+      for (int time = 1; time <= 10; time++) {
+        for (int i = 0; i < connectionNum; i++) {
+          try (Statement statement = connections.get(i).createStatement()) {
+            statement.execute(String.format(
+                "insert into root.sg.d%d(timestamp,s0) values(%d,%d)", i, time, time * i));
+          }
+        }
+      }
+
+      for (int i = 0; i < connectionNum; i++) {
+        try (Statement statement = connections.get(i).createStatement();
+            ResultSet resultSet = statement.executeQuery("select s0 from root.sg.d" + i)) {
+          int cnt = 0;
+          while (resultSet.next()) {
+            cnt++;
+            assertEquals(cnt * i, resultSet.getFloat("root.sg.d" + i + ".s0"), 0);
+          }
+          assertEquals(10, cnt);
+        }
+      }
+    } finally {
+      for (Connection connection : connections) {
+        connection.close();
+      }
+    }
+
+    assertEquals(0, RPCService.getInstance().getQueuedRequestNum());
+    String report = RPCService.getInstance().getRequestLatencyReport();
+    assertTrue(report, report.contains("executeStatement: count="));
+    assertTrue(report, report.contains("openSession: count=" + connectionNum + ","));
+  }
+}
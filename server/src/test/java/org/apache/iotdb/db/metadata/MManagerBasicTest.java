@@ -33,6 +33,11 @@ import java.util.stream.Collectors;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.qp.physical.sys.ShowDevicesPlan;
+import org.apache.iotdb.db.qp.physical.sys.ShowTimeSeriesPlan;
+import org.apache.iotdb.db.query.dataset.ShowDevicesResult;
+import org.apache.iotdb.db.query.dataset.ShowResultCursor;
+import org.apache.iotdb.db.query.dataset.ShowTimeSeriesResult;
 import org.apache.iotdb.db.service.IoTDB;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
@@ -444,6 +449,47 @@ public class MManagerBasicTest {
     }
   }
 
+  @Test
+  public void testShowCursors() throws MetadataException {
+    MManager manager = IoTDB.metaManager;
+    manager.setStorageGroup(new PartialPath("root.laptop"));
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 4; j++) {
+        manager.createTimeseries(new PartialPath("root.laptop.d" + i + ".s" + j),
+            TSDataType.INT32, TSEncoding.PLAIN, CompressionType.GZIP, null);
+      }
+    }
+
+    // the pages of a cursor are the timeseries shown without limit
+    ShowTimeSeriesPlan plan = new ShowTimeSeriesPlan(new PartialPath("root.laptop.*.s1"), 0, 0, 0);
+    List<String> allTimeseries = manager.showTimeseries(plan, null).stream()
+        .map(ShowTimeSeriesResult::getName).collect(Collectors.toList());
+    assertEquals(5, allTimeseries.size());
+    plan = new ShowTimeSeriesPlan(new PartialPath("root.laptop.*.s1"), 0, 0, 2);
+    ShowResultCursor<ShowTimeSeriesResult> timeseriesCursor =
+        manager.showTimeseriesCursor(plan, null);
+    List<String> pagedTimeseries = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      timeseriesCursor.next(2).forEach(result -> pagedTimeseries.add(result.getName()));
+    }
+    assertTrue(timeseriesCursor.next(2).isEmpty());
+    assertEquals(allTimeseries, pagedTimeseries);
+
+    // offset and limit
+    plan = new ShowTimeSeriesPlan(new PartialPath("root.laptop"), 6, 13, 100);
+    timeseriesCursor = manager.showTimeseriesCursor(plan, null);
+    assertEquals(6, timeseriesCursor.next(4).size() + timeseriesCursor.next(4).size());
+    assertTrue(timeseriesCursor.next(4).isEmpty());
+
+    ShowDevicesPlan devicesPlan = new ShowDevicesPlan(new PartialPath("root.*"), 0, 1, 3, false);
+    ShowResultCursor<ShowDevicesResult> devicesCursor = manager.getDevicesCursor(devicesPlan);
+    Set<String> devices = new TreeSet<>();
+    devicesCursor.next(3).forEach(result -> devices.add(result.getName()));
+    devicesCursor.next(3).forEach(result -> devices.add(result.getName()));
+    assertEquals(4, devices.size());
+    assertTrue(devicesCursor.next(3).isEmpty());
+  }
+
   @Test
   public void testGetChildNodePathInNextLevel() {
     MManager manager = IoTDB.metaManager;
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TagLogFileTest {
+
+  private static final String SCHEMA_DIR = "target" + File.separator + "tagLogFileTest";
+  private static final String FILE_NAME = "tlog.txt";
+
+  private final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private int prevCacheSize;
+  private final int size = config.getTagAttributeTotalSize();
+
+  @Before
+  public void setUp() {
+    prevCacheSize = config.getTagAttributeCacheSize();
+    // smaller than the number of records, so some of them are read from the file
+    config.setTagAttributeCacheSize(10);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    config.setTagAttributeCacheSize(prevCacheSize);
+    EnvironmentUtils.cleanDir(SCHEMA_DIR);
+  }
+
+  @Test
+  public void testBatchRead() throws Exception {
+    long[] offsets = new long[200];
+    try (TagLogFile tagLogFile = new TagLogFile(SCHEMA_DIR, FILE_NAME)) {
+      for (int i = 0; i < offsets.length; i++) {
+        offsets[i] = tagLogFile.write(Collections.singletonMap("tag", "v" + i),
+            Collections.singletonMap("attr", "a" + i));
+      }
+    }
+
+    try (TagLogFile tagLogFile = new TagLogFile(SCHEMA_DIR, FILE_NAME)) {
+      // the records read alone are cached
+      assertEquals("v5", tagLogFile.readTag(size, offsets[5]).get("tag"));
+
+      // unordered, duplicated and negative offsets
+      long[] positions = new long[]{offsets[150], -1, offsets[5], offsets[0], offsets[150],
+          offsets[199], offsets[70]};
+      Map<Long, Pair<Map<String, String>, Map<String, String>>> results =
+          tagLogFile.read(size, positions);
+      assertEquals(6, results.size());
+      assertTrue(results.get(-1L).left.isEmpty());
+      for (int i : new int[]{0, 5, 70, 150, 199}) {
+        assertEquals("v" + i, results.get(offsets[i]).left.get("tag"));
+        assertEquals("a" + i, results.get(offsets[i]).right.get("attr"));
+      }
+
+      // the returned maps can be modified without changing the cached ones
+      Pair<Map<String, String>, Map<String, String>> pair = tagLogFile.read(size, offsets[70]);
+      pair.left.put("tag", "modified");
+      assertEquals("v70", tagLogFile.read(size, offsets[70]).left.get("tag"));
+
+      // rewritten records are read with their new values
+      Map<String, String> tags = new HashMap<>();
+      tags.put("tag", "new");
+      tagLogFile.write(tags, Collections.emptyMap(), offsets[199]);
+      tags.put("tag", "changed after written");
+      assertEquals("new",
+          tagLogFile.read(size, new long[]{offsets[199]}).get(offsets[199]).left.get("tag"));
+    }
+  }
+
+  @Test
+  public void testReadWhileRewriting() throws Exception {
+    try (TagLogFile tagLogFile = new TagLogFile(SCHEMA_DIR, FILE_NAME)) {
+      long offset = tagLogFile.write(Collections.singletonMap("tag", "v0"),
+          Collections.emptyMap());
+      int writeNum = 1000;
+      Thread writer = new Thread(() -> {
+        try {
+          for (int i = 1; i <= writeNum; i++) {
+            tagLogFile.write(Collections.singletonMap("tag", "v" + i), Collections.emptyMap(),
+                offset);
+          }
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      writer.start();
+      while (writer.isAlive()) {
+        // evict the record so that it is read from the file again
+        for (int i = 0; i < 10; i++) {
+          tagLogFile.write(Collections.emptyMap(), Collections.emptyMap());
+        }
+        tagLogFile.readTag(size, offset);
+      }
+      writer.join();
+      // a record read before a rewrite never replaces the cached newer one
+      assertEquals("v" + writeNum, tagLogFile.readTag(size, offset).get("tag"));
+    }
+  }
+}
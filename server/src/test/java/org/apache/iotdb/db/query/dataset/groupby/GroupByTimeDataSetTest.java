@@ -18,6 +18,10 @@
  */
 package org.apache.iotdb.db.query.dataset.groupby;
 
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.qp.Planner;
 import org.apache.iotdb.db.qp.executor.IPlanExecutor;
@@ -214,4 +218,47 @@ public class GroupByTimeDataSetTest {
     assertTrue(dataSet.hasNext());
     assertEquals("0\t0", dataSet.next().toString());
   }
+
+  @Test
+  public void groupByTimeInParallelTest() throws Exception {
+    assertParallelResultsEqual("select count(s0), sum(s0), last_value(s1), count(s1) from "
+        + "root.test.d0, root.vehicle.d0 group by ([0,100), 7ms)", 15);
+  }
+
+  @Test
+  public void groupByTimeInParallelWithSlidingStepTest() throws Exception {
+    assertParallelResultsEqual("select count(s0), sum(s0), last_value(s1), count(s1) from "
+        + "root.test.d0, root.vehicle.d0 group by ([0,100), 2ms, 3ms) order by time desc", 34);
+  }
+
+  @Test
+  public void groupByTimeInParallelWithLimitTest() throws Exception {
+    assertParallelResultsEqual("select count(s0), sum(s0), last_value(s1), count(s1) from "
+        + "root.test.d0, root.vehicle.d0 group by ([0,100), 2ms, 3ms) limit 5 offset 7", 5);
+  }
+
+  private void assertParallelResultsEqual(String sql, int resultNum) throws Exception {
+    List<String> serialResults = getGroupByResults(sql, resultNum);
+
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    int prevGroupByParallelism = config.getGroupByParallelism();
+    config.setGroupByParallelism(3);
+    try {
+      assertEquals(serialResults, getGroupByResults(sql, resultNum));
+    } finally {
+      config.setGroupByParallelism(prevGroupByParallelism);
+    }
+  }
+
+  private List<String> getGroupByResults(String sql, int resultNum) throws Exception {
+    QueryPlan queryPlan = (QueryPlan) processor.parseSQLToPhysicalPlan(sql);
+    QueryDataSet dataSet = queryExecutor
+        .processQuery(queryPlan, EnvironmentUtils.TEST_QUERY_CONTEXT);
+    List<String> results = new ArrayList<>();
+    while (dataSet.hasNext()) {
+      results.add(dataSet.next().toString());
+    }
+    assertEquals(resultNum, results.size());
+    return results;
+  }
 }
@@ -37,6 +37,7 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -84,4 +85,43 @@ public class SeriesReaderByTimestampTest {
       }
     }
   }
+
+  @Test
+  public void testValuesInTimestamps() throws IOException, IllegalPathException {
+    QueryDataSource dataSource = new QueryDataSource(
+        new PartialPath(SERIES_READER_TEST_SG + ".device0.sensor0"),
+        seqResources, unseqResources);
+
+    Set<String> allSensors = new HashSet<>();
+    allSensors.add("sensor0");
+
+    SeriesReaderByTimestamp seriesReader = new SeriesReaderByTimestamp(
+        new PartialPath(SERIES_READER_TEST_SG + ".device0.sensor0"), allSensors,
+        TSDataType.INT32, new QueryContext(), dataSource, null, true);
+
+    // sparse timestamps skip some pages, and the last ones are beyond the data
+    long[] timestamps = new long[100];
+    for (int i = 0; i < timestamps.length; i++) {
+      timestamps[i] = i * 7L;
+    }
+    int length = 0;
+    for (int batch = 10; length < timestamps.length; batch += 10) {
+      Object[] values = seriesReader.getValuesInTimestamps(
+          Arrays.copyOfRange(timestamps, length, length + batch), batch);
+      for (int i = 0; i < batch; i++) {
+        long time = timestamps[length + i];
+        Integer value = (Integer) values[i];
+        if (time >= 500) {
+          Assert.assertNull(value);
+        } else if (time < 200) {
+          Assert.assertEquals(time + 20000, value.intValue());
+        } else if (time < 260 || (time >= 300 && time < 380) || (time >= 400)) {
+          Assert.assertEquals(time + 10000, value.intValue());
+        } else {
+          Assert.assertEquals(time, value.intValue());
+        }
+      }
+      length += batch;
+    }
+  }
 }
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.rescon;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.cache.ChunkCache;
+import org.apache.iotdb.db.engine.cache.TsFileMetadataCache;
+import org.junit.After;
+import org.junit.Test;
+
+public class MemoryManagerTest {
+
+  private final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private final MemoryManager memoryManager = MemoryManager.getInstance();
+
+  @After
+  public void tearDown() {
+    memoryManager.returnCacheMemory(memoryManager.getCacheMemoryLent());
+  }
+
+  @Test
+  public void testLendCacheMemory() {
+    long cacheMemory = memoryManager.getCacheMemory();
+    long lendable = (long) (cacheMemory * config.getCacheLendableProportion());
+
+    // the caches shrink in proportion to their sizes
+    assertEquals(cacheMemory / 4, memoryManager.lendCacheMemory(cacheMemory / 4));
+    assertEquals(cacheMemory / 4, memoryManager.getCacheMemoryLent());
+    double ratio = 1 - (cacheMemory / 4) * 1.0 / cacheMemory;
+    assertEquals((long) (config.getAllocateMemoryForChunkCache() * ratio),
+        ChunkCache.getInstance().getMaxMemory());
+    assertEquals((long) (config.getAllocateMemoryForFileMetadataCache() * ratio),
+        TsFileMetadataCache.getInstance().getMaxMemory());
+
+    // no more than the lendable memory is lent
+    assertEquals(lendable - cacheMemory / 4, memoryManager.lendCacheMemory(cacheMemory));
+    assertEquals(0, memoryManager.lendCacheMemory(1));
+
+    // the caches grow back when the memory is returned
+    memoryManager.returnCacheMemory(lendable);
+    assertEquals(0, memoryManager.getCacheMemoryLent());
+    assertEquals(config.getAllocateMemoryForChunkCache(),
+        ChunkCache.getInstance().getMaxMemory());
+  }
+
+  @Test
+  public void testLendWithoutResize() {
+    long cacheMemory = memoryManager.getCacheMemory();
+    assertEquals(cacheMemory / 4, memoryManager.lendCacheMemoryWithoutResize(cacheMemory / 4));
+    // the caches keep their sizes until they are resized
+    assertEquals(config.getAllocateMemoryForChunkCache(),
+        ChunkCache.getInstance().getMaxMemory());
+    memoryManager.resizeCaches();
+    double ratio = 1 - (cacheMemory / 4) * 1.0 / cacheMemory;
+    assertEquals((long) (config.getAllocateMemoryForChunkCache() * ratio),
+        ChunkCache.getInstance().getMaxMemory());
+  }
+}
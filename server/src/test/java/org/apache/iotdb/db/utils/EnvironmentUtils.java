@@ -39,6 +39,7 @@ import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.cache.ChunkCache;
 import org.apache.iotdb.db.engine.cache.ChunkMetadataCache;
 import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
+import org.apache.iotdb.db.engine.cache.TsFileMetadataCache;
 import org.apache.iotdb.db.engine.compaction.CompactionMergeTaskPoolManager;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.UDFRegistrationException;
@@ -47,6 +48,7 @@ import org.apache.iotdb.db.query.control.FileReaderManager;
 import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.control.TracingManager;
 import org.apache.iotdb.db.query.udf.service.UDFRegistrationService;
+import org.apache.iotdb.db.rescon.OffHeapArrayManager;
 import org.apache.iotdb.db.rescon.PrimitiveArrayManager;
 import org.apache.iotdb.db.rescon.SystemInfo;
 import org.apache.iotdb.db.service.IoTDB;
@@ -130,6 +132,7 @@ public class EnvironmentUtils {
       ChunkCache.getInstance().clear();
       ChunkMetadataCache.getInstance().clear();
       TimeSeriesMetadataCache.getInstance().clear();
+      TsFileMetadataCache.getInstance().clear();
     }
     // close metadata
     IoTDB.metaManager.clear();
@@ -141,6 +144,7 @@ public class EnvironmentUtils {
 
     // close array manager
     PrimitiveArrayManager.close();
+    OffHeapArrayManager.close();
 
     // clear system info
     SystemInfo.getInstance().close();
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils.datastructure;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.iotdb.db.rescon.OffHeapArrayManager;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.TimeValuePair;
+import org.apache.iotdb.tsfile.read.reader.IPointReader;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType.TsDouble;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OffHeapTVListTest {
+
+  @After
+  public void tearDown() {
+    OffHeapArrayManager.close();
+  }
+
+  @Test
+  public void testSort() {
+    Random random = new Random();
+    OffHeapTVList tvList = new OffHeapTVList(TSDataType.DOUBLE);
+    List<TimeValuePair> inputs = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      long time = random.nextInt(10000);
+      double value = random.nextDouble();
+      tvList.putDouble(time, value);
+      inputs.add(new TimeValuePair(time, new TsDouble(value)));
+    }
+    Assert.assertFalse(tvList.isSorted());
+    tvList.sort();
+    inputs.sort(TimeValuePair::compareTo);
+    for (int i = 0; i < tvList.size(); i++) {
+      Assert.assertEquals(inputs.get(i).getTimestamp(), tvList.getTime(i));
+      Assert.assertEquals(inputs.get(i).getValue().getDouble(), tvList.getDouble(i), 0);
+    }
+  }
+
+  @Test
+  public void testTypes() {
+    OffHeapTVList intList = new OffHeapTVList(TSDataType.INT32);
+    OffHeapTVList floatList = new OffHeapTVList(TSDataType.FLOAT);
+    OffHeapTVList booleanList = new OffHeapTVList(TSDataType.BOOLEAN);
+    long[] times = new long[1000];
+    int[] ints = new int[times.length];
+    float[] floats = new float[times.length];
+    boolean[] booleans = new boolean[times.length];
+    for (int i = 0; i < times.length; i++) {
+      times[i] = times.length - i;
+      ints[i] = -i;
+      floats[i] = i + 0.5f;
+      booleans[i] = i % 3 == 0;
+    }
+    intList.putInts(times, ints, 0, times.length);
+    floatList.putFloats(times, floats, 0, times.length);
+    booleanList.putBooleans(times, booleans, 0, times.length);
+    intList.sort();
+    floatList.sort();
+    booleanList.sort();
+    for (int i = 0; i < times.length; i++) {
+      int j = times.length - 1 - i;
+      Assert.assertEquals(i + 1, intList.getTime(i));
+      Assert.assertEquals(ints[j], intList.getInt(i));
+      Assert.assertEquals(floats[j], floatList.getFloat(i), 0);
+      Assert.assertEquals(booleans[j], booleanList.getBoolean(i));
+    }
+
+    try {
+      intList.putLong(1, 1);
+      Assert.fail();
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testCloneAndDelete() throws IOException {
+    OffHeapTVList tvList = new OffHeapTVList(TSDataType.INT64);
+    for (long i = 0; i < 1000; i++) {
+      tvList.putLong(i, i * 2);
+    }
+    TVList cloneList = tvList.clone();
+    // the clone has its own buffers
+    tvList.putLong(1000, 2000);
+    Assert.assertEquals(1001, tvList.size());
+    Assert.assertEquals(1000, cloneList.size());
+
+    Assert.assertEquals(901, tvList.delete(100, 1000));
+    Assert.assertEquals(100, tvList.size());
+    Assert.assertEquals(198, tvList.getLong(99));
+    Assert.assertEquals(1998, cloneList.getLong(999));
+
+    IPointReader iterator = cloneList.getIterator();
+    long expected = 0;
+    while (iterator.hasNextTimeValuePair()) {
+      TimeValuePair pair = iterator.nextTimeValuePair();
+      Assert.assertEquals(expected, pair.getTimestamp());
+      Assert.assertEquals(expected * 2, pair.getValue().getLong());
+      expected++;
+    }
+    Assert.assertEquals(1000, expected);
+
+    // the heap buffers of the clone are not kept for reuse, the direct ones are
+    long bufferedSize = OffHeapArrayManager.getBufferedArraysRamSize();
+    cloneList.clear();
+    Assert.assertEquals(bufferedSize, OffHeapArrayManager.getBufferedArraysRamSize());
+    tvList.clear();
+    Assert.assertTrue(OffHeapArrayManager.getBufferedArraysRamSize() > bufferedSize);
+  }
+
+  @Test
+  public void testListForQuery() {
+    OffHeapTVList tvList = new OffHeapTVList(TSDataType.INT32);
+    for (int i = 0; i < 100; i++) {
+      tvList.putInt(i, i);
+    }
+    // the query reads a copy, so the list can still be sorted and released by the memtable
+    TVList queryList = tvList.getListForQuery();
+    Assert.assertNotSame(tvList, queryList);
+    Assert.assertEquals(0, tvList.getReferenceCount());
+    tvList.clear();
+    Assert.assertEquals(100, queryList.size());
+    Assert.assertEquals(99, queryList.getInt(99));
+  }
+}
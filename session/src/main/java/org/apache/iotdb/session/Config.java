@@ -26,6 +26,11 @@ public class Config {
   public static final int DEFAULT_CONNECTION_TIMEOUT_MS = 0;
   public static final boolean DEFAULT_CACHE_LEADER_MODE = false;
 
+  /**
+   * max number of the unfinished async requests of a session pool, beyond which the callers wait
+   */
+  public static final int DEFAULT_MAX_ASYNC_REQUEST_NUM = 1024;
+
   public static final int RETRY_NUM = 3;
   public static final long RETRY_INTERVAL_MS = 1000;
 
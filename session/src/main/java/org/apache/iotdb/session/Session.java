@@ -28,6 +28,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import org.apache.iotdb.rpc.BatchExecutionException;
 import org.apache.iotdb.rpc.IoTDBConnectionException;
@@ -89,6 +97,8 @@ public class Session {
   protected Map<String, EndPoint> deviceIdToEndpoint;
   protected Map<EndPoint, SessionConnection> endPointToSessionConnection;
   private AtomicReference<IoTDBConnectionException> tmp = new AtomicReference<>();
+  // sends the insertions to different leaders in parallel, created when it is first used
+  private ExecutorService insertExecutor;
 
   public Session(String host, int rpcPort) {
     this(host, rpcPort, Config.DEFAULT_USER, Config.DEFAULT_PASSWORD, Config.DEFAULT_FETCH_SIZE,
@@ -201,6 +211,10 @@ public class Session {
         defaultSessionConnection.close();
       }
     } finally {
+      if (insertExecutor != null) {
+        insertExecutor.shutdownNow();
+        insertExecutor = null;
+      }
       isClosed = true;
     }
   }
@@ -570,21 +584,18 @@ public class Session {
       updateTSInsertStringRecordsReq(request, deviceIds.get(i), times.get(i),
           measurementsList.get(i), valuesList.get(i));
     }
-    //TODO parallel
-    StringBuilder errMsgBuilder = new StringBuilder();
+    Map<SessionConnection, List<InsertTask>> connectionTasks = new HashMap<>();
     for (Entry<String, TSInsertStringRecordsReq> entry : deviceGroup.entrySet()) {
-      try {
-        getSessionConnection(entry.getKey()).insertRecords(entry.getValue());
-      } catch (RedirectException e) {
-        handleRedirection(entry.getKey(), e.getEndPoint());
-      } catch (StatementExecutionException e) {
-        errMsgBuilder.append(e.getMessage());
-      }
-    }
-    String errMsg = errMsgBuilder.toString();
-    if (!errMsg.isEmpty()) {
-      throw new StatementExecutionException(errMsg);
+      SessionConnection connection = getSessionConnection(entry.getKey());
+      connectionTasks.computeIfAbsent(connection, k -> new ArrayList<>()).add(redirections -> {
+        try {
+          connection.insertRecords(entry.getValue());
+        } catch (RedirectException e) {
+          redirections.put(entry.getKey(), e.getEndPoint());
+        }
+      });
     }
+    insertByConnections(connectionTasks);
   }
 
   private TSInsertStringRecordsReq genTSInsertStringRecordsReq(List<String> deviceId,
@@ -756,21 +767,18 @@ public class Session {
       updateTSInsertRecordsReq(request, deviceIds.get(i), times.get(i),
           measurementsList.get(i), typesList.get(i), valuesList.get(i));
     }
-    //TODO parallel
-    StringBuilder errMsgBuilder = new StringBuilder();
+    Map<SessionConnection, List<InsertTask>> connectionTasks = new HashMap<>();
     for (Entry<String, TSInsertRecordsReq> entry : deviceGroup.entrySet()) {
-      try {
-        getSessionConnection(entry.getKey()).insertRecords(entry.getValue());
-      } catch (RedirectException e) {
-        handleRedirection(entry.getKey(), e.getEndPoint());
-      } catch (StatementExecutionException e) {
-        errMsgBuilder.append(e.getMessage());
-      }
-    }
-    String errMsg = errMsgBuilder.toString();
-    if (!errMsg.isEmpty()) {
-      throw new StatementExecutionException(errMsg);
+      SessionConnection connection = getSessionConnection(entry.getKey());
+      connectionTasks.computeIfAbsent(connection, k -> new ArrayList<>()).add(redirections -> {
+        try {
+          connection.insertRecords(entry.getValue());
+        } catch (RedirectException e) {
+          redirections.put(entry.getKey(), e.getEndPoint());
+        }
+      });
     }
+    insertByConnections(connectionTasks);
   }
 
   private TSInsertRecordsReq genTSInsertRecordsReq(List<String> deviceIds, List<Long> times,
@@ -915,23 +923,110 @@ public class Session {
       updateTSInsertTabletsReq(request, entry.getValue(), sorted);
     }
 
-    //TODO parallel
-    StringBuilder errMsgBuilder = new StringBuilder();
+    Map<SessionConnection, List<InsertTask>> connectionTasks = new HashMap<>();
     for (Entry<SessionConnection, TSInsertTabletsReq> entry : tabletGroup.entrySet()) {
-      try {
-        entry.getKey().insertTablets(entry.getValue());
-      } catch (RedirectException e) {
-        for (Entry<String, EndPoint> deviceEndPointEntry : e.getDeviceEndPointMap().entrySet()) {
-          handleRedirection(deviceEndPointEntry.getKey(), deviceEndPointEntry.getValue());
+      connectionTasks.put(entry.getKey(), Collections.singletonList(redirections -> {
+        try {
+          entry.getKey().insertTablets(entry.getValue());
+        } catch (RedirectException e) {
+          redirections.putAll(e.getDeviceEndPointMap());
+        }
+      }));
+    }
+    insertByConnections(connectionTasks);
+  }
+
+  /**
+   * Run the insertions grouped by the connections of the leaders they are sent to. When there is
+   * more than one connection, the groups are sent in parallel so that a batch spanning several
+   * data groups does not wait for the groups one by one; the insertions of a connection are still
+   * sent in order by one thread, as a connection cannot be used concurrently. The leaders learned
+   * from redirections are cached after all insertions finish.
+   *
+   * @throws StatementExecutionException with the messages of all failed insertions
+   */
+  private void insertByConnections(Map<SessionConnection, List<InsertTask>> connectionTasks)
+      throws IoTDBConnectionException, StatementExecutionException {
+    Map<String, EndPoint> redirections = new ConcurrentHashMap<>();
+    Queue<String> errMsgs = new ConcurrentLinkedQueue<>();
+    if (connectionTasks.size() == 1) {
+      runInsertTasks(connectionTasks.values().iterator().next(), redirections, errMsgs);
+    } else {
+      ExecutorService executor = getInsertExecutor();
+      List<Future<Void>> futures = new ArrayList<>(connectionTasks.size());
+      for (List<InsertTask> tasks : connectionTasks.values()) {
+        futures.add(executor.submit(() -> {
+          runInsertTasks(tasks, redirections, errMsgs);
+          return null;
+        }));
+      }
+      IoTDBConnectionException connectionException = null;
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IoTDBConnectionException(e);
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof IoTDBConnectionException) {
+            connectionException = (IoTDBConnectionException) e.getCause();
+          } else {
+            throw new IoTDBConnectionException(e.getCause());
+          }
         }
+      }
+      if (connectionException != null) {
+        throw connectionException;
+      }
+    }
+
+    for (Entry<String, EndPoint> entry : redirections.entrySet()) {
+      handleRedirection(entry.getKey(), entry.getValue());
+    }
+    if (!errMsgs.isEmpty()) {
+      throw new StatementExecutionException(String.join("", errMsgs));
+    }
+  }
+
+  private void runInsertTasks(List<InsertTask> tasks, Map<String, EndPoint> redirections,
+      Queue<String> errMsgs) throws IoTDBConnectionException {
+    for (InsertTask task : tasks) {
+      try {
+        task.insert(redirections);
       } catch (StatementExecutionException e) {
-        errMsgBuilder.append(e.getMessage());
+        errMsgs.add(e.getMessage());
       }
     }
-    String errMsg = errMsgBuilder.toString();
-    if (!errMsg.isEmpty()) {
-      throw new StatementExecutionException(errMsg);
+  }
+
+  /**
+   * Synchronized with close(), so no executor is created after the session is closed and left
+   * running.
+   */
+  private synchronized ExecutorService getInsertExecutor() throws IoTDBConnectionException {
+    if (isClosed) {
+      throw new IoTDBConnectionException("Session is closed");
+    }
+    if (insertExecutor == null) {
+      AtomicInteger threadCnt = new AtomicInteger();
+      insertExecutor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "SessionInsert-" + threadCnt.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      });
     }
+    return insertExecutor;
+  }
+
+  /**
+   * An insertion sent through a connection, the devices redirected to other leaders are put into
+   * the given map.
+   */
+  @FunctionalInterface
+  private interface InsertTask {
+
+    void insert(Map<String, EndPoint> redirections)
+        throws IoTDBConnectionException, StatementExecutionException;
   }
 
   private TSInsertTabletsReq genTSInsertTabletsReq(List<Tablet> tablets, boolean sorted)
@@ -23,7 +23,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.iotdb.rpc.IoTDBConnectionException;
 import org.apache.iotdb.rpc.StatementExecutionException;
 import org.apache.iotdb.session.Config;
@@ -55,6 +61,10 @@ import org.slf4j.LoggerFactory;
  * <p>
  * Another case that you have to manually call closeResultSet() is that when there is exception when
  * you call SessionDataSetWrapper.hasNext() or next()
+ * <p>
+ * The async methods return at once with a CompletableFuture, the requests are executed by a thread
+ * for each session of the pool, so a few client threads can keep all sessions busy. If there are
+ * already maxAsyncRequestNum unfinished async requests, the async methods wait until one finishes.
  */
 public class SessionPool {
 
@@ -80,6 +90,11 @@ public class SessionPool {
 
   private boolean closed;//whether the queue is closed.
 
+  // executes the async requests, created when the first async request comes
+  private volatile ExecutorService asyncExecutor;
+  // a permit for each unfinished async request
+  private final Semaphore asyncRequestPermits;
+
   public SessionPool(String ip, int port, String user, String password, int maxSize) {
     this(ip, port, user, password, maxSize, Config.DEFAULT_FETCH_SIZE, 60_000, false, null,
         Config.DEFAULT_CACHE_LEADER_MODE);
@@ -106,6 +121,15 @@ public class SessionPool {
   @SuppressWarnings("squid:S107")
   public SessionPool(String ip, int port, String user, String password, int maxSize, int fetchSize,
       long timeout, boolean enableCompression, ZoneId zoneId, boolean enableCacheLeader) {
+    this(ip, port, user, password, maxSize, fetchSize, timeout, enableCompression, zoneId,
+        enableCacheLeader, Config.DEFAULT_MAX_ASYNC_REQUEST_NUM);
+  }
+
+  @SuppressWarnings("squid:S107")
+  public SessionPool(String ip, int port, String user, String password, int maxSize, int fetchSize,
+      long timeout, boolean enableCompression, ZoneId zoneId, boolean enableCacheLeader,
+      int maxAsyncRequestNum) {
+    this.asyncRequestPermits = new Semaphore(maxAsyncRequestNum);
     this.maxSize = maxSize;
     this.ip = ip;
     this.port = port;
@@ -254,6 +278,10 @@ public class SessionPool {
     }
     logger.info("closing the session pool, cleaning queues...");
     this.closed = true;
+    if (asyncExecutor != null) {
+      // the queued async requests fail as the pool is closed
+      asyncExecutor.shutdown();
+    }
     queue.clear();
     occupied.clear();
   }
@@ -306,6 +334,116 @@ public class SessionPool {
     }
   }
 
+  @FunctionalInterface
+  private interface AsyncRequest<T> {
+
+    T call() throws IoTDBConnectionException, StatementExecutionException;
+  }
+
+  /**
+   * @throws RejectedExecutionException if the pool is closed, so that no executor is created after
+   * close() has shut down the existing one
+   */
+  private ExecutorService getAsyncExecutor() {
+    if (asyncExecutor == null) {
+      synchronized (this) {
+        if (closed) {
+          throw new RejectedExecutionException(SESSION_POOL_IS_CLOSED);
+        }
+        if (asyncExecutor == null) {
+          AtomicInteger threadCount = new AtomicInteger();
+          // a thread for each session, more threads would only wait for the sessions
+          asyncExecutor = Executors.newFixedThreadPool(maxSize, r -> {
+            Thread thread = new Thread(r, "SessionPool-Async-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+          });
+        }
+      }
+    }
+    return asyncExecutor;
+  }
+
+  private <T> CompletableFuture<T> executeAsync(AsyncRequest<T> request) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    if (closed) {
+      future.completeExceptionally(new IoTDBConnectionException(SESSION_POOL_IS_CLOSED));
+      return future;
+    }
+    try {
+      asyncRequestPermits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.completeExceptionally(e);
+      return future;
+    }
+    try {
+      getAsyncExecutor().execute(() -> {
+        try {
+          future.complete(request.call());
+        } catch (IoTDBConnectionException | StatementExecutionException | RuntimeException e) {
+          future.completeExceptionally(e);
+        } finally {
+          asyncRequestPermits.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      asyncRequestPermits.release();
+      future.completeExceptionally(new IoTDBConnectionException(SESSION_POOL_IS_CLOSED));
+    }
+    return future;
+  }
+
+  /**
+   * The async version of insertTablet(Tablet, boolean).
+   *
+   * @return a future completed when the tablet is inserted, or completed exceptionally with the
+   * exception insertTablet(Tablet, boolean) would throw
+   */
+  public CompletableFuture<Void> insertTabletAsync(Tablet tablet, boolean sorted) {
+    return executeAsync(() -> {
+      insertTablet(tablet, sorted);
+      return null;
+    });
+  }
+
+  /**
+   * The async version of insertTablet(Tablet).
+   */
+  public CompletableFuture<Void> insertTabletAsync(Tablet tablet) {
+    return insertTabletAsync(tablet, false);
+  }
+
+  /**
+   * The async version of insertTablets(Map, boolean).
+   */
+  public CompletableFuture<Void> insertTabletsAsync(Map<String, Tablet> tablets, boolean sorted) {
+    return executeAsync(() -> {
+      insertTablets(tablets, sorted);
+      return null;
+    });
+  }
+
+  /**
+   * The async version of insertRecords(List, List, List, List, List).
+   */
+  public CompletableFuture<Void> insertRecordsAsync(List<String> deviceIds, List<Long> times,
+      List<List<String>> measurementsList, List<List<TSDataType>> typesList,
+      List<List<Object>> valuesList) {
+    return executeAsync(() -> {
+      insertRecords(deviceIds, times, measurementsList, typesList, valuesList);
+      return null;
+    });
+  }
+
+  /**
+   * The async version of executeQueryStatement(String). As the result of the sync version, the
+   * result set must be read to the end or closed by closeResultSet().
+   */
+  public CompletableFuture<SessionDataSetWrapper> executeQueryStatementAsync(String sql) {
+    return executeAsync(() -> executeQueryStatement(sql));
+  }
+
   /**
    * insert the data of a device. For each timestamp, the number of measurements is the same.
    *
@@ -29,6 +29,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.iotdb.rpc.IoTDBConnectionException;
 import org.apache.iotdb.rpc.RedirectException;
 import org.apache.iotdb.rpc.StatementExecutionException;
@@ -659,6 +663,58 @@ public class SessionCacheLeaderUT {
     session.close();
   }
 
+  @Test
+  public void testInsertTabletsInParallel()
+      throws IoTDBConnectionException, StatementExecutionException {
+    // the tablets of the three leaders are only sent when all of them are being sent
+    CountDownLatch latch = new CountDownLatch(3);
+    AtomicBoolean parallel = new AtomicBoolean(false);
+    AtomicInteger concurrentInsertNum = new AtomicInteger();
+    session = new MockSession("127.0.0.1", 55560, true) {
+      @Override
+      public SessionConnection constructSessionConnection(Session session, EndPoint endpoint,
+          ZoneId zoneId) throws IoTDBConnectionException {
+        return new MockSessionConnection(session, endpoint, zoneId) {
+          @Override
+          protected void insertTablets(TSInsertTabletsReq request)
+              throws IoTDBConnectionException, StatementExecutionException, RedirectException {
+            if (parallel.get()) {
+              latch.countDown();
+              try {
+                if (latch.await(10, TimeUnit.SECONDS)) {
+                  concurrentInsertNum.incrementAndGet();
+                }
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            }
+            super.insertTablets(request);
+          }
+        };
+      }
+    };
+    session.open();
+
+    List<MeasurementSchema> schemaList = new ArrayList<>();
+    schemaList.add(new MeasurementSchema("s1", TSDataType.INT64));
+    Map<String, Tablet> tabletMap = new HashMap<>();
+    for (String deviceId : new String[]{"root.sg2.d1", "root.sg3.d1", "root.sg4.d1"}) {
+      Tablet tablet = new Tablet(deviceId, schemaList, 1);
+      tablet.addTimestamp(tablet.rowSize++, 1);
+      tablet.addValue("s1", 0, 1L);
+      tabletMap.put(deviceId, tablet);
+    }
+
+    // the leaders are unknown, all tablets are sent to the default endpoint
+    session.insertTablets(tabletMap, true);
+    assertEquals(4, session.endPointToSessionConnection.size());
+
+    parallel.set(true);
+    session.insertTablets(tabletMap, true);
+    assertEquals(3, concurrentInsertNum.get());
+    session.close();
+  }
+
   private void addLine(List<Long> times, List<List<String>> measurements,
       List<List<TSDataType>> datatypes,
       List<List<Object>> values, long time, String s1, String s2, TSDataType s1type,
@@ -26,6 +26,8 @@ import static org.junit.Assert.fail;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -33,6 +35,7 @@ import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.rpc.IoTDBConnectionException;
 import org.apache.iotdb.rpc.StatementExecutionException;
+import org.apache.iotdb.session.Config;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.junit.After;
 import org.junit.Assert;
@@ -82,6 +85,38 @@ public class SessionPoolTest {
     pool.close();
   }
 
+  @Test
+  public void insertAndQueryAsync() throws Exception {
+    // fewer permits than requests, so the callers wait for the unfinished requests
+    SessionPool pool = new SessionPool("127.0.0.1", 6667, "root", "root", 3,
+        Config.DEFAULT_FETCH_SIZE, 60_000, false, null, false, 4);
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      futures.add(pool.insertRecordsAsync(Collections.singletonList("root.sg1.d1"),
+          Collections.singletonList((long) i), Collections.singletonList(Collections.singletonList("s0")),
+          Collections.singletonList(Collections.singletonList(TSDataType.INT64)),
+          Collections.singletonList(Collections.singletonList((long) i))));
+    }
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+    assertTrue(pool.currentAvailableSize() <= 3);
+
+    SessionDataSetWrapper wrapper = pool
+        .executeQueryStatementAsync("select count(s0) from root.sg1.d1").get(10, TimeUnit.SECONDS);
+    assertTrue(wrapper.hasNext());
+    assertEquals(10, wrapper.next().getFields().get(0).getLongV());
+    pool.closeResultSet(wrapper);
+
+    // the statement errors complete the futures exceptionally
+    try {
+      pool.executeQueryStatementAsync("select * from .root.sg1").get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof StatementExecutionException);
+    }
+    pool.close();
+    assertEquals(0, pool.currentOccupiedSize());
+  }
+
   @Test
   public void incorrectSQL() {
     SessionPool pool = new SessionPool("127.0.0.1", 6667, "root", "root", 3);
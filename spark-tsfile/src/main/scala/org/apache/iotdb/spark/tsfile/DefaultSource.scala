@@ -29,7 +29,9 @@ import org.apache.iotdb.hadoop.fileSystem.HDFSInput
 import org.apache.iotdb.spark.tsfile.DefaultSource.SerializableConfiguration
 import org.apache.iotdb.spark.tsfile.qp.Executor
 import org.apache.iotdb.tsfile.common.constant.QueryConstant
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader.LocateStatus
 import org.apache.iotdb.tsfile.read.common.Field
+import org.apache.iotdb.tsfile.read.controller.MetadataQuerierByFileImpl
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet
 import org.apache.iotdb.tsfile.read.{ReadOnlyTsFile, TsFileSequenceReader}
 import org.apache.spark.TaskContext
@@ -38,7 +40,8 @@ import org.apache.spark.sql.catalyst.InternalRow
 import org.apache.spark.sql.catalyst.encoders.RowEncoder
 import org.apache.spark.sql.catalyst.expressions.GenericRow
 import org.apache.spark.sql.execution.datasources.{FileFormat, OutputWriterFactory, PartitionedFile}
-import org.apache.spark.sql.sources.{DataSourceRegister, Filter}
+import org.apache.spark.sql.sources.{And, DataSourceRegister, EqualTo, Filter, GreaterThan,
+GreaterThanOrEqual, In, LessThan, LessThanOrEqual}
 import org.apache.spark.sql.types._
 import org.slf4j.LoggerFactory
 import scala.collection.JavaConversions._
@@ -117,7 +120,14 @@ private[tsfile] class DefaultSource extends FileFormat with DataSourceRegister {
       }
       }
 
-      if (options.getOrElse(DefaultSource.isNarrowForm, "").equals("narrow_form")) {
+      val isNarrow = options.getOrElse(DefaultSource.isNarrowForm, "").equals("narrow_form")
+
+      if (DefaultSource.canSkipPartition(reader, requiredSchema, filters, isNarrow, file.start,
+        file.start + file.length)) {
+        log.info("No chunk in this partition matches the query, skip it")
+        Iterator.empty
+      }
+      else if (isNarrow) {
         val deviceNames = reader.getAllDevices()
         
         val measurementNames = new java.util.HashSet[String]()
@@ -279,6 +289,76 @@ private[tsfile] object DefaultSource {
   val path = "path"
   val isNarrowForm = "form"
 
+  /**
+   * Whether none of the chunks located in the partition matches the series and time range of the
+   * query, so the partition is skipped without querying it. Like the query of the partition, a
+   * chunk is located in it when its header is, see MetadataQuerierByFileImpl.checkLocateStatus.
+   * Only the chunk metadata of the queried devices are read.
+   */
+  def canSkipPartition(reader: TsFileSequenceReader, requiredSchema: StructType,
+                       filters: Seq[Filter], isNarrow: Boolean, start: Long,
+                       end: Long): Boolean = {
+    // the wide form queries the given measurements of each device, the narrow form queries the
+    // same measurements of the devices in the filters or all devices
+    val wideSeries = new mutable.HashMap[String, mutable.Set[String]]()
+    val narrowDevices = new mutable.HashSet[String]()
+    val narrowMeasurements = new mutable.HashSet[String]()
+    requiredSchema.foreach((field: StructField) => field.name match {
+      case QueryConstant.RESERVED_TIME | NarrowConverter.DEVICE_NAME =>
+      case name if isNarrow => narrowMeasurements += name
+      case name =>
+        val seriesPath = new org.apache.iotdb.tsfile.read.common.Path(name, true)
+        wideSeries.getOrElseUpdate(seriesPath.getDevice, new mutable.HashSet[String]()) +=
+          seriesPath.getMeasurement
+    })
+
+    var startTime = Long.MinValue
+    var endTime = Long.MaxValue
+
+    def collect(filter: Filter): Unit = filter match {
+      case And(left, right) =>
+        collect(left)
+        collect(right)
+      case EqualTo(NarrowConverter.DEVICE_NAME, value) if isNarrow =>
+        narrowDevices += value.toString
+      case In(NarrowConverter.DEVICE_NAME, values) if isNarrow =>
+        values.foreach(value => narrowDevices += value.toString)
+      case EqualTo(QueryConstant.RESERVED_TIME, value: Number) =>
+        startTime = Math.max(startTime, value.longValue)
+        endTime = Math.min(endTime, value.longValue)
+      case GreaterThan(QueryConstant.RESERVED_TIME, value: Number) =>
+        startTime = Math.max(startTime, value.longValue + 1)
+      case GreaterThanOrEqual(QueryConstant.RESERVED_TIME, value: Number) =>
+        startTime = Math.max(startTime, value.longValue)
+      case LessThan(QueryConstant.RESERVED_TIME, value: Number) =>
+        endTime = Math.min(endTime, value.longValue - 1)
+      case LessThanOrEqual(QueryConstant.RESERVED_TIME, value: Number) =>
+        endTime = Math.min(endTime, value.longValue)
+      case _ =>
+    }
+
+    // the filters pushed down are in conjunction
+    filters.foreach(collect)
+
+    def isQueried(device: String, measurement: String): Boolean =
+      if (isNarrow) {
+        narrowMeasurements.isEmpty || narrowMeasurements.contains(measurement)
+      } else {
+        wideSeries.isEmpty || wideSeries(device).contains(measurement)
+      }
+
+    val devices = if (isNarrow) narrowDevices else wideSeries.keySet
+    val queriedDevices = if (devices.isEmpty) reader.getAllDevices.toSeq else devices.toSeq
+
+    !queriedDevices.exists(device => reader.readChunkMetadataInDevice(device).exists {
+      case (measurement, chunkMetadataList) =>
+        isQueried(device, measurement) && chunkMetadataList.exists(chunkMetadata =>
+          MetadataQuerierByFileImpl.checkLocateStatus(chunkMetadata, start, end) ==
+            LocateStatus.in
+            && chunkMetadata.getStartTime <= endTime && startTime <= chunkMetadata.getEndTime)
+    })
+  }
+
   class SerializableConfiguration(@transient var value: Configuration) extends Serializable {
     private def writeObject(out: ObjectOutputStream): Unit = {
       out.defaultWriteObject()
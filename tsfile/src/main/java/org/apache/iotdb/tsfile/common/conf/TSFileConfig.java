@@ -90,6 +90,18 @@ public class TSFileConfig implements Serializable {
    * The maximum number of data points in a page, default value is 1024 * 1024.
    */
   private int maxNumberOfPointsInPage = 1024 * 1024;
+  /**
+   * If positive, a page never holds points of two different time granules of this length (in the
+   * unit of the timestamps), so that page statistics can answer aggregations whose intervals are
+   * multiples of it. Default value is 0, which means pages are cut by size only.
+   */
+  private long pageTimeAlignmentInterval = 0;
+  /**
+   * Whether to choose the value encoding of each chunk among the lossless encodings of its data
+   * type by trying them on the first page of the chunk. Series whose encoding is lossy are never
+   * changed. Default value is false.
+   */
+  private boolean adaptiveEncodingEnabled = false;
   /**
    * The maximum degree of a metadataIndex node, default value is 1024
    */
@@ -240,6 +252,22 @@ public class TSFileConfig implements Serializable {
     this.maxNumberOfPointsInPage = maxNumberOfPointsInPage;
   }
 
+  public long getPageTimeAlignmentInterval() {
+    return pageTimeAlignmentInterval;
+  }
+
+  public void setPageTimeAlignmentInterval(long pageTimeAlignmentInterval) {
+    this.pageTimeAlignmentInterval = pageTimeAlignmentInterval;
+  }
+
+  public boolean isAdaptiveEncodingEnabled() {
+    return adaptiveEncodingEnabled;
+  }
+
+  public void setAdaptiveEncodingEnabled(boolean adaptiveEncodingEnabled) {
+    this.adaptiveEncodingEnabled = adaptiveEncodingEnabled;
+  }
+
   public int getMaxDegreeOfIndexNode() {
     return maxDegreeOfIndexNode;
   }
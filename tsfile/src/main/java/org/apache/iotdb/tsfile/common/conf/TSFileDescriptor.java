@@ -120,6 +120,10 @@ public class TSFileDescriptor {
       }
       conf.setMaxNumberOfPointsInPage(Integer.parseInt(
           properties.getProperty("max_number_of_points_in_page", Integer.toString(conf.getMaxNumberOfPointsInPage()))));
+      conf.setPageTimeAlignmentInterval(Long.parseLong(
+          properties.getProperty("page_time_alignment_interval", Long.toString(conf.getPageTimeAlignmentInterval()))));
+      conf.setAdaptiveEncodingEnabled(Boolean.parseBoolean(
+          properties.getProperty("enable_adaptive_encoding", Boolean.toString(conf.isAdaptiveEncodingEnabled()))));
       conf.setMaxDegreeOfIndexNode(Integer.parseInt(
           properties.getProperty("max_degree_of_index_node", Integer.toString(conf.getMaxDegreeOfIndexNode()))));
       conf.setTimeSeriesDataType(properties.getProperty("time_series_data_type", conf.getTimeSeriesDataType()));
@@ -22,6 +22,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -262,6 +263,14 @@ public class TsFileSequenceReader implements AutoCloseable {
     return tsFileMetaData;
   }
 
+  /**
+   * use file metadata that has already been read from the same file, e.g., by another reader, so
+   * that this reader does not read it again.
+   */
+  public void setFileMetadata(TsFileMetadata tsFileMetaData) {
+    this.tsFileMetaData = tsFileMetaData;
+  }
+
   /**
    * this function does not modify the position of the file reader.
    *
@@ -825,6 +834,24 @@ public class TsFileSequenceReader implements AutoCloseable {
     return new Chunk(header, buffer, metaData.getDeleteIntervalList(), metaData.getStatistics());
   }
 
+  /**
+   * get the number of bytes a chunk occupies in the file, including its header.
+   *
+   * @param metaData the metadata of the chunk
+   */
+  public long getChunkSize(ChunkMetadata metaData) throws IOException {
+    int chunkHeadSize = ChunkHeader.getSerializedSize(metaData.getMeasurementUid());
+    ChunkHeader header = readChunkHeader(metaData.getOffsetOfChunkHeader(), chunkHeadSize);
+    return (long) header.getSerializedSize() + header.getDataSize();
+  }
+
+  /**
+   * get the channel of the file, so that raw bytes can be transferred without deserializing them.
+   */
+  public FileChannel getFileChannel() throws IOException {
+    return tsFileInput.wrapAsFileChannel();
+  }
+
   /**
    * not thread safe.
    *
@@ -19,6 +19,7 @@
 package org.apache.iotdb.tsfile.read.reader.chunk;
 
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.Chunk;
 
 import java.io.IOException;
@@ -42,4 +43,18 @@ public class ChunkReaderByTimestamp extends ChunkReader {
     this.currentTimestamp = currentTimestamp;
   }
 
+  /**
+   * Only called when hasNextSatisfiedPage() is true.
+   */
+  public Statistics currentPageStatistics() {
+    return loadPageReaderList().get(0).getStatistics();
+  }
+
+  /**
+   * Skip the next page without decoding it, only called when hasNextSatisfiedPage() is true.
+   */
+  public void skipCurrentPage() {
+    loadPageReaderList().remove(0);
+  }
+
 }
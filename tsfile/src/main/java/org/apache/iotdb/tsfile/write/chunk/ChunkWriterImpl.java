@@ -24,12 +24,16 @@ import java.nio.channels.Channels;
 import java.nio.channels.WritableByteChannel;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.compress.ICompressor;
+import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
 import org.apache.iotdb.tsfile.encoding.encoder.SDTEncoder;
 import org.apache.iotdb.tsfile.exception.write.PageException;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.reader.page.PageReader;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.PublicBAOS;
 import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
@@ -66,6 +70,26 @@ public class ChunkWriterImpl implements IChunkWriter {
 
   private final int maxNumberOfPointsInPage;
 
+  /**
+   * if positive, points of different time granules of this length never share a page.
+   */
+  private final long pageTimeAlignmentInterval;
+
+  /**
+   * the time granule of the points in current page.
+   */
+  private long currentPageGranule;
+
+  /**
+   * if true, the value encoding of each chunk is chosen by EncodingSelector on its first page.
+   */
+  private final boolean adaptiveEncoding;
+
+  /**
+   * the value encoding of current chunk, which is recorded in its chunk header.
+   */
+  private TSEncoding valueEncoding;
+
   /**
    * value count in current page.
    */
@@ -112,6 +136,11 @@ public class ChunkWriterImpl implements IChunkWriter {
     this.pageSizeThreshold = TSFileDescriptor.getInstance().getConfig().getPageSizeInByte();
     this.maxNumberOfPointsInPage = TSFileDescriptor.getInstance().getConfig()
         .getMaxNumberOfPointsInPage();
+    this.pageTimeAlignmentInterval = TSFileDescriptor.getInstance().getConfig()
+        .getPageTimeAlignmentInterval();
+    this.adaptiveEncoding = TSFileDescriptor.getInstance().getConfig().isAdaptiveEncodingEnabled()
+        && EncodingSelector.isAdaptable(schema);
+    this.valueEncoding = schema.getEncodingType();
     // initial check of memory usage. So that we have enough data to make an initial prediction
     this.valueCountInOnePageForNextCheck = MINIMUM_RECORD_COUNT_FOR_CHECK;
 
@@ -158,10 +187,12 @@ public class ChunkWriterImpl implements IChunkWriter {
     // store last point for sdtEncoding, it still needs to go through encoding process
     // in case it exceeds compdev and needs to store second last point
     if (!isSdtEncoding || sdtEncoder.encodeLong(time, value)) {
-      pageWriter.write(isSdtEncoding ? sdtEncoder.getTime() : time,
-          isSdtEncoding ? sdtEncoder.getLongValue() : value);
+      long writtenTime = isSdtEncoding ? sdtEncoder.getTime() : time;
+      checkPageTimeAlignment(writtenTime);
+      pageWriter.write(writtenTime, isSdtEncoding ? sdtEncoder.getLongValue() : value);
     }
     if (isSdtEncoding && isLastPoint) {
+      checkPageTimeAlignment(time);
       pageWriter.write(time, value);
     }
     checkPageSizeAndMayOpenANewPage();
@@ -170,10 +201,12 @@ public class ChunkWriterImpl implements IChunkWriter {
   @Override
   public void write(long time, int value) {
     if (!isSdtEncoding || sdtEncoder.encodeInt(time, value)) {
-      pageWriter.write(isSdtEncoding ? sdtEncoder.getTime() : time,
-          isSdtEncoding ? sdtEncoder.getIntValue() : value);
+      long writtenTime = isSdtEncoding ? sdtEncoder.getTime() : time;
+      checkPageTimeAlignment(writtenTime);
+      pageWriter.write(writtenTime, isSdtEncoding ? sdtEncoder.getIntValue() : value);
     }
     if (isSdtEncoding && isLastPoint) {
+      checkPageTimeAlignment(time);
       pageWriter.write(time, value);
     }
     checkPageSizeAndMayOpenANewPage();
@@ -181,6 +214,7 @@ public class ChunkWriterImpl implements IChunkWriter {
 
   @Override
   public void write(long time, boolean value) {
+    checkPageTimeAlignment(time);
     pageWriter.write(time, value);
     checkPageSizeAndMayOpenANewPage();
   }
@@ -188,11 +222,13 @@ public class ChunkWriterImpl implements IChunkWriter {
   @Override
   public void write(long time, float value) {
     if (!isSdtEncoding || sdtEncoder.encodeFloat(time, value)) {
-      pageWriter.write(isSdtEncoding ? sdtEncoder.getTime() : time,
-          isSdtEncoding ? sdtEncoder.getFloatValue() : value);
+      long writtenTime = isSdtEncoding ? sdtEncoder.getTime() : time;
+      checkPageTimeAlignment(writtenTime);
+      pageWriter.write(writtenTime, isSdtEncoding ? sdtEncoder.getFloatValue() : value);
     }
     //store last point for sdt encoding
     if (isSdtEncoding && isLastPoint) {
+      checkPageTimeAlignment(time);
       pageWriter.write(time, value);
     }
     checkPageSizeAndMayOpenANewPage();
@@ -201,10 +237,12 @@ public class ChunkWriterImpl implements IChunkWriter {
   @Override
   public void write(long time, double value) {
     if (!isSdtEncoding || sdtEncoder.encodeDouble(time, value)) {
-      pageWriter.write(isSdtEncoding ? sdtEncoder.getTime() : time,
-          isSdtEncoding ? sdtEncoder.getDoubleValue() : value);
+      long writtenTime = isSdtEncoding ? sdtEncoder.getTime() : time;
+      checkPageTimeAlignment(writtenTime);
+      pageWriter.write(writtenTime, isSdtEncoding ? sdtEncoder.getDoubleValue() : value);
     }
     if (isSdtEncoding && isLastPoint) {
+      checkPageTimeAlignment(time);
       pageWriter.write(time, value);
     }
     checkPageSizeAndMayOpenANewPage();
@@ -212,6 +250,7 @@ public class ChunkWriterImpl implements IChunkWriter {
 
   @Override
   public void write(long time, Binary value) {
+    checkPageTimeAlignment(time);
     pageWriter.write(time, value);
     checkPageSizeAndMayOpenANewPage();
   }
@@ -221,6 +260,15 @@ public class ChunkWriterImpl implements IChunkWriter {
     if (isSdtEncoding) {
       batchSize = sdtEncoder.encode(timestamps, values, batchSize);
     }
+    if (pageTimeAlignmentInterval > 0) {
+      // a batch may span several granules, so it is cut point by point
+      for (int i = 0; i < batchSize; i++) {
+        checkPageTimeAlignment(timestamps[i]);
+        pageWriter.write(timestamps[i], values[i]);
+        checkPageSizeAndMayOpenANewPage();
+      }
+      return;
+    }
     pageWriter.write(timestamps, values, batchSize);
     checkPageSizeAndMayOpenANewPage();
   }
@@ -230,12 +278,28 @@ public class ChunkWriterImpl implements IChunkWriter {
     if (isSdtEncoding) {
       batchSize = sdtEncoder.encode(timestamps, values, batchSize);
     }
+    if (pageTimeAlignmentInterval > 0) {
+      for (int i = 0; i < batchSize; i++) {
+        checkPageTimeAlignment(timestamps[i]);
+        pageWriter.write(timestamps[i], values[i]);
+        checkPageSizeAndMayOpenANewPage();
+      }
+      return;
+    }
     pageWriter.write(timestamps, values, batchSize);
     checkPageSizeAndMayOpenANewPage();
   }
 
   @Override
   public void write(long[] timestamps, boolean[] values, int batchSize) {
+    if (pageTimeAlignmentInterval > 0) {
+      for (int i = 0; i < batchSize; i++) {
+        checkPageTimeAlignment(timestamps[i]);
+        pageWriter.write(timestamps[i], values[i]);
+        checkPageSizeAndMayOpenANewPage();
+      }
+      return;
+    }
     pageWriter.write(timestamps, values, batchSize);
     checkPageSizeAndMayOpenANewPage();
   }
@@ -245,6 +309,14 @@ public class ChunkWriterImpl implements IChunkWriter {
     if (isSdtEncoding) {
       batchSize = sdtEncoder.encode(timestamps, values, batchSize);
     }
+    if (pageTimeAlignmentInterval > 0) {
+      for (int i = 0; i < batchSize; i++) {
+        checkPageTimeAlignment(timestamps[i]);
+        pageWriter.write(timestamps[i], values[i]);
+        checkPageSizeAndMayOpenANewPage();
+      }
+      return;
+    }
     pageWriter.write(timestamps, values, batchSize);
     checkPageSizeAndMayOpenANewPage();
   }
@@ -254,16 +326,50 @@ public class ChunkWriterImpl implements IChunkWriter {
     if (isSdtEncoding) {
       batchSize = sdtEncoder.encode(timestamps, values, batchSize);
     }
+    if (pageTimeAlignmentInterval > 0) {
+      for (int i = 0; i < batchSize; i++) {
+        checkPageTimeAlignment(timestamps[i]);
+        pageWriter.write(timestamps[i], values[i]);
+        checkPageSizeAndMayOpenANewPage();
+      }
+      return;
+    }
     pageWriter.write(timestamps, values, batchSize);
     checkPageSizeAndMayOpenANewPage();
   }
 
   @Override
   public void write(long[] timestamps, Binary[] values, int batchSize) {
+    if (pageTimeAlignmentInterval > 0) {
+      for (int i = 0; i < batchSize; i++) {
+        checkPageTimeAlignment(timestamps[i]);
+        pageWriter.write(timestamps[i], values[i]);
+        checkPageSizeAndMayOpenANewPage();
+      }
+      return;
+    }
     pageWriter.write(timestamps, values, batchSize);
     checkPageSizeAndMayOpenANewPage();
   }
 
+  /**
+   * if page time alignment is enabled and the point to be written belongs to another time granule
+   * than the points in current page, seal current page first, so that the statistics of each page
+   * cover exactly one granule.
+   */
+  private void checkPageTimeAlignment(long time) {
+    if (pageTimeAlignmentInterval <= 0) {
+      return;
+    }
+    long granule = Math.floorDiv(time, pageTimeAlignmentInterval);
+    if (pageWriter.getPointNumber() > 0 && granule != currentPageGranule) {
+      logger.debug("time granule changes, write page {}", measurementSchema);
+      writePageToPageBuffer();
+      valueCountInOnePageForNextCheck = MINIMUM_RECORD_COUNT_FOR_CHECK;
+    }
+    currentPageGranule = granule;
+  }
+
   /**
    * check occupied memory size, if it exceeds the PageSize threshold, construct a page and put it
    * to pageBuffer
@@ -295,6 +401,9 @@ public class ChunkWriterImpl implements IChunkWriter {
   private void writePageToPageBuffer() {
     try {
       if (numOfPages == 0) { // record the firstPageStatistics
+        if (adaptiveEncoding) {
+          selectValueEncoding();
+        }
         this.firstPageStatistics = pageWriter.getStatistics();
         this.sizeWithoutStatistic = pageWriter.writePageHeaderAndDataIntoBuff(pageBuffer, true);
       } else if (numOfPages == 1) { // put the firstPageStatistics into pageBuffer
@@ -320,6 +429,52 @@ public class ChunkWriterImpl implements IChunkWriter {
     }
   }
 
+  /**
+   * choose the value encoding of current chunk with the points of its first page, and re-encode
+   * the page with it. Encoders are flushed when the page is decoded, and flushing some of them
+   * again writes extra bytes, so the page is re-encoded by new encoders even if the encoding does
+   * not change.
+   */
+  private void selectValueEncoding() throws IOException {
+    TSDataType dataType = measurementSchema.getType();
+    Decoder timeDecoder = Decoder.getDecoderByType(
+        TSEncoding.valueOf(TSFileDescriptor.getInstance().getConfig().getTimeEncoder()),
+        TSDataType.valueOf(TSFileDescriptor.getInstance().getConfig().getTimeSeriesDataType()));
+    BatchData points = new PageReader(pageWriter.getUncompressedBytes(), dataType,
+        Decoder.getDecoderByType(valueEncoding, dataType), timeDecoder, null)
+        .getAllSatisfiedPageData(true);
+    TSEncoding chosen = EncodingSelector.select(measurementSchema, points);
+    logger.debug("choose encoding {} for a chunk of {}", chosen,
+        measurementSchema.getMeasurementId());
+    valueEncoding = chosen;
+    pageWriter.reset(measurementSchema);
+    pageWriter.setTimeEncoder(measurementSchema.getTimeEncoder());
+    pageWriter.setValueEncoder(EncodingSelector.getEncoder(measurementSchema, chosen));
+    while (points.hasCurrent()) {
+      switch (dataType) {
+        case BOOLEAN:
+          pageWriter.write(points.currentTime(), points.getBoolean());
+          break;
+        case INT32:
+          pageWriter.write(points.currentTime(), points.getInt());
+          break;
+        case INT64:
+          pageWriter.write(points.currentTime(), points.getLong());
+          break;
+        case FLOAT:
+          pageWriter.write(points.currentTime(), points.getFloat());
+          break;
+        case DOUBLE:
+          pageWriter.write(points.currentTime(), points.getDouble());
+          break;
+        default:
+          pageWriter.write(points.currentTime(), points.getBinary());
+          break;
+      }
+      points.next();
+    }
+  }
+
   @Override
   public void writeToFileWriter(TsFileIOWriter tsfileWriter) throws IOException {
     sealCurrentPage();
@@ -330,6 +485,12 @@ public class ChunkWriterImpl implements IChunkWriter {
     numOfPages = 0;
     firstPageStatistics = null;
     this.statistics = Statistics.getStatsByType(measurementSchema.getType());
+    if (valueEncoding != measurementSchema.getEncodingType()) {
+      valueEncoding = measurementSchema.getEncodingType();
+      if (pageWriter != null) {
+        pageWriter.setValueEncoder(measurementSchema.getValueEncoder());
+      }
+    }
   }
 
   @Override
@@ -422,7 +583,7 @@ public class ChunkWriterImpl implements IChunkWriter {
 
     // start to write this column chunk
     writer.startFlushChunk(measurementSchema, compressor.getType(), measurementSchema.getType(),
-        measurementSchema.getEncodingType(), statistics, pageBuffer.size(), numOfPages);
+        valueEncoding, statistics, pageBuffer.size(), numOfPages);
 
     long dataOffset = writer.getPos();
 
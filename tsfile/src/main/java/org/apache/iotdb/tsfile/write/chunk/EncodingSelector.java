@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.write.chunk;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.encoding.encoder.TSEncodingBuilder;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+/**
+ * Chooses the value encoding of a chunk by encoding a sample of its points, usually its first page,
+ * with every lossless encoding of the data type and keeping the one with the smallest output. Only
+ * lossless encodings are candidates, so the values read back are the same whatever is chosen.
+ * Statistics of the choices are kept for monitoring.
+ */
+public class EncodingSelector {
+
+  private static final Map<TSDataType, List<TSEncoding>> CANDIDATES = new EnumMap<>(
+      TSDataType.class);
+
+  static {
+    CANDIDATES.put(TSDataType.BOOLEAN, Arrays.asList(TSEncoding.PLAIN, TSEncoding.RLE));
+    CANDIDATES.put(TSDataType.INT32, Arrays
+        .asList(TSEncoding.PLAIN, TSEncoding.RLE, TSEncoding.TS_2DIFF, TSEncoding.GORILLA));
+    CANDIDATES.put(TSDataType.INT64, Arrays
+        .asList(TSEncoding.PLAIN, TSEncoding.RLE, TSEncoding.TS_2DIFF, TSEncoding.GORILLA));
+    // RLE and TS_2DIFF keep only max_point_number digits of floating numbers
+    CANDIDATES.put(TSDataType.FLOAT, Arrays.asList(TSEncoding.PLAIN, TSEncoding.GORILLA));
+    CANDIDATES.put(TSDataType.DOUBLE, Arrays.asList(TSEncoding.PLAIN, TSEncoding.GORILLA));
+    CANDIDATES.put(TSDataType.TEXT, Collections.emptyList());
+  }
+
+  /**
+   * how many chunks have chosen each encoding, indexed by the ordinal of the encoding.
+   */
+  private static final AtomicLongArray chosenChunkNum = new AtomicLongArray(
+      TSEncoding.values().length);
+
+  /**
+   * bytes of the samples saved by the choices compared with the configured encodings.
+   */
+  private static final AtomicLong savedBytes = new AtomicLong();
+
+  private EncodingSelector() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * @return whether the encoding of the series may be replaced, i.e. its configured encoding is
+   * lossless and there is another candidate.
+   */
+  public static boolean isAdaptable(MeasurementSchema schema) {
+    List<TSEncoding> candidates = CANDIDATES.get(schema.getType());
+    return candidates != null && candidates.size() > 1 && candidates
+        .contains(schema.getEncodingType());
+  }
+
+  /**
+   * encode the sample with every candidate encoding of the series.
+   *
+   * @return the encoding with the smallest output, the configured encoding of the series if there
+   * is a tie
+   */
+  public static TSEncoding select(MeasurementSchema schema, BatchData sample) throws IOException {
+    TSEncoding configured = schema.getEncodingType();
+    long configuredSize = encodedSize(schema, configured, sample);
+    TSEncoding chosen = configured;
+    long chosenSize = configuredSize;
+    for (TSEncoding encoding : CANDIDATES.get(schema.getType())) {
+      if (encoding == configured) {
+        continue;
+      }
+      long size = encodedSize(schema, encoding, sample);
+      if (size < chosenSize) {
+        chosen = encoding;
+        chosenSize = size;
+      }
+    }
+    chosenChunkNum.incrementAndGet(chosen.ordinal());
+    savedBytes.addAndGet(configuredSize - chosenSize);
+    return chosen;
+  }
+
+  public static Encoder getEncoder(MeasurementSchema schema, TSEncoding encoding) {
+    TSEncodingBuilder builder = TSEncodingBuilder.getEncodingBuilder(encoding);
+    builder.initFromProps(schema.getProps());
+    return builder.getEncoder(schema.getType());
+  }
+
+  private static long encodedSize(MeasurementSchema schema, TSEncoding encoding,
+      BatchData sample) throws IOException {
+    Encoder encoder = getEncoder(schema, encoding);
+    PublicBAOS out = new PublicBAOS();
+    sample.resetBatchData();
+    while (sample.hasCurrent()) {
+      switch (schema.getType()) {
+        case BOOLEAN:
+          encoder.encode(sample.getBoolean(), out);
+          break;
+        case INT32:
+          encoder.encode(sample.getInt(), out);
+          break;
+        case INT64:
+          encoder.encode(sample.getLong(), out);
+          break;
+        case FLOAT:
+          encoder.encode(sample.getFloat(), out);
+          break;
+        case DOUBLE:
+          encoder.encode(sample.getDouble(), out);
+          break;
+        default:
+          encoder.encode(sample.getBinary(), out);
+          break;
+      }
+      sample.next();
+    }
+    encoder.flush(out);
+    sample.resetBatchData();
+    return out.size();
+  }
+
+  /**
+   * @return how many chunks have chosen each encoding since the statistics were reset.
+   */
+  public static Map<TSEncoding, Long> getChosenChunkNum() {
+    Map<TSEncoding, Long> result = new EnumMap<>(TSEncoding.class);
+    for (TSEncoding encoding : TSEncoding.values()) {
+      long num = chosenChunkNum.get(encoding.ordinal());
+      if (num > 0) {
+        result.put(encoding, num);
+      }
+    }
+    return result;
+  }
+
+  public static long getSavedBytes() {
+    return savedBytes.get();
+  }
+
+  public static void resetStatistics() {
+    for (int i = 0; i < chosenChunkNum.length(); i++) {
+      chosenChunkNum.set(i, 0);
+    }
+    savedBytes.set(0);
+  }
+}
@@ -19,12 +19,14 @@
 package org.apache.iotdb.tsfile.write.writer;
 
 import java.io.BufferedOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * a TsFileOutput implementation with FileOutputStream. If the file is not
@@ -88,4 +90,19 @@ public class LocalTsFileOutput implements TsFileOutput {
     outputStream.getChannel().truncate(size);
   }
 
+  @Override
+  public void transferFrom(FileChannel source, long position, long count) throws IOException {
+    // buffered bytes must reach the file before the transferred ones
+    bufferedStream.flush();
+    FileChannel channel = outputStream.getChannel();
+    while (count > 0) {
+      long transferred = source.transferTo(position, count, channel);
+      if (transferred <= 0) {
+        throw new EOFException("Reach the end of the source before transferring all bytes");
+      }
+      position += transferred;
+      count -= transferred;
+    }
+  }
+
 }
@@ -43,6 +43,7 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Chunk;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.utils.BytesUtils;
@@ -202,6 +203,51 @@ public class TsFileIOWriter {
     }
   }
 
+  /**
+   * Write whole chunks in another file into this file by transferring their raw bytes, without
+   * reading them into memory. Chunks adjacent in the source file are transferred together.
+   * Providing zero-copy merge for IoTDB.
+   *
+   * @param reader            the reader of the source file
+   * @param chunkMetadataList metadata of the chunks to write, sorted by their offsets in the
+   *                          source file
+   * @return the number of bytes written
+   */
+  public long transferChunks(TsFileSequenceReader reader, List<ChunkMetadata> chunkMetadataList)
+      throws IOException {
+    long transferredSize = 0;
+    // the range of adjacent chunks in the source file that is not transferred yet
+    long rangeStart = -1;
+    long rangeEnd = -1;
+    long targetStart = out.getPosition();
+    for (ChunkMetadata chunkMetadata : chunkMetadataList) {
+      long chunkOffset = chunkMetadata.getOffsetOfChunkHeader();
+      if (chunkOffset != rangeEnd) {
+        if (rangeStart >= 0) {
+          out.transferFrom(reader.getFileChannel(), rangeStart, rangeEnd - rangeStart);
+          transferredSize += rangeEnd - rangeStart;
+          targetStart += rangeEnd - rangeStart;
+        }
+        rangeStart = chunkOffset;
+        rangeEnd = chunkOffset;
+      }
+      currentChunkMetadata = new ChunkMetadata(chunkMetadata.getMeasurementUid(),
+          chunkMetadata.getDataType(), targetStart + chunkOffset - rangeStart,
+          chunkMetadata.getStatistics());
+      endCurrentChunk();
+      rangeEnd += reader.getChunkSize(chunkMetadata);
+    }
+    if (rangeStart >= 0) {
+      out.transferFrom(reader.getFileChannel(), rangeStart, rangeEnd - rangeStart);
+      transferredSize += rangeEnd - rangeStart;
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("end transferring {} chunks of {} bytes", chunkMetadataList.size(),
+          transferredSize);
+    }
+    return transferredSize;
+  }
+
   /**
    * end chunk and write some log.
    */
@@ -18,9 +18,11 @@
  */
 package org.apache.iotdb.tsfile.write.writer;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 public interface TsFileOutput {
 
@@ -90,4 +92,29 @@ public interface TsFileOutput {
    */
   void truncate(long size) throws IOException;
 
+  /**
+   * Writes <code>count</code> bytes of the source channel starting from <code>position</code> to
+   * this output at the current position. The default implementation copies through the heap,
+   * implementations backed by a local file may transfer the bytes without copying them.
+   *
+   * @param source   the channel to read from, its position is not changed
+   * @param position the position in the source channel of the first byte to write
+   * @param count    the number of bytes to write
+   * @throws IOException if an I/O error occurs or the source ends before <code>count</code> bytes
+   */
+  default void transferFrom(FileChannel source, long position, long count) throws IOException {
+    while (count > 0) {
+      ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(count, 64 * 1024));
+      while (buffer.hasRemaining()) {
+        int read = source.read(buffer, position + buffer.position());
+        if (read < 0) {
+          throw new EOFException("Reach the end of the source before transferring all bytes");
+        }
+      }
+      write(buffer.array());
+      position += buffer.capacity();
+      count -= buffer.capacity();
+    }
+  }
+
 }
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.write.chunk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.constant.TestConstant;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.reader.IPageReader;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChunkWriterImplTest {
+
+  private final TSFileConfig config = TSFileDescriptor.getInstance().getConfig();
+  private long prevPageTimeAlignmentInterval;
+  private boolean prevAdaptiveEncodingEnabled;
+  private final String tsfile = TestConstant.BASE_OUTPUT_PATH.concat("chunkWriterImplTest.tsfile");
+
+  @Before
+  public void setUp() {
+    prevPageTimeAlignmentInterval = config.getPageTimeAlignmentInterval();
+    prevAdaptiveEncodingEnabled = config.isAdaptiveEncodingEnabled();
+  }
+
+  @After
+  public void tearDown() {
+    config.setPageTimeAlignmentInterval(prevPageTimeAlignmentInterval);
+    config.setAdaptiveEncodingEnabled(prevAdaptiveEncodingEnabled);
+    File file = new File(tsfile);
+    if (file.exists()) {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testPageTimeAlignment() {
+    config.setPageTimeAlignmentInterval(100);
+    ChunkWriterImpl chunkWriter = new ChunkWriterImpl(
+        new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.PLAIN));
+    // 3 whole granules and a part of the 4th one
+    for (long time = 0; time < 350; time++) {
+      chunkWriter.write(time, time);
+    }
+    chunkWriter.sealCurrentPage();
+    assertEquals(4, chunkWriter.getNumOfPages());
+  }
+
+  @Test
+  public void testPageTimeAlignmentWithNegativeTime() {
+    config.setPageTimeAlignmentInterval(100);
+    ChunkWriterImpl chunkWriter = new ChunkWriterImpl(
+        new MeasurementSchema("s1", TSDataType.DOUBLE, TSEncoding.GORILLA));
+    // [-150, -100), [-100, 0) and [0, 50)
+    for (long time = -150; time < 50; time++) {
+      chunkWriter.write(time, (double) time);
+    }
+    chunkWriter.sealCurrentPage();
+    assertEquals(3, chunkWriter.getNumOfPages());
+  }
+
+  @Test
+  public void testPageTimeAlignmentInBatch() {
+    config.setPageTimeAlignmentInterval(100);
+    ChunkWriterImpl chunkWriter = new ChunkWriterImpl(
+        new MeasurementSchema("s1", TSDataType.INT32, TSEncoding.RLE));
+    long[] timestamps = new long[250];
+    int[] values = new int[250];
+    for (int i = 0; i < 250; i++) {
+      timestamps[i] = i + 50L;
+      values[i] = i;
+    }
+    // [50, 100), [100, 200) and [200, 300)
+    chunkWriter.write(timestamps, values, 250);
+    chunkWriter.sealCurrentPage();
+    assertEquals(3, chunkWriter.getNumOfPages());
+  }
+
+  @Test
+  public void testPageTimeAlignmentWithSdt() throws IOException {
+    config.setPageTimeAlignmentInterval(100);
+    Map<String, String> props = new HashMap<>();
+    props.put("loss", "sdt");
+    props.put("compdev", "0.01");
+    ChunkWriterImpl chunkWriter = new ChunkWriterImpl(
+        new MeasurementSchema("s1", TSDataType.DOUBLE, TSEncoding.PLAIN,
+            CompressionType.UNCOMPRESSED, props));
+    TsFileIOWriter writer = new TsFileIOWriter(new File(tsfile));
+    writer.startChunkGroup("d1");
+    // SDT releases a point only when a later one arrives, so the last point of a granule is
+    // written after the first point of the next granule has been received
+    for (long time = 0; time < 300; time++) {
+      chunkWriter.write(time, time % 7 == 0 ? 10.0 : 0.0);
+    }
+    chunkWriter.writeToFileWriter(writer);
+    writer.endChunkGroup();
+    writer.endFile();
+
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(tsfile)) {
+      List<ChunkMetadata> chunkMetadataList = reader.getChunkMetadataList(new Path("d1", "s1"));
+      ChunkReader chunkReader = new ChunkReader(reader.readMemChunk(chunkMetadataList.get(0)),
+          null);
+      List<IPageReader> pageReaders = chunkReader.loadPageReaderList();
+      assertEquals(3, pageReaders.size());
+      for (IPageReader pageReader : pageReaders) {
+        Statistics<?> statistics = pageReader.getStatistics();
+        assertEquals(statistics.getStartTime() / 100, statistics.getEndTime() / 100);
+      }
+    }
+  }
+
+  @Test
+  public void testNoPageTimeAlignment() {
+    config.setPageTimeAlignmentInterval(0);
+    ChunkWriterImpl chunkWriter = new ChunkWriterImpl(
+        new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.PLAIN));
+    for (long time = 0; time < 350; time++) {
+      chunkWriter.write(time, time);
+    }
+    chunkWriter.sealCurrentPage();
+    assertEquals(1, chunkWriter.getNumOfPages());
+  }
+
+  @Test
+  public void testAdaptiveEncoding() throws IOException {
+    config.setAdaptiveEncodingEnabled(true);
+    config.setPageTimeAlignmentInterval(0);
+    MeasurementSchema schema = new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.PLAIN);
+    ChunkWriterImpl chunkWriter = new ChunkWriterImpl(schema);
+    TsFileIOWriter writer = new TsFileIOWriter(new File(tsfile));
+    writer.startChunkGroup("d1");
+    // an increasing series is much smaller in TS_2DIFF than in PLAIN
+    for (long time = 0; time < 1000; time++) {
+      chunkWriter.write(time, time * 10);
+    }
+    chunkWriter.writeToFileWriter(writer);
+    // the encoding is chosen again for the next chunk
+    for (long time = 1000; time < 2000; time++) {
+      chunkWriter.write(time, time % 2 == 0 ? Long.MAX_VALUE : Long.MIN_VALUE);
+    }
+    chunkWriter.writeToFileWriter(writer);
+    writer.endChunkGroup();
+    writer.endFile();
+
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(tsfile)) {
+      List<ChunkMetadata> chunkMetadataList = reader.getChunkMetadataList(new Path("d1", "s1"));
+      assertEquals(2, chunkMetadataList.size());
+      long time = 0;
+      for (ChunkMetadata chunkMetadata : chunkMetadataList) {
+        Chunk chunk = reader.readMemChunk(chunkMetadata);
+        if (time == 0) {
+          assertTrue(chunk.getHeader().getEncodingType() != TSEncoding.PLAIN);
+        }
+        ChunkReader chunkReader = new ChunkReader(chunk, null);
+        while (chunkReader.hasNextSatisfiedPage()) {
+          BatchData batchData = chunkReader.nextPageData();
+          while (batchData.hasCurrent()) {
+            assertEquals(time, batchData.currentTime());
+            long expected = time < 1000 ? time * 10
+                : (time % 2 == 0 ? Long.MAX_VALUE : Long.MIN_VALUE);
+            assertEquals(expected, batchData.getLong());
+            time++;
+            batchData.next();
+          }
+        }
+      }
+      assertEquals(2000, time);
+    }
+  }
+
+  @Test
+  public void testNoAdaptiveEncodingForLossyEncoding() {
+    // TS_2DIFF on doubles keeps only max_point_number digits, so it is never replaced
+    MeasurementSchema schema = new MeasurementSchema("s1", TSDataType.DOUBLE, TSEncoding.TS_2DIFF);
+    assertTrue(!EncodingSelector.isAdaptable(schema));
+    schema = new MeasurementSchema("s1", TSDataType.DOUBLE, TSEncoding.GORILLA);
+    assertTrue(EncodingSelector.isAdaptable(schema));
+  }
+}